@@ -8,6 +8,7 @@ import java.util.Map;
 import javax.inject.Inject;
 
 import org.ovirt.engine.core.bll.context.CommandContext;
+import org.ovirt.engine.core.bll.migration.EvacuationScheduler;
 import org.ovirt.engine.core.bll.network.cluster.NetworkClusterHelper;
 import org.ovirt.engine.core.bll.utils.GlusterUtil;
 import org.ovirt.engine.core.bll.validator.HostValidator;
@@ -41,6 +42,9 @@ public class ActivateVdsCommand<T extends VdsActionParameters> extends VdsComman
 
     @Inject
     private GlusterUtil glusterUtil;
+
+    @Inject
+    private EvacuationScheduler evacuationScheduler;
     public ActivateVdsCommand(T parameters, CommandContext commandContext) {
         super(parameters, commandContext);
     }
@@ -64,6 +68,7 @@ public class ActivateVdsCommand<T extends VdsActionParameters> extends VdsComman
         final VDS vds = getVds();
         try (EngineLock monitoringLock = acquireMonitorLock("Activate host")) {
             executionHandler.updateSpecificActionJobCompleted(vds.getId(), ActionType.MaintenanceVds, false);
+            evacuationScheduler.cancelEvacuation(vds.getId());
             setSucceeded(setVdsStatus(VDSStatus.Unassigned).getSucceeded());
 
             if (getSucceeded()) {
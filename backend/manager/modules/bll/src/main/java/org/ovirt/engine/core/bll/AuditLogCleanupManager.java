@@ -25,6 +25,12 @@ public class AuditLogCleanupManager implements BackendService {
 
     private static final Logger log = LoggerFactory.getLogger(AuditLogCleanupManager.class);
 
+    /**
+     * The number of days ahead the daily partitions of the audit log are created for, so the entries are not stored
+     * in the default partition if the cleanup doesn't run for a few days.
+     */
+    private static final int PARTITION_DAYS_AHEAD = 7;
+
     @Inject
     @ThreadPools(ThreadPools.ThreadPoolType.EngineScheduledThreadPool)
     private ManagedScheduledExecutorService executor;
@@ -42,6 +48,8 @@ public class AuditLogCleanupManager implements BackendService {
         String cronExpression = String.format("%d %d %d * * ?", calendar.get(Calendar.SECOND),
                 calendar.get(Calendar.MINUTE), calendar.get(Calendar.HOUR_OF_DAY));
 
+        createPartitions();
+
         log.info("Setting audit cleanup manager to run at '{}'", cronExpression);
         executor.schedule(this::cleanup, new EngineCronTrigger(cronExpression));
         log.info("Finished initializing {}", getClass().getSimpleName());
@@ -53,6 +61,7 @@ public class AuditLogCleanupManager implements BackendService {
             DateTime latestTimeToKeep = DateTime.getNow().addDays(
                     Config.<Integer>getValue(ConfigValues.AuditLogAgingThreshold)
                             * -1);
+            createPartitions();
             auditLogDao.removeAllBeforeDate(latestTimeToKeep);
             log.debug("Finished cleanup");
         } catch (Throwable t) {
@@ -61,4 +70,14 @@ public class AuditLogCleanupManager implements BackendService {
         }
     }
 
+    private void createPartitions() {
+        try {
+            DateTime now = DateTime.getNow();
+            auditLogDao.createPartitions(now, now.addDays(PARTITION_DAYS_AHEAD));
+        } catch (RuntimeException e) {
+            log.error("Exception in creating audit log partitions: {}", ExceptionUtils.getRootCauseMessage(e));
+            log.debug("Exception", e);
+        }
+    }
+
 }
@@ -2,28 +2,34 @@ package org.ovirt.engine.core.bll;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.concurrent.ManagedScheduledExecutorService;
 import javax.inject.Inject;
 
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.ovirt.engine.core.bll.interfaces.BackendInternal;
 import org.ovirt.engine.core.bll.job.ExecutionHandler;
+import org.ovirt.engine.core.bll.scheduling.SchedulingManager;
 import org.ovirt.engine.core.common.AuditLogType;
 import org.ovirt.engine.core.common.BackendService;
 import org.ovirt.engine.core.common.action.ActionReturnValue;
 import org.ovirt.engine.core.common.action.ActionType;
 import org.ovirt.engine.core.common.action.RunVmParams;
 import org.ovirt.engine.core.common.businessentities.Snapshot;
+import org.ovirt.engine.core.common.businessentities.VDS;
 import org.ovirt.engine.core.common.businessentities.VM;
 import org.ovirt.engine.core.common.config.Config;
 import org.ovirt.engine.core.common.config.ConfigValues;
@@ -33,10 +39,14 @@ import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogable;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogableImpl;
+import org.ovirt.engine.core.dao.ClusterDao;
 import org.ovirt.engine.core.dao.SnapshotDao;
 import org.ovirt.engine.core.dao.VmDao;
+import org.ovirt.engine.core.utils.DurationStatistics;
+import org.ovirt.engine.core.utils.MBeanRegistration;
 import org.ovirt.engine.core.utils.lock.EngineLock;
 import org.ovirt.engine.core.utils.lock.LockManager;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 import org.ovirt.engine.core.utils.threadpool.ThreadPools;
 import org.ovirt.engine.core.vdsbroker.monitoring.VmsMonitoring;
 import org.slf4j.Logger;
@@ -57,13 +67,15 @@ import org.slf4j.LoggerFactory;
  * - If the VM is locked by other module, we skip it in the current cycle and try again in the next cycle.
  * - If we managed to lock the VM, we check if it still needs to be automatically started. If not, we remove
  * it from the list of VMs to start and skip it (the VM will not be automatically started).
- * - Otherwise, we try to start the VM. If we immediately fail, we retry every {@link ConfigValues#RetryToRunAutoStartVmShortIntervalInSeconds}
+ * - Otherwise, we try to start the VM. The VMs that are ready to be started in a cycle are first checked, in bulk per
+ * cluster, for hosts they can run on, and those that can run on some host are then started in the order of their
+ * priority by up to {@link ConfigValues#AutoStartVmsRunnerMaxConcurrentStarts} concurrent runs. If we immediately fail, we retry every {@link ConfigValues#RetryToRunAutoStartVmShortIntervalInSeconds}
  * sec to start it for {@link ConfigValues#NumOfTriesToRunFailedAutoStartVmInShortIntervals} times. When all those attempts immediately fail,
  * we remove the VM from the list of VMs to start and skip it (the VM will not be automatically started).
  * - Otherwise, we successfully scheduled an attempt to start the VM. From this point on, it is the monitoring
  * module ({@link VmsMonitoring}) that will track the VM and re-register it to this service in case of a failure.
  */
-public abstract class AutoStartVmsRunner implements BackendService {
+public abstract class AutoStartVmsRunner implements BackendService, AutoStartVmsRunnerMXBean {
 
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -82,25 +94,35 @@ public abstract class AutoStartVmsRunner implements BackendService {
     @Inject
     private SnapshotDao snapshotDao;
 
+    @Inject
+    private ClusterDao clusterDao;
+
+    @Inject
+    private SchedulingManager schedulingManager;
+
     @Inject
     @ThreadPools(ThreadPools.ThreadPoolType.EngineScheduledThreadPool)
     private ManagedScheduledExecutorService executor;
 
-    private Map<Guid, AutoStartVmToRestart> autoStartVmsToRestart;
+    private final Map<Guid, AutoStartVmToRestart> autoStartVmsToRestart = new ConcurrentHashMap<>();
 
     private Set<Guid> vmsToAdd;
     private final Object vmsToAddLock = new Object();
 
     protected boolean considerPriority;
 
+    private final DurationStatistics restartDurations = new DurationStatistics();
+    private volatile Map<String, Long> lastTimesToRestart = Collections.emptyMap();
+
+    private MBeanRegistration mBeanRegistration;
+
     public AutoStartVmsRunner(boolean considerPriority) {
         this.considerPriority = considerPriority;
     }
 
     @PostConstruct
     private void init() {
-        autoStartVmsToRestart = getInitialVmsToStart().stream()
-            .collect(Collectors.toMap(AutoStartVmToRestart::getVmId, a -> a));
+        getInitialVmsToStart().forEach(a -> autoStartVmsToRestart.put(a.getVmId(), a));
 
         long autoStartVmsRunnerIntervalInSeconds =
                 Config.<Long>getValue(ConfigValues.AutoStartVmsRunnerIntervalInSeconds);
@@ -109,6 +131,12 @@ public abstract class AutoStartVmsRunner implements BackendService {
                 autoStartVmsRunnerIntervalInSeconds,
                 autoStartVmsRunnerIntervalInSeconds,
                 TimeUnit.SECONDS);
+        mBeanRegistration = MBeanRegistration.register("AutoStartVmsRunner", this);
+    }
+
+    @PreDestroy
+    private void unregisterFromJMX() {
+        mBeanRegistration.unregister();
     }
 
     protected abstract Collection<AutoStartVmToRestart> getInitialVmsToStart();
@@ -132,7 +160,7 @@ public abstract class AutoStartVmsRunner implements BackendService {
         }
     }
 
-    private void startFailedAutoStartVms() {
+    void startFailedAutoStartVms() {
         try {
             startFailedAutoStartVmsImpl();
         } catch (Throwable t) {
@@ -166,6 +194,7 @@ public abstract class AutoStartVmsRunner implements BackendService {
         }
 
         int neededPriority = Integer.MIN_VALUE;
+        List<AutoStartVmToRestart> vmsToRun = new ArrayList<>();
         for (AutoStartVmToRestart autoStartVmToRestart : vmsToRestart) {
             if (autoStartVmToRestart.getVm() == null) {
                 log.debug("VM '{}' was removed, excluding it from auto-start list", autoStartVmToRestart.getVmId());
@@ -175,7 +204,7 @@ public abstract class AutoStartVmsRunner implements BackendService {
 
             if (autoStartVmToRestart.getState() == AutoStartVmToRestart.State.VM_DOWN) {
                 autoStartVmToRestart.setState(
-                        processVmDown(autoStartVmToRestart, neededPriority, iterationStartTime));
+                        processVmDown(autoStartVmToRestart, neededPriority, iterationStartTime, vmsToRun));
             }
 
             if (autoStartVmToRestart.getState() == AutoStartVmToRestart.State.VM_STARTING) {
@@ -191,6 +220,10 @@ public abstract class AutoStartVmsRunner implements BackendService {
 
             neededPriority = Math.max(neededPriority, autoStartVmToRestart.getVm().getPriority());
         }
+
+        if (!vmsToRun.isEmpty()) {
+            runVms(vmsToRun, iterationStartTime);
+        }
     }
 
     private void processVmsToAdd() {
@@ -211,7 +244,8 @@ public abstract class AutoStartVmsRunner implements BackendService {
 
     private AutoStartVmToRestart.State processVmDown(AutoStartVmToRestart autoStartVmToRestart,
             int neededPriority,
-            DateTime iterationStartTime) {
+            DateTime iterationStartTime,
+            List<AutoStartVmToRestart> vmsToRun) {
 
         Guid vmId = autoStartVmToRestart.getVmId();
         VM vm = autoStartVmToRestart.getVm();
@@ -262,12 +296,113 @@ public abstract class AutoStartVmsRunner implements BackendService {
             return AutoStartVmToRestart.State.VM_STARTING;
         }
 
-        if (runVmAndUpdateStatus(vm, runVmLock)) {
-            // The VM reached WaitForLunch. The STARTING state will monitor it's startup.
-            return AutoStartVmToRestart.State.VM_STARTING;
+        // The VM is run at the end of the iteration, along with the other VMs that are ready to run.
+        // Until then it blocks VMs with lower priority like a starting VM.
+        autoStartVmToRestart.setRunVmLock(runVmLock);
+        vmsToRun.add(autoStartVmToRestart);
+        return AutoStartVmToRestart.State.VM_DOWN;
+    }
+
+    /**
+     * Runs the given VMs, which are locked and ready to run, and updates their state according to the result.
+     */
+    private void runVms(List<AutoStartVmToRestart> vmsToRun, DateTime iterationStartTime) {
+        Map<Guid, Boolean> results = new ConcurrentHashMap<>();
+        runVmsConcurrently(filterSchedulableVms(vmsToRun, results), results);
+
+        Map<String, Long> timesToRestart = new LinkedHashMap<>();
+        for (AutoStartVmToRestart vmToRestart : vmsToRun) {
+            Boolean succeeded = results.get(vmToRestart.getVmId());
+            if (succeeded == null) {
+                // The VM was not run, it will be tried again in the next iteration
+                continue;
+            }
+
+            VM vm = vmToRestart.getVm();
+            AutoStartVmToRestart.State state;
+            if (succeeded) {
+                long timeToRestart = vmToRestart.getTimeSinceRegistration();
+                log.info("VM '{}' ({}) was restarted {} ms after it went down", vm.getName(), vm.getId(), timeToRestart);
+                timesToRestart.put(vm.getName(), timeToRestart);
+                restartDurations.add(timeToRestart);
+                // The VM reached WaitForLunch. The STARTING state will monitor it's startup.
+                state = processVmStarting(vmToRestart, iterationStartTime);
+            } else {
+                state = scheduleNextTimeToStart(vmToRestart, iterationStartTime, vm);
+            }
+
+            vmToRestart.setState(state);
+            if (state == AutoStartVmToRestart.State.AUTOSTART_FINISHED) {
+                autoStartVmsToRestart.remove(vmToRestart.getVmId());
+            }
         }
 
-        return scheduleNextTimeToStart(autoStartVmToRestart, iterationStartTime, vm);
+        if (!timesToRestart.isEmpty()) {
+            lastTimesToRestart = Collections.unmodifiableMap(timesToRestart);
+        }
+    }
+
+    /**
+     * Checks, in bulk per cluster, which of the given VMs can run on some host. The VMs that can't are released and
+     * marked as failed to run in the given results, so they are not run.
+     *
+     * @return the VMs that can run on some host, in the given order
+     */
+    private List<AutoStartVmToRestart> filterSchedulableVms(List<AutoStartVmToRestart> vmsToRun,
+            Map<Guid, Boolean> results) {
+        Map<Guid, List<VM>> vmsByCluster = vmsToRun.stream()
+                .map(AutoStartVmToRestart::getVm)
+                .collect(Collectors.groupingBy(VM::getClusterId));
+
+        Set<Guid> unschedulableVms = new HashSet<>();
+        vmsByCluster.forEach((clusterId, vms) -> {
+            List<String> messages = new ArrayList<>();
+            Map<Guid, List<VDS>> candidateHosts;
+            try {
+                candidateHosts = schedulingManager.prepareCall(clusterDao.get(clusterId))
+                        .doNotGroupVms(true)
+                        .outputMessages(messages)
+                        .canSchedule(vms);
+            } catch (RuntimeException e) {
+                // The run of the VMs will fail if they can't be scheduled
+                log.warn("Failed to find hosts for VMs to auto-start in cluster '{}': {}", clusterId, e.getMessage());
+                log.debug("Exception", e);
+                return;
+            }
+
+            vms.stream()
+                    .filter(vm -> candidateHosts.getOrDefault(vm.getId(), Collections.emptyList()).isEmpty())
+                    .forEach(vm -> {
+                        log.info("Cannot auto-start VM '{}', no host can run it: {}", vm.getName(), messages);
+                        unschedulableVms.add(vm.getId());
+                    });
+        });
+
+        List<AutoStartVmToRestart> schedulableVms = new ArrayList<>();
+        for (AutoStartVmToRestart vmToRestart : vmsToRun) {
+            if (unschedulableVms.contains(vmToRestart.getVmId())) {
+                releaseLock(vmToRestart.getRunVmLock());
+                results.put(vmToRestart.getVmId(), false);
+            } else {
+                schedulableVms.add(vmToRestart);
+            }
+        }
+        return schedulableVms;
+    }
+
+    /**
+     * Runs the given VMs, in the given order, by up to {@link ConfigValues#AutoStartVmsRunnerMaxConcurrentStarts}
+     * concurrent runs, and waits for the runs to complete.
+     */
+    private void runVmsConcurrently(List<AutoStartVmToRestart> vmsToRun, Map<Guid, Boolean> results) {
+        if (vmsToRun.isEmpty()) {
+            return;
+        }
+
+        ThreadPoolUtil.runBounded(vmsToRun,
+                Config.<Integer> getValue(ConfigValues.AutoStartVmsRunnerMaxConcurrentStarts),
+                pending -> results.put(pending.getVmId(),
+                        runVmAndUpdateStatus(pending.getVm(), pending.getRunVmLock())));
     }
 
     private AutoStartVmToRestart.State processVmStarting(AutoStartVmToRestart vmToRestart, DateTime iterationStartTime) {
@@ -364,10 +499,17 @@ public abstract class AutoStartVmsRunner implements BackendService {
     }
 
     private boolean runVmAndUpdateStatus(VM vm, EngineLock lock) {
-        ActionReturnValue result = backend.runInternalAction(
-                ActionType.RunVm,
-                new RunVmParams(vm.getId()),
-                ExecutionHandler.createInternalJobContext(lock));
+        ActionReturnValue result;
+        try {
+            result = backend.runInternalAction(
+                    ActionType.RunVm,
+                    new RunVmParams(vm.getId()),
+                    ExecutionHandler.createInternalJobContext(lock));
+        } catch (RuntimeException e) {
+            log.error("Failed to run VM '{}': {}", vm.getName(), ExceptionUtils.getRootCauseMessage(e));
+            log.debug("Exception", e);
+            return false;
+        }
 
         // The status of the cached VM has to be updated, otherwise
         // the processVmStarting() method would incorrectly
@@ -376,6 +518,31 @@ public abstract class AutoStartVmsRunner implements BackendService {
         return result.getSucceeded();
     }
 
+    @Override
+    public int getVmsToRestart() {
+        return autoStartVmsToRestart.size();
+    }
+
+    @Override
+    public long getRestartedVms() {
+        return restartDurations.getCount();
+    }
+
+    @Override
+    public long getAverageTimeToRestart() {
+        return restartDurations.getAverage();
+    }
+
+    @Override
+    public long getMaxTimeToRestart() {
+        return restartDurations.getMax();
+    }
+
+    @Override
+    public Map<String, Long> getLastTimesToRestart() {
+        return lastTimesToRestart;
+    }
+
     protected static class AutoStartVmToRestart {
         /** The earliest date in Java */
         private static final Date MIN_DATE = DateTime.getMinValue();
@@ -408,6 +575,9 @@ public abstract class AutoStartVmsRunner implements BackendService {
 
         private State state;
         private VM vm;
+        private EngineLock runVmLock;
+        /** The time the VM was registered to be restarted */
+        private final long registrationTime = System.currentTimeMillis();
 
         AutoStartVmToRestart(Guid vmId) {
             this.vmId = vmId;
@@ -463,5 +633,17 @@ public abstract class AutoStartVmsRunner implements BackendService {
         public void setVm(VM vm) {
             this.vm = vm;
         }
+
+        EngineLock getRunVmLock() {
+            return runVmLock;
+        }
+
+        void setRunVmLock(EngineLock runVmLock) {
+            this.runVmLock = runVmLock;
+        }
+
+        long getTimeSinceRegistration() {
+            return System.currentTimeMillis() - registrationTime;
+        }
     }
 }
@@ -0,0 +1,32 @@
+package org.ovirt.engine.core.bll;
+
+import java.util.Map;
+
+public interface AutoStartVmsRunnerMXBean {
+
+    /**
+     * @return the number of VMs that are waiting to be restarted or are being restarted
+     */
+    int getVmsToRestart();
+
+    /**
+     * @return the number of VMs that were restarted since the engine started
+     */
+    long getRestartedVms();
+
+    /**
+     * @return the average time in milliseconds from registering a VM to be restarted until it was run
+     */
+    long getAverageTimeToRestart();
+
+    /**
+     * @return the maximal time in milliseconds from registering a VM to be restarted until it was run
+     */
+    long getMaxTimeToRestart();
+
+    /**
+     * @return the time in milliseconds it took to restart each of the VMs restarted in the last cycle that restarted
+     *         VMs, by VM name
+     */
+    Map<String, Long> getLastTimesToRestart();
+}
@@ -56,6 +56,7 @@ import org.ovirt.engine.core.utils.ObjectIdentityChecker;
 import org.ovirt.engine.core.utils.lock.EngineLock;
 import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+import org.ovirt.engine.core.vdsbroker.OutOfSyncInterfacesIndex;
 import org.ovirt.engine.core.vdsbroker.vdsbroker.HostNetworkAttachmentsPersister;
 
 @NonTransactiveCommandAttribute(forceCompensation = true)
@@ -67,6 +68,8 @@ public class ChangeVDSClusterCommand<T extends ChangeVDSClusterParameters> exten
     @Inject
     private NetworkAttachmentDao networkAttachmentDao;
     @Inject
+    private OutOfSyncInterfacesIndex outOfSyncInterfacesIndex;
+    @Inject
     private ChangeClusterParametersBuilder changeClusterParametersBuilder;
     @Inject
     private StoragePoolDao storagePoolDao;
@@ -239,6 +242,7 @@ public class ChangeVDSClusterCommand<T extends ChangeVDSClusterParameters> exten
             }
             staticData.setClusterId(targetClusterId);
             vdsStaticDao.update(staticData);
+            outOfSyncInterfacesIndex.invalidateHost(getVdsId());
             getCompensationContext().stateChanged();
             // remove the server from resource manager and add it back
             initializeVds();
@@ -286,6 +290,7 @@ public class ChangeVDSClusterCommand<T extends ChangeVDSClusterParameters> exten
                 Collections.emptyList(),
                 getTargetClusterNetworks());
         persister.persistNetworkAttachments();
+        outOfSyncInterfacesIndex.invalidateHost(getVdsId());
 
         if (VDSStatus.PendingApproval != getVds().getStatus()) {
             configureNetworks();
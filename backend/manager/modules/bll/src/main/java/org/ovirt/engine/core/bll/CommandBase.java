@@ -34,6 +34,7 @@ import org.ovirt.engine.core.bll.context.NoOpCompensationContext;
 import org.ovirt.engine.core.bll.interfaces.BackendInternal;
 import org.ovirt.engine.core.bll.job.ExecutionContext;
 import org.ovirt.engine.core.bll.job.ExecutionHandler;
+import org.ovirt.engine.core.bll.job.JobRepository;
 import org.ovirt.engine.core.bll.quota.InvalidQuotaParametersException;
 import org.ovirt.engine.core.bll.quota.QuotaConsumptionParameter;
 import org.ovirt.engine.core.bll.quota.QuotaManager;
@@ -91,7 +92,6 @@ import org.ovirt.engine.core.dal.job.ExecutionMessageDirector;
 import org.ovirt.engine.core.dao.BusinessEntitySnapshotDao;
 import org.ovirt.engine.core.dao.EntityDao;
 import org.ovirt.engine.core.dao.PermissionDao;
-import org.ovirt.engine.core.dao.StepDao;
 import org.ovirt.engine.core.utils.CorrelationIdTracker;
 import org.ovirt.engine.core.utils.ReflectionUtils;
 import org.ovirt.engine.core.utils.ReplacementUtils;
@@ -122,6 +122,7 @@ public abstract class CommandBase<T extends ActionParametersBase>
     private final List<Class<?>> validationGroups = new ArrayList<>();
     private final Guid commandId;
     private boolean quotaChanged = false;
+    private long quotaConsumptionEpoch;
     private String description = "";
     private TransactionScopeOption scope;
     private TransactionScopeOption endActionScope;
@@ -160,7 +161,7 @@ public abstract class CommandBase<T extends ActionParametersBase>
     private PermissionDao permissionDao;
 
     @Inject
-    private StepDao stepDao;
+    private JobRepository jobRepository;
 
     @Inject
     private CommandCoordinatorUtil commandCoordinatorUtil;
@@ -743,12 +744,12 @@ public abstract class CommandBase<T extends ActionParametersBase>
 
     private void rollbackQuota() {
         // Quota accounting is done only in the most external Command.
+        // Rolled back only once, though both ending with failure and the transaction rollback get here
         if (isQuotaChanged()) {
+            setQuotaChanged(false);
             List<QuotaConsumptionParameter> consumptionParameters = getQuotaConsumptionParameters();
             if (consumptionParameters != null) {
-                for (QuotaConsumptionParameter parameter : consumptionParameters) {
-                    getQuotaManager().removeQuotaFromCache(getStoragePool().getId(), parameter.getQuotaGuid());
-                }
+                getQuotaManager().rollback(this, consumptionParameters);
             }
         }
     }
@@ -1365,7 +1366,7 @@ public abstract class CommandBase<T extends ActionParametersBase>
                             getCommandStepSubjectEntities());
             if (taskStep != null) {
                 if (shouldUpdateStepProgress()) {
-                    stepDao.updateStepProgress(taskStep.getId(), 0);
+                    jobRepository.updateStepProgress(taskStep.getId(), 0);
                 }
                 getExecutionContext().setStep(taskStep);
                 persistCommandIfNeeded();
@@ -2219,6 +2220,17 @@ public abstract class CommandBase<T extends ActionParametersBase>
         this.quotaChanged = quotaChanged;
     }
 
+    /**
+     * @return the epoch of the quota cache the consumption of this command was applied at, see {@link QuotaManager}
+     */
+    public long getQuotaConsumptionEpoch() {
+        return quotaConsumptionEpoch;
+    }
+
+    public void setQuotaConsumptionEpoch(long quotaConsumptionEpoch) {
+        this.quotaConsumptionEpoch = quotaConsumptionEpoch;
+    }
+
     @Override
     public void setCorrelationId(String correlationId) {
         // correlation ID thread local variable is set for non multi-action
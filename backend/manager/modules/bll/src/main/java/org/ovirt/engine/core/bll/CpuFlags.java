@@ -0,0 +1,140 @@
+package org.ovirt.engine.core.bll;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * An immutable set of CPU flags, represented as a bitset over an engine wide dictionary of flag names, so checking
+ * whether a host provides all the flags of a CPU model or of a cluster is a bitwise operation.
+ * <p>
+ * The flag sets parsed from the comma separated flags reported by the hosts are interned, so the same flags string is
+ * parsed only once, when the host reports new flags, and not by every check of the host. The flag names are kept in
+ * their original order, so the missing flags are listed in the same order as the flags were given.
+ */
+public final class CpuFlags {
+
+    public static final CpuFlags EMPTY = new CpuFlags(Collections.emptyList());
+
+    /**
+     * The maximal number of interned flag sets. There are only a few distinct flags strings, one per CPU model of
+     * the hosts and one per cluster CPU, but if the limit is reached anyway the interned sets are dropped.
+     */
+    private static final int MAX_INTERNED_FLAG_SETS = 4096;
+
+    private static final Map<String, Integer> flagIndexes = new ConcurrentHashMap<>();
+    private static final Map<String, CpuFlags> internedFlagSets = new ConcurrentHashMap<>();
+
+    private final List<String> names;
+    private final long[] bits;
+
+    private CpuFlags(Collection<String> names) {
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        long[] words = new long[0];
+        for (String name : names) {
+            int index = indexOf(name);
+            if (index / Long.SIZE >= words.length) {
+                words = Arrays.copyOf(words, index / Long.SIZE + 1);
+            }
+            words[index / Long.SIZE] |= 1L << index;
+        }
+        bits = words;
+    }
+
+    /**
+     * @param flags the comma separated flags, as reported by the hosts or kept by the clusters
+     * @return the interned set of the given flags
+     */
+    public static CpuFlags valueOf(String flags) {
+        if (StringUtils.isEmpty(flags)) {
+            return EMPTY;
+        }
+        CpuFlags cpuFlags = internedFlagSets.get(flags);
+        if (cpuFlags == null) {
+            if (internedFlagSets.size() >= MAX_INTERNED_FLAG_SETS) {
+                internedFlagSets.clear();
+            }
+            cpuFlags = internedFlagSets.computeIfAbsent(flags, f -> new CpuFlags(Arrays.asList(f.split("[,]", -1))));
+        }
+        return cpuFlags;
+    }
+
+    /**
+     * @return the set of the given flags, in the order they are iterated
+     */
+    public static CpuFlags of(Collection<String> flags) {
+        return flags.isEmpty() ? EMPTY : new CpuFlags(flags);
+    }
+
+    private static int indexOf(String name) {
+        Integer index = flagIndexes.get(name);
+        if (index == null) {
+            synchronized (flagIndexes) {
+                index = flagIndexes.computeIfAbsent(name, n -> flagIndexes.size());
+            }
+        }
+        return index;
+    }
+
+    public boolean contains(String flag) {
+        Integer index = flagIndexes.get(flag);
+        return index != null && index / Long.SIZE < bits.length && (bits[index / Long.SIZE] & (1L << index)) != 0;
+    }
+
+    /**
+     * @return whether all the given flags are contained in this set
+     */
+    public boolean containsAll(CpuFlags flags) {
+        for (int i = 0; i < flags.bits.length; i++) {
+            long word = i < bits.length ? bits[i] : 0;
+            if ((flags.bits[i] & ~word) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether this set contains exactly the given flags
+     */
+    public boolean sameFlags(CpuFlags flags) {
+        return containsAll(flags) && flags.containsAll(this);
+    }
+
+    /**
+     * Lists the flags of this set which are not contained in the given set, in the order of this set. The list is
+     * created only when flags are missing.
+     *
+     * @return the missing flags, or an empty list if none
+     */
+    public List<String> missingFrom(CpuFlags flags) {
+        if (flags.containsAll(this)) {
+            return Collections.emptyList();
+        }
+        List<String> missing = new ArrayList<>();
+        for (String name : names) {
+            if (!flags.contains(name)) {
+                missing.add(name);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * @return the names of the flags, in their original order
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", names);
+    }
+}
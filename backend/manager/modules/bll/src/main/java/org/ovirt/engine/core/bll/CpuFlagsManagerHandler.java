@@ -6,15 +6,14 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Singleton;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.ovirt.engine.core.common.BackendService;
 import org.ovirt.engine.core.common.businessentities.ArchitectureType;
@@ -96,15 +95,7 @@ public class CpuFlagsManagerHandler implements BackendService {
      * @return list of missing CPU flags
      */
     public List<String> missingClusterCpuFlags(String clusterCpuFlagsString, String serverFlagsString) {
-        List<String> clusterFlags =
-                        StringUtils.isEmpty(clusterCpuFlagsString) ? Collections.emptyList()
-                                : parseFlags(clusterCpuFlagsString);
-
-        Set<String> serverFlags =
-                StringUtils.isEmpty(serverFlagsString) ? Collections.emptySet()
-                        : new HashSet<>(parseFlags(serverFlagsString));
-
-        return clusterFlags.stream().filter(flag -> !serverFlags.contains(flag)).collect(Collectors.toList());
+        return CpuFlags.valueOf(clusterCpuFlagsString).missingFrom(CpuFlags.valueOf(serverFlagsString));
     }
 
     public boolean checkIfCpusSameManufacture(String cpuName1, String cpuName2, Version ver) {
@@ -158,6 +149,7 @@ public class CpuFlagsManagerHandler implements BackendService {
         private List<ServerCpu> ibmCpuList;
         private List<ServerCpu> s390CpuList;
         private List<ServerCpu> allCpuList = new ArrayList<>();
+        private Map<ServerCpu, CpuFlags> cpuFlagsDictionary = new IdentityHashMap<>();
         private Map<String, ServerCpu> intelCpuByNameDictionary = new HashMap<>();
         private Map<String, ServerCpu> amdCpuByNameDictionary = new HashMap<>();
         private Map<String, ServerCpu> ibmCpuByNameDictionary = new HashMap<>();
@@ -234,6 +226,7 @@ public class CpuFlagsManagerHandler implements BackendService {
             ibmCpuByNameDictionary.clear();
             s390CpuByNameDictionary.clear();
             allCpuList.clear();
+            cpuFlagsDictionary.clear();
 
             String[] cpus = Config.<String> getValue(ConfigValues.ServerCPUList, ver.toString()).trim().split("[;]", -1);
             for (String cpu : cpus) {
@@ -274,6 +267,7 @@ public class CpuFlagsManagerHandler implements BackendService {
                         }
 
                         allCpuList.add(sc);
+                        cpuFlagsDictionary.put(sc, CpuFlags.of(sc.getFlags()));
                     } else {
                         log.error("Error getting info for CPU '{}', not in expected format.", cpu);
                     }
@@ -333,39 +327,22 @@ public class CpuFlagsManagerHandler implements BackendService {
          * @return list of missing CPU flags
          */
         public List<String> missingServerCpuFlags(String clusterCpuName, String serverFlags) {
-            ServerCpu clusterCpu = null;
-            List<String> missingFlags = null;
-
-            Set<String> lstServerflags =
-                    StringUtils.isEmpty(serverFlags) ? new HashSet<>()
-                            : new HashSet<>(parseFlags(serverFlags));
-
             // first find cluster cpu
-            if ( StringUtils.isNotEmpty(clusterCpuName)
-                    && ((clusterCpu = intelCpuByNameDictionary.get(clusterCpuName)) != null
-                            || (clusterCpu = amdCpuByNameDictionary.get(clusterCpuName)) != null
-                            || (clusterCpu = ibmCpuByNameDictionary.get(clusterCpuName)) != null
-                            || (clusterCpu = s390CpuByNameDictionary.get(clusterCpuName)) != null
-                    )) {
-                for (String flag : clusterCpu.getFlags()) {
-                    if (!lstServerflags.contains(flag)) {
-                        if (missingFlags == null) {
-                            missingFlags = new ArrayList<>();
-                        }
-                        missingFlags.add(flag);
-                    }
-                }
+            ServerCpu clusterCpu = getServerCpuByName(clusterCpuName);
+            if (clusterCpu == null) {
+                return null;
             }
-            return missingFlags;
+
+            List<String> missingFlags = cpuFlagsDictionary.get(clusterCpu).missingFrom(CpuFlags.valueOf(serverFlags));
+            return missingFlags.isEmpty() ? null : missingFlags;
         }
 
         /**
-         * Return true if given flag list contains all flags of given ServerCpu
+         * Return true if given flags contain all flags of given ServerCpu
          * object's flags.
          */
-        private boolean checkIfFlagsContainsCpuFlags(ServerCpu clusterCpu, Set<String> lstServerflags) {
-            return CollectionUtils.intersection(clusterCpu.getFlags(), lstServerflags).size() == clusterCpu.getFlags()
-                    .size();
+        private boolean checkIfFlagsContainsCpuFlags(ServerCpu clusterCpu, CpuFlags serverFlags) {
+            return serverFlags.containsAll(cpuFlagsDictionary.get(clusterCpu));
         }
 
         /**
@@ -408,43 +385,45 @@ public class CpuFlagsManagerHandler implements BackendService {
          * Finds max server cpu by server cpu flags only
          */
         public ServerCpu findMaxServerCpuByFlags(String flags) {
-            List<ServerCpu> allCpus = findServerCpusByFlags(flags);
-            return allCpus.isEmpty() ? null : allCpus.get(0);
+            CpuFlags serverFlags = CpuFlags.valueOf(flags);
+            List<ServerCpu> vendorCpus = getVendorCpuList(serverFlags);
+            // the list is sorted by level, the first match from its end is the max cpu
+            for (int i = vendorCpus.size() - 1; i >= 0; i--) {
+                if (checkIfFlagsContainsCpuFlags(vendorCpus.get(i), serverFlags)) {
+                    return vendorCpus.get(i);
+                }
+            }
+            return null;
         }
 
         public List<ServerCpu> findServerCpusByFlags(String flags) {
             List<ServerCpu> foundCpus = new ArrayList<>();
-            Set<String> lstFlags = StringUtils.isEmpty(flags) ? new HashSet<>()
-                    : new HashSet<>(parseFlags(flags));
-
-            if (lstFlags.contains(CpuVendor.INTEL.getFlag())) {
-                for (int i = intelCpuList.size() - 1; i >= 0; i--) {
-                    if (checkIfFlagsContainsCpuFlags(intelCpuList.get(i), lstFlags)) {
-                        foundCpus.add(intelCpuList.get(i));
-                    }
-                }
-            } else if (lstFlags.contains(CpuVendor.AMD.getFlag())) {
-                for (int i = amdCpuList.size() - 1; i >= 0; i--) {
-                    if (checkIfFlagsContainsCpuFlags(amdCpuList.get(i), lstFlags)) {
-                        foundCpus.add(amdCpuList.get(i));
-                    }
-                }
-            } else if (lstFlags.contains(CpuVendor.IBM.getFlag())) {
-                for (int i = ibmCpuList.size() - 1; i >= 0; i--) {
-                    if (checkIfFlagsContainsCpuFlags(ibmCpuList.get(i), lstFlags)) {
-                        foundCpus.add(ibmCpuList.get(i));
-                    }
-                }
-            } else if (lstFlags.contains(CpuVendor.IBMS390.getFlag())) {
-                for (int i = s390CpuList.size() - 1; i >= 0; i--) {
-                    if (checkIfFlagsContainsCpuFlags(s390CpuList.get(i), lstFlags)) {
-                        foundCpus.add(s390CpuList.get(i));
-                    }
+            CpuFlags serverFlags = CpuFlags.valueOf(flags);
+            List<ServerCpu> vendorCpus = getVendorCpuList(serverFlags);
+            for (int i = vendorCpus.size() - 1; i >= 0; i--) {
+                if (checkIfFlagsContainsCpuFlags(vendorCpus.get(i), serverFlags)) {
+                    foundCpus.add(vendorCpus.get(i));
                 }
             }
             return foundCpus;
         }
 
+        /**
+         * @return the cpus of the vendor of the given flags, sorted by level
+         */
+        private List<ServerCpu> getVendorCpuList(CpuFlags flags) {
+            if (flags.contains(CpuVendor.INTEL.getFlag())) {
+                return intelCpuList;
+            } else if (flags.contains(CpuVendor.AMD.getFlag())) {
+                return amdCpuList;
+            } else if (flags.contains(CpuVendor.IBM.getFlag())) {
+                return ibmCpuList;
+            } else if (flags.contains(CpuVendor.IBMS390.getFlag())) {
+                return s390CpuList;
+            }
+            return Collections.emptyList();
+        }
+
 
         /**
          * Returns a list with all CPU's which are with a lower CPU level than the given CPU.
@@ -7,6 +7,7 @@ import javax.inject.Inject;
 
 import org.ovirt.engine.core.bll.context.CommandContext;
 import org.ovirt.engine.core.bll.job.ExecutionContext;
+import org.ovirt.engine.core.bll.job.JobRepository;
 import org.ovirt.engine.core.bll.utils.PermissionSubject;
 import org.ovirt.engine.core.common.VdcObjectType;
 import org.ovirt.engine.core.common.action.EndExternalStepParameters;
@@ -16,7 +17,6 @@ import org.ovirt.engine.core.common.job.Job;
 import org.ovirt.engine.core.common.job.Step;
 import org.ovirt.engine.core.common.utils.ExecutionMethod;
 import org.ovirt.engine.core.dao.JobDao;
-import org.ovirt.engine.core.dao.StepDao;
 
 public class EndExternalStepCommand <T extends EndExternalStepParameters> extends CommandBase<T> {
 
@@ -26,7 +26,7 @@ public class EndExternalStepCommand <T extends EndExternalStepParameters> extend
     private static final long serialVersionUID = 1L;
 
     @Inject
-    private StepDao stepDao;
+    private JobRepository jobRepository;
     @Inject
     private JobDao jobDao;
 
@@ -40,7 +40,7 @@ public class EndExternalStepCommand <T extends EndExternalStepParameters> extend
     @Override
     protected boolean validate() {
         boolean retValue = true;
-        step = stepDao.get(getParameters().getId());
+        step = jobRepository.getStep(getParameters().getId(), false);
         if (step == null) {
             retValue = false;
             addValidationMessage(EngineMessage.ACTION_TYPE_NO_STEP);
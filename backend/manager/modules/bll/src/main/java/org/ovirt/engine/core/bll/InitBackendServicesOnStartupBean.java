@@ -1,6 +1,9 @@
 package org.ovirt.engine.core.bll;
 
+import java.util.concurrent.ExecutorService;
+
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.ejb.DependsOn;
 import javax.ejb.Singleton;
 import javax.ejb.Startup;
@@ -28,7 +31,9 @@ import org.ovirt.engine.core.common.config.Config;
 import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.utils.customprop.VmPropertiesUtils;
 import org.ovirt.engine.core.common.utils.exceptions.InitializationException;
+import org.ovirt.engine.core.utils.MBeanRegistration;
 import org.ovirt.engine.core.utils.customprop.DevicePropertiesUtils;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 import org.ovirt.engine.core.vdsbroker.irsbroker.IrsProxyManager;
 import org.slf4j.Logger;
@@ -60,6 +65,10 @@ public class InitBackendServicesOnStartupBean implements InitBackendServicesOnSt
     @Inject
     private Instance<CommandsRepository> commandsRepository;
 
+    private ServiceStartupGraph startupGraph;
+
+    private MBeanRegistration mBeanRegistration;
+
     /**
      * This method is called upon the bean creation as part
      * of the management Service bean life cycle.
@@ -67,64 +76,117 @@ public class InitBackendServicesOnStartupBean implements InitBackendServicesOnSt
     @Override
     @PostConstruct
     public void create() {
-
+        startupGraph = createStartupGraph();
         try {
-            serviceLoader.load(ClusterCpuFlagsManager.class);
-            // This must be done before starting to sample the hosts status from VDSM since the sampling will turn such host from Reboot to NonResponsive
-            serviceLoader.load(PmHealthCheckManager.class);
-            serviceLoader.load(EngineBackupAwarenessManager.class);
-            serviceLoader.load(DataCenterCompatibilityChecker.class);
-            serviceLoader.load(ResourceManager.class);
-            serviceLoader.load(HostDeviceManager.class);
+            ExecutorService executor = ThreadPoolUtil.getExecutorService();
+            startupGraph.start(executor != null ? executor : Runnable::run);
+        } catch (Exception ex) {
+            log.error("Failed to initialize backend", ex);
+            throw ex;
+        } finally {
+            mBeanRegistration = MBeanRegistration.register("ServiceStartup", startupGraph);
+        }
+    }
 
+    /**
+     * Declares the backend services and the services each of them depends on, services which don't depend on each
+     * other are started concurrently.
+     */
+    private ServiceStartupGraph createStartupGraph() {
+        ServiceStartupGraph graph = new ServiceStartupGraph();
+        graph.add("ClusterCpuFlagsManager", () -> serviceLoader.load(ClusterCpuFlagsManager.class));
+        // This must be done before starting to sample the hosts status from VDSM since the sampling will turn such host from Reboot to NonResponsive
+        graph.add("PmHealthCheckManager", () -> serviceLoader.load(PmHealthCheckManager.class));
+        graph.add("EngineBackupAwarenessManager", () -> serviceLoader.load(EngineBackupAwarenessManager.class));
+        graph.add("DataCenterCompatibilityChecker", () -> serviceLoader.load(DataCenterCompatibilityChecker.class));
+        graph.add("ResourceManager",
+                () -> serviceLoader.load(ResourceManager.class),
+                "ClusterCpuFlagsManager",
+                "PmHealthCheckManager");
+        graph.add("HostDeviceManager", () -> serviceLoader.load(HostDeviceManager.class), "ResourceManager");
+
+        graph.add("VmPropertiesUtils", () -> {
             try {
                 log.info("Init VM custom properties utilities");
                 VmPropertiesUtils.getInstance().init();
             } catch (InitializationException e) {
                 log.error("Initialization of vm custom properties failed.", e);
             }
-
-            serviceLoader.load(KubevirtService.class);
-
-            serviceLoader.load(IrsProxyManager.class);
-            serviceLoader.load(OvfDataUpdater.class);
-            serviceLoader.load(StoragePoolStatusHandler.class);
-            serviceLoader.load(GlusterJobsManager.class);
-
-            resourceManager.get().scheduleJobsForHosts();
-
+        });
+
+        graph.add("KubevirtService", () -> serviceLoader.load(KubevirtService.class), "ResourceManager");
+
+        graph.add("IrsProxyManager", () -> serviceLoader.load(IrsProxyManager.class), "ResourceManager");
+        graph.add("OvfDataUpdater", () -> serviceLoader.load(OvfDataUpdater.class), "IrsProxyManager");
+        graph.add("StoragePoolStatusHandler",
+                () -> serviceLoader.load(StoragePoolStatusHandler.class),
+                "IrsProxyManager");
+        graph.add("GlusterJobsManager", () -> serviceLoader.load(GlusterJobsManager.class), "ResourceManager");
+
+        graph.add("HostsMonitoring",
+                () -> resourceManager.get().scheduleJobsForHosts(),
+                "HostDeviceManager",
+                "VmPropertiesUtils",
+                "KubevirtService",
+                "OvfDataUpdater",
+                "StoragePoolStatusHandler",
+                "GlusterJobsManager");
+
+        graph.add("DevicePropertiesUtils", () -> {
             try {
                 log.info("Init device custom properties utilities");
                 DevicePropertiesUtils.getInstance().init();
             } catch (InitializationException e) {
                 log.error("Initialization of device custom properties failed.", e);
             }
+        });
+
+        graph.add("SchedulingManager",
+                () -> serviceLoader.load(SchedulingManager.class),
+                "HostsMonitoring",
+                "DevicePropertiesUtils");
+
+        graph.add("EngineSessionsCleanup", () -> sessionDataContainer.cleanupEngineSessionsOnStartup());
+
+        graph.add("DwhHeartBeat", () -> serviceLoader.load(DwhHeartBeat.class));
+
+        graph.add("UnmanagedCommands",
+                () -> commandsRepository.get().handleUnmanagedCommands(),
+                "SchedulingManager");
+        graph.add("AsyncTaskManager", () -> serviceLoader.load(AsyncTaskManager.class), "UnmanagedCommands");
+        graph.add("CommandCoordinatorUtil",
+                () -> serviceLoader.load(CommandCoordinatorUtil.class),
+                "AsyncTaskManager");
+        graph.add("CommandCallbacksPoller",
+                () -> serviceLoader.load(CommandCallbacksPoller.class),
+                "CommandCoordinatorUtil");
+        graph.add("CommandEntityCleanupManager",
+                () -> serviceLoader.load(CommandEntityCleanupManager.class),
+                "CommandCallbacksPoller");
+
+        if(Config.<Boolean> getValue(ConfigValues.AffinityRulesEnforcementManagerEnabled)) {
+            graph.add("AffinityRulesEnforcementManager",
+                    () -> serviceLoader.load(AffinityRulesEnforcementManager.class),
+                    "SchedulingManager");
+        }
 
-            serviceLoader.load(SchedulingManager.class);
-
-            sessionDataContainer.cleanupEngineSessionsOnStartup();
-
-            serviceLoader.load(DwhHeartBeat.class);
-
-            commandsRepository.get().handleUnmanagedCommands();
-            serviceLoader.load(AsyncTaskManager.class);
-            serviceLoader.load(CommandCoordinatorUtil.class);
-            serviceLoader.load(CommandCallbacksPoller.class);
-            serviceLoader.load(CommandEntityCleanupManager.class);
-
-            if(Config.<Boolean> getValue(ConfigValues.AffinityRulesEnforcementManagerEnabled)) {
-                serviceLoader.load(AffinityRulesEnforcementManager.class);
-            }
+        graph.add("CertificationValidityChecker",
+                () -> serviceLoader.load(CertificationValidityChecker.class),
+                "ResourceManager");
+        graph.add("HostUpdatesCheckerService",
+                () -> serviceLoader.load(HostUpdatesCheckerService.class),
+                "ResourceManager");
+        graph.add("IPTablesDeprecationNotifier", () -> serviceLoader.load(IPTablesDeprecationNotifier.class));
+        graph.add("ExternalNetworkSyncService",
+                () -> serviceLoader.load(ExternalNetworkSyncService.class),
+                "ResourceManager");
+        graph.add("AnsibleRunnerCleanUpService", () -> serviceLoader.load(AnsibleRunnerCleanUpService.class));
+        return graph;
+    }
 
-            serviceLoader.load(CertificationValidityChecker.class);
-            serviceLoader.load(HostUpdatesCheckerService.class);
-            serviceLoader.load(IPTablesDeprecationNotifier.class);
-            serviceLoader.load(ExternalNetworkSyncService.class);
-            serviceLoader.load(AnsibleRunnerCleanUpService.class);
-        } catch (Exception ex) {
-            log.error("Failed to initialize backend", ex);
-            throw ex;
-        }
+    @PreDestroy
+    public void destroy() {
+        mBeanRegistration.unregister();
     }
 
 }
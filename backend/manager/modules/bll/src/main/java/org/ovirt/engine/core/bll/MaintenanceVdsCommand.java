@@ -163,6 +163,7 @@ public class MaintenanceVdsCommand<T extends MaintenanceVdsParameters> extends V
                 forceMigration
         );
         parameters.setHostBlackList(Collections.singletonList(getVdsId()));
+        parameters.setEvacuation(true);
 
         boolean canIgnoreVmAffinity = vms.stream()
                 .anyMatch(vm -> Config.<Boolean>getValue(
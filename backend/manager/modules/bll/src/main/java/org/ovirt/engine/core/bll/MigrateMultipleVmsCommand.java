@@ -3,6 +3,8 @@ package org.ovirt.engine.core.bll;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -15,6 +17,7 @@ import javax.inject.Inject;
 import org.ovirt.engine.core.bll.context.CommandContext;
 import org.ovirt.engine.core.bll.job.ExecutionContext;
 import org.ovirt.engine.core.bll.job.ExecutionHandler;
+import org.ovirt.engine.core.bll.migration.EvacuationScheduler;
 import org.ovirt.engine.core.bll.scheduling.SchedulingManager;
 import org.ovirt.engine.core.bll.utils.PermissionSubject;
 import org.ovirt.engine.core.bll.validator.VmValidator;
@@ -23,6 +26,7 @@ import org.ovirt.engine.core.common.VdcObjectType;
 import org.ovirt.engine.core.common.action.ActionReturnValue;
 import org.ovirt.engine.core.common.action.ActionType;
 import org.ovirt.engine.core.common.action.MigrateMultipleVmsParameters;
+import org.ovirt.engine.core.common.action.MigrateVmParameters;
 import org.ovirt.engine.core.common.action.MigrateVmToServerParameters;
 import org.ovirt.engine.core.common.businessentities.VDS;
 import org.ovirt.engine.core.common.businessentities.VM;
@@ -45,6 +49,8 @@ public class MigrateMultipleVmsCommand<T extends MigrateMultipleVmsParameters> e
     private PermissionDao permissionDao;
     @Inject
     private SchedulingManager schedulingManager;
+    @Inject
+    private EvacuationScheduler evacuationScheduler;
 
     private List<VM> vms;
     private List<Guid> hostBlackList;
@@ -142,37 +148,85 @@ public class MigrateMultipleVmsCommand<T extends MigrateMultipleVmsParameters> e
         // Fail if not all VMs can be migrated
         setSucceeded(getVms().size() == possibleVmsToMigrate.size());
 
-        for (VM vm : possibleVmsToMigrate) {
-            Guid hostId = assignment.get(vm.getId());
-            if (hostId == null || hostId.equals(vm.getRunOnVds())) {
-                continue;
-            }
+        List<VM> vmsToMigrate = possibleVmsToMigrate.stream()
+                .filter(vm -> {
+                    Guid hostId = assignment.get(vm.getId());
+                    return hostId != null && !hostId.equals(vm.getRunOnVds());
+                })
+                .collect(Collectors.toList());
 
-            MigrateVmToServerParameters parameters = new MigrateVmToServerParameters(
-                    getParameters().isForceMigration(),
-                    vm.getId(),
-                    hostId
-            );
-            parameters.setSkipScheduling(true);
+        if (getParameters().isEvacuation()) {
+            // The migrations are started gradually, the ones that don't start now are started after this command ends
+            Set<Guid> startedVms = new HashSet<>();
+            vmsToMigrate.stream()
+                    .collect(Collectors.groupingBy(VM::getRunOnVds, LinkedHashMap::new, Collectors.toList()))
+                    .forEach((sourceHostId, vms) -> startedVms.addAll(evacuationScheduler.evacuate(sourceHostId,
+                            vms,
+                            vm -> migrateVm(vm, assignment.get(vm.getId())),
+                            this::migrateDeferredVm)));
+
+            // The deferred VMs are scheduled again when their migration starts
+            vmsToMigrate.stream()
+                    .filter(vm -> !startedVms.contains(vm.getId()))
+                    .forEach(vm -> schedulingManager.clearPendingVm(vm.getStaticData()));
+            return;
+        }
+
+        for (VM vm : vmsToMigrate) {
+            migrateVm(vm, assignment.get(vm.getId()));
+        }
+    }
 
-            ActionReturnValue returnValue = runInternalAction(ActionType.MigrateVmToServer,
-                    parameters,
-                    createMigrateVmContext(vm));
+    private boolean migrateVm(VM vm, Guid hostId) {
+        MigrateVmToServerParameters parameters = new MigrateVmToServerParameters(
+                getParameters().isForceMigration(),
+                vm.getId(),
+                hostId
+        );
+        parameters.setSkipScheduling(true);
+
+        ActionReturnValue returnValue = runInternalAction(ActionType.MigrateVmToServer,
+                parameters,
+                createMigrateVmContext(vm));
+
+        if (!returnValue.isValid()) {
+            getReturnValue().getValidationMessages().addAll(returnValue.getValidationMessages());
+            getReturnValue().setValid(false);
+        }
 
-            if (!returnValue.isValid()) {
-                getReturnValue().getValidationMessages().addAll(returnValue.getValidationMessages());
-                getReturnValue().setValid(false);
-            }
+        if (!returnValue.getSucceeded()) {
+            // The pending resources are added by this command
+            // and are not cleared if the child command fails
+            schedulingManager.clearPendingVm(vm.getStaticData());
 
-            if (!returnValue.getSucceeded()) {
-                // The pending resources are added by this command
-                // and are not cleared if the child command fails
-                schedulingManager.clearPendingVm(vm.getStaticData());
+            log.warn("VM '{}' failed migration.", vm.getName());
+            setSucceeded(false);
+        }
+        return returnValue.getSucceeded();
+    }
 
-                log.warn("VM '{}' failed migration.", vm.getName());
-                setSucceeded(false);
-            }
+    /**
+     * Migrates a VM of an evacuation after this command ended. The destination host assigned by this command may not
+     * fit anymore, so the VM is scheduled again, and the migration runs in a job of its own.
+     */
+    private boolean migrateDeferredVm(VM vm) {
+        MigrateVmParameters parameters = getParameters().getDestinationHostId() != null ?
+                new MigrateVmToServerParameters(getParameters().isForceMigration(),
+                        vm.getId(),
+                        getParameters().getDestinationHostId()) :
+                new MigrateVmParameters(getParameters().isForceMigration(), vm.getId());
+        parameters.setReason(getParameters().getReason());
+        parameters.setIgnoreHardVmToVmAffinity(getParameters().isCanIgnoreHardVmAffinity());
+        parameters.setCorrelationId(getCorrelationId());
+
+        ActionReturnValue returnValue = backend.runInternalAction(
+                getParameters().getDestinationHostId() != null ? ActionType.MigrateVmToServer : ActionType.MigrateVm,
+                parameters,
+                ExecutionHandler.createInternalJobContext());
+        if (!returnValue.getSucceeded()) {
+            log.warn("VM '{}' failed migration.", vm.getName());
         }
+        return returnValue.getSucceeded();
     }
 
     @Override
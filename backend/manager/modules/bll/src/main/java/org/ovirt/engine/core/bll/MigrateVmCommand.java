@@ -26,6 +26,7 @@ import org.ovirt.engine.core.bll.job.ExecutionHandler;
 import org.ovirt.engine.core.bll.kubevirt.KubevirtMonitoring;
 import org.ovirt.engine.core.bll.migration.ConvergenceConfigProvider;
 import org.ovirt.engine.core.bll.migration.ConvergenceSchedule;
+import org.ovirt.engine.core.bll.migration.EvacuationScheduler;
 import org.ovirt.engine.core.bll.storage.disk.image.DisksFilter;
 import org.ovirt.engine.core.bll.storage.disk.managedblock.ManagedBlockStorageCommandUtil;
 import org.ovirt.engine.core.bll.utils.PermissionSubject;
@@ -117,6 +118,8 @@ public class MigrateVmCommand<T extends MigrateVmParameters> extends RunVmComman
     private ManagedBlockStorageCommandUtil managedBlockStorageCommandUtil;
     @Inject
     private KubevirtMonitoring kubevirt;
+    @Inject
+    private EvacuationScheduler evacuationScheduler;
 
     /** The VDS that the VM is going to migrate to */
     private VDS destinationVds;
@@ -632,6 +635,7 @@ public class MigrateVmCommand<T extends MigrateVmParameters> extends RunVmComman
 
     @Override
     public void runningSucceded() {
+        evacuationScheduler.migrationFinished(getVmId(), true);
         try {
             queryDowntime();
             addNumaPinningForDedicated(getDestinationVdsId());
@@ -647,6 +651,7 @@ public class MigrateVmCommand<T extends MigrateVmParameters> extends RunVmComman
 
     @Override
     protected void runningFailed() {
+        evacuationScheduler.migrationFinished(getVmId(), false);
         try {
             //this will clean all VF reservations made in {@link #initVdss}.
             cleanupPassthroughVnics(getDestinationVdsId());
@@ -1109,6 +1114,7 @@ public class MigrateVmCommand<T extends MigrateVmParameters> extends RunVmComman
     @Override
     public void migrationProgressReported(int progress) {
         getParameters().setStartTime(new Date());
+        evacuationScheduler.migrationProgressReported(getVmId(), progress);
     }
 
     @Override
@@ -24,7 +24,7 @@ public class ParallelMultipleActionsRunner extends PrevalidatingMultipleActionsR
     protected void runCommands() {
         for (final CommandBase<?> command : getCommands()) {
             if (command.getReturnValue().isValid()) {
-                ThreadPoolUtil.execute(() -> executeValidatedCommand(command));
+                ThreadPoolUtil.executeBlocking(() -> executeValidatedCommand(command));
             }
         }
     }
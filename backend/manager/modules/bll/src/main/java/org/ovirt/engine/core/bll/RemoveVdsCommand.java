@@ -54,6 +54,7 @@ import org.ovirt.engine.core.dao.gluster.GlusterServerDao;
 import org.ovirt.engine.core.dao.gluster.GlusterVolumeDao;
 import org.ovirt.engine.core.utils.lock.EngineLock;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+import org.ovirt.engine.core.vdsbroker.OutOfSyncInterfacesIndex;
 
 @NonTransactiveCommandAttribute
 public class RemoveVdsCommand<T extends RemoveVdsParameters> extends VdsCommand<T> {
@@ -64,6 +65,8 @@ public class RemoveVdsCommand<T extends RemoveVdsParameters> extends VdsCommand<
     @Inject
     private VdsStaticDao vdsStaticDao;
     @Inject
+    private OutOfSyncInterfacesIndex outOfSyncInterfacesIndex;
+    @Inject
     private VdsDynamicDao vdsDynamicDao;
     @Inject
     private VdsStatisticsDao vdsStatisticsDao;
@@ -154,6 +157,7 @@ public class RemoveVdsCommand<T extends RemoveVdsParameters> extends VdsCommand<
         tagDao.detachVdsFromAllTags(hostId);
         vdsDynamicDao.remove(hostId);
         vdsStaticDao.remove(hostId);
+        outOfSyncInterfacesIndex.invalidateHost(hostId);
     }
 
     private boolean isForceRemovalOfUnmanagedHost(VDS vds) {
@@ -1369,7 +1369,7 @@ public class RunVmCommand<T extends RunVmParams> extends RunVmCommandBase<T>
         vmStaticDao.incrementDbGeneration(getVm().getId());
         super.runningSucceded();
         if (getVm().getVmPoolId() != null) {
-            vmPoolMonitor.startingVmCompleted(getVmId(), "runningSucceded");
+            vmPoolMonitor.startingVmSucceeded(getVmId());
         }
     }
 
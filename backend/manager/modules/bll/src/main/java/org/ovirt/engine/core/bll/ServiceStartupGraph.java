@@ -0,0 +1,126 @@
+package org.ovirt.engine.core.bll;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Starts the backend services according to the dependencies declared between them. A service is started once all the
+ * services it depends on were started, so services which don't depend on each other are started concurrently.
+ * <p>
+ * A service can only depend on services which were added before it, which keeps the graph acyclic and makes the order
+ * of addition a valid sequential startup order.
+ */
+public class ServiceStartupGraph implements ServiceStartupGraphMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ServiceStartupGraph.class);
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private final Map<String, Long> startupTimes = new ConcurrentHashMap<>();
+    private volatile long totalStartupTime;
+
+    /**
+     * Adds a service to the graph.
+     *
+     * @param name
+     *            the unique name of the service
+     * @param startup
+     *            the code which starts the service
+     * @param dependencies
+     *            the names of the services which must be started before this one
+     * @return the graph, for chaining
+     */
+    public ServiceStartupGraph add(String name, Runnable startup, String... dependencies) {
+        if (nodes.containsKey(name)) {
+            throw new IllegalArgumentException("Service '" + name + "' was already added");
+        }
+        for (String dependency : dependencies) {
+            if (!nodes.containsKey(dependency)) {
+                throw new IllegalArgumentException(
+                        "Service '" + name + "' depends on '" + dependency + "', which wasn't added before it");
+            }
+        }
+        nodes.put(name, new Node(name, startup, Arrays.asList(dependencies)));
+        return this;
+    }
+
+    /**
+     * Starts all the services and waits for them to complete. If starting a service fails, the services which depend
+     * on it are not started, and the failure is thrown once all the other services completed.
+     *
+     * @param executor
+     *            the executor used to start the services
+     */
+    public void start(Executor executor) {
+        long startTime = System.nanoTime();
+        Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+        for (Node node : nodes.values()) {
+            CompletableFuture<?>[] dependencies =
+                    node.dependencies.stream().map(futures::get).toArray(CompletableFuture[]::new);
+            futures.put(node.name, CompletableFuture.allOf(dependencies).thenRunAsync(() -> start(node), executor));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            totalStartupTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            log.info("Backend services started in {} ms: {}", totalStartupTime, formatStartupTimes());
+        }
+    }
+
+    private void start(Node node) {
+        long startTime = System.nanoTime();
+        try {
+            node.startup.run();
+        } finally {
+            startupTimes.put(node.name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        }
+    }
+
+    private String formatStartupTimes() {
+        return startupTimes.entrySet()
+                .stream()
+                .sorted(Collections.reverseOrder(Map.Entry.comparingByValue()))
+                .map(entry -> entry.getKey() + " " + entry.getValue() + " ms")
+                .collect(Collectors.joining(", "));
+    }
+
+    @Override
+    public Map<String, Long> getStartupTimes() {
+        return new HashMap<>(startupTimes);
+    }
+
+    @Override
+    public long getTotalStartupTime() {
+        return totalStartupTime;
+    }
+
+    private static class Node {
+        private final String name;
+        private final Runnable startup;
+        private final List<String> dependencies;
+
+        Node(String name, Runnable startup, List<String> dependencies) {
+            this.name = name;
+            this.startup = startup;
+            this.dependencies = dependencies;
+        }
+    }
+}
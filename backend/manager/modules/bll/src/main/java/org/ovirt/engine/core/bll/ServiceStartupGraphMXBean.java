@@ -0,0 +1,16 @@
+package org.ovirt.engine.core.bll;
+
+import java.util.Map;
+
+public interface ServiceStartupGraphMXBean {
+
+    /**
+     * @return the time in milliseconds it took to start each of the backend services, by service name
+     */
+    Map<String, Long> getStartupTimes();
+
+    /**
+     * @return the time in milliseconds it took to start all the backend services
+     */
+    long getTotalStartupTime();
+}
@@ -81,6 +81,7 @@ import org.ovirt.engine.core.dao.VmStaticDao;
 import org.ovirt.engine.core.dao.VmTemplateDao;
 import org.ovirt.engine.core.dao.network.NetworkClusterDao;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+import org.ovirt.engine.core.vdsbroker.OutOfSyncInterfacesIndex;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 import org.ovirt.engine.core.vdsbroker.VmManager;
 
@@ -96,6 +97,8 @@ public class UpdateClusterCommand<T extends ClusterOperationParameters> extends
     @Inject
     private MoveMacs moveMacs;
     @Inject
+    private OutOfSyncInterfacesIndex outOfSyncInterfacesIndex;
+    @Inject
     private InitGlusterCommandHelper glusterCommandHelper;
     @Inject
     private ResourceManager resourceManager;
@@ -351,6 +354,7 @@ public class UpdateClusterCommand<T extends ClusterOperationParameters> extends
         TransactionSupport.executeInNewTransaction(() -> {
             CompensationUtils.updateEntity(getParameters().getCluster(), oldCluster, clusterDao, getCompensationContext());
             addOrUpdateAddtionalClusterFeatures();
+            outOfSyncInterfacesIndex.invalidateCluster(getCluster().getId());
 
             getCompensationContext().stateChanged();
             return null;
@@ -129,6 +129,16 @@ public abstract class VmCommand<T extends VmOperationParameterBase> extends Comm
         return resourceManager.getVmManager(getVmId());
     }
 
+    /**
+     * Makes the monitoring reload the network interfaces of the VM, after they were changed.
+     */
+    protected void invalidateMonitoredInterfaces() {
+        VmManager vmManager = resourceManager.getVmManager(getVmId(), false);
+        if (vmManager != null) {
+            vmManager.invalidateMonitoredInterfaces();
+        }
+    }
+
     protected MacPool getMacPool() {
         if (this.macPool == null) {
             this.macPool = macPoolPerCluster.getMacPoolForCluster(getClusterId(), getContext());
@@ -257,6 +257,17 @@ public class VmPoolHandler implements BackendService {
         return true;
     }
 
+    /**
+     * Returns the storage domain of the disks of a pool VM, as considered when checking whether the VM is free.
+     * @param vmId The VM ID
+     * @return The storage domain of the first non shareable snapable disk of the VM, <code>null</code> if there is none
+     */
+    public Guid getStorageDomainId(Guid vmId) {
+        List<DiskImage> vmImages =
+                DisksFilter.filterImageDisks(diskDao.getAllForVm(vmId), ONLY_NOT_SHAREABLE, ONLY_SNAPABLE);
+        return vmImages.isEmpty() ? null : vmImages.get(0).getStorageIds().get(0);
+    }
+
     private boolean failVmFree(ErrorProcessor errorProcessor, Guid vmId, List<String> messages) {
         if (errorProcessor != null) {
             List<String> errors = new ArrayList<>(messages);
@@ -1,18 +1,26 @@
 package org.ovirt.engine.core.bll;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.concurrent.ManagedScheduledExecutorService;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -20,6 +28,7 @@ import javax.inject.Singleton;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.ovirt.engine.core.bll.interfaces.BackendInternal;
 import org.ovirt.engine.core.bll.job.ExecutionHandler;
+import org.ovirt.engine.core.bll.scheduling.SchedulingManager;
 import org.ovirt.engine.core.common.AuditLogType;
 import org.ovirt.engine.core.common.BackendService;
 import org.ovirt.engine.core.common.VdcObjectType;
@@ -27,26 +36,32 @@ import org.ovirt.engine.core.common.action.ActionReturnValue;
 import org.ovirt.engine.core.common.action.ActionType;
 import org.ovirt.engine.core.common.action.RunVmParams;
 import org.ovirt.engine.core.common.asynctasks.EntityInfo;
+import org.ovirt.engine.core.common.businessentities.VDS;
 import org.ovirt.engine.core.common.businessentities.VM;
 import org.ovirt.engine.core.common.businessentities.VmPool;
 import org.ovirt.engine.core.common.businessentities.VmStatic;
 import org.ovirt.engine.core.common.config.Config;
 import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.errors.EngineMessage;
+import org.ovirt.engine.core.common.utils.Pair;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogable;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogableImpl;
+import org.ovirt.engine.core.dao.ClusterDao;
 import org.ovirt.engine.core.dao.VmDao;
 import org.ovirt.engine.core.dao.VmPoolDao;
-import org.ovirt.engine.core.dao.VmStaticDao;
 import org.ovirt.engine.core.di.Injector;
+import org.ovirt.engine.core.utils.DurationStatistics;
+import org.ovirt.engine.core.utils.MBeanRegistration;
+import org.ovirt.engine.core.utils.lock.LockManager;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 import org.ovirt.engine.core.utils.threadpool.ThreadPools;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Singleton
-public class VmPoolMonitor implements BackendService {
+public class VmPoolMonitor implements BackendService, VmPoolMonitorMXBean {
 
     private static final Logger log = LoggerFactory.getLogger(VmPoolMonitor.class);
 
@@ -54,7 +69,15 @@ public class VmPoolMonitor implements BackendService {
 
     private long vmPoolMonitorIntervalInMinutes;
 
-    private Set<Guid> startingVms = ConcurrentHashMap.newKeySet();
+    private final VmPoolPrestartThrottle throttle = new VmPoolPrestartThrottle();
+
+    private final AtomicBoolean deferredPrestarts = new AtomicBoolean();
+    private final DurationStatistics prestartLatencies = new DurationStatistics();
+    private final AtomicLong failedPrestarts = new AtomicLong();
+    private final Deque<Long> prestartTimes = new ConcurrentLinkedDeque<>();
+    private volatile long lastCycleDuration;
+
+    private MBeanRegistration mBeanRegistration;
 
     @Inject
     private VmPoolHandler vmPoolHandler;
@@ -63,7 +86,11 @@ public class VmPoolMonitor implements BackendService {
     @Inject
     private VmDao vmDao;
     @Inject
-    private VmStaticDao vmStaticDao;
+    private ClusterDao clusterDao;
+    @Inject
+    private SchedulingManager schedulingManager;
+    @Inject
+    private LockManager lockManager;
     @Inject
     protected BackendInternal backend;
     @Inject
@@ -80,6 +107,12 @@ public class VmPoolMonitor implements BackendService {
                         vmPoolMonitorIntervalInMinutes,
                         vmPoolMonitorIntervalInMinutes,
                         TimeUnit.MINUTES);
+        mBeanRegistration = MBeanRegistration.register("VmPoolMonitor", this);
+    }
+
+    @PreDestroy
+    private void unregisterFromJMX() {
+        mBeanRegistration.unregister();
     }
 
     public void triggerPoolMonitoringJob() {
@@ -98,15 +131,34 @@ public class VmPoolMonitor implements BackendService {
 
     /**
      * Goes over each VM Pool and makes sure there are at least as much prestarted VMs as defined in the prestartedVms
-     * field.
+     * field. The VMs missing in all the pools are selected and placed first, and are then started concurrently.
      */
     private void managePrestartedVmsInAllVmPools() {
         lock.lock();
         try {
-            vmPoolDao.getAll()
+            long startTime = System.currentTimeMillis();
+            int maxStartsPerHost = Config.<Integer> getValue(ConfigValues.VmPoolMonitorMaxStartsPerHost);
+            int maxStartsPerStorageDomain =
+                    Config.<Integer> getValue(ConfigValues.VmPoolMonitorMaxStartsPerStorageDomain);
+            List<PoolPrestart> poolPrestarts = vmPoolDao.getAll()
                     .stream()
                     .filter(pool -> pool.getPrestartedVms() > 0)
-                    .forEach(this::managePrestartedVmsInPool);
+                    .map(pool -> planPrestartedVmsInPool(pool, maxStartsPerHost, maxStartsPerStorageDomain))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            if (poolPrestarts.isEmpty()) {
+                return;
+            }
+
+            prestartVms(poolPrestarts);
+
+            lastCycleDuration = System.currentTimeMillis() - startTime;
+            poolPrestarts.forEach(this::logResultOfPrestartVms);
+            log.info("Prestarted {} VMs in {} VmPools in {} ms, {} VMs deferred to a later cycle",
+                    poolPrestarts.stream().mapToInt(prestart -> prestart.prestartedVms.get()).sum(),
+                    poolPrestarts.size(),
+                    lastCycleDuration,
+                    poolPrestarts.stream().mapToInt(prestart -> prestart.deferredVms.get()).sum());
         } catch (Throwable t) {
             log.error("Exception managing prestarted VMs in all VM pools: {}", ExceptionUtils.getRootCauseMessage(t));
             log.debug("Exception", t);
@@ -116,68 +168,149 @@ public class VmPoolMonitor implements BackendService {
     }
 
     /**
-     * Checks how many prestarted VMs are missing in the pool, and attempts to prestart either that amount or BATCH_SIZE
-     * (the minimum between the two).
+     * Checks how many prestarted VMs are missing in the pool and admits either that amount or BATCH_SIZE (the minimum
+     * between the two) of VMs to prestart.
+     *
+     * @return the VMs to prestart in the pool, or <code>null</code> if no VM is missing
      */
-    private void managePrestartedVmsInPool(VmPool vmPool) {
+    private PoolPrestart planPrestartedVmsInPool(VmPool vmPool, int maxStartsPerHost, int maxStartsPerStorageDomain) {
         int prestartedVms = getNumOfPrestartedVmsInPool(vmPool);
         int missingPrestartedVms = vmPool.getPrestartedVms() - prestartedVms;
-        if (missingPrestartedVms > 0) {
-            // We do not want to start too many VMs at once
-            int numOfVmsToPrestart =
-                    Math.min(missingPrestartedVms, Config.<Integer> getValue(ConfigValues.VmPoolMonitorBatchSize));
-
-            log.info("VmPool '{}' is missing {} prestarted VMs, attempting to prestart {} VMs",
-                    vmPool.getVmPoolId(),
-                    missingPrestartedVms,
-                    numOfVmsToPrestart);
-            prestartVms(vmPool, numOfVmsToPrestart);
+        if (missingPrestartedVms <= 0) {
+            return null;
+        }
+
+        // We do not want to start too many VMs at once
+        int numOfVmsToPrestart =
+                Math.min(missingPrestartedVms, Config.<Integer> getValue(ConfigValues.VmPoolMonitorBatchSize));
+        log.info("VmPool '{}' is missing {} prestarted VMs, attempting to prestart {} VMs",
+                vmPool.getVmPoolId(),
+                missingPrestartedVms,
+                numOfVmsToPrestart);
+
+        PoolPrestart poolPrestart = new PoolPrestart(vmPool,
+                numOfVmsToPrestart,
+                maxStartsPerHost,
+                maxStartsPerStorageDomain,
+                Config.<Integer> getValue(ConfigValues.VmPoolMonitorMaxAttempts));
+        poolPrestart.candidates = vmPoolHandler
+                .selectNonPrestartedVms(vmPool.getVmPoolId(),
+                        (vmId, messages) -> collectVmPrestartFailureReasons(vmId, poolPrestart.failureReasons, messages))
+                .iterator();
+        poolPrestart.vms.addAll(admitVms(poolPrestart, numOfVmsToPrestart));
+        return poolPrestart;
+    }
+
+    /**
+     * Selects up to the given number of VMs of the pool to prestart and places them on the hosts of the pool's cluster
+     * in a single scheduling pass. A VM that can't be scheduled counts as a failed attempt and is replaced by another
+     * VM of the pool, until VmPoolMonitorMaxAttempts consecutive attempts failed. VMs that can't be admitted due to the
+     * concurrency limits of their hosts or storage domain are deferred to the cycle that is triggered once prestarting
+     * VMs come up.
+     *
+     * @return the admitted VMs
+     */
+    private List<VmStatic> admitVms(PoolPrestart poolPrestart, int numOfVms) {
+        List<VmStatic> admittedVms = new ArrayList<>();
+        int deferredVms = 0;
+        while (admittedVms.size() + deferredVms < numOfVms && !poolPrestart.isFailedAttemptsExceeded()) {
+            List<VM> vms = poolPrestart.nextCandidates(numOfVms - admittedVms.size() - deferredVms)
+                    .stream()
+                    .map(vmDao::get)
+                    .collect(Collectors.toList());
+            if (vms.isEmpty()) {
+                break;
+            }
+
+            List<String> messages = new ArrayList<>();
+            Map<Guid, List<VDS>> candidateHosts =
+                    schedulingManager.prepareCall(clusterDao.get(poolPrestart.vmPool.getClusterId()))
+                            .doNotGroupVms(true)
+                            .outputMessages(messages)
+                            .canSchedule(vms);
+            for (VM vm : vms) {
+                List<Guid> hostIds = candidateHosts.getOrDefault(vm.getId(), Collections.emptyList())
+                        .stream()
+                        .map(VDS::getId)
+                        .collect(Collectors.toList());
+                if (hostIds.isEmpty()) {
+                    collectVmPrestartFailureReasons(vm.getId(), poolPrestart.failureReasons, messages);
+                    poolPrestart.failedAttempts.incrementAndGet();
+                    releaseVm(vm.getId());
+                } else if (throttle.tryAdmit(vm.getId(),
+                        vmPoolHandler.getStorageDomainId(vm.getId()),
+                        hostIds,
+                        poolPrestart.maxStartsPerHost,
+                        poolPrestart.maxStartsPerStorageDomain)) {
+                    admittedVms.add(vm.getStaticData());
+                } else {
+                    deferredVms++;
+                    releaseVm(vm.getId());
+                }
+            }
         }
+
+        if (deferredVms > 0) {
+            poolPrestart.deferredVms.addAndGet(deferredVms);
+            deferredPrestarts.set(true);
+        }
+        return admittedVms;
     }
 
     private int getNumOfPrestartedVmsInPool(VmPool pool) {
-        // TODO move to VmPoolHandler and rewrite. Worth to consider using a query that uses vms_monitoring_view
-        List<VM> vmsInPool = vmDao.getAllForVmPool(pool.getVmPoolId());
+        // TODO move to VmPoolHandler
+        List<VM> vmsInPool = vmDao.getAllRuntimeStatusForVmPool(pool.getVmPoolId());
         return vmsInPool == null ? 0
                 : (int) vmsInPool.stream()
-                        .filter(vm -> startingVms.contains(vm.getId())
+                        .filter(vm -> throttle.isPrestarting(vm.getId())
                                 || vm.isStartingOrUp()
                                         && vmPoolHandler.isPrestartedVmFree(vm.getId(), pool.isStateful(), null))
                         .count();
     }
 
+    /**
+     * Releases the lock of a VM that was selected to be prestarted but is not going to be started.
+     */
+    private void releaseVm(Guid vmId) {
+        lockManager.releaseLock(vmPoolHandler.createLock(vmId));
+    }
+
     /***
-     * Prestarts the given amount of VMs in the given VM Pool.
+     * Prestarts the VMs admitted in all the pools, using up to VmPoolMonitorMaxConcurrentStarts concurrent runs, and
+     * waits for the runs to complete.
+     */
+    private void prestartVms(List<PoolPrestart> poolPrestarts) {
+        List<Pair<PoolPrestart, VmStatic>> vms = new ArrayList<>();
+        poolPrestarts.forEach(prestart -> prestart.vms.forEach(vm -> vms.add(new Pair<>(prestart, vm))));
+
+        ThreadPoolUtil.runBounded(vms,
+                Config.<Integer> getValue(ConfigValues.VmPoolMonitorMaxConcurrentStarts),
+                pending -> prestartVm(pending.getFirst(), pending.getSecond()));
+    }
+
+    /**
+     * Prestarts the given VM. If running it fails, other VMs of the pool are admitted and run in its place, until one
+     * of them runs or VmPoolMonitorMaxAttempts consecutive attempts to prestart VMs in the pool failed.
      */
-    private void prestartVms(VmPool vmPool, int numOfVmsToPrestart) {
-        int failedAttempts = 0;
-        int prestartedVms = 0;
-        int maxFailedAttempts = Config.<Integer> getValue(ConfigValues.VmPoolMonitorMaxAttempts);
-        Map<String, Set<Guid>> failureReasons = new HashMap<>();
-
-        Iterator<Guid> iterator =
-                vmPoolHandler
-                        .selectNonPrestartedVms(vmPool.getVmPoolId(),
-                                (vmId, messages) -> collectVmPrestartFailureReasons(vmId, failureReasons, messages))
-                        .iterator();
-        while (failedAttempts < maxFailedAttempts && prestartedVms < numOfVmsToPrestart
-                && iterator.hasNext()) {
-            Guid vmId = iterator.next();
-            if (prestartVm(vmId, !vmPool.isStateful(), vmPool.getName())) {
-                prestartedVms++;
-                failedAttempts = 0;
-            } else {
-                failedAttempts++;
+    private void prestartVm(PoolPrestart poolPrestart, VmStatic vm) {
+        VmStatic vmToRun = vm;
+        while (vmToRun != null) {
+            if (poolPrestart.isFailedAttemptsExceeded()) {
+                throttle.release(vmToRun.getId());
+                releaseVm(vmToRun.getId());
+                return;
             }
-        }
 
-        logResultOfPrestartVms(prestartedVms,
-                numOfVmsToPrestart,
-                vmPool.getVmPoolId(),
-                failureReasons);
+            if (runVmFromPool(vmToRun, !poolPrestart.vmPool.isStateful(), poolPrestart.vmPool.getName())) {
+                poolPrestart.prestartedVms.incrementAndGet();
+                poolPrestart.failedAttempts.set(0);
+                throttle.placed(vmToRun.getId(), vmDao.get(vmToRun.getId()).getRunOnVds());
+                return;
+            }
 
-        if (prestartedVms == 0) {
-            log.info("No VMs available for prestarting");
+            poolPrestart.failedAttempts.incrementAndGet();
+            List<VmStatic> replacements = admitVms(poolPrestart, 1);
+            vmToRun = replacements.isEmpty() ? null : replacements.get(0);
         }
     }
 
@@ -185,28 +318,35 @@ public class VmPoolMonitor implements BackendService {
         String reason = messages.stream()
                 .filter(EngineMessage::contains)
                 .collect(Collectors.joining(", "));
-        failureReasons.computeIfAbsent(reason, key -> new HashSet<>()).add(vmId);
+        synchronized (failureReasons) {
+            failureReasons.computeIfAbsent(reason, key -> new HashSet<>()).add(vmId);
+        }
     }
 
     /**
      * Logs the results of the attempt to prestart VMs in a VM Pool.
      */
-    private void logResultOfPrestartVms(int prestartedVmsCounter,
-            int numOfVmsToPrestart,
-            Guid vmPoolId,
-            Map<String, Set<Guid>> failureReasonsForVms) {
+    private void logResultOfPrestartVms(PoolPrestart poolPrestart) {
+        int prestartedVmsCounter = poolPrestart.prestartedVms.get();
+        int numOfVmsToPrestart = poolPrestart.numOfVmsToPrestart;
+        Guid vmPoolId = poolPrestart.vmPool.getVmPoolId();
         if (prestartedVmsCounter > 0) {
             log.info("Prestarted {} VMs out of the {} required, in VmPool '{}'",
                     prestartedVmsCounter,
                     numOfVmsToPrestart,
                     vmPoolId);
+        } else if (poolPrestart.deferredVms.get() > 0) {
+            log.info("Prestarting of {} VMs in VmPool '{}' was deferred, the hosts or storage domains of the VMs are"
+                    + " busy prestarting other VMs",
+                    poolPrestart.deferredVms.get(),
+                    vmPoolId);
         } else {
             log.warn("Failed to prestart any VMs for VmPool '{}'",
                     vmPoolId);
         }
 
-        if (prestartedVmsCounter < numOfVmsToPrestart) {
-            for (Map.Entry<String, Set<Guid>> entry : failureReasonsForVms.entrySet()) {
+        if (prestartedVmsCounter + poolPrestart.deferredVms.get() < numOfVmsToPrestart) {
+            for (Map.Entry<String, Set<Guid>> entry : poolPrestart.failureReasons.entrySet()) {
                 log.warn("Failed to prestart VMs {} with reason {}",
                         entry.getValue(),
                         entry.getKey());
@@ -214,21 +354,11 @@ public class VmPoolMonitor implements BackendService {
         }
     }
 
-    /**
-     * Prestarts the given VM.
-     * @return whether or not succeeded to prestart the VM
-     */
-    private boolean prestartVm(Guid vmGuid, boolean runAsStateless, String poolName) {
-        VmStatic vmToPrestart = vmStaticDao.get(vmGuid);
-        return runVmFromPool(vmToPrestart, runAsStateless, poolName);
-    }
-
     /**
      * Run the given VM as stateless.
      */
     private boolean runVmFromPool(VmStatic vmToRun, boolean runAsStateless, String poolName) {
         log.info("Running VM '{}' as {}", vmToRun.getName(), runAsStateless ? "stateless" : "stateful");
-        startingVm(vmToRun.getId());
 
         RunVmParams runVmParams = new RunVmParams(vmToRun.getId());
         runVmParams.setEntityInfo(new EntityInfo(VdcObjectType.VM, vmToRun.getId()));
@@ -254,15 +384,125 @@ public class VmPoolMonitor implements BackendService {
         return prestartingVmSucceeded;
     }
 
-    private void startingVm(Guid vmId) {
-        startingVms.add(vmId);
-    }
+    /**
+     * Called when a pool VM came up.
+     */
+    public void startingVmSucceeded(Guid vmId) {
+        long latency = throttle.release(vmId);
+        if (latency < 0) {
+            return;
+        }
 
+        log.debug("Prestarted VM {} came up after {} ms", vmId, latency);
+        prestartLatencies.add(latency);
+        long now = System.currentTimeMillis();
+        prestartTimes.add(now);
+        removePrestartTimesBefore(now - TimeUnit.MINUTES.toMillis(1));
+        prestartSlotReleased();
+    }
 
     public void startingVmCompleted(Guid vmId, String cause) {
-        if (startingVms.remove(vmId)) {
+        if (throttle.release(vmId) >= 0) {
             log.debug("Startup of VM {} completed ({})", vmId, cause);
+            failedPrestarts.incrementAndGet();
+            prestartSlotReleased();
+        }
+    }
+
+    /**
+     * Triggers another cycle once prestarting VMs come up (or fail to), if VMs were deferred due to the concurrency
+     * limits.
+     */
+    private void prestartSlotReleased() {
+        if (deferredPrestarts.compareAndSet(true, false)) {
+            triggerPoolMonitoringJob();
+        }
+    }
+
+    private void removePrestartTimesBefore(long time) {
+        Long oldest;
+        while ((oldest = prestartTimes.peekFirst()) != null && oldest < time) {
+            prestartTimes.pollFirst();
         }
     }
 
+    @Override
+    public int getPrestartingVms() {
+        return throttle.getPrestartingVmsCount();
+    }
+
+    @Override
+    public long getPrestartedVms() {
+        return prestartLatencies.getCount();
+    }
+
+    @Override
+    public long getFailedPrestarts() {
+        return failedPrestarts.get();
+    }
+
+    @Override
+    public int getPrestartedVmsInLastMinute() {
+        removePrestartTimesBefore(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1));
+        return prestartTimes.size();
+    }
+
+    @Override
+    public long getAveragePrestartLatency() {
+        return prestartLatencies.getAverage();
+    }
+
+    @Override
+    public long getMaxPrestartLatency() {
+        return prestartLatencies.getMax();
+    }
+
+    @Override
+    public long getLastCycleDuration() {
+        return lastCycleDuration;
+    }
+
+    /**
+     * The VMs to prestart in a pool during a cycle, and the results of prestarting them.
+     */
+    private static class PoolPrestart {
+        private final VmPool vmPool;
+        private final int numOfVmsToPrestart;
+        private final int maxStartsPerHost;
+        private final int maxStartsPerStorageDomain;
+        private final int maxFailedAttempts;
+        private final List<VmStatic> vms = new ArrayList<>();
+        private final Map<String, Set<Guid>> failureReasons = new HashMap<>();
+        private final AtomicInteger prestartedVms = new AtomicInteger();
+        private final AtomicInteger failedAttempts = new AtomicInteger();
+        private final AtomicInteger deferredVms = new AtomicInteger();
+        private Iterator<Guid> candidates;
+
+        PoolPrestart(VmPool vmPool,
+                int numOfVmsToPrestart,
+                int maxStartsPerHost,
+                int maxStartsPerStorageDomain,
+                int maxFailedAttempts) {
+            this.vmPool = vmPool;
+            this.numOfVmsToPrestart = numOfVmsToPrestart;
+            this.maxStartsPerHost = maxStartsPerHost;
+            this.maxStartsPerStorageDomain = maxStartsPerStorageDomain;
+            this.maxFailedAttempts = maxFailedAttempts;
+        }
+
+        /**
+         * Selects (and locks) up to the given number of VMs of the pool that were not considered yet in this cycle.
+         */
+        synchronized List<Guid> nextCandidates(int numOfVms) {
+            List<Guid> vmIds = new ArrayList<>();
+            while (vmIds.size() < numOfVms && candidates.hasNext()) {
+                vmIds.add(candidates.next());
+            }
+            return vmIds;
+        }
+
+        boolean isFailedAttemptsExceeded() {
+            return failedAttempts.get() >= maxFailedAttempts;
+        }
+    }
 }
@@ -0,0 +1,39 @@
+package org.ovirt.engine.core.bll;
+
+public interface VmPoolMonitorMXBean {
+
+    /**
+     * @return the number of VMs currently being prestarted
+     */
+    int getPrestartingVms();
+
+    /**
+     * @return the number of prestarted VMs that came up since the engine started
+     */
+    long getPrestartedVms();
+
+    /**
+     * @return the number of VMs that failed to prestart since the engine started
+     */
+    long getFailedPrestarts();
+
+    /**
+     * @return the number of prestarted VMs that came up during the last minute
+     */
+    int getPrestartedVmsInLastMinute();
+
+    /**
+     * @return the average time in milliseconds from launching a prestarted VM until it came up
+     */
+    long getAveragePrestartLatency();
+
+    /**
+     * @return the maximal time in milliseconds from launching a prestarted VM until it came up
+     */
+    long getMaxPrestartLatency();
+
+    /**
+     * @return the time in milliseconds the last prestart cycle took
+     */
+    long getLastCycleDuration();
+}
@@ -0,0 +1,134 @@
+package org.ovirt.engine.core.bll;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * Keeps track of the VMs prestarted by the {@link VmPoolMonitor} from the moment they are launched until they are up
+ * (or failed to start), and limits the number of such VMs per host and per storage domain.
+ * <p>
+ * Since the host a VM runs on is selected by RunVmCommand, a VM is accounted to the least loaded of the hosts it can
+ * run on when it is admitted, and moved to the host it was actually started on once known.
+ */
+class VmPoolPrestartThrottle {
+
+    private final Map<Guid, PrestartingVm> prestartingVms = new HashMap<>();
+    private final Map<Guid, Integer> startsPerHost = new HashMap<>();
+    private final Map<Guid, Integer> startsPerStorageDomain = new HashMap<>();
+
+    /**
+     * Admits the given VM to be prestarted, if both its storage domain and one of the hosts it can run on are below
+     * their limit.
+     *
+     * @param vmId
+     *            the VM to prestart
+     * @param storageDomainId
+     *            the storage domain of the VM disks, {@code null} for a diskless VM
+     * @param candidateHosts
+     *            the hosts the VM can run on
+     * @param maxStartsPerHost
+     *            the maximal number of VMs prestarted concurrently on a host
+     * @param maxStartsPerStorageDomain
+     *            the maximal number of VMs prestarted concurrently from a storage domain
+     * @return whether the VM was admitted
+     */
+    synchronized boolean tryAdmit(Guid vmId,
+            Guid storageDomainId,
+            Collection<Guid> candidateHosts,
+            int maxStartsPerHost,
+            int maxStartsPerStorageDomain) {
+        if (prestartingVms.containsKey(vmId)) {
+            return false;
+        }
+        if (storageDomainId != null && count(startsPerStorageDomain, storageDomainId) >= maxStartsPerStorageDomain) {
+            return false;
+        }
+        Optional<Guid> host = candidateHosts.stream()
+                .filter(hostId -> count(startsPerHost, hostId) < maxStartsPerHost)
+                .min(Comparator.comparingInt(hostId -> count(startsPerHost, hostId)));
+        if (!host.isPresent()) {
+            return false;
+        }
+
+        prestartingVms.put(vmId, new PrestartingVm(host.get(), storageDomainId));
+        increment(startsPerHost, host.get());
+        if (storageDomainId != null) {
+            increment(startsPerStorageDomain, storageDomainId);
+        }
+        return true;
+    }
+
+    /**
+     * Accounts a prestarting VM to the host it was started on.
+     */
+    synchronized void placed(Guid vmId, Guid hostId) {
+        PrestartingVm vm = prestartingVms.get(vmId);
+        if (vm == null || hostId == null || hostId.equals(vm.hostId)) {
+            return;
+        }
+        decrement(startsPerHost, vm.hostId);
+        increment(startsPerHost, hostId);
+        vm.hostId = hostId;
+    }
+
+    /**
+     * Stops tracking the given VM.
+     *
+     * @return the time in milliseconds since the VM was admitted, or {@code -1} if the VM wasn't tracked
+     */
+    synchronized long release(Guid vmId) {
+        PrestartingVm vm = prestartingVms.remove(vmId);
+        if (vm == null) {
+            return -1;
+        }
+        decrement(startsPerHost, vm.hostId);
+        if (vm.storageDomainId != null) {
+            decrement(startsPerStorageDomain, vm.storageDomainId);
+        }
+        return System.currentTimeMillis() - vm.admissionTime;
+    }
+
+    synchronized boolean isPrestarting(Guid vmId) {
+        return prestartingVms.containsKey(vmId);
+    }
+
+    synchronized int getPrestartingVmsCount() {
+        return prestartingVms.size();
+    }
+
+    synchronized int getStartsOnHost(Guid hostId) {
+        return count(startsPerHost, hostId);
+    }
+
+    synchronized int getStartsFromStorageDomain(Guid storageDomainId) {
+        return count(startsPerStorageDomain, storageDomainId);
+    }
+
+    private static int count(Map<Guid, Integer> counters, Guid id) {
+        return counters.getOrDefault(id, 0);
+    }
+
+    private static void increment(Map<Guid, Integer> counters, Guid id) {
+        counters.merge(id, 1, Integer::sum);
+    }
+
+    private static void decrement(Map<Guid, Integer> counters, Guid id) {
+        counters.computeIfPresent(id, (key, value) -> value > 1 ? value - 1 : null);
+    }
+
+    private static class PrestartingVm {
+        private final Guid storageDomainId;
+        private final long admissionTime = System.currentTimeMillis();
+        private Guid hostId;
+
+        PrestartingVm(Guid hostId, Guid storageDomainId) {
+            this.hostId = hostId;
+            this.storageDomainId = storageDomainId;
+        }
+    }
+}
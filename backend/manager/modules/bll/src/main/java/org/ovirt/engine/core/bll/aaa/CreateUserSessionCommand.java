@@ -3,14 +3,12 @@ package org.ovirt.engine.core.bll.aaa;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import javax.inject.Inject;
 
 import org.apache.commons.lang.StringUtils;
-import org.ovirt.engine.api.extensions.ExtKey;
 import org.ovirt.engine.api.extensions.ExtMap;
 import org.ovirt.engine.api.extensions.aaa.Authz;
 import org.ovirt.engine.core.aaa.AuthenticationProfile;
@@ -49,6 +47,8 @@ public class CreateUserSessionCommand<T extends CreateUserSessionParameters> ext
     private DbGroupDao dbGroupDao;
     @Inject
     private RoleDao roleDao;
+    @Inject
+    private DirectoryUtils directoryUtils;
 
     private static final String UNKNOWN = "UNKNOWN";
     private static final String OVIRT_ADMINISTRATOR = "ovirt-administrator";
@@ -76,8 +76,7 @@ public class CreateUserSessionCommand<T extends CreateUserSessionParameters> ext
         user.setNamespace(params.getNamespace());
         user.setLoginName(params.getPrincipalName());
         List<Guid> groupIds = new ArrayList<>();
-        Map<String, ExtMap> groupRecords = new HashMap<>();
-        flatGroups((Collection<ExtMap>) params.getGroupIds(), groupRecords);
+        Map<String, ExtMap> groupRecords = directoryUtils.flatGroups((Collection<ExtMap>) params.getGroupIds());
         for (Map.Entry<String, ExtMap> group: groupRecords.entrySet()) {
             String name = group.getValue().get(Authz.GroupRecord.NAME);
             // The domain is empty for predefined ovirt-administrator group
@@ -88,8 +87,10 @@ public class CreateUserSessionCommand<T extends CreateUserSessionParameters> ext
                     dbGroupDao.getByNameAndDomain(name, domain) :
                     dbGroupDao.getByExternalId(authzName, group.getKey());
             if (dbGroup != null) {
-                dbGroup.setName(name);
-                dbGroupDao.update(dbGroup);
+                if (!name.equals(dbGroup.getName())) {
+                    dbGroup.setName(name);
+                    dbGroupDao.update(dbGroup);
+                }
                 groupIds.add(dbGroup.getId());
             }
         }
@@ -155,24 +156,6 @@ public class CreateUserSessionCommand<T extends CreateUserSessionParameters> ext
         }
     }
 
-    private static void flatGroups(Collection<ExtMap> groupIds, Map<String, ExtMap> accumulator) {
-        for (ExtMap group : groupIds) {
-            if (!accumulator.containsKey(group.<String>get(Authz.GroupRecord.ID))) {
-                accumulator.put(group.get(Authz.GroupRecord.ID), group);
-                flatGroups(group, Authz.GroupRecord.GROUPS, accumulator);
-            }
-        }
-    }
-
-    private static void flatGroups(ExtMap entity, ExtKey key, Map<String, ExtMap> accumulator) {
-        for (ExtMap group : entity.<Collection<ExtMap>>get(key, Collections.<ExtMap>emptyList())) {
-            if (!accumulator.containsKey(group.<String>get(Authz.GroupRecord.ID))) {
-                accumulator.put(group.get(Authz.GroupRecord.ID), group);
-                flatGroups(group, Authz.GroupRecord.GROUPS, accumulator);
-            }
-        }
-    }
-
     @Override
     protected boolean isUserAuthorizedToRunAction() {
         return true;
@@ -119,6 +119,15 @@ public class DirectoryUtils {
         principal.put(PrincipalRecord.GROUPS, new ArrayList<>(accumulator.values()));
     }
 
+    /**
+     * @return the given groups and the groups they are members of, recursively, by group id
+     */
+    public Map<String, ExtMap> flatGroups(Collection<ExtMap> groups) {
+        Map<String, ExtMap> accumulator = new HashMap<>();
+        flatGroups(new ExtMap().mput(PrincipalRecord.GROUPS, groups), PrincipalRecord.GROUPS, accumulator);
+        return accumulator;
+    }
+
     private void flatGroups(ExtMap entity, ExtKey key, Map<String, ExtMap> accumulator) {
         for (ExtMap group : entity.<Collection<ExtMap>>get(key, Collections.<ExtMap> emptyList())) {
             if(!accumulator.containsKey(group.<String>get(GroupRecord.ID))) {
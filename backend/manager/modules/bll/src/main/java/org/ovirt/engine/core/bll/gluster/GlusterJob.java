@@ -1,16 +1,26 @@
 package org.ovirt.engine.core.bll.gluster;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
+import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 
 import org.ovirt.engine.core.bll.LockMessagesMatchUtil;
 import org.ovirt.engine.core.bll.scheduling.OvirtGlusterSchedulingService;
 import org.ovirt.engine.core.bll.utils.GlusterAuditLogUtil;
 import org.ovirt.engine.core.bll.utils.GlusterUtil;
+import org.ovirt.engine.core.common.businessentities.Cluster;
 import org.ovirt.engine.core.common.businessentities.VDS;
 import org.ovirt.engine.core.common.businessentities.gluster.GlusterServerInfo;
 import org.ovirt.engine.core.common.config.Config;
@@ -45,6 +55,7 @@ import org.ovirt.engine.core.dao.network.InterfaceDao;
 import org.ovirt.engine.core.dao.network.NetworkDao;
 import org.ovirt.engine.core.utils.lock.EngineLock;
 import org.ovirt.engine.core.utils.lock.LockManager;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -125,8 +136,16 @@ public abstract class GlusterJob {
     @Inject
     private OvirtGlusterSchedulingService scheduler;
 
+    @Inject
+    private Instance<GlusterJobsManager> glusterJobsManager;
+
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
+    /**
+     * IDs of the clusters being refreshed, per kind of refresh
+     */
+    private final ConcurrentMap<String, Set<Guid>> clustersInRefresh = new ConcurrentHashMap<>();
+
     public abstract Collection<GlusterJobSchedulingDetails> getSchedulingDetails();
 
     public void schedule() {
@@ -191,6 +210,140 @@ public abstract class GlusterJob {
         return lock;
     }
 
+    /**
+     * Refreshes the given clusters concurrently, using at most {@link ConfigValues#GlusterRefreshClustersParallelism}
+     * threads of the engine thread pool, so a slow host stalls the refresh of its own cluster only. The refresh of
+     * each cluster is waited for at most {@link ConfigValues#GlusterClusterRefreshTimeoutInSecs}, after which it is
+     * left to complete in the background and the cluster is skipped by the following refreshes of the same kind until
+     * it does. The time each cluster refresh took is recorded by the {@link GlusterJobsManager}.
+     *
+     * @param refreshName
+     *            the kind of the refresh, used for logging and for recording the refresh times
+     * @param clusters
+     *            the clusters to refresh
+     * @param clusterRefresh
+     *            refreshes the data of a single cluster
+     */
+    protected void refreshClusters(String refreshName, List<Cluster> clusters, Consumer<Cluster> clusterRefresh) {
+        Set<Guid> clustersInProgress = clustersInRefresh.computeIfAbsent(refreshName, k -> ConcurrentHashMap.newKeySet());
+        List<ClusterRefresh> refreshes = new ArrayList<>();
+        for (Cluster cluster : clusters) {
+            if (clustersInProgress.add(cluster.getId())) {
+                refreshes.add(new ClusterRefresh(cluster));
+            } else {
+                log.warn("Previous Gluster {} data refresh of cluster '{}' is still in progress, skipping it",
+                        refreshName,
+                        cluster.getName());
+            }
+        }
+
+        int parallelism = Math.min(Config.<Integer> getValue(ConfigValues.GlusterRefreshClustersParallelism),
+                refreshes.size());
+        if (parallelism <= 1) {
+            refreshes.forEach(refresh -> runClusterRefresh(refreshName, refresh, clusterRefresh, clustersInProgress));
+            return;
+        }
+
+        Runnable refreshAll = () -> ThreadPoolUtil.runBounded(refreshes,
+                parallelism,
+                refresh -> runClusterRefresh(refreshName, refresh, clusterRefresh, clustersInProgress));
+        try {
+            // the refreshes are awaited by the current thread, each up to the timeout
+            ThreadPoolUtil.execute(refreshAll);
+        } catch (RejectedExecutionException e) {
+            // the thread pool is exhausted, refresh the clusters from the current thread
+            refreshAll.run();
+        }
+
+        long timeout = TimeUnit.SECONDS.toMillis(Config.<Integer> getValue(ConfigValues.GlusterClusterRefreshTimeoutInSecs));
+        for (ClusterRefresh refresh : refreshes) {
+            awaitClusterRefresh(refreshName, refresh, timeout, clustersInProgress);
+        }
+    }
+
+    private void runClusterRefresh(String refreshName,
+            ClusterRefresh refresh,
+            Consumer<Cluster> clusterRefresh,
+            Set<Guid> clustersInProgress) {
+        if (!refresh.start()) {
+            // the refresh was given up before it started
+            return;
+        }
+
+        Cluster cluster = refresh.cluster;
+        try {
+            clusterRefresh.accept(cluster);
+        } catch (Exception e) {
+            log.error("Error while refreshing Gluster {} data of cluster '{}': {}",
+                    refreshName,
+                    cluster.getName(),
+                    e.getMessage());
+            log.debug("Exception", e);
+        } finally {
+            clustersInProgress.remove(cluster.getId());
+            glusterJobsManager.get().recordClusterRefreshTime(refreshName,
+                    cluster.getId(),
+                    System.currentTimeMillis() - refresh.startTime.get());
+            refresh.done.countDown();
+        }
+    }
+
+    private void awaitClusterRefresh(String refreshName,
+            ClusterRefresh refresh,
+            long timeout,
+            Set<Guid> clustersInProgress) {
+        try {
+            if (refresh.done.await(timeout, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+
+            if (refresh.cancel()) {
+                clustersInProgress.remove(refresh.cluster.getId());
+                log.warn("Gluster {} data refresh of cluster '{}' didn't start within {} ms, skipping it",
+                        refreshName,
+                        refresh.cluster.getName(),
+                        timeout);
+                return;
+            }
+
+            long remainingTime = refresh.startTime.get() + timeout - System.currentTimeMillis();
+            if (remainingTime <= 0 || !refresh.done.await(remainingTime, TimeUnit.MILLISECONDS)) {
+                log.warn("Gluster {} data refresh of cluster '{}' didn't complete within {} ms, "
+                        + "leaving it to complete in the background",
+                        refreshName,
+                        refresh.cluster.getName(),
+                        timeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The refresh of a single cluster, that is either started by a worker or given up before it started
+     */
+    private static class ClusterRefresh {
+
+        private static final long NOT_STARTED = 0;
+        private static final long CANCELLED = -1;
+
+        private final Cluster cluster;
+        private final AtomicLong startTime = new AtomicLong(NOT_STARTED);
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        ClusterRefresh(Cluster cluster) {
+            this.cluster = cluster;
+        }
+
+        boolean start() {
+            return startTime.compareAndSet(NOT_STARTED, System.currentTimeMillis());
+        }
+
+        boolean cancel() {
+            return startTime.compareAndSet(NOT_STARTED, CANCELLED);
+        }
+    }
+
     protected static int getRefreshRate(ConfigValues refreshRateConfig) {
         return Config.<Integer> getValue(refreshRateConfig);
     }
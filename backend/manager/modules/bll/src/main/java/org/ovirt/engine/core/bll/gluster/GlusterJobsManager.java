@@ -1,5 +1,9 @@
 package org.ovirt.engine.core.bll.gluster;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import javax.annotation.PostConstruct;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
@@ -10,6 +14,7 @@ import org.ovirt.engine.core.common.BackendService;
 import org.ovirt.engine.core.common.config.Config;
 import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.mode.ApplicationMode;
+import org.ovirt.engine.core.compat.Guid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,6 +29,11 @@ public class GlusterJobsManager implements BackendService {
     @Inject
     private OvirtGlusterSchedulingService cronJobs;
 
+    /**
+     * The time (in milliseconds) the last refresh of each cluster took, per kind of refresh
+     */
+    private final ConcurrentMap<String, Map<Guid, Long>> clusterRefreshTimes = new ConcurrentHashMap<>();
+
     @PostConstruct
     public void init() {
         if (!glusterModeSupported()) {
@@ -37,6 +47,30 @@ public class GlusterJobsManager implements BackendService {
         cronJobs.scheduleAllJobs();
     }
 
+    /**
+     * Records the time it took to refresh the gluster data of a cluster.
+     *
+     * @param refreshName
+     *            the kind of the refresh, e.g. lightweight or heavyweight
+     * @param clusterId
+     *            ID of the refreshed cluster
+     * @param refreshTime
+     *            time (in milliseconds) the refresh took
+     */
+    public void recordClusterRefreshTime(String refreshName, Guid clusterId, long refreshTime) {
+        log.debug("Gluster {} data refresh of cluster '{}' took {} ms", refreshName, clusterId, refreshTime);
+        clusterRefreshTimes.computeIfAbsent(refreshName, k -> new ConcurrentHashMap<>()).put(clusterId, refreshTime);
+    }
+
+    /**
+     * Returns the time (in milliseconds) the last refresh of the given kind of the cluster took, or <code>null</code>
+     * if the cluster wasn't refreshed yet.
+     */
+    public Long getLastClusterRefreshTime(String refreshName, Guid clusterId) {
+        Map<Guid, Long> refreshTimes = clusterRefreshTimes.get(refreshName);
+        return refreshTimes != null ? refreshTimes.get(clusterId) : null;
+    }
+
     private static boolean glusterModeSupported() {
         Integer appMode = Config.<Integer> getValue(ConfigValues.ApplicationMode);
         return (appMode & ApplicationMode.GlusterOnly.getValue()) > 0;
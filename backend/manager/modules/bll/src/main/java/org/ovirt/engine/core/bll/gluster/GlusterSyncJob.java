@@ -10,6 +10,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -26,6 +27,7 @@ import org.ovirt.engine.core.common.action.ActionType;
 import org.ovirt.engine.core.common.action.SetNonOperationalVdsParameters;
 import org.ovirt.engine.core.common.action.gluster.GlusterVolumeActionParameters;
 import org.ovirt.engine.core.common.businessentities.Cluster;
+import org.ovirt.engine.core.common.businessentities.Entities;
 import org.ovirt.engine.core.common.businessentities.ExternalStatus;
 import org.ovirt.engine.core.common.businessentities.NonOperationalReason;
 import org.ovirt.engine.core.common.businessentities.VDS;
@@ -111,20 +113,11 @@ public class GlusterSyncJob extends GlusterJob {
     @OnTimerMethodAnnotation("refreshLightWeightData")
     public void refreshLightWeightData() {
         log.debug("Refreshing Gluster Data [lightweight]");
-        List<Cluster> clusters = clusterDao.getAll();
+        refreshClusters("lightweight", getGlusterClusters(), this::refreshClusterData);
+    }
 
-        for (Cluster cluster : clusters) {
-            if (cluster.supportsGlusterService()) {
-                try {
-                    refreshClusterData(cluster);
-                } catch (Exception e) {
-                    log.error("Error while refreshing Gluster lightweight data of cluster '{}': {}",
-                            cluster.getName(),
-                            e.getMessage());
-                    log.debug("Exception", e);
-                }
-            }
-        }
+    private List<Cluster> getGlusterClusters() {
+        return clusterDao.getAll().stream().filter(Cluster::supportsGlusterService).collect(Collectors.toList());
     }
 
     private void refreshClusterData(Cluster cluster) {
@@ -457,11 +450,16 @@ public class GlusterSyncJob extends GlusterJob {
                 return;
             }
 
+            // the existing volumes are fetched once, so that only the volumes and bricks which differ from the
+            // fetched ones are written to the DB
+            Map<Guid, GlusterVolumeEntity> existingVolumes =
+                    Entities.businessEntitiesById(volumeDao.getByClusterId(cluster.getId()));
+
             // remove deleted volumes must happen before adding new ones,
             // to handle cases where user deleted a volume and created a
             // new one with same name in a very short time
-            removeDeletedVolumes(cluster.getId(), volumesMap);
-            updateExistingAndNewVolumes(cluster.getId(), volumesMap);
+            removeDeletedVolumes(cluster.getId(), existingVolumes.values(), volumesMap);
+            updateExistingAndNewVolumes(cluster.getId(), existingVolumes, volumesMap);
         } finally {
             releaseLock(cluster.getId());
         }
@@ -496,9 +494,11 @@ public class GlusterSyncJob extends GlusterJob {
         return result.getSucceeded() ? (Map<Guid, GlusterVolumeEntity>) result.getReturnValue() : null;
     }
 
-    private void removeDeletedVolumes(Guid clusterId, Map<Guid, GlusterVolumeEntity> volumesMap) {
+    private void removeDeletedVolumes(Guid clusterId,
+            Collection<GlusterVolumeEntity> existingVolumes,
+            Map<Guid, GlusterVolumeEntity> volumesMap) {
         List<Guid> idsToRemove = new ArrayList<>();
-        for (GlusterVolumeEntity volume : volumeDao.getByClusterId(clusterId)) {
+        for (GlusterVolumeEntity volume : existingVolumes) {
             if (!volumesMap.containsKey(volume.getId())) {
                 idsToRemove.add(volume.getId());
                 log.debug("Volume '{}' has been removed directly using the gluster CLI. Removing it from engine as well.",
@@ -523,14 +523,16 @@ public class GlusterSyncJob extends GlusterJob {
         }
     }
 
-    private void updateExistingAndNewVolumes(Guid clusterId, Map<Guid, GlusterVolumeEntity> volumesMap) {
+    private void updateExistingAndNewVolumes(Guid clusterId,
+            Map<Guid, GlusterVolumeEntity> existingVolumes,
+            Map<Guid, GlusterVolumeEntity> volumesMap) {
         Cluster cluster = clusterDao.get(clusterId);
 
         for (Entry<Guid, GlusterVolumeEntity> entry : volumesMap.entrySet()) {
             GlusterVolumeEntity volume = entry.getValue();
             log.debug("Analyzing volume '{}'", volume.getName());
 
-            GlusterVolumeEntity existingVolume = volumeDao.getById(entry.getKey());
+            GlusterVolumeEntity existingVolume = existingVolumes.get(entry.getKey());
             if (existingVolume == null) {
                 try {
                     createVolume(volume);
@@ -914,19 +916,7 @@ public class GlusterSyncJob extends GlusterJob {
     @OnTimerMethodAnnotation("refreshHeavyWeightData")
     public void refreshHeavyWeightData() {
         log.debug("Refreshing Gluster Data [heavyweight]");
-
-        for (Cluster cluster : clusterDao.getAll()) {
-            if (cluster.supportsGlusterService()) {
-                try {
-                    refreshClusterHeavyWeightData(cluster);
-                } catch (Exception e) {
-                    log.error("Error while refreshing Gluster heavyweight data of cluster '{}': {}",
-                            cluster.getName(),
-                            e.getMessage());
-                    log.debug("Exception", e);
-                }
-            }
-        }
+        refreshClusters("heavyweight", getGlusterClusters(), this::refreshClusterHeavyWeightData);
     }
 
     private void refreshClusterHeavyWeightData(Cluster cluster) {
@@ -1006,9 +996,11 @@ public class GlusterSyncJob extends GlusterJob {
                  * The status for these bricks are skipped and reflect the last queried status.
                  * This else part will update the status of these brick to Unknown status.
                  */
-                logBrickStatusChange(volume, brick, GlusterStatus.UNKNOWN);
-                brick.setStatus(GlusterStatus.UNKNOWN);
-                bricksToUpdate.add(brick);
+                if (brick.getStatus() != GlusterStatus.UNKNOWN) {
+                    logBrickStatusChange(volume, brick, GlusterStatus.UNKNOWN);
+                    brick.setStatus(GlusterStatus.UNKNOWN);
+                    bricksToUpdate.add(brick);
+                }
             }
         }
 
@@ -1033,7 +1025,9 @@ public class GlusterSyncJob extends GlusterJob {
         } else {
             volumeAdvancedDetails.getCapacityInfo().setConfirmedFreeSize(confirmedFreeSize);
             volumeAdvancedDetails.getCapacityInfo().setVdoSavings(vdoSavings);
-            volumeDao.updateVolumeCapacityInfo(volumeAdvancedDetails.getCapacityInfo());
+            if (!volumeAdvancedDetails.getCapacityInfo().equals(volume.getAdvancedDetails().getCapacityInfo())) {
+                volumeDao.updateVolumeCapacityInfo(volumeAdvancedDetails.getCapacityInfo());
+            }
         }
         if (confirmedFreeSize != null) {
             List<Guid> sdId = thinDeviceService.getVolumeStorageDomains(volume);
@@ -1111,19 +1105,7 @@ public class GlusterSyncJob extends GlusterJob {
     @OnTimerMethodAnnotation("refreshSelfHealInfo")
     public void refreshSelfHealInfo() {
         log.debug("Refreshing Gluster Self Heal Data");
-
-        for (Cluster cluster : clusterDao.getAll()) {
-            if (cluster.supportsGlusterService()) {
-                try {
-                    refreshSelfHealData(cluster);
-                } catch (Exception e) {
-                    log.error("Error while refreshing Gluster self heal data of cluster '{}': {}",
-                            cluster.getName(),
-                            e.getMessage());
-                    log.debug("Exception", e);
-                }
-            }
-        }
+        refreshClusters("self heal", getGlusterClusters(), this::refreshSelfHealData);
 
         log.debug("Refreshing Gluster Self Heal data is completed");
     }
@@ -0,0 +1,181 @@
+package org.ovirt.engine.core.bll.hostdev;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang.StringUtils;
+import org.ovirt.engine.core.common.businessentities.HostDevice;
+import org.ovirt.engine.core.common.businessentities.MDevType;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.HostDeviceDao;
+
+/**
+ * Keeps the devices of each host in memory, indexed for the lookups done while scheduling VMs and allocating their
+ * devices, so these don't have to query the devices of each candidate host.
+ * <p>
+ * The devices of a host are loaded on the first lookup and are dropped whenever they are changed, i.e. when they
+ * are refreshed from the host and when they are allocated to or freed from a VM, to be loaded again on the next
+ * lookup. Operations that must not rely on the inventory, like verifying that a device is not taken by another VM
+ * before allocating it, should keep on reading the devices from {@link HostDeviceDao}.
+ */
+@Singleton
+public class HostDeviceInventory {
+
+    private final HostDeviceDao hostDeviceDao;
+
+    private final Map<Guid, HostDevices> inventory = new ConcurrentHashMap<>();
+
+    @Inject
+    public HostDeviceInventory(HostDeviceDao hostDeviceDao) {
+        this.hostDeviceDao = Objects.requireNonNull(hostDeviceDao, "hostDeviceDao cannot be null");
+    }
+
+    /**
+     * @return the devices of the given host, loading them if they are not in the inventory
+     */
+    public HostDevices getHostDevices(Guid hostId) {
+        return inventory.computeIfAbsent(hostId, id -> new HostDevices(hostDeviceDao.getHostDevicesByHostId(id)));
+    }
+
+    /**
+     * Drops the devices of the given host, which were changed, from the inventory. Dropping the devices waits for
+     * a concurrent load of the devices to complete, so the devices loaded before the change are not kept.
+     */
+    public void invalidate(Guid hostId) {
+        if (hostId != null) {
+            inventory.remove(hostId);
+        }
+    }
+
+    /**
+     * Drops the devices of the hosts on which the given VM uses devices from the inventory.
+     */
+    public void invalidateVm(Guid vmId) {
+        inventory.entrySet().removeIf(entry -> entry.getValue().isUsedByVm(vmId));
+    }
+
+    /**
+     * Drops the devices of all the hosts from the inventory.
+     */
+    public void invalidateAll() {
+        inventory.clear();
+    }
+
+    /**
+     * The devices of a single host, as loaded from the database.
+     */
+    public static class HostDevices {
+
+        private final List<HostDevice> devices;
+        private final Map<String, HostDevice> devicesByName = new HashMap<>();
+        private final Map<String, HostDevice> networkDevicesByInterfaceName = new HashMap<>();
+        private final Map<String, HostDevice> networkDevicesByParentName = new HashMap<>();
+        private final Map<String, List<HostDevice>> virtualFunctionsByPhysicalFunction = new HashMap<>();
+        private final Map<Integer, Integer> iommuGroupSizes = new HashMap<>();
+        private final Set<String> mDevTypes = new HashSet<>();
+        private final Set<String> availableMDevTypes = new HashSet<>();
+
+        HostDevices(List<HostDevice> devices) {
+            this.devices = Collections.unmodifiableList(devices);
+            for (HostDevice device : devices) {
+                devicesByName.put(device.getDeviceName(), device);
+                if (device.getNetworkInterfaceName() != null) {
+                    networkDevicesByInterfaceName.putIfAbsent(device.getNetworkInterfaceName(), device);
+                    if (device.getParentDeviceName() != null) {
+                        networkDevicesByParentName.putIfAbsent(device.getParentDeviceName(), device);
+                    }
+                }
+                if (StringUtils.isNotBlank(device.getParentPhysicalFunction())) {
+                    virtualFunctionsByPhysicalFunction
+                            .computeIfAbsent(device.getParentPhysicalFunction(), name -> new ArrayList<>())
+                            .add(device);
+                }
+                if (device.getIommuGroup() != null) {
+                    iommuGroupSizes.merge(device.getIommuGroup(), 1, Integer::sum);
+                }
+                if (device.getMdevTypes() != null) {
+                    for (MDevType mDevType : device.getMdevTypes()) {
+                        mDevTypes.add(mDevType.getName());
+                        if (mDevType.getAvailableInstances() != null && mDevType.getAvailableInstances() > 0) {
+                            availableMDevTypes.add(mDevType.getName());
+                        }
+                    }
+                }
+            }
+        }
+
+        public List<HostDevice> getAll() {
+            return devices;
+        }
+
+        public HostDevice getDevice(String deviceName) {
+            return devicesByName.get(deviceName);
+        }
+
+        /**
+         * @return the first network device of the given network interface, or {@code null} if there is none
+         */
+        public HostDevice getNetworkDeviceByInterfaceName(String interfaceName) {
+            return networkDevicesByInterfaceName.get(interfaceName);
+        }
+
+        /**
+         * @return the first network device which is a child of the given device, or {@code null} if there is none
+         */
+        public HostDevice getChildNetworkDevice(String parentDeviceName) {
+            return networkDevicesByParentName.get(parentDeviceName);
+        }
+
+        /**
+         * @return the virtual functions of the given physical function
+         */
+        public List<HostDevice> getVirtualFunctions(String physicalFunctionName) {
+            return virtualFunctionsByPhysicalFunction.getOrDefault(physicalFunctionName, Collections.emptyList());
+        }
+
+        /**
+         * @return the virtual functions of the given physical function which are not attached directly to a VM
+         */
+        public List<HostDevice> getFreeVirtualFunctions(String physicalFunctionName) {
+            return getVirtualFunctions(physicalFunctionName).stream()
+                    .filter(vf -> vf.getVmId() == null)
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * @return the number of devices in the given IOMMU group
+         */
+        public int getIommuGroupSize(int iommuGroup) {
+            return iommuGroupSizes.getOrDefault(iommuGroup, 0);
+        }
+
+        /**
+         * @return whether any of the devices supports the given mdev type
+         */
+        public boolean hasMDevType(String mDevType) {
+            return mDevTypes.contains(mDevType);
+        }
+
+        /**
+         * @return whether any of the devices has an available instance of the given mdev type
+         */
+        public boolean isMDevTypeAvailable(String mDevType) {
+            return availableMDevTypes.contains(mDevType);
+        }
+
+        boolean isUsedByVm(Guid vmId) {
+            return devices.stream().anyMatch(device -> vmId.equals(device.getVmId()));
+        }
+    }
+}
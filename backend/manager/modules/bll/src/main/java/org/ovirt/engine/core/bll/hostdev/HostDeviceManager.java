@@ -1,6 +1,7 @@
 package org.ovirt.engine.core.bll.hostdev;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
@@ -8,6 +9,7 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 
+import org.ovirt.engine.core.bll.hostdev.HostDeviceInventory.HostDevices;
 import org.ovirt.engine.core.bll.interfaces.BackendInternal;
 import org.ovirt.engine.core.bll.network.host.NetworkDeviceHelper;
 import org.ovirt.engine.core.common.BackendService;
@@ -20,8 +22,6 @@ import org.ovirt.engine.core.common.businessentities.VDSType;
 import org.ovirt.engine.core.common.businessentities.VM;
 import org.ovirt.engine.core.common.businessentities.VmDevice;
 import org.ovirt.engine.core.common.businessentities.VmDeviceGeneralType;
-import org.ovirt.engine.core.common.queries.IdQueryParameters;
-import org.ovirt.engine.core.common.queries.QueryType;
 import org.ovirt.engine.core.common.utils.VmDeviceType;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dao.HostDeviceDao;
@@ -50,6 +50,9 @@ public class HostDeviceManager implements BackendService {
     @Inject
     private NetworkDeviceHelper networkDeviceHelper;
 
+    @Inject
+    private HostDeviceInventory hostDeviceInventory;
+
     @PostConstruct
     private void init() {
         // It is sufficient to refresh only the devices of 'UP' hosts since other hosts
@@ -62,6 +65,7 @@ public class HostDeviceManager implements BackendService {
 
         backend.runInternalMultipleActions(ActionType.RefreshHostDevices, parameters);
         hostDeviceDao.cleanDownVms();
+        hostDeviceInventory.invalidateAll();
     }
 
     /**
@@ -118,14 +122,23 @@ public class HostDeviceManager implements BackendService {
         return !vfs.isEmpty() || checkVmNeedsDirectPassthrough(vmId);
     }
 
+    /**
+     * Checks whether the host devices attached to the given VM are free on the given host, i.e. not used by another VM
+     * and without networks on top of them. The devices of the host are looked up in the {@link HostDeviceInventory}.
+     */
     public boolean checkVmHostDeviceAvailability(VM vm, Guid vdsId) {
-        if (!hostDeviceDao.checkVmHostDeviceAvailability(vm.getId(), vdsId)) {
+        HostDevices hostDevices = hostDeviceInventory.getHostDevices(vdsId);
+        List<HostDevice> devices = vmDeviceDao.getVmDeviceByVmIdAndType(vm.getId(), VmDeviceGeneralType.HOSTDEV)
+                .stream()
+                .map(vmDevice -> hostDevices.getDevice(vmDevice.getDevice()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        // device free or already belonging to the vm
+        if (devices.stream().anyMatch(device -> device.getVmId() != null && !device.getVmId().equals(vm.getId()))) {
             return false;
         }
 
-        List<HostDevice> devices = backend.runInternalQuery(QueryType.GetExtendedVmHostDevicesByVmId,
-                new IdQueryParameters(vm.getId())).getReturnValue();
-
         for (HostDevice device : devices) {
             if (!networkDeviceHelper.isDeviceNetworkFree(device)) {
                 return false;
@@ -136,10 +149,13 @@ public class HostDeviceManager implements BackendService {
     }
 
     public void allocateVmHostDevices(VM vm) {
-        hostDeviceDao.markHostDevicesUsedByVmId(vm.getId(), vm.getDedicatedVmForVdsList().get(0));
+        Guid hostId = vm.getDedicatedVmForVdsList().get(0);
+        hostDeviceDao.markHostDevicesUsedByVmId(vm.getId(), hostId);
+        hostDeviceInventory.invalidate(hostId);
     }
 
     public void freeVmHostDevices(Guid vmId) {
         hostDeviceDao.freeHostDevicesUsedByVmId(vmId);
+        hostDeviceInventory.invalidateVm(vmId);
     }
 }
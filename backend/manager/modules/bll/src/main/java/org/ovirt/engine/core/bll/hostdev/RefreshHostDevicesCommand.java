@@ -59,6 +59,9 @@ public class RefreshHostDevicesCommand<T extends VdsActionParameters> extends Re
     @Inject
     private InterfaceDao interfaceDao;
 
+    @Inject
+    private HostDeviceInventory hostDeviceInventory;
+
     private Map<String, HostDevice> fetchedMap;
     private Map<String, List<VmDevice>> attachedVmDevicesMap;
 
@@ -126,6 +129,9 @@ public class RefreshHostDevicesCommand<T extends VdsActionParameters> extends Re
 
                 return null;
             });
+            if (!newDevices.isEmpty() || !changedDevices.isEmpty() || !removedDevices.isEmpty()) {
+                hostDeviceInventory.invalidate(getVdsId());
+            }
         } finally {
             hostLocking.releaseHostDevicesLock(getVdsId());
         }
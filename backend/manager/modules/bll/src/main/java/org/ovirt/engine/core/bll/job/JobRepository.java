@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.List;
 
 import org.ovirt.engine.core.common.action.ActionType;
+import org.ovirt.engine.core.common.businessentities.SubjectEntity;
 import org.ovirt.engine.core.common.job.Job;
 import org.ovirt.engine.core.common.job.JobExecutionStatus;
 import org.ovirt.engine.core.common.job.Step;
@@ -12,7 +13,8 @@ import org.ovirt.engine.core.compat.Guid;
 
 /**
  * Represents basic CRUD operations for Job and Step objects.
- * Each modification operation is being executed in a new transaction.
+ * Each modification operation is being executed in a new transaction. Step modifications may be persisted
+ * asynchronously, yet they are visible to the read operations of this repository once the modification returns.
  */
 public interface JobRepository {
 
@@ -43,6 +45,30 @@ public interface JobRepository {
      */
     void updateStep(Step step);
 
+    /**
+     * Updates the progress of an existing {@link Step} entity.
+     *
+     * @param stepId
+     *            The id of the step to update (can't be <code>null</code>).
+     * @param progress
+     *            The progress of the step.
+     */
+    void updateStepProgress(Guid stepId, Integer progress);
+
+    /**
+     * Checks whether a {@link Step} entity with the given id exists.
+     *
+     * @param stepId
+     *            The id to look by (can't be <code>null</code>).
+     * @return <code>true</code> if the step exists, including a step whose creation is not persisted yet.
+     */
+    boolean stepExists(Guid stepId);
+
+    /**
+     * Persists the pending step modifications.
+     */
+    void flush();
+
     /**
      * Persists a new instance of {@link Job} the entity.
      *
@@ -71,6 +97,15 @@ public interface JobRepository {
      */
     Step getStep(Guid stepId, boolean loadSubjectEntities);
 
+    /**
+     * Retrieves the started {@link Step} entities which have the given subject entity.
+     *
+     * @param subjectEntity
+     *            The subject entity to look by (can't be <code>null</code>).
+     * @return a list of the started steps of the entity or an empty list.
+     */
+    List<Step> getStartedStepsByStepSubjectEntity(SubjectEntity subjectEntity);
+
     /**
      * Retrieves a list of {@link Job} entities with the given characteristics.
      *
@@ -91,6 +126,15 @@ public interface JobRepository {
      */
     Job getJobWithSteps(Guid jobId);
 
+    /**
+     * Retrieves the {@link Step} entities of the given job.
+     *
+     * @param jobId
+     *            The id of the job to look by (can't be <code>null</code>).
+     * @return a list of the steps of the job or an empty list.
+     */
+    List<Step> getJobSteps(Guid jobId);
+
     /**
      * Update the {@link Job} entity with its Steps.
      *
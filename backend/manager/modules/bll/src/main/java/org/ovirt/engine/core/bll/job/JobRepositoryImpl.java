@@ -9,12 +9,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.ovirt.engine.core.common.VdcObjectType;
 import org.ovirt.engine.core.common.action.ActionType;
+import org.ovirt.engine.core.common.businessentities.SubjectEntity;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.job.Job;
 import org.ovirt.engine.core.common.job.JobExecutionStatus;
 import org.ovirt.engine.core.common.job.Step;
@@ -24,30 +32,63 @@ import org.ovirt.engine.core.dao.JobDao;
 import org.ovirt.engine.core.dao.JobSubjectEntityDao;
 import org.ovirt.engine.core.dao.StepDao;
 import org.ovirt.engine.core.dao.StepSubjectEntityDao;
+import org.ovirt.engine.core.utils.threadpool.ThreadPools;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Implements the CRUD operations for the Job entities.
+ * <p>
+ * Step modifications are journaled and persisted in batches, once per {@link ConfigValues#JobStepsFlushIntervalInMillis}
+ * or once {@link #MAX_PENDING_STEPS} steps are pending, rather than in a transaction per modification. Reading steps of
+ * a job which has pending modifications flushes the journal first, so readers always see their writes.
  */
 @Singleton
 public class JobRepositoryImpl implements JobRepository {
 
     private static final Logger log = LoggerFactory.getLogger(JobRepositoryImpl.class);
 
+    static final int MAX_PENDING_STEPS = 1000;
+
     private final JobDao jobDao;
     private final JobSubjectEntityDao jobSubjectEntityDao;
     private final StepDao stepDao;
     private final StepSubjectEntityDao stepSubjectEntityDao;
+    private final ManagedScheduledExecutorService executor;
+
+    /**
+     * Held while the journal is persisted, so a reader waiting for a flush doesn't read before it is committed.
+     */
+    private final Object flushLock = new Object();
+    private JobStepsJournal journal = new JobStepsJournal();
+    private volatile boolean writeBehind;
 
     @Inject
     public JobRepositoryImpl(JobDao jobDao, JobSubjectEntityDao jobSubjectEntityDao, StepDao stepDao,
-                             StepSubjectEntityDao stepSubjectEntityDao) {
+                             StepSubjectEntityDao stepSubjectEntityDao,
+                             @ThreadPools(ThreadPools.ThreadPoolType.EngineScheduledThreadPool)
+                             ManagedScheduledExecutorService executor) {
         this.jobDao = jobDao;
         this.jobSubjectEntityDao = jobSubjectEntityDao;
         this.stepDao = stepDao;
         this.stepSubjectEntityDao = stepSubjectEntityDao;
+        this.executor = executor;
+    }
+
+    @PostConstruct
+    public void init() {
+        long flushInterval = Config.<Integer> getValue(ConfigValues.JobStepsFlushIntervalInMillis);
+        if (flushInterval > 0) {
+            executor.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+            writeBehind = true;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writeBehind = false;
+        flush();
     }
 
     @Override
@@ -58,40 +99,137 @@ public class JobRepositoryImpl implements JobRepository {
     @Override
     public void saveStep(final Step step, Collection<StepSubjectEntity> stepSubjectEntities) {
         stepSubjectEntities.forEach(x -> x.setStepId(step.getId()));
-        TransactionSupport.executeInNewTransaction(() -> {
-            try {
-                jobDao.updateJobLastUpdateTime(step.getJobId(), new Date());
-                stepDao.save(step);
-                stepSubjectEntityDao.saveAll(stepSubjectEntities);
-            } catch (Exception e) {
-                log.error("Failed to save step '{}', '{}': {}",
-                        step.getId(),
-                        step.getStepName(),
-                        e.getMessage());
-                log.debug("Exception", e);
-            }
-            return null;
-        });
+        int pendingSteps;
+        synchronized (this) {
+            journal.saveStep(step, stepSubjectEntities);
+            pendingSteps = journal.size();
+        }
+        flushIfNeeded(step, pendingSteps);
     }
 
     @Override
     public void updateStep(final Step step) {
-        TransactionSupport.executeInNewTransaction(() -> {
+        int pendingSteps;
+        synchronized (this) {
+            journal.updateStep(step);
+            pendingSteps = journal.size();
+        }
+        flushIfNeeded(step, pendingSteps);
+    }
+
+    @Override
+    public void updateStepProgress(Guid stepId, Integer progress) {
+        synchronized (this) {
+            if (journal.updateStepProgress(stepId, progress)) {
+                return;
+            }
+        }
+        stepDao.updateStepProgress(stepId, progress);
+    }
+
+    @Override
+    public boolean stepExists(Guid stepId) {
+        synchronized (this) {
+            if (journal.containsStep(stepId)) {
+                return true;
+            }
+        }
+        return stepDao.exists(stepId);
+    }
+
+    /**
+     * Steps of external systems are looked up by their external id by the monitoring of these systems, hence they are
+     * persisted right away.
+     */
+    private void flushIfNeeded(Step step, int pendingSteps) {
+        if (!writeBehind || pendingSteps >= MAX_PENDING_STEPS || step.getExternalSystem().getId() != null) {
+            flush();
+        }
+    }
+
+    private void flushIfPending(Predicate<JobStepsJournal> pending) {
+        synchronized (flushLock) {
+            synchronized (this) {
+                if (!pending.test(journal)) {
+                    return;
+                }
+            }
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() {
+        synchronized (flushLock) {
+            JobStepsJournal pendingJournal;
+            synchronized (this) {
+                if (journal.isEmpty()) {
+                    return;
+                }
+                pendingJournal = journal;
+                journal = new JobStepsJournal();
+            }
 
             try {
-                jobDao.updateJobLastUpdateTime(step.getJobId(), new Date());
-                stepDao.update(step);
+                persistInBatch(pendingJournal);
             } catch (Exception e) {
-                log.error("Failed to update step '{}', '{}': {}",
-                        step.getId(),
-                        step.getStepName(),
+                log.warn("Failed to persist {} steps in batch, persisting them one by one: {}",
+                        pendingJournal.size(),
                         e.getMessage());
                 log.debug("Exception", e);
+                persistOneByOne(pendingJournal);
+            }
+        }
+    }
+
+    private void persistInBatch(JobStepsJournal pendingJournal) {
+        TransactionSupport.executeInNewTransaction(() -> {
+            jobDao.updateJobsLastUpdateTime(pendingJournal.getJobIds(), new Date());
+            stepDao.saveAllInBatch(pendingJournal.getSavedSteps());
+            List<StepSubjectEntity> stepSubjectEntities = pendingJournal.getAllStepSubjectEntities();
+            if (!stepSubjectEntities.isEmpty()) {
+                stepSubjectEntityDao.saveAll(stepSubjectEntities);
             }
+            stepDao.updateAllInBatch(pendingJournal.getUpdatedSteps());
             return null;
         });
     }
 
+    private void persistOneByOne(JobStepsJournal pendingJournal) {
+        for (Step step : pendingJournal.getSavedSteps()) {
+            TransactionSupport.executeInNewTransaction(() -> {
+                try {
+                    jobDao.updateJobLastUpdateTime(step.getJobId(), new Date());
+                    stepDao.save(step);
+                    stepSubjectEntityDao.saveAll(pendingJournal.getStepSubjectEntities(step.getId()));
+                } catch (Exception e) {
+                    log.error("Failed to save step '{}', '{}': {}",
+                            step.getId(),
+                            step.getStepName(),
+                            e.getMessage());
+                    log.debug("Exception", e);
+                }
+                return null;
+            });
+        }
+
+        for (Step step : pendingJournal.getUpdatedSteps()) {
+            TransactionSupport.executeInNewTransaction(() -> {
+                try {
+                    jobDao.updateJobLastUpdateTime(step.getJobId(), new Date());
+                    stepDao.update(step);
+                } catch (Exception e) {
+                    log.error("Failed to update step '{}', '{}': {}",
+                            step.getId(),
+                            step.getStepName(),
+                            e.getMessage());
+                    log.debug("Exception", e);
+                }
+                return null;
+            });
+        }
+    }
+
     @Override
     public void saveJob(final Job job) {
         TransactionSupport.executeInNewTransaction(() -> {
@@ -117,6 +255,7 @@ public class JobRepositoryImpl implements JobRepository {
 
     @Override
     public Job getJobWithSteps(final Guid jobId) {
+        flushIfPending(pending -> pending.containsJob(jobId));
         Job job = jobDao.get(jobId);
         if (job != null) {
             Map<Guid, VdcObjectType> jobSubjectEntity =
@@ -129,14 +268,21 @@ public class JobRepositoryImpl implements JobRepository {
 
     @Override
     public void loadJobSteps(final Job job) {
-        List<Step> steps = stepDao.getStepsByJobId(job.getId());
+        List<Step> steps = getJobSteps(job.getId());
         if (!steps.isEmpty()) {
             job.setSteps(buildStepsTree(steps));
         }
     }
 
+    @Override
+    public List<Step> getJobSteps(final Guid jobId) {
+        flushIfPending(pending -> pending.containsJob(jobId));
+        return stepDao.getStepsByJobId(jobId);
+    }
+
     @Override
     public void loadParentStepSteps(final Step step) {
+        flushIfPending(pending -> pending.containsJob(step.getJobId()));
         List<Step> steps = stepDao.getStepsByParentStepId(step.getId());
         if (!steps.isEmpty()) {
             step.setSteps(steps);
@@ -174,6 +320,7 @@ public class JobRepositoryImpl implements JobRepository {
 
     @Override
     public Step getStep(Guid stepId, boolean loadSubjectEntities) {
+        flushIfPending(pending -> pending.containsStep(stepId));
         Step step = stepDao.get(stepId);
         if (step != null && loadSubjectEntities) {
             step.setSubjectEntities(stepSubjectEntityDao.getStepSubjectEntitiesByStepId(stepId));
@@ -181,6 +328,15 @@ public class JobRepositoryImpl implements JobRepository {
         return step;
     }
 
+    /**
+     * The subject entities of the pending steps aren't indexed, so any pending modification is persisted first.
+     */
+    @Override
+    public List<Step> getStartedStepsByStepSubjectEntity(SubjectEntity subjectEntity) {
+        flush();
+        return stepDao.getStartedStepsByStepSubjectEntity(subjectEntity);
+    }
+
     @Override
     public List<Job> getJobsByEntityAndAction(Guid entityId, ActionType actionType) {
         List<Job> jobList = new ArrayList<>();
@@ -197,16 +353,18 @@ public class JobRepositoryImpl implements JobRepository {
 
     @Override
     public void updateExistingStepAndSaveNewStep(final Step existingStep, final Step newStep) {
-        TransactionSupport.executeInNewTransaction(() -> {
-            jobDao.updateJobLastUpdateTime(existingStep.getJobId(), new Date());
-            stepDao.update(existingStep);
-            stepDao.save(newStep);
-            return null;
-        });
+        int pendingSteps;
+        synchronized (this) {
+            journal.updateStep(existingStep);
+            journal.saveStep(newStep, Collections.emptyList());
+            pendingSteps = journal.size();
+        }
+        flushIfNeeded(existingStep, pendingSteps);
     }
 
     @Override
     public void updateCompletedJobAndSteps(final Job job) {
+        flushIfPending(pending -> pending.containsJob(job.getId()));
         TransactionSupport.executeInNewTransaction(() -> {
             jobDao.update(job);
             stepDao.updateJobStepsCompleted(job.getId(), job.getStatus(), job.getEndTime());
@@ -216,6 +374,7 @@ public class JobRepositoryImpl implements JobRepository {
 
     @Override
     public void closeCompletedJobSteps(final Guid jobId, final JobExecutionStatus status) {
+        flushIfPending(pending -> pending.containsJob(jobId));
         TransactionSupport.executeInNewTransaction(() -> {
             stepDao.updateJobStepsCompleted(jobId, status, new Date());
             return null;
@@ -224,6 +383,7 @@ public class JobRepositoryImpl implements JobRepository {
 
     @Override
     public void finalizeJobs() {
+        flush();
         TransactionSupport.executeInNewTransaction(() -> {
             jobDao.deleteRunningJobsOfTasklessCommands();
             jobDao.updateStartedExecutionEntitiesToUnknown(new Date());
@@ -0,0 +1,99 @@
+package org.ovirt.engine.core.bll.job;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.ovirt.engine.core.common.job.Step;
+import org.ovirt.engine.core.common.job.StepSubjectEntity;
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * Holds the {@link Step} modifications which were not persisted yet by the {@link JobRepositoryImpl}. A step which is
+ * updated before its creation was persisted is kept as a single insert of its latest state, and a step updated several
+ * times is kept as a single update, so each step is written at most once per flush.
+ * <p>
+ * The class is not thread safe, the access to it is synchronized by the {@link JobRepositoryImpl}.
+ */
+class JobStepsJournal {
+
+    private final Map<Guid, Step> savedSteps = new LinkedHashMap<>();
+    private final Map<Guid, Step> updatedSteps = new LinkedHashMap<>();
+    private final Map<Guid, Collection<StepSubjectEntity>> stepSubjectEntities = new HashMap<>();
+    private final Set<Guid> jobIds = new LinkedHashSet<>();
+
+    public void saveStep(Step step, Collection<StepSubjectEntity> subjectEntities) {
+        savedSteps.put(step.getId(), step);
+        updatedSteps.remove(step.getId());
+        if (!subjectEntities.isEmpty()) {
+            stepSubjectEntities.put(step.getId(), subjectEntities);
+        }
+        jobIds.add(step.getJobId());
+    }
+
+    public void updateStep(Step step) {
+        if (savedSteps.containsKey(step.getId())) {
+            savedSteps.put(step.getId(), step);
+        } else {
+            updatedSteps.put(step.getId(), step);
+        }
+        jobIds.add(step.getJobId());
+    }
+
+    /**
+     * @return <code>true</code> if the progress was set to a pending step, <code>false</code> if the step has no
+     *         pending modification.
+     */
+    public boolean updateStepProgress(Guid stepId, Integer progress) {
+        Step step = savedSteps.containsKey(stepId) ? savedSteps.get(stepId) : updatedSteps.get(stepId);
+        if (step == null) {
+            return false;
+        }
+        step.setProgress(progress);
+        return true;
+    }
+
+    public boolean containsStep(Guid stepId) {
+        return savedSteps.containsKey(stepId) || updatedSteps.containsKey(stepId);
+    }
+
+    public boolean containsJob(Guid jobId) {
+        return jobIds.contains(jobId);
+    }
+
+    public boolean isEmpty() {
+        return jobIds.isEmpty();
+    }
+
+    public int size() {
+        return savedSteps.size() + updatedSteps.size();
+    }
+
+    public Set<Guid> getJobIds() {
+        return jobIds;
+    }
+
+    public List<Step> getSavedSteps() {
+        return new ArrayList<>(savedSteps.values());
+    }
+
+    public List<Step> getUpdatedSteps() {
+        return new ArrayList<>(updatedSteps.values());
+    }
+
+    public Collection<StepSubjectEntity> getStepSubjectEntities(Guid stepId) {
+        return stepSubjectEntities.getOrDefault(stepId, Collections.emptyList());
+    }
+
+    public List<StepSubjectEntity> getAllStepSubjectEntities() {
+        List<StepSubjectEntity> entities = new ArrayList<>();
+        savedSteps.keySet().forEach(stepId -> entities.addAll(getStepSubjectEntities(stepId)));
+        return entities;
+    }
+}
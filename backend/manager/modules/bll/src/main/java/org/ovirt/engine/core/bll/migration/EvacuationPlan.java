@@ -0,0 +1,293 @@
+package org.ovirt.engine.core.bll.migration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.ovirt.engine.core.common.businessentities.VM;
+import org.ovirt.engine.core.common.businessentities.comparators.VmsComparer;
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * The evacuation of the VMs of a single host, deciding which VMs to migrate and when:
+ * <ul>
+ *     <li>VMs are migrated by priority, and VMs of the same priority in the order in which they are expected to
+ *     converge, so the VMs which converge quickly leave the host first and the large VMs which dirty their memory
+ *     quickly are migrated last, when they don't share the migration network with many other migrations</li>
+ *     <li>The number of concurrent migrations starts low and is increased while the observed migration bandwidth
+ *     keeps growing with it, and is halved when a migration stalls, so stalling migrations get more bandwidth</li>
+ * </ul>
+ * The plan doesn't migrate the VMs by itself and is driven by the caller, which reports the progress and the end
+ * of the migrations, asks for the VMs to migrate next and periodically calls {@link #adapt(long)}. All the times
+ * are in milliseconds and are given by the caller, so the plan can be driven by a simulated clock.
+ * <p>
+ * The plan is not thread safe, callers are expected to synchronize on it.
+ */
+public class EvacuationPlan {
+
+    /**
+     * The minimal relative growth of the migration bandwidth for increasing the number of concurrent migrations to
+     * be considered useful
+     */
+    private static final double MIN_BANDWIDTH_GROWTH = 1.1;
+
+    private final Guid hostId;
+    private final int maxConcurrency;
+    private final long stallTimeout;
+    private final long startTime;
+
+    private final List<VM> pendingVms = new LinkedList<>();
+    private final Map<Guid, MigrationProgress> runningMigrations = new LinkedHashMap<>();
+
+    private int concurrency;
+    private long lastAdaptationTime;
+    private double bandwidthBeforeIncrease = -1;
+    private boolean saturated;
+
+    private int migratedVms;
+    private int failedVms;
+    private long endTime = -1;
+
+    public EvacuationPlan(Guid hostId,
+            Collection<VM> vms,
+            int initialConcurrency,
+            int maxConcurrency,
+            long stallTimeout,
+            long now) {
+        this.hostId = hostId;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.concurrency = Math.max(1, Math.min(initialConcurrency, this.maxConcurrency));
+        this.stallTimeout = stallTimeout;
+        this.startTime = now;
+        this.lastAdaptationTime = now;
+        addVms(vms);
+    }
+
+    /**
+     * @return the order in which VMs are expected to converge: by priority, and then by the expected amount of
+     *         memory to transfer
+     */
+    public static Comparator<VM> expectedConvergenceOrder() {
+        return new VmsComparer().reversed().thenComparingDouble(EvacuationPlan::getExpectedTransferMb);
+    }
+
+    /**
+     * Estimates the amount of memory to transfer for migrating the VM: the used memory is copied once, and then the
+     * memory dirtied during the copy, which grows with the CPU usage of the VM, is copied again.
+     */
+    static double getExpectedTransferMb(VM vm) {
+        Integer memoryUsage = vm.getUsageMemPercent();
+        Integer cpuUsage = vm.getUsageCpuPercent();
+        double usedMemory = vm.getMemSizeMb() * (memoryUsage != null && memoryUsage > 0 ? memoryUsage / 100.0 : 1);
+        return usedMemory * (1 + (cpuUsage != null ? cpuUsage / 100.0 : 0));
+    }
+
+    public Guid getHostId() {
+        return hostId;
+    }
+
+    /**
+     * Adds VMs to migrate to the plan, ignoring the VMs which are already in it.
+     */
+    public void addVms(Collection<VM> vms) {
+        for (VM vm : vms) {
+            if (!contains(vm.getId())) {
+                pendingVms.add(vm);
+            }
+        }
+        pendingVms.sort(expectedConvergenceOrder());
+        endTime = -1;
+    }
+
+    public boolean contains(Guid vmId) {
+        return runningMigrations.containsKey(vmId) || pendingVms.stream().anyMatch(vm -> vm.getId().equals(vmId));
+    }
+
+    /**
+     * Takes the VMs which should start migrating now, as allowed by the current number of concurrent migrations.
+     * The caller is expected to migrate them and to report their end by {@link #migrationFinished(Guid, boolean,
+     * long)}, also when they fail to start migrating.
+     */
+    public List<VM> nextMigrations(long now) {
+        List<VM> vms = new ArrayList<>();
+        while (runningMigrations.size() < concurrency && !pendingVms.isEmpty()) {
+            VM vm = pendingVms.remove(0);
+            runningMigrations.put(vm.getId(), new MigrationProgress(vm.getMemSizeMb(), now));
+            vms.add(vm);
+        }
+        return vms;
+    }
+
+    /**
+     * Drops the VMs which haven't started migrating yet. The running migrations are still expected to be reported
+     * when they end.
+     *
+     * @return the dropped VMs
+     */
+    public List<VM> cancel() {
+        List<VM> vms = new ArrayList<>(pendingVms);
+        pendingVms.clear();
+        return vms;
+    }
+
+    public void progressReported(Guid vmId, int progress, long now) {
+        MigrationProgress migration = runningMigrations.get(vmId);
+        if (migration != null) {
+            migration.report(progress, now);
+        }
+    }
+
+    public void migrationFinished(Guid vmId, boolean succeeded, long now) {
+        if (runningMigrations.remove(vmId) == null) {
+            return;
+        }
+        if (succeeded) {
+            migratedVms++;
+        } else {
+            failedVms++;
+        }
+        // the migrations left use the migration network differently, so adding a migration may be useful again
+        saturated = false;
+        bandwidthBeforeIncrease = -1;
+        if (isFinished()) {
+            endTime = now;
+        }
+    }
+
+    /**
+     * Adapts the number of concurrent migrations to the progress of the running migrations. The number of
+     * concurrent migrations is changed at most once per stall timeout, so the effect of a change can be observed
+     * before the next one:
+     * <ul>
+     *     <li>When a migration stalls, the number of concurrent migrations is halved</li>
+     *     <li>When all the allowed migrations are running and none stalls, the number of concurrent migrations is
+     *     increased by one, as long as the previous increase made the migration bandwidth grow</li>
+     * </ul>
+     */
+    public void adapt(long now) {
+        if (now - lastAdaptationTime < stallTimeout) {
+            return;
+        }
+        if (runningMigrations.values().stream().anyMatch(migration -> migration.isStalled(now, stallTimeout))) {
+            if (concurrency > 1) {
+                concurrency = Math.max(1, Math.min(concurrency, runningMigrations.size()) / 2);
+                lastAdaptationTime = now;
+            }
+            saturated = false;
+            bandwidthBeforeIncrease = -1;
+            return;
+        }
+        if (saturated || pendingVms.isEmpty() || runningMigrations.size() < concurrency) {
+            return;
+        }
+        double bandwidth = getBandwidth();
+        if (bandwidthBeforeIncrease >= 0 && bandwidth < bandwidthBeforeIncrease * MIN_BANDWIDTH_GROWTH) {
+            // the migration network is saturated, another migration would only slow down the running ones
+            concurrency = Math.max(1, concurrency - 1);
+            saturated = true;
+            bandwidthBeforeIncrease = -1;
+            lastAdaptationTime = now;
+            return;
+        }
+        if (concurrency < maxConcurrency) {
+            concurrency++;
+            bandwidthBeforeIncrease = bandwidth;
+            lastAdaptationTime = now;
+        }
+    }
+
+    /**
+     * @return the total bandwidth of the running migrations in MiB/s, as observed from their last progress reports.
+     *         Since the progress of a migration drops when the VM dirties its memory, this is the bandwidth net of
+     *         the memory dirtied by the VMs, i.e. the rate at which the migrations converge.
+     */
+    public double getBandwidth() {
+        return runningMigrations.values().stream().mapToDouble(MigrationProgress::getBandwidth).sum();
+    }
+
+    public List<Guid> getRunningVms() {
+        return new ArrayList<>(runningMigrations.keySet());
+    }
+
+    /**
+     * @return the time in milliseconds since the given VM started migrating, or -1 if it isn't migrating
+     */
+    public long getMigrationTime(Guid vmId, long now) {
+        MigrationProgress migration = runningMigrations.get(vmId);
+        return migration != null ? now - migration.startTime : -1;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getPendingVms() {
+        return pendingVms.size();
+    }
+
+    public int getMigratedVms() {
+        return migratedVms;
+    }
+
+    public int getFailedVms() {
+        return failedVms;
+    }
+
+    public boolean isFinished() {
+        return pendingVms.isEmpty() && runningMigrations.isEmpty();
+    }
+
+    /**
+     * @return the time in milliseconds from the start of the evacuation until all its migrations ended, or until now
+     *         if they haven't ended yet
+     */
+    public long getDuration(long now) {
+        return (endTime >= 0 ? endTime : now) - startTime;
+    }
+
+    private static class MigrationProgress {
+        private final int memoryMb;
+        private final long startTime;
+        private int progress;
+        private int maxProgress;
+        private long lastReportTime;
+        private long lastAdvanceTime;
+        private double bandwidth;
+
+        MigrationProgress(int memoryMb, long now) {
+            this.memoryMb = memoryMb;
+            this.startTime = now;
+            this.lastReportTime = now;
+            this.lastAdvanceTime = now;
+        }
+
+        void report(int newProgress, long now) {
+            long elapsed = now - lastReportTime;
+            if (elapsed > 0) {
+                bandwidth = Math.max(0, newProgress - progress) * memoryMb / 100.0 / (elapsed / 1000.0);
+            }
+            if (newProgress > maxProgress) {
+                maxProgress = newProgress;
+                lastAdvanceTime = now;
+            }
+            progress = newProgress;
+            lastReportTime = now;
+        }
+
+        /**
+         * A migration stalls when its progress didn't exceed the highest progress reported so far for the stall
+         * timeout, i.e. the memory is dirtied faster than it is transferred.
+         */
+        boolean isStalled(long now, long stallTimeout) {
+            return now - lastAdvanceTime >= stallTimeout;
+        }
+
+        double getBandwidth() {
+            return bandwidth;
+        }
+    }
+}
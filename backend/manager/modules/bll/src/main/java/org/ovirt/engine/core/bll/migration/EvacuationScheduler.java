@@ -0,0 +1,331 @@
+package org.ovirt.engine.core.bll.migration;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang.exception.ExceptionUtils;
+import org.ovirt.engine.core.common.businessentities.VDSStatus;
+import org.ovirt.engine.core.common.businessentities.VM;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.utils.DurationStatistics;
+import org.ovirt.engine.core.utils.MBeanRegistration;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
+import org.ovirt.engine.core.utils.threadpool.ThreadPools;
+import org.ovirt.engine.core.vdsbroker.ResourceManager;
+import org.ovirt.engine.core.vdsbroker.VdsManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Migrates the VMs of hosts that are moved to maintenance according to an {@link EvacuationPlan} per host, instead of
+ * starting all the migrations at once:
+ * <ul>
+ *     <li>The first migrations are started by the caller of {@link #evacuate(Guid, Collection, Predicate,
+ *     Predicate)}, the next ones are started in the background as the running migrations end</li>
+ *     <li>The progress and the end of the migrations are reported by the migration commands, and the number of
+ *     concurrent migrations of each evacuation is periodically adapted to them</li>
+ *     <li>The evacuation of a host is cancelled once the host is no longer preparing for maintenance, e.g. when it
+ *     is activated again</li>
+ *     <li>The time it takes to evacuate a host is logged and exposed in JMX</li>
+ * </ul>
+ */
+@Singleton
+public class EvacuationScheduler implements EvacuationSchedulerMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger(EvacuationScheduler.class);
+
+    /**
+     * VDSM reports the progress of migrations every 10 seconds, the evacuations are adapted at the same rate
+     */
+    private static final long ADAPTATION_INTERVAL_IN_SECONDS = 10;
+
+    @Inject
+    private ResourceManager resourceManager;
+
+    @Inject
+    @ThreadPools(ThreadPools.ThreadPoolType.EngineScheduledThreadPool)
+    private ManagedScheduledExecutorService executor;
+
+    private final Map<Guid, Evacuation> evacuations = new ConcurrentHashMap<>();
+    private final Map<Guid, Evacuation> evacuationsByVm = new ConcurrentHashMap<>();
+
+    private final DurationStatistics evacuationTimes = new DurationStatistics();
+
+    private MBeanRegistration mBeanRegistration;
+
+    @PostConstruct
+    private void init() {
+        executor.scheduleWithFixedDelay(this::adaptEvacuations,
+                ADAPTATION_INTERVAL_IN_SECONDS,
+                ADAPTATION_INTERVAL_IN_SECONDS,
+                TimeUnit.SECONDS);
+        mBeanRegistration = MBeanRegistration.register("EvacuationScheduler", this);
+    }
+
+    @PreDestroy
+    private void unregisterFromJMX() {
+        mBeanRegistration.unregister();
+    }
+
+    /**
+     * Migrates the given VMs away from the given host. The first migrations are started in the current thread and
+     * the rest are started in the background, when the running migrations end. When the host is already being
+     * evacuated, the VMs which are not part of its evacuation yet are added to it.
+     *
+     * @param migration starts the migration of a VM in the current thread, and returns whether the migration
+     *            started
+     * @param deferredMigration starts the migration of a VM in the background, after the caller is done, and returns
+     *            whether the migration started
+     * @return the VMs whose migration the current thread tried to start
+     */
+    public Set<Guid> evacuate(Guid hostId,
+            Collection<VM> vms,
+            Predicate<VM> migration,
+            Predicate<VM> deferredMigration) {
+        long now = System.currentTimeMillis();
+        Evacuation evacuation = evacuations.compute(hostId, (id, running) -> {
+            if (running != null) {
+                register(running, vms, deferredMigration);
+                synchronized (running.plan) {
+                    running.plan.addVms(vms);
+                }
+                return running;
+            }
+            Evacuation created = new Evacuation(new EvacuationPlan(hostId,
+                    vms,
+                    Config.<Integer> getValue(ConfigValues.EvacuationInitialConcurrentMigrations),
+                    Config.<Integer> getValue(ConfigValues.EvacuationMaxConcurrentMigrations),
+                    TimeUnit.SECONDS.toMillis(
+                            Config.<Integer> getValue(ConfigValues.EvacuationMigrationStallTimeoutInSeconds)),
+                    now));
+            register(created, vms, deferredMigration);
+            return created;
+        });
+        log.info("Evacuating {} VMs from host '{}'", vms.size(), hostId);
+
+        Set<Guid> vmIds = vms.stream().map(VM::getId).collect(Collectors.toSet());
+        Set<Guid> startedVms = new HashSet<>();
+        // VMs added to the evacuation by previous callers are started the way those callers requested
+        startMigrations(evacuation, vm -> {
+            if (!vmIds.contains(vm.getId())) {
+                return evacuation.migrations.get(vm.getId()).test(vm);
+            }
+            startedVms.add(vm.getId());
+            return migration.test(vm);
+        });
+        return startedVms;
+    }
+
+    /**
+     * Cancels the evacuation of the given host, when it is no longer moved to maintenance. The migrations that
+     * already started are left to end, the rest of the VMs stay on the host.
+     */
+    public void cancelEvacuation(Guid hostId) {
+        Evacuation evacuation = evacuations.get(hostId);
+        if (evacuation != null) {
+            cancel(evacuation);
+        }
+    }
+
+    private void cancel(Evacuation evacuation) {
+        Guid hostId = evacuation.plan.getHostId();
+        if (!evacuations.remove(hostId, evacuation)) {
+            return;
+        }
+        List<VM> cancelledVms;
+        synchronized (evacuation.plan) {
+            cancelledVms = evacuation.plan.cancel();
+        }
+        // nothing is started when the running migrations end
+        evacuationsByVm.values().removeIf(evacuation::equals);
+        evacuation.migrations.clear();
+        log.info("Evacuation of host '{}' was cancelled, {} VMs are not migrated", hostId, cancelledVms.size());
+    }
+
+    private void register(Evacuation evacuation, Collection<VM> vms, Predicate<VM> migration) {
+        for (VM vm : vms) {
+            evacuation.migrations.put(vm.getId(), migration);
+            evacuationsByVm.put(vm.getId(), evacuation);
+        }
+    }
+
+    /**
+     * Called when the progress of the migration of a VM is reported.
+     */
+    public void migrationProgressReported(Guid vmId, int progress) {
+        Evacuation evacuation = evacuationsByVm.get(vmId);
+        if (evacuation != null) {
+            synchronized (evacuation.plan) {
+                evacuation.plan.progressReported(vmId, progress, System.currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * Called when the migration of a VM ends, and starts the next migrations of its evacuation in the background.
+     */
+    public void migrationFinished(Guid vmId, boolean succeeded) {
+        Evacuation evacuation = evacuationsByVm.remove(vmId);
+        if (evacuation == null) {
+            return;
+        }
+        finishMigration(evacuation, vmId, succeeded);
+        ThreadPoolUtil.execute(() -> startDeferredMigrations(evacuation));
+    }
+
+    private void startDeferredMigrations(Evacuation evacuation) {
+        if (!isPreparingForMaintenance(evacuation.plan.getHostId())) {
+            cancel(evacuation);
+            return;
+        }
+        startMigrations(evacuation, vm -> evacuation.migrations.get(vm.getId()).test(vm));
+    }
+
+    private boolean isPreparingForMaintenance(Guid hostId) {
+        VdsManager vdsManager = resourceManager.getVdsManager(hostId);
+        return vdsManager != null && vdsManager.getStatus() == VDSStatus.PreparingForMaintenance;
+    }
+
+    private void startMigrations(Evacuation evacuation, Predicate<VM> migration) {
+        List<VM> vms;
+        synchronized (evacuation.plan) {
+            vms = evacuation.plan.nextMigrations(System.currentTimeMillis());
+        }
+        for (VM vm : vms) {
+            boolean started = false;
+            try {
+                started = migration.test(vm);
+            } catch (RuntimeException e) {
+                log.error("Failed to migrate VM '{}' away from host '{}': {}",
+                        vm.getName(),
+                        evacuation.plan.getHostId(),
+                        ExceptionUtils.getRootCauseMessage(e));
+                log.debug("Exception", e);
+            }
+            if (!started && evacuationsByVm.remove(vm.getId(), evacuation)) {
+                finishMigration(evacuation, vm.getId(), false);
+            }
+        }
+    }
+
+    private void finishMigration(Evacuation evacuation, Guid vmId, boolean succeeded) {
+        EvacuationPlan plan = evacuation.plan;
+        long now = System.currentTimeMillis();
+        evacuation.migrations.remove(vmId);
+        synchronized (plan) {
+            plan.migrationFinished(vmId, succeeded, now);
+            if (!plan.isFinished() || !evacuations.remove(plan.getHostId(), evacuation)) {
+                return;
+            }
+        }
+        long evacuationTime = plan.getDuration(now);
+        evacuationTimes.add(evacuationTime);
+        log.info("Evacuation of host '{}' finished in {} ms: {} VMs migrated, {} VMs failed to migrate",
+                plan.getHostId(),
+                evacuationTime,
+                plan.getMigratedVms(),
+                plan.getFailedVms());
+    }
+
+    private void adaptEvacuations() {
+        try {
+            evacuations.values().forEach(this::adaptEvacuation);
+        } catch (Throwable t) {
+            log.error("Exception in adapting evacuations: {}", ExceptionUtils.getRootCauseMessage(t));
+            log.debug("Exception", t);
+        }
+    }
+
+    private void adaptEvacuation(Evacuation evacuation) {
+        if (!isPreparingForMaintenance(evacuation.plan.getHostId())) {
+            cancel(evacuation);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long stallTimeout =
+                TimeUnit.SECONDS.toMillis(Config.<Integer> getValue(ConfigValues.EvacuationMigrationStallTimeoutInSeconds));
+        List<Guid> runningVms;
+        synchronized (evacuation.plan) {
+            evacuation.plan.adapt(now);
+            runningVms = evacuation.plan.getRunningVms();
+        }
+        // migrations that ended without being reported, e.g. when the VM went down while migrating, are finished
+        // here so they don't block the rest of the evacuation
+        for (Guid vmId : runningVms) {
+            long migrationTime;
+            synchronized (evacuation.plan) {
+                migrationTime = evacuation.plan.getMigrationTime(vmId, now);
+            }
+            if (migrationTime > stallTimeout
+                    && !resourceManager.isVmInAsyncRunningList(vmId)
+                    && evacuationsByVm.remove(vmId, evacuation)) {
+                log.warn("Migration of VM '{}' away from host '{}' ended without being reported",
+                        vmId,
+                        evacuation.plan.getHostId());
+                finishMigration(evacuation, vmId, false);
+            }
+        }
+        startMigrations(evacuation, vm -> evacuation.migrations.get(vm.getId()).test(vm));
+    }
+
+    @Override
+    public int getRunningEvacuations() {
+        return evacuations.size();
+    }
+
+    @Override
+    public long getFinishedEvacuations() {
+        return evacuationTimes.getCount();
+    }
+
+    @Override
+    public long getAverageEvacuationTime() {
+        return evacuationTimes.getAverage();
+    }
+
+    @Override
+    public long getMaxEvacuationTime() {
+        return evacuationTimes.getMax();
+    }
+
+    @Override
+    public Map<String, Integer> getConcurrentMigrationsPerHost() {
+        Map<String, Integer> concurrentMigrations = new HashMap<>();
+        evacuations.forEach((hostId, evacuation) -> {
+            synchronized (evacuation.plan) {
+                concurrentMigrations.put(hostId.toString(), evacuation.plan.getConcurrency());
+            }
+        });
+        return concurrentMigrations;
+    }
+
+    private static class Evacuation {
+        private final EvacuationPlan plan;
+
+        /**
+         * The way to start the migration of each VM in the background, as given by the command which requested to
+         * migrate it
+         */
+        private final Map<Guid, Predicate<VM>> migrations = new ConcurrentHashMap<>();
+
+        Evacuation(EvacuationPlan plan) {
+            this.plan = plan;
+        }
+    }
+}
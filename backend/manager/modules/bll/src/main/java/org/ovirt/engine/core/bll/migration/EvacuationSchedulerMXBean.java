@@ -0,0 +1,31 @@
+package org.ovirt.engine.core.bll.migration;
+
+import java.util.Map;
+
+public interface EvacuationSchedulerMXBean {
+
+    /**
+     * @return the number of hosts whose VMs are being migrated away
+     */
+    int getRunningEvacuations();
+
+    /**
+     * @return the number of host evacuations that finished since the engine started
+     */
+    long getFinishedEvacuations();
+
+    /**
+     * @return the average time in milliseconds it took to migrate all the VMs of an evacuated host
+     */
+    long getAverageEvacuationTime();
+
+    /**
+     * @return the maximal time in milliseconds it took to migrate all the VMs of an evacuated host
+     */
+    long getMaxEvacuationTime();
+
+    /**
+     * @return the number of migrations allowed to run concurrently for each of the evacuated hosts, by host ID
+     */
+    Map<String, Integer> getConcurrentMigrationsPerHost();
+}
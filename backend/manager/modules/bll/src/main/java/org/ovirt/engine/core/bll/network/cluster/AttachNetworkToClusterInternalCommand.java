@@ -25,6 +25,7 @@ import org.ovirt.engine.core.dao.network.InterfaceDao;
 import org.ovirt.engine.core.dao.network.NetworkAttachmentDao;
 import org.ovirt.engine.core.dao.network.NetworkClusterDao;
 import org.ovirt.engine.core.dao.network.NetworkDao;
+import org.ovirt.engine.core.vdsbroker.OutOfSyncInterfacesIndex;
 import org.ovirt.engine.core.vdsbroker.vdsbroker.HostNetworkAttachmentsPersister;
 
 @InternalCommandAttribute
@@ -40,6 +41,8 @@ public class AttachNetworkToClusterInternalCommand<T extends AttachNetworkToClus
     @Inject
     private NetworkClusterHelper networkClusterHelper;
     @Inject
+    private OutOfSyncInterfacesIndex outOfSyncInterfacesIndex;
+    @Inject
     private InterfaceDao interfaceDao;
     @Inject
     private NetworkDao networkDao;
@@ -64,6 +67,7 @@ public class AttachNetworkToClusterInternalCommand<T extends AttachNetworkToClus
     protected void executeCommand() {
 
         attachNetwork(getClusterId(), getNetworkCluster(), getNetwork());
+        outOfSyncInterfacesIndex.invalidateCluster(getClusterId());
 
         setSucceeded(true);
     }
@@ -21,6 +21,7 @@ import org.ovirt.engine.core.dao.VmStaticDao;
 import org.ovirt.engine.core.dao.VmTemplateDao;
 import org.ovirt.engine.core.dao.gluster.GlusterBrickDao;
 import org.ovirt.engine.core.dao.network.VmNetworkInterfaceDao;
+import org.ovirt.engine.core.vdsbroker.OutOfSyncInterfacesIndex;
 
 @InternalCommandAttribute
 @ValidateSupportsTransaction
@@ -32,6 +33,8 @@ public class DetachNetworkFromClusterInternalCommand<T extends AttachNetworkToCl
     @Inject
     private NetworkHelper networkHelper;
     @Inject
+    private OutOfSyncInterfacesIndex outOfSyncInterfacesIndex;
+    @Inject
     private VmStaticDao vmStaticDao;
     @Inject
     private VmTemplateDao vmTemplateDao;
@@ -48,6 +51,7 @@ public class DetachNetworkFromClusterInternalCommand<T extends AttachNetworkToCl
     protected void executeCommand() {
         networkClusterHelper.removeNetworkAndReassignRoles(getParameters().getNetworkCluster());
         networkHelper.setVdsmNamesInVdsInterfaces(getNetwork(), getClusterId());
+        outOfSyncInterfacesIndex.invalidateCluster(getClusterId());
 
         setSucceeded(true);
     }
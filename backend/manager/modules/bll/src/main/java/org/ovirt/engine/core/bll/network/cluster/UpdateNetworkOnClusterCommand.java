@@ -23,6 +23,7 @@ import org.ovirt.engine.core.dao.gluster.GlusterBrickDao;
 import org.ovirt.engine.core.dao.network.InterfaceDao;
 import org.ovirt.engine.core.dao.network.NetworkClusterDao;
 import org.ovirt.engine.core.dao.network.NetworkDao;
+import org.ovirt.engine.core.vdsbroker.OutOfSyncInterfacesIndex;
 
 @ValidateSupportsTransaction
 public class UpdateNetworkOnClusterCommand<T extends NetworkClusterParameters> extends NetworkClusterCommandBase<T> {
@@ -36,6 +37,8 @@ public class UpdateNetworkOnClusterCommand<T extends NetworkClusterParameters> e
     @Inject
     private NetworkClusterHelper networkClusterHelper;
     @Inject
+    private OutOfSyncInterfacesIndex outOfSyncInterfacesIndex;
+    @Inject
     private NetworkClusterDao networkClusterDao;
     @Inject
     private InterfaceDao interfaceDao;
@@ -86,6 +89,7 @@ public class UpdateNetworkOnClusterCommand<T extends NetworkClusterParameters> e
         preserveStatus();
 
         networkClusterDao.update(getNetworkCluster());
+        outOfSyncInterfacesIndex.invalidateCluster(getClusterId());
 
         final Network managementNetwork;
 
@@ -50,6 +50,7 @@ import org.ovirt.engine.core.dao.network.NetworkClusterDao;
 import org.ovirt.engine.core.dao.network.NetworkDao;
 import org.ovirt.engine.core.dao.provider.ProviderDao;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+import org.ovirt.engine.core.vdsbroker.OutOfSyncInterfacesIndex;
 
 @NonTransactiveCommandAttribute(forceCompensation = true)
 public class RemoveNetworkCommand<T extends RemoveNetworkParameters> extends NetworkCommon<T> {
@@ -59,6 +60,8 @@ public class RemoveNetworkCommand<T extends RemoveNetworkParameters> extends Net
     @Inject
     private NetworkClusterHelper networkClusterHelper;
     @Inject
+    private OutOfSyncInterfacesIndex outOfSyncInterfacesIndex;
+    @Inject
     private NetworkDao networkDao;
     @Inject
     private ProviderDao providerDao;
@@ -130,6 +133,7 @@ public class RemoveNetworkCommand<T extends RemoveNetworkParameters> extends Net
             networkHelper.setVdsmNamesInVdsInterfaces(getNetwork());
             getCompensationContext().snapshotEntity(getNetwork());
             networkDao.remove(getNetwork().getId());
+            outOfSyncInterfacesIndex.invalidateAll();
             getCompensationContext().stateChanged();
             return null;
         });
@@ -71,6 +71,7 @@ import org.ovirt.engine.core.di.Injector;
 import org.ovirt.engine.core.utils.NetworkUtils;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.ovirt.engine.core.vdsbroker.NetworkImplementationDetailsUtils;
+import org.ovirt.engine.core.vdsbroker.OutOfSyncInterfacesIndex;
 
 @NonTransactiveCommandAttribute
 public class UpdateNetworkCommand<T extends AddNetworkStoragePoolParameters> extends NetworkModification<T> implements RenamedEntityInfoProvider {
@@ -80,6 +81,8 @@ public class UpdateNetworkCommand<T extends AddNetworkStoragePoolParameters> ext
     @Inject
     private NetworkClusterHelper networkClusterHelper;
     @Inject
+    private OutOfSyncInterfacesIndex outOfSyncInterfacesIndex;
+    @Inject
     private NetworkDao networkDao;
     @Inject
     private NetworkClusterDao networkClusterDao;
@@ -106,6 +109,7 @@ public class UpdateNetworkCommand<T extends AddNetworkStoragePoolParameters> ext
         NetworkUtils.setNetworkVdsmName(getNetwork());
         TransactionSupport.executeInNewTransaction(() -> {
             networkDao.update(getNetwork());
+            outOfSyncInterfacesIndex.invalidateAll();
 
             for (NetworkCluster clusterAttachment : networkClusterDao.getAllForNetwork(getNetwork().getId())) {
                 networkClusterHelper.setStatus(clusterAttachment.getClusterId(), getNetwork());
@@ -10,12 +10,12 @@ import org.ovirt.engine.core.bll.QueriesCommandBase;
 import org.ovirt.engine.core.bll.context.EngineContext;
 import org.ovirt.engine.core.common.businessentities.network.VdsNetworkInterface;
 import org.ovirt.engine.core.common.queries.IdQueryParameters;
-import org.ovirt.engine.core.vdsbroker.NetworkImplementationDetailsUtils;
+import org.ovirt.engine.core.vdsbroker.OutOfSyncInterfacesIndex;
 
 public class GetOutOfSyncHostNamesForClusterQuery<P extends IdQueryParameters> extends QueriesCommandBase<P> {
 
     @Inject
-    private NetworkImplementationDetailsUtils util;
+    private OutOfSyncInterfacesIndex outOfSyncInterfacesIndex;
 
     public GetOutOfSyncHostNamesForClusterQuery(P parameters, EngineContext engineContext) {
         super(parameters, engineContext);
@@ -23,7 +23,7 @@ public class GetOutOfSyncHostNamesForClusterQuery<P extends IdQueryParameters> e
 
     @Override
     protected void executeQueryCommand() {
-        List<String> outOfSyncVdsNames = util.getAllInterfacesOutOfSync(getParameters().getId())
+        List<String> outOfSyncVdsNames = outOfSyncInterfacesIndex.getOutOfSyncInterfaces(getParameters().getId())
             .stream()
             .map(VdsNetworkInterface::getVdsName)
             .distinct()
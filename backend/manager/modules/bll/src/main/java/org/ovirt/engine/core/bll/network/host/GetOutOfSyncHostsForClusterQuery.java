@@ -11,12 +11,12 @@ import org.ovirt.engine.core.bll.context.EngineContext;
 import org.ovirt.engine.core.common.businessentities.network.VdsNetworkInterface;
 import org.ovirt.engine.core.common.queries.IdQueryParameters;
 import org.ovirt.engine.core.compat.Guid;
-import org.ovirt.engine.core.vdsbroker.NetworkImplementationDetailsUtils;
+import org.ovirt.engine.core.vdsbroker.OutOfSyncInterfacesIndex;
 
 public class GetOutOfSyncHostsForClusterQuery<P extends IdQueryParameters> extends QueriesCommandBase<P> {
 
     @Inject
-    private NetworkImplementationDetailsUtils util;
+    private OutOfSyncInterfacesIndex outOfSyncInterfacesIndex;
 
     public GetOutOfSyncHostsForClusterQuery(P parameters, EngineContext engineContext) {
         super(parameters, engineContext);
@@ -24,7 +24,7 @@ public class GetOutOfSyncHostsForClusterQuery<P extends IdQueryParameters> exten
 
     @Override
     protected void executeQueryCommand() {
-        Set<Guid> outOfSyncVdsIds = util.getAllInterfacesOutOfSync(getParameters().getId())
+        Set<Guid> outOfSyncVdsIds = outOfSyncInterfacesIndex.getOutOfSyncInterfaces(getParameters().getId())
             .stream()
             .map(VdsNetworkInterface::getVdsId)
             .collect(Collectors.toSet());
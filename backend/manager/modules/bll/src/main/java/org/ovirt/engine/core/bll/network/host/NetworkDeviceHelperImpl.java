@@ -14,7 +14,8 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.apache.commons.lang.StringUtils;
-import org.ovirt.engine.core.common.businessentities.Entities;
+import org.ovirt.engine.core.bll.hostdev.HostDeviceInventory;
+import org.ovirt.engine.core.bll.hostdev.HostDeviceInventory.HostDevices;
 import org.ovirt.engine.core.common.businessentities.HostDevice;
 import org.ovirt.engine.core.common.businessentities.network.HostNicVfsConfig;
 import org.ovirt.engine.core.common.businessentities.network.VdsNetworkInterface;
@@ -31,18 +32,22 @@ class NetworkDeviceHelperImpl implements NetworkDeviceHelper {
     private final InterfaceDao interfaceDao;
     private final HostDeviceDao hostDeviceDao;
     private final HostNicVfsConfigDao hostNicVfsConfigDao;
+    private final HostDeviceInventory hostDeviceInventory;
 
     @Inject
     NetworkDeviceHelperImpl(InterfaceDao interfaceDao,
             HostDeviceDao hostDeviceDao,
-            HostNicVfsConfigDao hostNicVfsConfigDao) {
+            HostNicVfsConfigDao hostNicVfsConfigDao,
+            HostDeviceInventory hostDeviceInventory) {
         Objects.requireNonNull(interfaceDao, "interfaceDao cannot be null");
         Objects.requireNonNull(hostDeviceDao, "hostDeviceDao cannot be null");
         Objects.requireNonNull(hostNicVfsConfigDao, "hostNicVfsConfigDao cannot be null");
+        Objects.requireNonNull(hostDeviceInventory, "hostDeviceInventory cannot be null");
 
         this.interfaceDao = interfaceDao;
         this.hostDeviceDao = hostDeviceDao;
         this.hostNicVfsConfigDao = hostNicVfsConfigDao;
+        this.hostDeviceInventory = hostDeviceInventory;
     }
 
     @Override
@@ -72,8 +77,10 @@ class NetworkDeviceHelperImpl implements NetworkDeviceHelper {
     }
 
     private HostDevice getFirstChildNetworkDevice(final HostDevice pciDevice, final Collection<HostDevice> devices) {
-        Collection<HostDevice> hostDevices = devices == null ? getDevicesByHostId(pciDevice.getHostId()) : devices;
-        return hostDevices.stream()
+        if (devices == null) {
+            return getDevicesByHostId(pciDevice.getHostId()).getChildNetworkDevice(pciDevice.getDeviceName());
+        }
+        return devices.stream()
                 .filter(device -> pciDevice.getDeviceName().equals(device.getParentDeviceName())
                         && isNetworkDevice(device))
                 .findFirst()
@@ -102,10 +109,10 @@ class NetworkDeviceHelperImpl implements NetworkDeviceHelper {
     @Override
     public List<HostNicVfsConfig> getHostNicVfsConfigsWithNumVfsDataByHostId(Guid hostId) {
         List<HostNicVfsConfig> hostNicVfsConfigList = hostNicVfsConfigDao.getAllVfsConfigByHostId(hostId);
-        List<HostDevice> deviceList = getDevicesByHostId(hostId);
+        HostDevices devices = getDevicesByHostId(hostId);
 
         for (HostNicVfsConfig hostNicVfsConfig : hostNicVfsConfigList) {
-            updateVfsConfigWithNumOfVfsData(hostNicVfsConfig, null, deviceList);
+            updateVfsConfigWithNumOfVfsData(hostNicVfsConfig, null, devices);
         }
 
         return hostNicVfsConfigList;
@@ -113,38 +120,35 @@ class NetworkDeviceHelperImpl implements NetworkDeviceHelper {
 
     private void updateVfsConfigWithNumOfVfsData(HostNicVfsConfig hostNicVfsConfig,
             VdsNetworkInterface nic,
-            List<HostDevice> deviceList) {
+            HostDevices devices) {
         if (nic == null) {
             nic = getNicById(hostNicVfsConfig.getNicId());
         }
 
-        HostDevice pciDevice = getPciDeviceByNic(nic, deviceList);
+        HostDevice pciDevice = getPciDeviceByNic(nic, devices);
 
         hostNicVfsConfig.setMaxNumOfVfs(getMaxNumOfVfs(pciDevice));
-        hostNicVfsConfig.setNumOfVfs(getNumOfVfs(pciDevice, deviceList));
-        hostNicVfsConfig.setNumOfFreeVfs(getNumOfFreeVfs(pciDevice, deviceList));
-    }
-
-    private int getNumOfFreeVfs(HostDevice pciDevice, List<HostDevice> deviceList) {
-        return getVfs(pciDevice, deviceList).stream().filter(this::isVfFree).mapToInt(device -> 1).sum();
+        hostNicVfsConfig.setNumOfVfs(getNumOfVfs(pciDevice, devices));
+        hostNicVfsConfig.setNumOfFreeVfs(getNumOfFreeVfs(pciDevice, devices));
     }
 
-    private HostDevice getPciDeviceByNic(final VdsNetworkInterface nic, List<HostDevice> deviceList) {
-        return getPciDeviceByNic(nic, deviceList, Entities.entitiesByName(deviceList));
+    private int getNumOfFreeVfs(HostDevice pciDevice, HostDevices devices) {
+        return devices.getFreeVirtualFunctions(pciDevice.getDeviceName())
+                .stream()
+                .filter(this::isVfFree)
+                .mapToInt(device -> 1)
+                .sum();
     }
 
-    private HostDevice getPciDeviceByNic(final VdsNetworkInterface nic,
-            List<HostDevice> deviceList,
-            Map<String, HostDevice> devicesByName) {
+    private HostDevice getPciDeviceByNic(final VdsNetworkInterface nic, HostDevices devices) {
         final String nicName = nic.getName();
-        final HostDevice netDevice = deviceList.stream()
-                .filter(device -> nicName.equals(device.getNetworkInterfaceName())).findFirst().orElse(null);
+        final HostDevice netDevice = devices.getNetworkDeviceByInterfaceName(nicName);
 
         Objects.requireNonNull(netDevice,
                 String.format("Host \"%s\": nic \"%s\" doesn't have a net device", nic.getVdsName(), nicName));
 
         final String parentDeviceName = netDevice.getParentDeviceName();
-        final HostDevice pciDevice = devicesByName.get(parentDeviceName);
+        final HostDevice pciDevice = devices.getDevice(parentDeviceName);
 
         Objects.requireNonNull(pciDevice,
                 String.format("Host \"%s\": net device \"%s\" doesn't have a parent pci device \"%s\"",
@@ -159,24 +163,16 @@ class NetworkDeviceHelperImpl implements NetworkDeviceHelper {
         return pciDevice.getTotalVirtualFunctions();
     }
 
-    private int getNumOfVfs(HostDevice pciDevice, List<HostDevice> deviceList) {
-        List<HostDevice> vfs = getVfs(pciDevice, deviceList);
-
-        return vfs.size();
+    private int getNumOfVfs(HostDevice pciDevice, HostDevices devices) {
+        return devices.getVirtualFunctions(pciDevice.getDeviceName()).size();
     }
 
     private VdsNetworkInterface getNicById(Guid nicId) {
         return interfaceDao.get(nicId);
     }
 
-    private List<HostDevice> getDevicesByHostId(Guid hostId) {
-        return hostDeviceDao.getHostDevicesByHostId(hostId);
-    }
-
-    private List<HostDevice> getVfs(final HostDevice pciDevice, List<HostDevice> deviceList) {
-        return deviceList.stream()
-                .filter(device -> pciDevice.getDeviceName().equals(device.getParentPhysicalFunction()))
-                .collect(Collectors.toList());
+    private HostDevices getDevicesByHostId(Guid hostId) {
+        return hostDeviceInventory.getHostDevices(hostId);
     }
 
     @Override
@@ -219,8 +215,8 @@ class NetworkDeviceHelperImpl implements NetworkDeviceHelper {
     }
 
     private HostDevice getVf(VdsNetworkInterface nic, final boolean shouldBeFree, final List<String> excludeVfs) {
-        List<HostDevice> deviceList = getDevicesByHostId(nic.getVdsId());
-        HostDevice pciDevice = getPciDeviceByNic(nic, deviceList);
+        HostDevices devices = getDevicesByHostId(nic.getVdsId());
+        HostDevice pciDevice = getPciDeviceByNic(nic, devices);
 
         if (pciDevice == null) {
             throw new NullPointerException("nic doesn't have a pci device");
@@ -230,7 +226,9 @@ class NetworkDeviceHelperImpl implements NetworkDeviceHelper {
             throw new UnsupportedOperationException("'getVf' method should be called only for 'sriov' nics");
         }
 
-        List<HostDevice> vfs = getVfs(pciDevice, deviceList);
+        List<HostDevice> vfs = shouldBeFree
+                ? devices.getFreeVirtualFunctions(pciDevice.getDeviceName())
+                : devices.getVirtualFunctions(pciDevice.getDeviceName());
 
         return vfs.stream()
                 .filter(vf -> isVfFree(vf) == shouldBeFree && (excludeVfs == null || !excludeVfs.contains(vf.getDeviceName())))
@@ -274,6 +272,7 @@ class NetworkDeviceHelperImpl implements NetworkDeviceHelper {
             }
         }
         setVmIdOnVfsDevices(vmId, new HashSet<>(vfs));
+        hostDeviceInventory.invalidate(hostId);
     }
 
     private void setVmIdOnVfsDevices(Guid vmId, Set<HostDevice> vfs) {
@@ -292,6 +291,7 @@ class NetworkDeviceHelperImpl implements NetworkDeviceHelper {
         Guid hostId = vfsUsedByVm.isEmpty() ? null : vfsUsedByVm.get(0).getHostId();
         if (hostId != null) {
             setVmIdOnVfsDevices(null, new HashSet<>(vfsUsedByVm));
+            hostDeviceInventory.invalidate(hostId);
         }
 
         return hostId;
@@ -300,13 +300,12 @@ class NetworkDeviceHelperImpl implements NetworkDeviceHelper {
     @Override
     public Map<Guid, Guid> getVfMap(final Guid hostId) {
         final List<VdsNetworkInterface> hostNics = interfaceDao.getAllInterfacesForVds(hostId);
-        final List<HostDevice> hostDevices = hostDeviceDao.getHostDevicesByHostId(hostId);
-        final Map<String, HostDevice> hostDevicesByName = Entities.entitiesByName(hostDevices);
+        final HostDevices hostDevices = getDevicesByHostId(hostId);
 
         return hostNics.stream()
-                .filter(new VfNicPredicate(hostDevices, hostDevicesByName))
+                .filter(new VfNicPredicate(hostDevices))
                 .collect(Collectors.toMap(VdsNetworkInterface::getId,
-                        new VfNicToPfNicMapper(hostDevices, hostDevicesByName, hostNics)));
+                        new VfNicToPfNicMapper(hostDevices, hostNics)));
     }
 
     private boolean isVf(HostDevice device) {
@@ -314,36 +313,29 @@ class NetworkDeviceHelperImpl implements NetworkDeviceHelper {
     }
 
     private class VfNicToPfNicMapper implements Function<VdsNetworkInterface, Guid> {
-        private final List<HostDevice> hostDevices;
-        private final Map<String, HostDevice> hostDevicesByName;
+        private final HostDevices hostDevices;
         private final List<VdsNetworkInterface> hostNics;
 
-        public VfNicToPfNicMapper(List<HostDevice> hostDevices,
-                Map<String, HostDevice> hostDevicesByName,
-                List<VdsNetworkInterface> hostNics) {
+        public VfNicToPfNicMapper(HostDevices hostDevices, List<VdsNetworkInterface> hostNics) {
             this.hostDevices = hostDevices;
-            this.hostDevicesByName = hostDevicesByName;
             this.hostNics = hostNics;
         }
 
         @Override
         public Guid apply(VdsNetworkInterface nic) {
-            final HostDevice vfPciDevice =
-                    getPciDeviceByNic(nic, hostDevices, hostDevicesByName);
-            final HostDevice pfPciDevice = hostDevicesByName.get(vfPciDevice.getParentPhysicalFunction());
-            final VdsNetworkInterface pfNic = getNicByPciDevice(pfPciDevice, hostDevices, hostNics);
+            final HostDevice vfPciDevice = getPciDeviceByNic(nic, hostDevices);
+            final HostDevice pfPciDevice = hostDevices.getDevice(vfPciDevice.getParentPhysicalFunction());
+            final VdsNetworkInterface pfNic = getNicByPciDevice(pfPciDevice, hostDevices.getAll(), hostNics);
 
             return pfNic == null ? null : pfNic.getId();
         }
     }
 
     private class VfNicPredicate implements Predicate<VdsNetworkInterface> {
-        private final List<HostDevice> hostDevices;
-        private final Map<String, HostDevice> hostDevicesByName;
+        private final HostDevices hostDevices;
 
-        public VfNicPredicate(List<HostDevice> hostDevices, Map<String, HostDevice> hostDevicesByName) {
+        public VfNicPredicate(HostDevices hostDevices) {
             this.hostDevices = hostDevices;
-            this.hostDevicesByName = hostDevicesByName;
         }
 
         @Override
@@ -352,8 +344,7 @@ class NetworkDeviceHelperImpl implements NetworkDeviceHelper {
                 return false;
             }
             try {
-                final HostDevice nicPciDevice =
-                        getPciDeviceByNic(nic, hostDevices, hostDevicesByName);
+                final HostDevice nicPciDevice = getPciDeviceByNic(nic, hostDevices);
                 return isVf(nicPciDevice);
             } catch (Exception e) {
                 return false;
@@ -11,6 +11,7 @@ import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import org.ovirt.engine.core.bll.hostdev.HostDeviceInventory;
 import org.ovirt.engine.core.common.businessentities.HostDevice;
 import org.ovirt.engine.core.common.businessentities.VmDeviceGeneralType;
 import org.ovirt.engine.core.common.businessentities.network.HostNicVfsConfig;
@@ -18,7 +19,6 @@ import org.ovirt.engine.core.common.businessentities.network.Network;
 import org.ovirt.engine.core.common.businessentities.network.VdsNetworkInterface;
 import org.ovirt.engine.core.common.businessentities.network.VmNetworkInterface;
 import org.ovirt.engine.core.compat.Guid;
-import org.ovirt.engine.core.dao.HostDeviceDao;
 import org.ovirt.engine.core.dao.VdsDao;
 import org.ovirt.engine.core.dao.VmDeviceDao;
 import org.ovirt.engine.core.dao.network.InterfaceDao;
@@ -33,7 +33,7 @@ public class VfSchedulerImpl implements VfScheduler {
 
     private VdsDao hostDao;
 
-    private HostDeviceDao hostDeviceDao;
+    private HostDeviceInventory hostDeviceInventory;
 
     private VmDeviceDao vmDeviceDao;
 
@@ -45,13 +45,13 @@ public class VfSchedulerImpl implements VfScheduler {
     public VfSchedulerImpl(NetworkDao networkDao,
             InterfaceDao interfaceDao,
             VdsDao hostDao,
-            HostDeviceDao hostDeviceDao,
+            HostDeviceInventory hostDeviceInventory,
             VmDeviceDao vmDeviceDao,
             NetworkDeviceHelper vfsConfigHelper) {
         this.networkDao = networkDao;
         this.interfaceDao = interfaceDao;
         this.hostDao = hostDao;
-        this.hostDeviceDao = hostDeviceDao;
+        this.hostDeviceInventory = hostDeviceInventory;
         this.vmDeviceDao = vmDeviceDao;
         this.networkDeviceHelper = vfsConfigHelper;
     }
@@ -214,10 +214,7 @@ public class VfSchedulerImpl implements VfScheduler {
         }
 
         // Check that the device doesn't share iommu group with other devices
-        List<HostDevice> iommoGroupDevices =
-                hostDeviceDao.getHostDevicesByHostIdAndIommuGroup(device.getHostId(), device.getIommuGroup());
-
-        return iommoGroupDevices.size() > 1;
+        return hostDeviceInventory.getHostDevices(device.getHostId()).getIommuGroupSize(device.getIommuGroup()) > 1;
     }
 
     private boolean shouldBeDirectlyAttached(String vfName, Guid vmId) {
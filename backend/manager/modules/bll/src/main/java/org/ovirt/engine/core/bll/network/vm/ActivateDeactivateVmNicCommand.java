@@ -262,6 +262,7 @@ public class ActivateDeactivateVmNicCommand<T extends ActivateDeactivateVmNicPar
         var success = handleFailoverIfNeeded();
         // In any case, the device is updated
         updateDevice();
+        invalidateMonitoredInterfaces();
         setSucceeded(success);
     }
 
@@ -90,6 +90,7 @@ public class AddVmInterfaceCommand<T extends AddVmInterfaceParameters> extends A
                 succeeded = true;
             }
         } finally {
+            invalidateMonitoredInterfaces();
             setSucceeded(succeeded);
             if (macAddedToPool && !succeeded) {
                 macPool.freeMac(getMacAddress());
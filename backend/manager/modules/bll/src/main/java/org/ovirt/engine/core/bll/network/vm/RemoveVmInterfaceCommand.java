@@ -88,6 +88,7 @@ public class RemoveVmInterfaceCommand<T extends RemoveVmInterfaceParameters> ext
             setSucceeded(true);
             return null;
         });
+        invalidateMonitoredInterfaces();
     }
 
     @Override
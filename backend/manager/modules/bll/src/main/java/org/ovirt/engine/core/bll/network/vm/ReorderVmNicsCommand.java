@@ -53,6 +53,7 @@ public class ReorderVmNicsCommand<T extends VmOperationParameterBase> extends Vm
     @Override
     protected void executeVmCommand() {
         reorderNics();
+        invalidateMonitoredInterfaces();
         setSucceeded(true);
     }
 
@@ -149,6 +149,7 @@ public class UpdateVmInterfaceCommand<T extends AddVmInterfaceParameters> extend
 
             succeeded = updateHost();
         } finally {
+            invalidateMonitoredInterfaces();
             setSucceeded(succeeded);
             macPoolCleanupAfterExecution(macAddedToPool);
         }
@@ -43,7 +43,8 @@ import org.slf4j.LoggerFactory;
  * <ul>
  *     <li>Selection of fence proxy (it uses {@code FenceProxyLocator})</li>
  *     <li>Preparation of fence agent options (it uses {@code VdsFenceOptions})</li>
- *     <li>Execution of "plain" fence actions (start, stop and status)</li>
+ *     <li>Execution of "plain" fence actions (start, stop and status), limiting the operations running on each
+ *     fence proxy (it uses {@code FencingCoordinator})</li>
  *     <li>Execution retries for failed fence action with different (if available) or same fence proxy</li>
  * </ul>
  */
@@ -68,6 +69,9 @@ public class FenceAgentExecutor {
     @Inject
     private VdsArchitectureHelper vdsArchitectureHelper;
 
+    @Inject
+    private FencingCoordinator fencingCoordinator;
+
     private final VDS fencedHost;
     private final FencingPolicy fencingPolicy;
     private FenceProxyLocator proxyLocator;
@@ -147,14 +151,16 @@ public class FenceAgentExecutor {
         FenceAgent realAgent = createRealAgent(agent, proxyHost);
         auditFenceActionExecution(action, realAgent, proxyHost);
 
-        VDSReturnValue retVal = resourceManager.runVdsCommand(
-                VDSCommandType.FenceVds,
-                new FenceVdsVDSCommandParameters(
-                        proxyHost.getId(),
-                        fencedHost.getId(),
-                        realAgent,
-                        action,
-                        convertFencingPolicy(proxyHost)));
+        VDSReturnValue retVal = fencingCoordinator.runOnProxy(
+                proxyHost.getId(),
+                () -> resourceManager.runVdsCommand(
+                        VDSCommandType.FenceVds,
+                        new FenceVdsVDSCommandParameters(
+                                proxyHost.getId(),
+                                fencedHost.getId(),
+                                realAgent,
+                                action,
+                                convertFencingPolicy(proxyHost))));
 
         FenceOperationResult result = (FenceOperationResult) retVal.getReturnValue();
         log.debug("Result of '{}' fence action: {}", result);
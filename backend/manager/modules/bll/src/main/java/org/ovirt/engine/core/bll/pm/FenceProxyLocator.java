@@ -101,8 +101,8 @@ public class FenceProxyLocator {
                 .filter(this::areAgentsVersionCompatible)
                 .filter(vds -> isFencingPolicySupported(vds, getMinSupportedVersionForFencingPolicy()))
                 .filter(vds -> !isHostNetworkUnreachable(vds))
-                .sorted(Comparator.comparingInt(vds -> vds.getStatus() == VDSStatus.Up ? -1 : 1))
-                .findFirst()
+                .min(Comparator.<VDS> comparingInt(vds -> vds.getStatus() == VDSStatus.Up ? -1 : 1)
+                        .thenComparingInt(vds -> getFencingCoordinator().getRunningOperations(vds.getId())))
                 .orElse(null);
     }
 
@@ -205,4 +205,8 @@ public class FenceProxyLocator {
     protected VdsFenceOptions createVdsFenceOptions(String version) {
         return new VdsFenceOptions(version);
     }
+
+    protected FencingCoordinator getFencingCoordinator() {
+        return Injector.get(FencingCoordinator.class);
+    }
 }
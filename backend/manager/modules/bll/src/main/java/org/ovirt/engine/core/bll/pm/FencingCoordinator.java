@@ -0,0 +1,188 @@
+package org.ovirt.engine.core.bll.pm;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang.exception.ExceptionUtils;
+import org.ovirt.engine.core.common.businessentities.VDS;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.common.errors.EngineError;
+import org.ovirt.engine.core.common.errors.EngineException;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.utils.DurationStatistics;
+import org.ovirt.engine.core.utils.MBeanRegistration;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coordinates the fencing of many hosts at once, e.g. when a whole rack or a switch fails:
+ * <ul>
+ *     <li>Runs fencing related actions for many hosts concurrently, using up to FencingMaxConcurrentHosts concurrent
+ *     runs</li>
+ *     <li>Limits the number of fence operations executed concurrently by a single fence proxy to
+ *     FenceProxyMaxConcurrentOperations, and reports the operations running on each proxy, so
+ *     {@code FenceProxyLocator} can spread the operations across the available proxies</li>
+ *     <li>Measures the time it takes to fence non responding hosts</li>
+ * </ul>
+ */
+@Singleton
+public class FencingCoordinator implements FencingCoordinatorMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger(FencingCoordinator.class);
+
+    /**
+     * The number of fence operations running on each proxy, guarded by {@code this}
+     */
+    private final Map<Guid, Integer> runningOperations = new HashMap<>();
+
+    private final Map<Guid, Long> fencingStartTimes = new ConcurrentHashMap<>();
+
+    private final DurationStatistics timesToFence = new DurationStatistics();
+
+    private MBeanRegistration mBeanRegistration;
+
+    @PostConstruct
+    private void init() {
+        mBeanRegistration = MBeanRegistration.register("FencingCoordinator", this);
+    }
+
+    @PreDestroy
+    private void unregisterFromJMX() {
+        mBeanRegistration.unregister();
+    }
+
+    /**
+     * Runs the given action for each of the hosts, using up to FencingMaxConcurrentHosts concurrent runs, and waits
+     * for the runs to complete. A failure of the action for one host doesn't affect the other hosts.
+     */
+    public void runForHosts(Collection<VDS> hosts, Consumer<VDS> action) {
+        ThreadPoolUtil.runBounded(hosts,
+                Config.<Integer> getValue(ConfigValues.FencingMaxConcurrentHosts),
+                host -> runForHost(host, action));
+    }
+
+    private void runForHost(VDS host, Consumer<VDS> action) {
+        try {
+            action.accept(host);
+        } catch (RuntimeException e) {
+            log.error("Failed to handle host '{}' ({}): {}",
+                    host.getName(),
+                    host.getId(),
+                    ExceptionUtils.getRootCauseMessage(e));
+            log.debug("Exception", e);
+        }
+    }
+
+    /**
+     * Runs the given fence operation on the given proxy host, waiting while the proxy already runs
+     * FenceProxyMaxConcurrentOperations operations.
+     *
+     * @throws EngineException if the proxy didn't complete any of its operations within vdsTimeout, the time a fence
+     * operation is given to complete, or if the waiting thread was interrupted
+     */
+    public <T> T runOnProxy(Guid proxyId, Supplier<T> operation) {
+        acquire(proxyId);
+        try {
+            return operation.get();
+        } finally {
+            release(proxyId);
+        }
+    }
+
+    private synchronized void acquire(Guid proxyId) {
+        int maxOperations = Config.<Integer> getValue(ConfigValues.FenceProxyMaxConcurrentOperations);
+        long timeout = TimeUnit.SECONDS.toNanos(Config.<Integer> getValue(ConfigValues.vdsTimeout));
+        long deadline = System.nanoTime() + timeout;
+        while (getRunningOperations(proxyId) >= maxOperations) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new EngineException(EngineError.ENGINE,
+                        String.format("Fence proxy '%s' didn't complete any of its %d operations in %d seconds",
+                                proxyId,
+                                maxOperations,
+                                TimeUnit.NANOSECONDS.toSeconds(timeout)));
+            }
+            log.debug("Fence proxy '{}' runs {} operations, waiting for one of them to complete",
+                    proxyId,
+                    maxOperations);
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EngineException(EngineError.ENGINE,
+                        String.format("Interrupted while waiting for fence proxy '%s'", proxyId));
+            }
+        }
+        runningOperations.merge(proxyId, 1, Integer::sum);
+    }
+
+    private synchronized void release(Guid proxyId) {
+        runningOperations.computeIfPresent(proxyId, (id, count) -> count > 1 ? count - 1 : null);
+        notifyAll();
+    }
+
+    /**
+     * @return the number of fence operations currently executed by the given proxy host
+     */
+    public synchronized int getRunningOperations(Guid proxyId) {
+        return runningOperations.getOrDefault(proxyId, 0);
+    }
+
+    /**
+     * Marks the start of the fencing of the given non responding host.
+     */
+    public void fencingStarted(Guid hostId) {
+        fencingStartTimes.put(hostId, System.currentTimeMillis());
+    }
+
+    /**
+     * Marks the end of the fencing of the given host, and accounts its time to fence if it was fenced.
+     */
+    public void fencingFinished(VDS host, boolean fenced) {
+        Long startTime = fencingStartTimes.remove(host.getId());
+        if (startTime == null || !fenced) {
+            return;
+        }
+        long timeToFence = System.currentTimeMillis() - startTime;
+        timesToFence.add(timeToFence);
+        log.info("Host '{}' ({}) was fenced {} ms after its fencing started", host.getName(), host.getId(), timeToFence);
+    }
+
+    @Override
+    public int getHostsBeingFenced() {
+        return fencingStartTimes.size();
+    }
+
+    @Override
+    public long getFencedHosts() {
+        return timesToFence.getCount();
+    }
+
+    @Override
+    public long getAverageTimeToFence() {
+        return timesToFence.getAverage();
+    }
+
+    @Override
+    public long getMaxTimeToFence() {
+        return timesToFence.getMax();
+    }
+
+    @Override
+    public synchronized Map<String, Integer> getRunningOperationsPerProxy() {
+        Map<String, Integer> operations = new HashMap<>();
+        runningOperations.forEach((proxyId, count) -> operations.put(proxyId.toString(), count));
+        return operations;
+    }
+}
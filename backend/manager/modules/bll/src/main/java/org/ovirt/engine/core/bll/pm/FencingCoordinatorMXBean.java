@@ -0,0 +1,31 @@
+package org.ovirt.engine.core.bll.pm;
+
+import java.util.Map;
+
+public interface FencingCoordinatorMXBean {
+
+    /**
+     * @return the number of non responding hosts whose fencing started and has not finished yet
+     */
+    int getHostsBeingFenced();
+
+    /**
+     * @return the number of hosts that were fenced since the engine started
+     */
+    long getFencedHosts();
+
+    /**
+     * @return the average time in milliseconds from starting the fencing of a non responding host until it was fenced
+     */
+    long getAverageTimeToFence();
+
+    /**
+     * @return the maximal time in milliseconds from starting the fencing of a non responding host until it was fenced
+     */
+    long getMaxTimeToFence();
+
+    /**
+     * @return the number of fence operations currently executed by each of the fence proxies, by proxy host ID
+     */
+    Map<String, Integer> getRunningOperationsPerProxy();
+}
@@ -64,6 +64,8 @@ public class PmHealthCheckManager implements BackendService {
     @Inject
     private Instance<BackendInternal> backend;
     @Inject
+    private FencingCoordinator fencingCoordinator;
+    @Inject
     @ThreadPools(ThreadPools.ThreadPoolType.EngineScheduledThreadPool)
     private ManagedScheduledExecutorService executor;
 
@@ -91,12 +93,10 @@ public class PmHealthCheckManager implements BackendService {
             if (lock.tryLock()) {
                 try {
                     log.info("Power Management Health Check started.");
-                    List<VDS> hosts = vdsDao.getAll();
-                    for (VDS host : hosts) {
-                        if (host.isPmEnabled()) {
-                            pmHealthCheck(host);
-                        }
-                    }
+                    List<VDS> hosts = vdsDao.getAll().stream()
+                            .filter(VDS::isPmEnabled)
+                            .collect(Collectors.toList());
+                    fencingCoordinator.runForHosts(hosts, this::pmHealthCheck);
                     log.info("Power Management Health Check completed.");
                 } finally {
                     lock.unlock();
@@ -256,56 +256,60 @@ public class PmHealthCheckManager implements BackendService {
     }
 
     /**
-     * This method starts hosts remained in off status because of the following flow
+     * This method starts, concurrently, hosts remained in off status because of the following flow
      * non-responding -> stop -> wait -> off -> engine restart
      * Such hosts will stay DOWN while its status will show Reboot
      * We should try to catch such hosts and attempt to restart it.
      */
     public void startHosts(List<VDS> hostWithPMInStatusReboot) {
-        for (VDS host : hostWithPMInStatusReboot) {
-            RestartVdsCommand<FenceVdsActionParameters> restartVdsCommand =
-                    new RestartVdsCommand<>(new
-                            FenceVdsActionParameters(host.getId()), null);
-            if (new HostFenceActionExecutor(host).isHostPoweredOff()) {
-                //if an external-status other than OK has been set on the host,
-                //that is considered an indication not to perform automatic
-                //power-management operations on the host.
-                if (!ExternalStatus.Ok.equals(host.getExternalStatus())) {
-                    log.warn("Host '{}' ({}) was not started by PM Health Check Manager becuse it has external-status: '{}'.",
-                            host.getName(),
-                            host.getId(),
-                            host.getExternalStatus());
-                    continue;
-                }
-                ActionReturnValue
-                        retValue = backend.get().runInternalAction(ActionType.RestartVds, restartVdsCommand.getParameters());
-                if (retValue!= null && retValue.getSucceeded()) {
-                    log.info("Host '{}' was started successfully by PM Health Check Manager",
-                            host.getName());
-                } else {
-                    log.info("PM Health Check Manager failed to start Host '{}'", host.getName());
-                }
+        fencingCoordinator.runForHosts(hostWithPMInStatusReboot, this::startHost);
+    }
+
+    private void startHost(VDS host) {
+        RestartVdsCommand<FenceVdsActionParameters> restartVdsCommand =
+                new RestartVdsCommand<>(new
+                        FenceVdsActionParameters(host.getId()), null);
+        if (new HostFenceActionExecutor(host).isHostPoweredOff()) {
+            //if an external-status other than OK has been set on the host,
+            //that is considered an indication not to perform automatic
+            //power-management operations on the host.
+            if (!ExternalStatus.Ok.equals(host.getExternalStatus())) {
+                log.warn("Host '{}' ({}) was not started by PM Health Check Manager becuse it has external-status: '{}'.",
+                        host.getName(),
+                        host.getId(),
+                        host.getExternalStatus());
+                return;
+            }
+            ActionReturnValue
+                    retValue = backend.get().runInternalAction(ActionType.RestartVds, restartVdsCommand.getParameters());
+            if (retValue!= null && retValue.getSucceeded()) {
+                log.info("Host '{}' was started successfully by PM Health Check Manager",
+                        host.getName());
+            } else {
+                log.info("PM Health Check Manager failed to start Host '{}'", host.getName());
             }
         }
     }
 
     /**
-     * This method calls the non-responding treatment command
+     * This method calls, concurrently for all the hosts, the non-responding treatment command
      * if host that was non-responding in the quite-time in which
      * fencing is skipped is still non-responding after the quite-time
      * period passed.
      */
     public void fenceHosts(List<VDS> hosts) {
-        for (VDS host : hosts) {
-            // retrieve the current status from DB
-            host = vdsDao.get(host.getId());
-            // Check if host exists, has power management and is still in non-responsive status after quite time.
-            if (host != null && host.isPmEnabled() && host.getStatus() == VDSStatus.NonResponsive) {
-                VdsNotRespondingTreatmentCommand<FenceVdsActionParameters> nonResponingVdsCommand =
-                        new VdsNotRespondingTreatmentCommand<>(new
-                                FenceVdsActionParameters(host.getId()), null);
-                backend.get().runInternalAction(ActionType.VdsNotRespondingTreatment, nonResponingVdsCommand.getParameters());
-            }
+        fencingCoordinator.runForHosts(hosts, this::fenceHost);
+    }
+
+    private void fenceHost(VDS host) {
+        // retrieve the current status from DB
+        host = vdsDao.get(host.getId());
+        // Check if host exists, has power management and is still in non-responsive status after quite time.
+        if (host != null && host.isPmEnabled() && host.getStatus() == VDSStatus.NonResponsive) {
+            VdsNotRespondingTreatmentCommand<FenceVdsActionParameters> nonResponingVdsCommand =
+                    new VdsNotRespondingTreatmentCommand<>(new
+                            FenceVdsActionParameters(host.getId()), null);
+            backend.get().runInternalAction(ActionType.VdsNotRespondingTreatment, nonResponingVdsCommand.getParameters());
         }
     }
 
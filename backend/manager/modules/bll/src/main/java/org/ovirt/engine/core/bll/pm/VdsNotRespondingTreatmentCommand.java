@@ -74,6 +74,8 @@ public class VdsNotRespondingTreatmentCommand<T extends FenceVdsActionParameters
     private HostLocking hostLocking;
     @Inject
     private VdsDynamicDaoImpl vdsDynamicDao;
+    @Inject
+    private FencingCoordinator fencingCoordinator;
 
 
     public VdsNotRespondingTreatmentCommand(T parameters, CommandContext commandContext) {
@@ -161,53 +163,61 @@ public class VdsNotRespondingTreatmentCommand<T extends FenceVdsActionParameters
         if (shouldBeFenced) {
             getParameters().setParentCommand(ActionType.VdsNotRespondingTreatment);
             ActionReturnValue retVal;
-
-            retVal = runInternalAction(ActionType.SshSoftFencing,
-                    getParameters(),
-                    cloneContext().withoutExecutionContext());
-            if (retVal.getSucceeded()) {
-                // SSH Soft Fencing was successful and host is Up, stop non responding treatment
-                getReturnValue().setSucceeded(true);
-                setCommandShouldBeLogged(false);
-                return;
-            }
-
-            // proceed with non responding treatment only if PM action are allowed and PM enabled for host
-            if (!monitoringStrategyFactory.getMonitoringStrategyForVds(getVds()).isPowerManagementSupported()
-                    || !getVds().isPmEnabled()) {
-                alertIfPowerManagementOperationSkipped();
-                setSucceeded(false);
-                setCommandShouldBeLogged(false);
-                return;
-            }
-
-            retVal = runInternalAction(ActionType.VdsKdumpDetection,
-                    getParameters(),
-                    cloneContext().withoutExecutionContext());
-            if (retVal.getSucceeded()) {
-                // kdump on host detected and finished successfully, stop hard fencing execution
-                getReturnValue().setSucceeded(true);
-                return;
-            }
-
-            //if an external-status other than OK has been set on the host,
-            //that is considered an indication not to perform automatic
-            //power-management operations on the host.
-            if (!ExternalStatus.Ok.equals(host.getExternalStatus())) {
-                AuditLogable logEntry = createAuditLogableForHost(host);
-                logEntry.addCustomValue("ExternalStatus", host.getExternalStatus().toString());
-                auditLogDirector.log(logEntry, AuditLogType.VDS_AUTO_FENCE_SKIPPED_DUE_TO_EXTERNAL_STATUS);
-                getReturnValue().setSucceeded(false);
-                return;
+            fencingCoordinator.fencingStarted(getVdsId());
+            boolean fencingSucceeded = false;
+            try {
+                retVal = runInternalAction(ActionType.SshSoftFencing,
+                        getParameters(),
+                        cloneContext().withoutExecutionContext());
+                if (retVal.getSucceeded()) {
+                    // SSH Soft Fencing was successful and host is Up, stop non responding treatment
+                    fencingSucceeded = true;
+                    getReturnValue().setSucceeded(true);
+                    setCommandShouldBeLogged(false);
+                    return;
+                }
+
+                // proceed with non responding treatment only if PM action are allowed and PM enabled for host
+                if (!monitoringStrategyFactory.getMonitoringStrategyForVds(getVds()).isPowerManagementSupported()
+                        || !getVds().isPmEnabled()) {
+                    alertIfPowerManagementOperationSkipped();
+                    setSucceeded(false);
+                    setCommandShouldBeLogged(false);
+                    return;
+                }
+
+                retVal = runInternalAction(ActionType.VdsKdumpDetection,
+                        getParameters(),
+                        cloneContext().withoutExecutionContext());
+                if (retVal.getSucceeded()) {
+                    // kdump on host detected and finished successfully, stop hard fencing execution
+                    fencingSucceeded = true;
+                    getReturnValue().setSucceeded(true);
+                    return;
+                }
+
+                //if an external-status other than OK has been set on the host,
+                //that is considered an indication not to perform automatic
+                //power-management operations on the host.
+                if (!ExternalStatus.Ok.equals(host.getExternalStatus())) {
+                    AuditLogable logEntry = createAuditLogableForHost(host);
+                    logEntry.addCustomValue("ExternalStatus", host.getExternalStatus().toString());
+                    auditLogDirector.log(logEntry, AuditLogType.VDS_AUTO_FENCE_SKIPPED_DUE_TO_EXTERNAL_STATUS);
+                    getReturnValue().setSucceeded(false);
+                    return;
+                }
+                // load cluster fencing policy
+                FencingPolicy fencingPolicy = clusterDao.get(getVds().getClusterId()).getFencingPolicy();
+                getParameters().setFencingPolicy(fencingPolicy);
+
+                waitUntilSkipFencingIfSDActiveAllowed(fencingPolicy.isSkipFencingIfSDActive());
+                updateHostInFenceFlow(getVdsId(), true);
+                restartVdsResult = runInternalAction(ActionType.RestartVds,
+                        getParameters(), cloneContext().withoutExecutionContext());
+                fencingSucceeded = restartVdsResult.getSucceeded();
+            } finally {
+                fencingCoordinator.fencingFinished(getVds(), fencingSucceeded);
             }
-            // load cluster fencing policy
-            FencingPolicy fencingPolicy = clusterDao.get(getVds().getClusterId()).getFencingPolicy();
-            getParameters().setFencingPolicy(fencingPolicy);
-
-            waitUntilSkipFencingIfSDActiveAllowed(fencingPolicy.isSkipFencingIfSDActive());
-            updateHostInFenceFlow(getVdsId(), true);
-            restartVdsResult = runInternalAction(ActionType.RestartVds,
-                    getParameters(), cloneContext().withoutExecutionContext());
         } else {
             setCommandShouldBeLogged(false);
             log.info("Host '{}' ({}) not fenced since it's status is ok, or it doesn't exist anymore.",
@@ -11,11 +11,14 @@ import org.ovirt.engine.core.common.businessentities.network.HostNetworkQos;
 import org.ovirt.engine.core.common.businessentities.network.Network;
 import org.ovirt.engine.core.dao.network.HostNetworkQosDao;
 import org.ovirt.engine.core.dao.network.NetworkDao;
+import org.ovirt.engine.core.vdsbroker.OutOfSyncInterfacesIndex;
 
 public class RemoveHostNetworkQosCommand extends RemoveQosCommandBase<HostNetworkQos, HostNetworkQosValidator> {
     @Inject
     private RefreshNetworksParametersFactory refreshNetworksParametersFactory;
     @Inject
+    private OutOfSyncInterfacesIndex outOfSyncInterfacesIndex;
+    @Inject
     private NetworkDao networkDao;
 
     public RemoveHostNetworkQosCommand(QosParametersBase<HostNetworkQos> parameters, CommandContext cmdContext) {
@@ -39,6 +42,7 @@ public class RemoveHostNetworkQosCommand extends RemoveQosCommandBase<HostNetwor
 
         //remove qos.
         super.executeCommand();
+        outOfSyncInterfacesIndex.invalidateAll();
 
         refreshNetworks(refreshNetworksParametersFactory.create(networksHavingQos));
     }
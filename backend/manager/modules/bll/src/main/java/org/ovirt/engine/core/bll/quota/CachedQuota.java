@@ -0,0 +1,367 @@
+package org.ovirt.engine.core.bll.quota;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.ovirt.engine.core.common.businessentities.Quota;
+import org.ovirt.engine.core.common.businessentities.QuotaCluster;
+import org.ovirt.engine.core.common.businessentities.QuotaStorage;
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * A quota kept in the cache of the {@link QuotaManager}.
+ * <p>
+ * The usage of every limit of the quota is kept in a counter of its own, which is updated by compare-and-set, so
+ * consumptions don't need to lock the cache and consumptions of different limits don't contend with each other.
+ * The counters also sum up the consumptions applied on them, so the usage read from the database by the periodic
+ * reconciliation can be corrected by the consumptions applied while it was read.
+ * <p>
+ * A consumption applied before the usage is marked for reconciliation is replaced by the usage read from the database,
+ * which may or may not contain it. The quota gets a new epoch whenever its usage is loaded or marked, so a consumption
+ * applied at an earlier epoch can't be rolled back by subtracting it from the usage.
+ */
+class CachedQuota {
+
+    private static final AtomicLong epochs = new AtomicLong();
+
+    private volatile Quota quota;
+    private long epoch;
+    private final ClusterUsageCounter globalClusterUsage;
+    private final Map<Guid, ClusterUsageCounter> clusterUsages;
+    private final StorageUsageCounter globalStorageUsage;
+    private final Map<Guid, StorageUsageCounter> storageUsages;
+
+    CachedQuota(Quota quota) {
+        this.quota = quota;
+        epoch = epochs.incrementAndGet();
+        globalClusterUsage = quota.getGlobalQuotaCluster() == null ? null :
+                new ClusterUsageCounter(quota.getGlobalQuotaCluster());
+        globalStorageUsage = quota.getGlobalQuotaStorage() == null ? null :
+                new StorageUsageCounter(quota.getGlobalQuotaStorage());
+
+        Map<Guid, ClusterUsageCounter> clusters = new LinkedHashMap<>();
+        for (QuotaCluster quotaCluster : nullToEmpty(quota.getQuotaClusters())) {
+            clusters.put(quotaCluster.getClusterId(), new ClusterUsageCounter(quotaCluster));
+        }
+        clusterUsages = Collections.unmodifiableMap(clusters);
+
+        Map<Guid, StorageUsageCounter> storages = new LinkedHashMap<>();
+        for (QuotaStorage quotaStorage : nullToEmpty(quota.getQuotaStorages())) {
+            storages.put(quotaStorage.getStorageId(), new StorageUsageCounter(quotaStorage));
+        }
+        storageUsages = Collections.unmodifiableMap(storages);
+    }
+
+    /**
+     * @return the quota, its limits are the current ones but its usage is the one it was loaded with
+     */
+    Quota getQuota() {
+        return quota;
+    }
+
+    /**
+     * @return the counter of the limit the given cluster consumes from, or null if the quota doesn't limit it
+     */
+    ClusterUsageCounter getClusterUsage(Guid clusterId) {
+        return globalClusterUsage != null ? globalClusterUsage : clusterUsages.get(clusterId);
+    }
+
+    /**
+     * @return the counter of the limit the given storage domain consumes from, or null if the quota doesn't limit it
+     */
+    StorageUsageCounter getStorageUsage(Guid storageDomainId) {
+        return globalStorageUsage != null ? globalStorageUsage : storageUsages.get(storageDomainId);
+    }
+
+    /**
+     * Sets the limits and the current usage of this quota on the given quota.
+     */
+    void copyUsageTo(Quota quotaExternal) {
+        if (globalStorageUsage != null) {
+            quotaExternal.setGlobalQuotaStorage(globalStorageUsage.copyUsage());
+        }
+        if (globalClusterUsage != null) {
+            quotaExternal.setGlobalQuotaCluster(globalClusterUsage.copyUsage());
+        }
+
+        List<QuotaStorage> quotaStorages = new ArrayList<>();
+        storageUsages.values().forEach(counter -> quotaStorages.add(counter.copyUsage()));
+        quotaExternal.setQuotaStorages(quotaStorages);
+
+        List<QuotaCluster> quotaClusters = new ArrayList<>();
+        clusterUsages.values().forEach(counter -> quotaClusters.add(counter.copyUsage()));
+        quotaExternal.setQuotaClusters(quotaClusters);
+    }
+
+    /**
+     * @return the current epoch, consumptions applied from now on are kept by the reconciliation of the quotas whose
+     *         epoch isn't later
+     */
+    static long currentEpoch() {
+        return epochs.get();
+    }
+
+    /**
+     * Marks the consumptions applied so far, before the usage is read from the database for reconciliation.
+     */
+    synchronized void markUsage() {
+        forEachCounter(UsageCounter::mark);
+        epoch = epochs.incrementAndGet();
+    }
+
+    /**
+     * Rolls back a consumption applied at the given epoch, unless the usage of this quota was loaded or marked since.
+     *
+     * @return false if the consumption may have been replaced by the usage read from the database, and so it can't
+     *         be rolled back by the given rollback
+     */
+    synchronized boolean rollback(long consumptionEpoch, Runnable rollback) {
+        if (epoch > consumptionEpoch) {
+            return false;
+        }
+        rollback.run();
+        return true;
+    }
+
+    /**
+     * Replaces the usage of this quota by the usage read from the database, plus the consumptions applied since
+     * {@link #markUsage()} was called, which the database may not contain yet. The limits are updated as well.
+     *
+     * @return false if the given quota limits other clusters or storage domains, and so it can't be reconciled
+     */
+    boolean reconcileUsage(Quota dbQuota) {
+        if ((dbQuota.getGlobalQuotaCluster() == null) != (globalClusterUsage == null)
+                || (dbQuota.getGlobalQuotaStorage() == null) != (globalStorageUsage == null)
+                || !sameKeys(clusterUsages, nullToEmpty(dbQuota.getQuotaClusters()), QuotaCluster::getClusterId)
+                || !sameKeys(storageUsages, nullToEmpty(dbQuota.getQuotaStorages()), QuotaStorage::getStorageId)) {
+            return false;
+        }
+
+        if (globalClusterUsage != null) {
+            globalClusterUsage.reconcile(dbQuota.getGlobalQuotaCluster());
+        }
+        if (globalStorageUsage != null) {
+            globalStorageUsage.reconcile(dbQuota.getGlobalQuotaStorage());
+        }
+        nullToEmpty(dbQuota.getQuotaClusters()).forEach(c -> clusterUsages.get(c.getClusterId()).reconcile(c));
+        nullToEmpty(dbQuota.getQuotaStorages()).forEach(s -> storageUsages.get(s.getStorageId()).reconcile(s));
+        quota = dbQuota;
+        return true;
+    }
+
+    private void forEachCounter(Consumer<UsageCounter> action) {
+        if (globalClusterUsage != null) {
+            action.accept(globalClusterUsage);
+        }
+        if (globalStorageUsage != null) {
+            action.accept(globalStorageUsage);
+        }
+        clusterUsages.values().forEach(action);
+        storageUsages.values().forEach(action);
+    }
+
+    private static <T> boolean sameKeys(Map<Guid, ?> counters,
+            List<T> limits,
+            Function<T, Guid> keyMapper) {
+        if (counters.size() != limits.size()) {
+            return false;
+        }
+        return limits.stream().map(keyMapper).allMatch(counters::containsKey);
+    }
+
+    private static <T> List<T> nullToEmpty(List<T> list) {
+        return list == null ? Collections.emptyList() : list;
+    }
+
+    private interface UsageCounter {
+        void mark();
+    }
+
+    /**
+     * The usage of a cluster limit of the quota.
+     */
+    static class ClusterUsageCounter implements UsageCounter {
+        private volatile QuotaCluster limit;
+        private final AtomicReference<ClusterUsage> usage;
+        private volatile ClusterUsage marked;
+
+        private ClusterUsageCounter(QuotaCluster limit) {
+            this.limit = limit;
+            usage = new AtomicReference<>(new ClusterUsage(
+                    Objects.requireNonNullElse(limit.getVirtualCpuUsage(), 0),
+                    Objects.requireNonNullElse(limit.getMemSizeMBUsage(), 0L),
+                    0,
+                    0));
+        }
+
+        QuotaCluster getLimit() {
+            return limit;
+        }
+
+        ClusterUsage get() {
+            return usage.get();
+        }
+
+        /**
+         * Adds the given consumption, if the usage is still the expected one.
+         *
+         * @return false if the usage was changed concurrently, and the consumption wasn't added
+         */
+        boolean compareAndAdd(ClusterUsage expected, int cpu, long memMB) {
+            return usage.compareAndSet(expected, expected.add(cpu, memMB));
+        }
+
+        void add(int cpu, long memMB) {
+            usage.updateAndGet(current -> current.add(cpu, memMB));
+        }
+
+        @Override
+        public void mark() {
+            marked = usage.get();
+        }
+
+        private void reconcile(QuotaCluster dbLimit) {
+            limit = dbLimit;
+            ClusterUsage mark = marked;
+            marked = null;
+            if (mark == null) {
+                // the counter was loaded after the reconciliation started, its usage is more recent
+                return;
+            }
+            int dbCpu = Objects.requireNonNullElse(dbLimit.getVirtualCpuUsage(), 0);
+            long dbMemMB = Objects.requireNonNullElse(dbLimit.getMemSizeMBUsage(), 0L);
+            usage.updateAndGet(current -> new ClusterUsage(
+                    (int) (dbCpu + current.appliedCpu - mark.appliedCpu),
+                    dbMemMB + current.appliedMemMB - mark.appliedMemMB,
+                    current.appliedCpu,
+                    current.appliedMemMB));
+        }
+
+        private QuotaCluster copyUsage() {
+            ClusterUsage current = usage.get();
+            return new QuotaCluster(null, null, null,
+                    limit.getVirtualCpu(),
+                    current.getCpu(),
+                    limit.getMemSizeMB(),
+                    current.getMemMB());
+        }
+    }
+
+    /**
+     * The usage of a storage limit of the quota.
+     */
+    static class StorageUsageCounter implements UsageCounter {
+        private volatile QuotaStorage limit;
+        private final AtomicReference<StorageUsage> usage;
+        private volatile StorageUsage marked;
+
+        private StorageUsageCounter(QuotaStorage limit) {
+            this.limit = limit;
+            usage = new AtomicReference<>(
+                    new StorageUsage(Objects.requireNonNullElse(limit.getStorageSizeGBUsage(), 0d), 0));
+        }
+
+        QuotaStorage getLimit() {
+            return limit;
+        }
+
+        StorageUsage get() {
+            return usage.get();
+        }
+
+        /**
+         * Adds the given consumption, if the usage is still the expected one.
+         *
+         * @return false if the usage was changed concurrently, and the consumption wasn't added
+         */
+        boolean compareAndAdd(StorageUsage expected, double storageGB) {
+            return usage.compareAndSet(expected, expected.add(storageGB));
+        }
+
+        void add(double storageGB) {
+            usage.updateAndGet(current -> current.add(storageGB));
+        }
+
+        @Override
+        public void mark() {
+            marked = usage.get();
+        }
+
+        private void reconcile(QuotaStorage dbLimit) {
+            limit = dbLimit;
+            StorageUsage mark = marked;
+            marked = null;
+            if (mark == null) {
+                // the counter was loaded after the reconciliation started, its usage is more recent
+                return;
+            }
+            double dbStorageGB = Objects.requireNonNullElse(dbLimit.getStorageSizeGBUsage(), 0d);
+            usage.updateAndGet(current -> new StorageUsage(
+                    dbStorageGB + current.appliedGB - mark.appliedGB,
+                    current.appliedGB));
+        }
+
+        private QuotaStorage copyUsage() {
+            return new QuotaStorage(null, null, null, limit.getStorageSizeGB(), usage.get().getStorageGB());
+        }
+    }
+
+    /**
+     * An immutable snapshot of the usage of a cluster limit, with the sum of the consumptions applied on it.
+     */
+    static class ClusterUsage {
+        private final int cpu;
+        private final long memMB;
+        private final long appliedCpu;
+        private final long appliedMemMB;
+
+        private ClusterUsage(int cpu, long memMB, long appliedCpu, long appliedMemMB) {
+            this.cpu = cpu;
+            this.memMB = memMB;
+            this.appliedCpu = appliedCpu;
+            this.appliedMemMB = appliedMemMB;
+        }
+
+        int getCpu() {
+            return cpu;
+        }
+
+        long getMemMB() {
+            return memMB;
+        }
+
+        private ClusterUsage add(int addedCpu, long addedMemMB) {
+            return new ClusterUsage(cpu + addedCpu, memMB + addedMemMB,
+                    appliedCpu + addedCpu, appliedMemMB + addedMemMB);
+        }
+    }
+
+    /**
+     * An immutable snapshot of the usage of a storage limit, with the sum of the consumptions applied on it.
+     */
+    static class StorageUsage {
+        private final double storageGB;
+        private final double appliedGB;
+
+        private StorageUsage(double storageGB, double appliedGB) {
+            this.storageGB = storageGB;
+            this.appliedGB = appliedGB;
+        }
+
+        double getStorageGB() {
+            return storageGB;
+        }
+
+        private StorageUsage add(double addedGB) {
+            return new StorageUsage(storageGB + addedGB, appliedGB + addedGB);
+        }
+    }
+}
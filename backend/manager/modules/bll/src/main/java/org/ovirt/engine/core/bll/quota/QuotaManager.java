@@ -6,8 +6,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.concurrent.ManagedScheduledExecutorService;
@@ -17,6 +18,10 @@ import javax.inject.Singleton;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.ovirt.engine.core.bll.CommandBase;
 import org.ovirt.engine.core.bll.ValidationResult;
+import org.ovirt.engine.core.bll.quota.CachedQuota.ClusterUsage;
+import org.ovirt.engine.core.bll.quota.CachedQuota.ClusterUsageCounter;
+import org.ovirt.engine.core.bll.quota.CachedQuota.StorageUsage;
+import org.ovirt.engine.core.bll.quota.CachedQuota.StorageUsageCounter;
 import org.ovirt.engine.core.common.AuditLogType;
 import org.ovirt.engine.core.common.BackendService;
 import org.ovirt.engine.core.common.businessentities.Quota;
@@ -39,15 +44,25 @@ import org.ovirt.engine.core.utils.threadpool.ThreadPools;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Keeps the usage of the quotas in memory, and validates and applies the consumptions of the commands against it.
+ * <p>
+ * The usage of every quota limit is an atomic counter, updated incrementally by the consumptions of the commands and
+ * by their rollback, so consumptions don't lock each other out. The usage is occasionally reconciled in the
+ * background with the usage calculated by the database, without blocking the consumptions. The consumptions of a
+ * command which fails are subtracted back, unless the quota was reconciled since they were applied, then the quota is
+ * evicted from the cache and loaded again.
+ */
 @Singleton
 public class QuotaManager implements BackendService {
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     private final Logger log = LoggerFactory.getLogger(QuotaManager.class);
-    private Map<Guid, Map<Guid, Quota>> storagePoolQuotaMap = new HashMap<>();
-    private Map<Guid, Guid> storagePoolDefaultQuotaIdMap = new HashMap<>();
+    private final Map<Guid, Map<Guid, CachedQuota>> storagePoolQuotaMap = new ConcurrentHashMap<>();
+    private final Map<Guid, Guid> storagePoolDefaultQuotaIdMap = new ConcurrentHashMap<>();
 
     private final List<Integer> nonCountableQutoaVmStatusesList = new ArrayList<>();
 
+    private long lastReconciliationTime;
+
     @Inject
     private QuotaDao quotaDao;
 
@@ -83,19 +98,12 @@ public class QuotaManager implements BackendService {
     }
 
     public void removeQuotaFromCache(Guid storagePoolId, List<Guid> quotaList) {
-        lock.writeLock().lock();
-        try {
-            if (!storagePoolQuotaMap.containsKey(storagePoolId)) {
-                return;
-            }
-            synchronized (storagePoolQuotaMap.get(storagePoolId)) {
-                Map<Guid, Quota> map = storagePoolQuotaMap.get(storagePoolId);
-                for (Guid quotaId : quotaList) {
-                    map.remove(quotaId);
-                }
-            }
-        } finally {
-            lock.writeLock().unlock();
+        Map<Guid, CachedQuota> map = storagePoolQuotaMap.get(storagePoolId);
+        if (map == null) {
+            return;
+        }
+        for (Guid quotaId : quotaList) {
+            map.remove(quotaId);
         }
     }
 
@@ -104,13 +112,8 @@ public class QuotaManager implements BackendService {
     }
 
     public void removeStoragePoolFromCache(Guid storagePoolId) {
-        lock.writeLock().lock();
-        try {
-            storagePoolQuotaMap.remove(storagePoolId);
-            storagePoolDefaultQuotaIdMap.remove(storagePoolId);
-        } finally {
-            lock.writeLock().unlock();
-        }
+        storagePoolQuotaMap.remove(storagePoolId);
+        storagePoolDefaultQuotaIdMap.remove(storagePoolId);
     }
 
     private void addStoragePoolToCache(Guid storagePoolId) {
@@ -118,22 +121,9 @@ public class QuotaManager implements BackendService {
             return;
         }
 
-        storagePoolQuotaMap.put(storagePoolId, new HashMap<>());
         Quota defaultQuota = getQuotaDao().getDefaultQuotaForStoragePool(storagePoolId);
         storagePoolDefaultQuotaIdMap.put(storagePoolId, defaultQuota.getId());
-    }
-
-    private void addStoragePoolToCacheWithLock(Guid storagePoolId) {
-        if (storagePoolQuotaMap.containsKey(storagePoolId)) {
-            return;
-        }
-
-        lock.writeLock().lock();
-        try {
-            addStoragePoolToCache(storagePoolId);
-        } finally {
-            lock.writeLock().unlock();
-        }
+        storagePoolQuotaMap.putIfAbsent(storagePoolId, new ConcurrentHashMap<>());
     }
 
     /**
@@ -203,24 +193,69 @@ public class QuotaManager implements BackendService {
             throw new InvalidQuotaParametersException("Null storage pool passed to QuotaManager");
         }
 
-        addStoragePoolToCacheWithLock(storagePool.getId());
+        addStoragePoolToCache(storagePool.getId());
 
         QuotaManagerAuditLogger auditLogger = new QuotaManagerAuditLogger(command, auditLogDirector);
 
-        lock.readLock().lock();
-        try {
-            if (command.getStoragePool().getQuotaEnforcementType() != QuotaEnforcementTypeEnum.DISABLED) {
-                synchronized (storagePoolQuotaMap.get(storagePool.getId())) {
-                    return consumeQuotaParameters(params, command, auditLogger);
-                }
-            }
-        } finally {
-            lock.readLock().unlock();
+        if (command.getStoragePool().getQuotaEnforcementType() != QuotaEnforcementTypeEnum.DISABLED) {
+            return consumeQuotaParameters(params, command, auditLogger);
         }
 
         return true;
     }
 
+    /**
+     * Rolls back the consumption of a command which failed after its consumption was applied by
+     * {@link #consume(CommandBase, List)}. The consumption is subtracted from the usage of the quotas, without
+     * validation.
+     *
+     * @param command - command which consumed the quota
+     * @param params  - the consumption parameters the quota was consumed with
+     */
+    public void rollback(CommandBase<?> command, List<QuotaConsumptionParameter> params) {
+        StoragePool storagePool = command.getStoragePool();
+        if (storagePool == null || storagePool.getQuotaEnforcementType() == QuotaEnforcementTypeEnum.DISABLED) {
+            return;
+        }
+
+        Map<Guid, CachedQuota> quotaMap = storagePoolQuotaMap.get(storagePool.getId());
+        if (quotaMap == null) {
+            return;
+        }
+
+        for (QuotaConsumptionParameter param : params) {
+            // A quota which isn't cached anymore is loaded again with its usage from the DB
+            CachedQuota quota = param.getQuotaGuid() == null ? null : quotaMap.get(param.getQuotaGuid());
+            if (quota == null) {
+                continue;
+            }
+
+            if (!quota.rollback(command.getQuotaConsumptionEpoch(), () -> rollback(quota, param))) {
+                // The usage was reconciled with the DB since the consumption, the quota is loaded again from the DB
+                quotaMap.remove(param.getQuotaGuid(), quota);
+            }
+        }
+    }
+
+    private void rollback(CachedQuota quota, QuotaConsumptionParameter param) {
+        // Rolling back a released quota consumes it again
+        int quotaActionCoef = param.getQuotaAction() == QuotaConsumptionParameter.QuotaAction.RELEASE ? 1 : -1;
+        if (param instanceof QuotaClusterConsumptionParameter) {
+            QuotaClusterConsumptionParameter clusterParam = (QuotaClusterConsumptionParameter) param;
+            ClusterUsageCounter counter = quota.getClusterUsage(clusterParam.getClusterId());
+            if (counter != null) {
+                counter.add(quotaActionCoef * clusterParam.getRequestedCpu(),
+                        quotaActionCoef * clusterParam.getRequestedMemory());
+            }
+        } else if (param instanceof QuotaStorageConsumptionParameter) {
+            QuotaStorageConsumptionParameter storageParam = (QuotaStorageConsumptionParameter) param;
+            StorageUsageCounter counter = quota.getStorageUsage(storageParam.getStorageDomainId());
+            if (counter != null) {
+                counter.add(quotaActionCoef * storageParam.getRequestedStorageGB());
+            }
+        }
+    }
+
     /**
      * Get Quota by Id. If in cache - get from cache. else get from Dao and add to cache.
      *
@@ -228,17 +263,22 @@ public class QuotaManager implements BackendService {
      * @param storagePoolId - storage pool containing this quota
      * @return - found quota. null if not found.
      */
-    private Quota fetchQuotaFromCache(Guid quotaId, Guid storagePoolId) throws InvalidQuotaParametersException {
-        Map<Guid, Quota> quotaMap = storagePoolQuotaMap.get(storagePoolId);
+    private CachedQuota fetchQuotaFromCache(Guid quotaId, Guid storagePoolId) throws InvalidQuotaParametersException {
+        Map<Guid, CachedQuota> quotaMap =
+                storagePoolQuotaMap.computeIfAbsent(storagePoolId, id -> new ConcurrentHashMap<>());
 
-        Quota quota = quotaMap.get(quotaId);
+        CachedQuota cachedQuota = quotaMap.get(quotaId);
         // if quota was not found in cache - look for it in DB
-        if (quota == null) {
-            quota = getQuotaDao().getById(quotaId);
+        if (cachedQuota == null) {
+            Quota quota = getQuotaDao().getById(quotaId);
             if (quota != null) {
-                // cache in quota map
+                // cache in quota map, unless it was cached concurrently
                 if (storagePoolId.equals(quota.getStoragePoolId())) {
-                    quotaMap.put(quotaId, quota);
+                    CachedQuota newQuota = new CachedQuota(quota);
+                    cachedQuota = quotaMap.putIfAbsent(quotaId, newQuota);
+                    if (cachedQuota == null) {
+                        cachedQuota = newQuota;
+                    }
                 } else {
                     throw new InvalidQuotaParametersException(
                             String.format("Quota %s does not match storage pool %s", quotaId.toString()
@@ -246,96 +286,28 @@ public class QuotaManager implements BackendService {
                 }
             }
         }
-        return quota;
+        return cachedQuota;
     }
 
     public void updateUsage(List<Quota> quotaList) {
-        List<Quota> needToCache = new ArrayList<>();
-
         if (quotaList == null) {
             return;
         }
 
-        lock.readLock().lock();
-        try {
-            for (Quota quotaExternal : quotaList) {
-                // look for the quota in the cache
-                Map<Guid, Quota> quotaMap = storagePoolQuotaMap.get(quotaExternal.getStoragePoolId());
-                Quota quota = null;
-                if (quotaMap != null) {
-                    quota = quotaMap.get(quotaExternal.getId());
-                }
-
-                // if quota not in cache look for it in DB and add it to cache
-                if (quota == null) {
-                    needToCache.add(quotaExternal);
-                } else {
-                    copyUsageData(quota, quotaExternal);
-                }
-            }
-        } finally {
-            lock.readLock().unlock();
-        }
-
-        // if some of the quota are not in cache and need to be cached
-        if (!needToCache.isEmpty()) {
-            lock.writeLock().lock();
-            try {
-                for (Quota quotaExternal : needToCache) {
-                    addStoragePoolToCache(quotaExternal.getStoragePoolId());
-
-                    Quota quota = fetchQuotaFromCache(quotaExternal.getId(), quotaExternal.getStoragePoolId());
-                    if (quota != null) {
-                        copyUsageData(quota, quotaExternal);
-                    }
-                }
-            } finally {
-                lock.writeLock().unlock();
-            }
-        }
-    }
-
-    private void copyUsageData(Quota quota, Quota quotaExternal) {
-        if (quota.getGlobalQuotaStorage() != null) {
-            quotaExternal.setGlobalQuotaStorage(copyQuotaStorageUsage(quota.getGlobalQuotaStorage()));
-        }
-        if (quota.getGlobalQuotaCluster() != null) {
-            quotaExternal.setGlobalQuotaCluster(copyQuotaClusterUsage(quota.getGlobalQuotaCluster()));
-        }
-
-        if (quota.getQuotaStorages() != null) {
-            quotaExternal.setQuotaStorages(new ArrayList<>());
-            for (QuotaStorage quotaStorage : quota.getQuotaStorages()) {
-                quotaExternal.getQuotaStorages().add(copyQuotaStorageUsage(quotaStorage));
-            }
-        }
-
-        if (quota.getQuotaClusters() != null) {
-            quotaExternal.setQuotaClusters(new ArrayList<>());
-            for (QuotaCluster quotaCluster : quota.getQuotaClusters()) {
-                quotaExternal.getQuotaClusters().add(copyQuotaClusterUsage(quotaCluster));
+        for (Quota quotaExternal : quotaList) {
+            // look for the quota in the cache, if not in cache look for it in DB and add it to cache
+            addStoragePoolToCache(quotaExternal.getStoragePoolId());
+            CachedQuota quota = fetchQuotaFromCache(quotaExternal.getId(), quotaExternal.getStoragePoolId());
+            if (quota != null) {
+                quota.copyUsageTo(quotaExternal);
             }
         }
     }
 
-    private QuotaStorage copyQuotaStorageUsage(QuotaStorage quotaStorage) {
-        return new QuotaStorage(null, null, null,
-                quotaStorage.getStorageSizeGB(),
-                quotaStorage.getStorageSizeGBUsage());
-    }
-
-    private QuotaCluster copyQuotaClusterUsage(QuotaCluster quotaCluster) {
-        return new QuotaCluster(null, null, null,
-                quotaCluster.getVirtualCpu(),
-                quotaCluster.getVirtualCpuUsage(),
-                quotaCluster.getMemSizeMB(),
-                quotaCluster.getMemSizeMBUsage());
-    }
-
     /**
-     * InitializeCache is called by SchedulerUtilQuartzImpl.
+     * InitializeCache is called by SchedulerUtilQuartzImpl. This method is package-private for testing use only.
      */
-    private synchronized void updateQuotaCache() {
+    synchronized void updateQuotaCache() {
         try {
             updateQuotaCacheImpl();
         } catch (Throwable t) {
@@ -344,55 +316,60 @@ public class QuotaManager implements BackendService {
         }
     }
 
+    /**
+     * Loads all the quotas with their usage from the DB, when too few quotas are cached or when the usage of the
+     * cached quotas is due for reconciliation. The usage of the cached quotas is reconciled in place, so consumptions
+     * applied while the quotas are loaded are kept and are not blocked.
+     */
     private synchronized void updateQuotaCacheImpl() {
-        if (!isCacheUpdateNeeded()) {
+        long reconciliationIntervalInMillis = TimeUnit.MINUTES.toMillis(
+                Config.<Long> getValue(ConfigValues.QuotaUsageReconciliationIntervalInMinutes));
+        boolean reconciliationDue = System.currentTimeMillis() - lastReconciliationTime >= reconciliationIntervalInMillis;
+        if (!reconciliationDue && !isCacheUpdateNeeded()) {
             return;
         }
 
         log.debug("Updating Quota Cache...");
         long timeStart = System.currentTimeMillis();
+        storagePoolQuotaMap.values().forEach(quotaMap -> quotaMap.values().forEach(CachedQuota::markUsage));
         List<Quota> allQuotaIncludingConsumption = getQuotaDao().getAllQuotaIncludingConsumption();
+        lastReconciliationTime = timeStart;
 
         if (allQuotaIncludingConsumption.isEmpty()) {
             return;
         }
 
-        Map<Guid, Map<Guid, Quota>> newStoragePoolQuotaMap = new HashMap<>();
-        Map<Guid, Guid> newDefaultQuotaIdMap = new HashMap<>();
-
+        int reconciled = 0;
         for (Quota quota : allQuotaIncludingConsumption) {
-            if (!newStoragePoolQuotaMap.containsKey(quota.getStoragePoolId())) {
-                newStoragePoolQuotaMap.put(quota.getStoragePoolId(), new HashMap<>());
+            Map<Guid, CachedQuota> quotaMap =
+                    storagePoolQuotaMap.computeIfAbsent(quota.getStoragePoolId(), id -> new ConcurrentHashMap<>());
+            CachedQuota cachedQuota = quotaMap.get(quota.getId());
+            if (cachedQuota == null) {
+                quotaMap.putIfAbsent(quota.getId(), new CachedQuota(quota));
+            } else if (cachedQuota.reconcileUsage(quota)) {
+                reconciled++;
+            } else {
+                // the quota limits were changed, its usage is loaded again
+                quotaMap.replace(quota.getId(), cachedQuota, new CachedQuota(quota));
             }
-            newStoragePoolQuotaMap.get(quota.getStoragePoolId()).put(quota.getId(), quota);
 
             if (quota.isDefault()) {
-                newDefaultQuotaIdMap.put(quota.getStoragePoolId(), quota.getId());
+                storagePoolDefaultQuotaIdMap.put(quota.getStoragePoolId(), quota.getId());
             }
         }
 
-        lock.writeLock().lock();
-        try {
-            storagePoolQuotaMap = newStoragePoolQuotaMap;
-            storagePoolDefaultQuotaIdMap = newDefaultQuotaIdMap;
-        } finally {
-            lock.writeLock().unlock();
-        }
         long timeEnd = System.currentTimeMillis();
-        log.info("Quota Cache updated. ({} msec)", timeEnd-timeStart);
+        log.info("Quota Cache updated, usage of {} cached quotas reconciled. ({} msec)",
+                reconciled,
+                timeEnd - timeStart);
     }
 
     public boolean isCacheUpdateNeeded() {
         int quotaCount = getQuotaDao().getQuotaCount();
         int cacheCount = 0;
 
-        lock.readLock().lock();
-        try {
-            for(Map<Guid, Quota> quotaMap : storagePoolQuotaMap.values()) {
-                cacheCount += quotaMap.size();
-            }
-        } finally {
-            lock.readLock().unlock();
+        for (Map<Guid, CachedQuota> quotaMap : storagePoolQuotaMap.values()) {
+            cacheCount += quotaMap.size();
         }
 
         return cacheCount < quotaCount * Config.<Integer> getValue(ConfigValues.MinimumPercentageToUpdateQuotaCache)/100;
@@ -412,7 +389,7 @@ public class QuotaManager implements BackendService {
 
     public Guid getDefaultQuotaId(Guid storagePoolId) {
         if (!storagePoolDefaultQuotaIdMap.containsKey(storagePoolId)) {
-            addStoragePoolToCacheWithLock(storagePoolId);
+            addStoragePoolToCache(storagePoolId);
         }
 
         return storagePoolDefaultQuotaIdMap.get(storagePoolId);
@@ -461,18 +438,44 @@ public class QuotaManager implements BackendService {
             return false;
         }
 
-        // Validate that all requests satisfy the quota limits
-        for (Request request : requests.get()) {
-            ValidationResult validation = request.validate(hardEnforcement, auditLogger);
-            if(!validation.isValid()) {
-                command.getReturnValue().getValidationMessages().addAll(validation.getMessagesAsStrings());
-                return false;
+        while (true) {
+            // The audit logs are written only once the requests are validated against a usage which didn't change
+            List<Consumer<QuotaManagerAuditLogger>> auditLogs = new ArrayList<>();
+
+            // Validate that all requests satisfy the quota limits
+            for (Request request : requests.get()) {
+                ValidationResult validation = request.validate(hardEnforcement, auditLogs);
+                if (!validation.isValid()) {
+                    auditLogs.forEach(auditLog -> auditLog.accept(auditLogger));
+                    command.getReturnValue().getValidationMessages().addAll(validation.getMessagesAsStrings());
+                    return false;
+                }
+            }
+
+            // After successful validation, the requests are applied.
+            // This changes only the cached quota usage in the QuotaManager, nothing is written to the DB.
+            // The epoch is taken before the requests are applied, so their rollback knows if they were reconciled.
+            long epoch = CachedQuota.currentEpoch();
+            if (applyRequests(requests.get())) {
+                command.setQuotaConsumptionEpoch(epoch);
+                auditLogs.forEach(auditLog -> auditLog.accept(auditLogger));
+                return true;
             }
+            // The usage was changed by a concurrent consumption, validate the requests against the new usage
         }
+    }
 
-        // After successful validation, the requests are applied.
-        // This changes only the cached quota objects in the QuotaManager, nothing is written to the DB.
-        requests.get().forEach(Request::apply);
+    /**
+     * Applies all the requests, or none of them if the usage of any of the requested limits changed since it was
+     * validated.
+     */
+    private boolean applyRequests(List<Request> requests) {
+        for (int i = 0; i < requests.size(); i++) {
+            if (!requests.get(i).apply()) {
+                requests.subList(0, i).forEach(Request::revert);
+                return false;
+            }
+        }
         return true;
     }
 
@@ -495,10 +498,10 @@ public class QuotaManager implements BackendService {
         for (QuotaConsumptionParameter param: parameters) {
             // Use default quota if the id is empty
             if(Guid.isNullOrEmpty(param.getQuotaGuid())) {
-                param.setQuotaGuid(storagePoolDefaultQuotaIdMap.get(command.getStoragePoolId()));
+                param.setQuotaGuid(getDefaultQuotaId(command.getStoragePoolId()));
             }
 
-            Quota quota = fetchQuotaFromCache(param.getQuotaGuid(), command.getStoragePoolId());
+            CachedQuota quota = fetchQuotaFromCache(param.getQuotaGuid(), command.getStoragePoolId());
             if (quota == null) {
                 log.error("The quota id '{}' is not found in backend and DB.", param.getQuotaGuid());
                 if (hardEnforcement) {
@@ -546,7 +549,7 @@ public class QuotaManager implements BackendService {
      * If the parameter is valid, it is added to the corresponding Request in the requestMap.
      */
     private ValidationResult validateAndAddToClusterRequests(QuotaClusterConsumptionParameter param,
-            Quota quota,
+            CachedQuota cachedQuota,
             String commandClassName,
             Map<Pair<Guid, Guid>, ClusterRequest> requestMap) {
 
@@ -555,24 +558,21 @@ public class QuotaManager implements BackendService {
             return new ValidationResult(EngineMessage.ACTION_TYPE_FAILED_QUOTA_IS_NOT_VALID);
         }
 
+        Quota quota = cachedQuota.getQuota();
         Pair<Guid, Guid> key = quota.isGlobalClusterQuota()?
                 new Pair<>(quota.getId(), null) :
                 new Pair<>(quota.getId(), param.getClusterId());
 
         if (!requestMap.containsKey(key)) {
             // Quota must be a global cluster quota or be defined for the same cluster as is the consumption parameter.
-            QuotaCluster quotaCluster = quota.isGlobalClusterQuota() ?
-                    quota.getGlobalQuotaCluster() :
-                    quota.getQuotaClusters().stream()
-                            .filter(c -> c.getClusterId().equals(param.getClusterId()))
-                            .findAny().orElse(null);
+            ClusterUsageCounter clusterUsage = cachedQuota.getClusterUsage(param.getClusterId());
 
-            if (quotaCluster == null) {
+            if (clusterUsage == null) {
                 log.error("Quota Vds parameters from command '{}'. Vds group does not match quota", commandClassName);
                 return new ValidationResult(EngineMessage.ACTION_TYPE_FAILED_QUOTA_IS_NOT_VALID);
             }
 
-            requestMap.put(key, new ClusterRequest(quota, quotaCluster));
+            requestMap.put(key, new ClusterRequest(quota, clusterUsage));
         }
 
         // If the quota is released, the values in the request will be negative
@@ -596,7 +596,7 @@ public class QuotaManager implements BackendService {
      * If the parameter is valid, it is added to the corresponding Request in the requestMap.
      */
     private ValidationResult validateAndAddToStorageRequests(QuotaStorageConsumptionParameter param,
-            Quota quota,
+            CachedQuota cachedQuota,
             String commandClassName,
             Map<Pair<Guid, Guid>, StorageRequest> requestMap) {
 
@@ -605,6 +605,7 @@ public class QuotaManager implements BackendService {
             return new ValidationResult(EngineMessage.ACTION_TYPE_FAILED_QUOTA_IS_NOT_VALID);
         }
 
+        Quota quota = cachedQuota.getQuota();
         Pair<Guid, Guid> key = quota.isGlobalStorageQuota() ?
                 new Pair<>(quota.getId(), null) :
                 new Pair<>(quota.getId(), param.getStorageDomainId());
@@ -612,18 +613,14 @@ public class QuotaManager implements BackendService {
         if (!requestMap.containsKey(key)) {
             // Quota must be a global storage quota or be defined for
             // the same storage domain as is the consumption parameter.
-            QuotaStorage quotaStorage = quota.isGlobalStorageQuota() ?
-                    quota.getGlobalQuotaStorage() :
-                    quota.getQuotaStorages().stream()
-                            .filter(s -> s.getStorageId().equals(param.getStorageDomainId()))
-                            .findAny().orElse(null);
+            StorageUsageCounter storageUsage = cachedQuota.getStorageUsage(param.getStorageDomainId());
 
-            if (quotaStorage == null) {
+            if (storageUsage == null) {
                 log.error("Quota storage parameters from command '{}'. Storage domain does not match quota", commandClassName);
                 return new ValidationResult(EngineMessage.ACTION_TYPE_FAILED_NO_QUOTA_SET_FOR_DOMAIN);
             }
 
-            requestMap.put(key, new StorageRequest(quota, quotaStorage));
+            requestMap.put(key, new StorageRequest(quota, storageUsage));
         }
 
         // If the quota is released, the values in the request will be negative
@@ -655,27 +652,37 @@ public class QuotaManager implements BackendService {
         }
 
         /**
-         * Validate that the request satisfies quota limits
+         * Validate that the request satisfies quota limits with the current usage. The audit logs of the validation
+         * are added to the given list, to be written once the validation is final.
          */
-        public abstract ValidationResult validate(boolean hardEnforcement, QuotaManagerAuditLogger auditLogger);
+        public abstract ValidationResult validate(boolean hardEnforcement,
+                List<Consumer<QuotaManagerAuditLogger>> auditLogs);
 
         /**
-         * Apply the request on the current quota in the QuotaManager cache
+         * Apply the request on the current quota usage in the QuotaManager cache
+         *
+         * @return false if the usage was changed since the request was validated, and the request wasn't applied
          */
-        public abstract void apply();
+        public abstract boolean apply();
+
+        /**
+         * Revert the request after it was applied
+         */
+        public abstract void revert();
     }
 
     /**
      * Request for cluster quota
      */
     private class ClusterRequest extends Request{
-        private QuotaCluster quotaCluster;
+        private ClusterUsageCounter clusterUsage;
+        private ClusterUsage validatedUsage;
         private int coresRequest = 0;
         private long memoryRequestMB = 0L;
 
-        public ClusterRequest(Quota quota, QuotaCluster quotaCluster) {
+        public ClusterRequest(Quota quota, ClusterUsageCounter clusterUsage) {
             super(quota);
-            this.quotaCluster = quotaCluster;
+            this.clusterUsage = clusterUsage;
         }
 
         public void addCpu(int cpu) {
@@ -687,7 +694,12 @@ public class QuotaManager implements BackendService {
         }
 
         @Override
-        public ValidationResult validate(boolean hardEnforcement, QuotaManagerAuditLogger auditLogger) {
+        public ValidationResult validate(boolean hardEnforcement,
+                List<Consumer<QuotaManagerAuditLogger>> auditLogs) {
+            QuotaCluster quotaCluster = clusterUsage.getLimit();
+            ClusterUsage usage = clusterUsage.get();
+            validatedUsage = usage;
+
             // The ClusterQuota must allow cpu and memory
             if (quotaCluster.getVirtualCpu() == 0 || quotaCluster.getMemSizeMB() == 0) {
                 return new ValidationResult(EngineMessage.ACTION_TYPE_FAILED_QUOTA_IS_NOT_VALID);
@@ -707,11 +719,11 @@ public class QuotaManager implements BackendService {
             }
 
             double requestedCoresPercent = 100 * ((double) coresRequest / (double) cpuLimit);
-            double currentCoresPercent = 100 * ((double) quotaCluster.getVirtualCpuUsage() / (double) cpuLimit);
+            double currentCoresPercent = 100 * ((double) usage.getCpu() / (double) cpuLimit);
             double newCoresPercent = requestedCoresPercent + currentCoresPercent;
 
             double requestedMemoryPercent = 100 * ((double) memoryRequestMB / (double) memLimit);
-            double currentMemoryPercent = 100 * ((double) quotaCluster.getMemSizeMBUsage() / (double) memLimit);
+            double currentMemoryPercent = 100 * ((double) usage.getMemMB() / (double) memLimit);
             double newMemoryPercent = requestedMemoryPercent + currentMemoryPercent;
 
             int threshold = getQuota().getThresholdClusterPercentage();
@@ -721,31 +733,31 @@ public class QuotaManager implements BackendService {
             if (newCoresPercent <= grace && newMemoryPercent <= grace) {
                 // Warn if the cluster limit or threshold is exceeded
                 if (newCoresPercent > 100 || newMemoryPercent > 100) {
-                    auditLogger.logClusterLimitExceeded(
+                    auditLogs.add(auditLogger -> auditLogger.logClusterLimitExceeded(
                             getQuota().getQuotaName(),
                             getQuota().getId(),
                             (newCoresPercent > 100) ? newCoresPercent : null,
-                            (newMemoryPercent > 100) ? newMemoryPercent : null);
+                            (newMemoryPercent > 100) ? newMemoryPercent : null));
                 } else if (newCoresPercent > threshold || newMemoryPercent > threshold) {
-                    auditLogger.logClusterThresholdExceeded(
+                    auditLogs.add(auditLogger -> auditLogger.logClusterThresholdExceeded(
                             getQuota().getQuotaName(),
                             getQuota().getId(),
                             (newCoresPercent > threshold) ? newCoresPercent : null,
-                            (newMemoryPercent > threshold) ? newMemoryPercent : null);
+                            (newMemoryPercent > threshold) ? newMemoryPercent : null));
                 }
 
                 return ValidationResult.VALID;
             }
 
             // CPU or memory is above the grace - fail if enforcement is hard
-            auditLogger.logClusterGraceExceeded(
+            auditLogs.add(auditLogger -> auditLogger.logClusterGraceExceeded(
                     getQuota().getQuotaName(),
                     getQuota().getId(),
                     (newCoresPercent > grace) ? currentCoresPercent : null,
                     (newCoresPercent > grace) ? requestedCoresPercent : null,
                     (newMemoryPercent > grace) ? currentMemoryPercent : null,
                     (newMemoryPercent > grace) ? requestedMemoryPercent : null,
-                    hardEnforcement);
+                    hardEnforcement));
 
             if (!hardEnforcement) {
                 return ValidationResult.VALID;
@@ -754,9 +766,13 @@ public class QuotaManager implements BackendService {
         }
 
         @Override
-        public void apply() {
-            quotaCluster.setVirtualCpuUsage(coresRequest);
-            quotaCluster.setMemSizeMBUsage(memoryRequestMB);
+        public boolean apply() {
+            return clusterUsage.compareAndAdd(validatedUsage, coresRequest, memoryRequestMB);
+        }
+
+        @Override
+        public void revert() {
+            clusterUsage.add(-coresRequest, -memoryRequestMB);
         }
     }
 
@@ -764,12 +780,13 @@ public class QuotaManager implements BackendService {
      * Request for storage quota
      */
     private class StorageRequest extends Request {
-        private QuotaStorage quotaStorage;
+        private StorageUsageCounter storageUsage;
+        private StorageUsage validatedUsage;
         private double storageRequestGB = 0.0;
 
-        public StorageRequest(Quota quota, QuotaStorage quotaStorage) {
+        public StorageRequest(Quota quota, StorageUsageCounter storageUsage) {
             super(quota);
-            this.quotaStorage = quotaStorage;
+            this.storageUsage = storageUsage;
         }
 
         public void addStorage(double storageGB) {
@@ -777,8 +794,11 @@ public class QuotaManager implements BackendService {
         }
 
         @Override
-        public ValidationResult validate(boolean hardEnforcement, QuotaManagerAuditLogger auditLogger) {
-            long storageLimit = quotaStorage.getStorageSizeGB();
+        public ValidationResult validate(boolean hardEnforcement,
+                List<Consumer<QuotaManagerAuditLogger>> auditLogs) {
+            StorageUsage usage = storageUsage.get();
+            validatedUsage = usage;
+            long storageLimit = storageUsage.getLimit().getStorageSizeGB();
 
             // Valid if quota is unlimited
             if (storageLimit == QuotaStorage.UNLIMITED) {
@@ -791,7 +811,7 @@ public class QuotaManager implements BackendService {
             }
 
             double requestStoragePercent = 100 * (storageRequestGB / (double) storageLimit);
-            double currentStoragePercent = 100 * (quotaStorage.getStorageSizeGBUsage() / (double) storageLimit);
+            double currentStoragePercent = 100 * (usage.getStorageGB() / (double) storageLimit);
             double newStoragePercent = currentStoragePercent + requestStoragePercent;
 
             int threshold = getQuota().getThresholdStoragePercentage();
@@ -801,27 +821,27 @@ public class QuotaManager implements BackendService {
             if (newStoragePercent <= grace) {
                 // Warn if storage limit or threshold is exceeded
                 if (newStoragePercent > 100) {
-                    auditLogger.logStorageLimitExceeded(
+                    auditLogs.add(auditLogger -> auditLogger.logStorageLimitExceeded(
                             getQuota().getQuotaName(),
                             getQuota().getId(),
-                            newStoragePercent);
+                            newStoragePercent));
                 } else if (newStoragePercent > threshold) {
-                    auditLogger.logStorageThresholdExceeded(
+                    auditLogs.add(auditLogger -> auditLogger.logStorageThresholdExceeded(
                             getQuota().getQuotaName(),
                             getQuota().getId(),
-                            newStoragePercent);
+                            newStoragePercent));
                 }
 
                 return ValidationResult.VALID;
             }
 
             // Storage is above the grace - fail if hard enforcement
-            auditLogger.logStorageGraceExceeded(
+            auditLogs.add(auditLogger -> auditLogger.logStorageGraceExceeded(
                     getQuota().getQuotaName(),
                     getQuota().getId(),
                     currentStoragePercent,
                     requestStoragePercent,
-                    hardEnforcement);
+                    hardEnforcement));
 
             if (!hardEnforcement) {
                 return ValidationResult.VALID;
@@ -830,8 +850,13 @@ public class QuotaManager implements BackendService {
         }
 
         @Override
-        public void apply() {
-            quotaStorage.setStorageSizeGBUsage(quotaStorage.getStorageSizeGBUsage() + storageRequestGB);
+        public boolean apply() {
+            return storageUsage.compareAndAdd(validatedUsage, storageRequestGB);
+        }
+
+        @Override
+        public void revert() {
+            storageUsage.add(-storageRequestGB);
         }
     }
 }
@@ -1,8 +1,10 @@
 package org.ovirt.engine.core.bll.scheduling;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
@@ -14,6 +16,7 @@ import org.apache.commons.lang.exception.ExceptionUtils;
 import org.ovirt.engine.core.bll.interfaces.BackendInternal;
 import org.ovirt.engine.core.bll.job.ExecutionHandler;
 import org.ovirt.engine.core.bll.scheduling.arem.AffinityRulesEnforcer;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityViolationIndex;
 import org.ovirt.engine.core.common.AuditLogType;
 import org.ovirt.engine.core.common.BackendService;
 import org.ovirt.engine.core.common.action.ActionReturnValue;
@@ -23,6 +26,7 @@ import org.ovirt.engine.core.common.businessentities.Cluster;
 import org.ovirt.engine.core.common.businessentities.VM;
 import org.ovirt.engine.core.common.config.Config;
 import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.common.scheduling.AffinityGroup;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogableImpl;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.MessageBundler;
@@ -43,6 +47,8 @@ public class AffinityRulesEnforcementManager implements BackendService {
     @Inject
     private AffinityRulesEnforcer rulesEnforcer;
     @Inject
+    private AffinityViolationIndex violationIndex;
+    @Inject
     private BackendInternal backend;
     @Inject
     @ThreadPools(ThreadPools.ThreadPoolType.EngineScheduledThreadPool)
@@ -70,8 +76,9 @@ public class AffinityRulesEnforcementManager implements BackendService {
     }
 
     /**
-     * refresh method is called each interval of AffinityRulesEnforcementManager. It will try to find a broken affinity rule, choose a VM then, migrate it in order
-     * to fix the breakage.
+     * refresh method is called each interval of AffinityRulesEnforcementManager. It will try to find broken affinity rules, choose VMs then, migrate them in order
+     * to fix the breakage. Up to {@link ConfigValues#AffinityRulesEnforcementManagerMaxMigrationsPerCluster} VMs are migrated
+     * from each cluster, as long as they don't share an affinity group with a VM migrated in the same interval.
      */
     public void refresh() {
         try {
@@ -84,12 +91,22 @@ public class AffinityRulesEnforcementManager implements BackendService {
                 }
             }
 
-            // Migrate 1 VM from each cluster
+            // Migrate the allowed number of non conflicting VMs from each cluster
+            int maxMigrations = getMaxMigrationsPerCluster();
             for (Iterator<VM> candidates : vmCandidatesPerCluster) {
-                while (candidates.hasNext()) {
+                int migrations = 0;
+                Set<AffinityGroup> affectedGroups = new HashSet<>();
+                while (migrations < maxMigrations && candidates.hasNext()) {
                     VM vm = candidates.next();
+                    List<AffinityGroup> vmGroups = violationIndex.getViolations(vm.getClusterId())
+                            .getGroupsForVm(vm.getId());
+                    if (vmGroups.stream().anyMatch(affectedGroups::contains)) {
+                        // The placement of the other VMs of the group changes by the ongoing migration
+                        continue;
+                    }
                     if (migrateVM(vm)) {
-                        break;
+                        migrations++;
+                        affectedGroups.addAll(vmGroups);
                     }
                 }
             }
@@ -100,6 +117,10 @@ public class AffinityRulesEnforcementManager implements BackendService {
         }
     }
 
+    private int getMaxMigrationsPerCluster() {
+        return Config.<Integer>getValue(ConfigValues.AffinityRulesEnforcementManagerMaxMigrationsPerCluster);
+    }
+
     protected boolean migrateVM(final VM vmToMigrate) {
         MigrateVmParameters parameters = new MigrateVmParameters(false, vmToMigrate.getId());
 
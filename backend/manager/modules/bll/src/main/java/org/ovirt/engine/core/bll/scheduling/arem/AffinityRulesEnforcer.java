@@ -12,6 +12,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -22,18 +23,14 @@ import javax.inject.Inject;
 import org.apache.commons.collections.IteratorUtils;
 import org.ovirt.engine.core.bll.scheduling.SchedulingManager;
 import org.ovirt.engine.core.bll.scheduling.arem.AffinityRulesUtils.AffinityGroupConflicts;
-import org.ovirt.engine.core.common.FeatureSupported;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityViolationIndex.ClusterViolations;
 import org.ovirt.engine.core.common.businessentities.Cluster;
-import org.ovirt.engine.core.common.businessentities.Label;
 import org.ovirt.engine.core.common.businessentities.MigrationSupport;
 import org.ovirt.engine.core.common.businessentities.VM;
 import org.ovirt.engine.core.common.scheduling.AffinityGroup;
-import org.ovirt.engine.core.common.scheduling.EntityAffinityRule;
 import org.ovirt.engine.core.common.utils.Pair;
 import org.ovirt.engine.core.compat.Guid;
-import org.ovirt.engine.core.dao.LabelDao;
 import org.ovirt.engine.core.dao.VmDao;
-import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
 import org.ovirt.engine.core.utils.Pipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,9 +44,7 @@ public class AffinityRulesEnforcer {
     private static final Logger log = LoggerFactory.getLogger(AffinityRulesEnforcer.class);
 
     @Inject
-    private AffinityGroupDao affinityGroupDao;
-    @Inject
-    private LabelDao labelDao;
+    private AffinityViolationIndex violationIndex;
     @Inject
     private VmDao vmDao;
     @Inject
@@ -62,19 +57,21 @@ public class AffinityRulesEnforcer {
      * 2. Hard VM to VM affinity
      * 3. Soft VM to Hosts Affinity
      * 4. Soft VM to VM affinity
+     * <p>
+     * Only the VMs of the affinity groups that are violated according to the {@link AffinityViolationIndex} are
+     * considered.
      *
      * @param cluster current cluster
      * @return Iterator returning valid VMs for migration
      */
     public Iterator<VM> chooseVmsToMigrate(Cluster cluster) {
-        List<AffinityGroup> allAffinityGroups = affinityGroupDao.getAllAffinityGroupsWithFlatLabelsByClusterId(cluster.getId());
-
-        if (FeatureSupported.isImplicitAffinityGroupSupported(cluster.getCompatibilityVersion())) {
-            List<Label> allAffinityLabels = labelDao.getAllByClusterId(cluster.getId());
-            allAffinityGroups.addAll(AffinityRulesUtils.affinityGroupsFromLabels(allAffinityLabels, cluster.getId()));
+        ClusterViolations violations = violationIndex.refresh(cluster);
+        if (violations.isEmpty()) {
+            log.debug("No affinity group violation detected in cluster '{}'", cluster.getName());
+            return IteratorUtils.emptyIterator();
         }
 
-        Cache cache = new Cache(cluster, allAffinityGroups);
+        Cache cache = new Cache(cluster, violations);
 
         Pair<Iterable<Guid>, Iterable<Guid>> vmToHostConflicts = getCandidateVmsFromVmsToHostAffinity(cache);
 
@@ -117,16 +114,13 @@ public class AffinityRulesEnforcer {
      *   the second contains VMs breaking soft vm to host affinity.
      */
     private Pair<Iterable<Guid>, Iterable<Guid>> getCandidateVmsFromVmsToHostAffinity(Cache cache) {
-        List<AffinityGroup> allVmToHostsAffinityGroups = cache.getAllGroups().stream()
-                .filter(AffinityGroup::isVdsAffinityEnabled)
-                .filter(g -> !g.getVdsIds().isEmpty() && !g.getVmIds().isEmpty())
-                .collect(Collectors.toList());
+        List<AffinityGroup> violatedVmToHostsAffinityGroups = cache.getViolations().getVmToHostViolations();
 
-        if (allVmToHostsAffinityGroups.isEmpty()) {
+        if (violatedVmToHostsAffinityGroups.isEmpty()) {
             return new Pair<>(IteratorUtils::emptyIterator,  IteratorUtils::emptyIterator);
         }
 
-        List<Guid> vmIds = allVmToHostsAffinityGroups.stream()
+        List<Guid> vmIds = violatedVmToHostsAffinityGroups.stream()
                 .map(AffinityGroup::getVmIds)
                 .flatMap(List::stream)
                 .distinct()
@@ -135,17 +129,20 @@ public class AffinityRulesEnforcer {
         cache.fetchVms(vmIds);
 
         Iterable<Guid> vmsBreakingHardAffinity = () -> {
-            List<Guid> candidateVMs = getVmToHostsAffinityGroupCandidates(allVmToHostsAffinityGroups, cache, true);
+            List<Guid> candidateVMs = getVmToHostsAffinityGroupCandidates(violatedVmToHostsAffinityGroups, cache, true);
             if (candidateVMs.isEmpty()) {
                 log.debug("No vm to hosts hard-affinity group violation detected");
             } else {
-                logVmToHostConflicts(allVmToHostsAffinityGroups);
+                logVmToHostConflicts(cache.getAllGroups().stream()
+                        .filter(AffinityGroup::isVdsAffinityEnabled)
+                        .filter(g -> !g.getVdsIds().isEmpty() && !g.getVmIds().isEmpty())
+                        .collect(Collectors.toList()));
             }
             return candidateVMs.iterator();
         };
 
         Iterable<Guid> vmsBreakingSoftAffinity = () -> {
-            List<Guid> candidateVMs = getVmToHostsAffinityGroupCandidates(allVmToHostsAffinityGroups, cache, false);
+            List<Guid> candidateVMs = getVmToHostsAffinityGroupCandidates(violatedVmToHostsAffinityGroups, cache, false);
             if (candidateVMs.isEmpty()) {
                 log.debug("No vm to hosts soft-affinity group violation detected");
             }
@@ -230,26 +227,12 @@ public class AffinityRulesEnforcer {
     }
 
     private Iterator<Guid> getCandidateVmsFromVmToVmAffinity(boolean enforcing, Cache cache) {
-        cache.computeUnifiedPositiveGroups();
-        List<AffinityGroup> unifiedAffinityGroups = cache.getAllGroups().stream()
+        List<AffinityGroup> violatedAffinityGroups = cache.getViolations().getVmToVmViolations().stream()
                 .filter(AffinityGroup::isVmAffinityEnabled)
                 .filter(ag -> !ag.getVmIds().isEmpty())
                 .filter(ag -> ag.isVmEnforcing() == enforcing)
                 .collect(Collectors.toList());
 
-        // Create a set of all VMs in affinity groups
-        Set<Guid> allVms = new HashSet<>();
-        for (AffinityGroup group : unifiedAffinityGroups) {
-            allVms.addAll(group.getVmIds());
-        }
-
-        cache.fetchVms(allVms);
-
-        List<VM> vms = allVms.stream()
-                .map(cache::getVm)
-                .collect(Collectors.toList());
-
-        List<AffinityGroup> violatedAffinityGroups = checkForVMAffinityGroupViolations(unifiedAffinityGroups, vms);
         if (violatedAffinityGroups.isEmpty()) {
             log.debug(enforcing ?
                     "No enforcing VM affinity group collision detected." :
@@ -257,6 +240,11 @@ public class AffinityRulesEnforcer {
             return IteratorUtils.emptyIterator();
         }
 
+        // Only the VMs of the violated groups are needed
+        cache.fetchVms(violatedAffinityGroups.stream()
+                .flatMap(ag -> ag.getVmIds().stream())
+                .collect(Collectors.toSet()));
+
         // Find a VM that is breaking the affinityGroup and can be theoretically migrated
         // Sort by:
         //  - enforcing groups first
@@ -383,70 +371,6 @@ public class AffinityRulesEnforcer {
         return res;
     }
 
-    /**
-     * Detect whether the current VM to VDS assignment violates current Affinity Groups.
-     *
-     * @param affinityGroups Unified affinity groups
-     * @param vms            Collection of VMs
-     * @return broken AffinityGroups
-     */
-    private static List<AffinityGroup> checkForVMAffinityGroupViolations(Collection<AffinityGroup> affinityGroups,
-            Collection<VM> vms) {
-
-        Map<Guid, Guid> vmToHost = vms.stream()
-                .filter(vm -> vm.getRunOnVds() != null)
-                .collect(Collectors.toMap(VM::getId, VM::getRunOnVds));
-
-        Set<AffinityGroup> broken = new HashSet<>();
-
-        for (AffinityGroup affinity : affinityGroups) {
-            // Negative groups
-            if (affinity.isVmNegative()) {
-                // Record all hosts that are already occupied by VMs from this group
-                Map<Guid, Guid> usedHosts = new HashMap<>();
-
-                for (Guid vm : affinity.getVmIds()) {
-                    Guid host = vmToHost.get(vm);
-                    if (host == null) {
-                        continue;
-                    }
-
-                    // Report a violation when any host has more than one VM from this group
-                    if (usedHosts.containsKey(host)) {
-                        log.debug("Negative affinity rule violated between VMs {} and {} on host {}",
-                                vm, usedHosts.get(host), host);
-                        broken.add(affinity);
-                    } else {
-                        usedHosts.put(host, vm);
-                    }
-                }
-
-                // Positive groups
-            } else if (affinity.isVmPositive()) {
-                // All VMs from this group have to be running on a single host
-                Guid targetHost = null;
-
-                for (Guid vm : affinity.getVmIds()) {
-                    Guid host = vmToHost.get(vm);
-                    if (host == null) {
-                        continue;
-                    }
-
-                    // Report a violation when two VMs do not share a common host
-                    if (targetHost != null && !targetHost.equals(host)) {
-                        log.debug("Positive affinity rule violated by VM {} running at {} when other VM(s) are at {}",
-                                vm, host, targetHost);
-                        broken.add(affinity);
-                    } else if (targetHost == null) {
-                        targetHost = host;
-                    }
-                }
-            }
-        }
-
-        return new ArrayList<>(broken);
-    }
-
     private boolean migrationImprovesSoftAffinity(VM vm, Cache cache) {
         log.debug("Testing if migration would improve soft affinity. VM: {}", vm.getName());
         Guid sourceHost = vm.getRunOnVds();
@@ -562,20 +486,17 @@ public class AffinityRulesEnforcer {
 
     private class Cache {
         private final Cluster cluster;
+        private final ClusterViolations violations;
         private Map<Guid, VM> vms = new HashMap<>();
 
-        private List<AffinityGroup> allGroups;
-        private Map<Guid, List<AffinityGroup>> groupsForVm;
-        private boolean unifiedGroupsComputed = false;
-
         // Map: Affinity group id -> host id -> number of VMs running on the host
         private Map<Guid, Map<Guid, Integer>> hostsForGroups;
 
         Boolean hostAffinityMoreImportant;
 
-        public Cache(Cluster cluster, List<AffinityGroup> allGroups) {
+        public Cache(Cluster cluster, ClusterViolations violations) {
             this.cluster = cluster;
-            this.allGroups = allGroups;
+            this.violations = violations;
         }
 
         public VM getVm(Guid id) {
@@ -598,74 +519,31 @@ public class AffinityRulesEnforcer {
                     .forEach(vm -> vms.put(vm.getId(), vm));
         }
 
-        public List<AffinityGroup> getAllGroups() {
-            return allGroups;
+        public ClusterViolations getViolations() {
+            return violations;
         }
 
-        public void computeUnifiedPositiveGroups() {
-            if (unifiedGroupsComputed) {
-                return;
-            }
-
-            List<AffinityGroup> vmPositiveEnforcingGroups = allGroups.stream()
-                    .filter(AffinityGroup::isVmPositive)
-                    .filter(AffinityGroup::isVmEnforcing)
-                    .filter(ag -> !ag.getVmIds().isEmpty())
-                    .collect(Collectors.toList());
-
-            List<AffinityGroup> unifiedPositiveEnforcingGroups = AffinityRulesUtils.setsToAffinityGroups(
-                    AffinityRulesUtils.getUnifiedPositiveAffinityGroups(vmPositiveEnforcingGroups));
-
-            unifiedPositiveEnforcingGroups.forEach(ag -> ag.setVmEnforcing(true));
-
-            // Disable vm affinity in all other vm positive enforcing affinity groups.
-            // They are not removed, because the host affinity can still be enabled
-            for (AffinityGroup ag : allGroups) {
-                if (ag.isVmPositive() && ag.isVmEnforcing()) {
-                    ag.setVmAffinityRule(EntityAffinityRule.DISABLED);
-                }
-            }
-
-            allGroups.addAll(unifiedPositiveEnforcingGroups);
-
-            unifiedGroupsComputed = true;
-            groupsForVm = null;
+        public List<AffinityGroup> getAllGroups() {
+            return violations.getGroups();
         }
 
         public List<AffinityGroup> getAllGroupsForVmSorted(Guid vmId) {
-            if (groupsForVm == null) {
-                groupsForVm = new HashMap<>();
-                for (AffinityGroup ag : allGroups) {
-                    for (Guid id : ag.getVmIds()) {
-                        groupsForVm.computeIfAbsent(id, k -> new ArrayList<>()).add(ag);
-                    }
-                }
-
-                // Sorting lists by priority here, so it is not needed later
-                groupsForVm.values().forEach(groups -> groups.sort(Comparator.comparingLong(AffinityGroup::getPriority).reversed()));
-            }
-
-            return groupsForVm.getOrDefault(vmId, Collections.emptyList());
+            return violations.getGroupsForVm(vmId);
         }
 
         public Map<Guid, Map<Guid, Integer>> getHostsForGroups() {
             if (hostsForGroups == null) {
-                Set<Guid> allVms = allGroups.stream()
-                        .flatMap(ag -> ag.getVmIds().stream())
-                        .collect(Collectors.toSet());
-
-                fetchVms(allVms);
-
-                hostsForGroups = new HashMap<>(allGroups.size());
-                for (AffinityGroup group : allGroups) {
+                Map<Guid, Guid> vmHosts = violations.getVmHosts();
+                hostsForGroups = new HashMap<>(getAllGroups().size());
+                for (AffinityGroup group : getAllGroups()) {
                     if (!group.isVmAffinityEnabled()) {
                         continue;
                     }
 
                     Map<Guid, Integer> vmCountOnHosts = group.getVmIds().stream()
-                            .map(this::getVm)
-                            .filter(vm -> vm != null && vm.getRunOnVds() != null)
-                            .collect(Collectors.toMap(VM::getRunOnVds, v -> 1, Integer::sum));
+                            .map(vmHosts::get)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toMap(host -> host, v -> 1, Integer::sum));
 
                     hostsForGroups.put(group.getId(), vmCountOnHosts);
                 }
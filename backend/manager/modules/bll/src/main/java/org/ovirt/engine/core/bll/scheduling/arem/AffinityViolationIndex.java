@@ -0,0 +1,301 @@
+package org.ovirt.engine.core.bll.scheduling.arem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.ovirt.engine.core.common.FeatureSupported;
+import org.ovirt.engine.core.common.businessentities.Cluster;
+import org.ovirt.engine.core.common.businessentities.VmDynamic;
+import org.ovirt.engine.core.common.scheduling.AffinityGroup;
+import org.ovirt.engine.core.common.scheduling.EntityAffinityRule;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.LabelDao;
+import org.ovirt.engine.core.dao.VmDynamicDao;
+import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
+
+/**
+ * Keeps the affinity groups of each cluster together with the groups that are violated by the current placement of
+ * the VMs, so the violations don't have to be recalculated for all the groups on every enforcement interval.
+ * <p>
+ * On every refresh, the affinity groups of the cluster and the hosts its running VMs run on are read. When no group
+ * was added, removed or edited since the previous refresh, only the groups of the VMs that were started, stopped or
+ * migrated meanwhile are checked again. Otherwise, the positive enforcing groups are unified again and all the groups
+ * are checked.
+ */
+@Singleton
+public class AffinityViolationIndex {
+
+    private final AffinityGroupDao affinityGroupDao;
+    private final LabelDao labelDao;
+    private final VmDynamicDao vmDynamicDao;
+
+    private final Map<Guid, ClusterEntry> clusters = new ConcurrentHashMap<>();
+
+    @Inject
+    public AffinityViolationIndex(AffinityGroupDao affinityGroupDao, LabelDao labelDao, VmDynamicDao vmDynamicDao) {
+        this.affinityGroupDao = affinityGroupDao;
+        this.labelDao = labelDao;
+        this.vmDynamicDao = vmDynamicDao;
+    }
+
+    /**
+     * Updates the violations of the given cluster according to its current affinity groups and VM placement.
+     *
+     * @return the updated violations of the cluster
+     */
+    public ClusterViolations refresh(Cluster cluster) {
+        List<AffinityGroup> groups = affinityGroupDao.getAllAffinityGroupsWithFlatLabelsByClusterId(cluster.getId());
+        if (FeatureSupported.isImplicitAffinityGroupSupported(cluster.getCompatibilityVersion())) {
+            groups.addAll(AffinityRulesUtils.affinityGroupsFromLabels(labelDao.getAllByClusterId(cluster.getId()),
+                    cluster.getId()));
+        }
+
+        Map<Guid, Guid> vmHosts = vmDynamicDao.getAllRunningForCluster(cluster.getId())
+                .stream()
+                .collect(Collectors.toMap(VmDynamic::getId, VmDynamic::getRunOnVds));
+
+        ClusterEntry entry = clusters.computeIfAbsent(cluster.getId(), id -> new ClusterEntry());
+        synchronized (entry) {
+            entry.update(groups, vmHosts);
+            return entry.violations;
+        }
+    }
+
+    /**
+     * @return the violations of the given cluster as of its last refresh
+     */
+    public ClusterViolations getViolations(Guid clusterId) {
+        ClusterEntry entry = clusters.get(clusterId);
+        if (entry == null) {
+            return ClusterViolations.EMPTY;
+        }
+        synchronized (entry) {
+            return entry.violations;
+        }
+    }
+
+    private static class ClusterEntry {
+        private Map<Guid, AffinityGroup> loadedGroups = Collections.emptyMap();
+        private List<AffinityGroup> groups = Collections.emptyList();
+        private Map<Guid, List<AffinityGroup>> groupsByVm = Collections.emptyMap();
+        private Map<Guid, Guid> vmHosts = Collections.emptyMap();
+        private final Set<AffinityGroup> vmToVmViolations = new HashSet<>();
+        private final Set<AffinityGroup> vmToHostViolations = new HashSet<>();
+        private ClusterViolations violations = ClusterViolations.EMPTY;
+
+        void update(List<AffinityGroup> newGroups, Map<Guid, Guid> newVmHosts) {
+            Map<Guid, Guid> oldVmHosts = vmHosts;
+            vmHosts = newVmHosts;
+
+            if (groupsChanged(newGroups)) {
+                loadedGroups = new HashMap<>();
+                newGroups.forEach(ag -> loadedGroups.put(ag.getId(), ag));
+                groups = unifyPositiveEnforcingGroups(newGroups);
+                groupsByVm = indexByVm(groups);
+                vmToVmViolations.clear();
+                vmToHostViolations.clear();
+                groups.forEach(this::check);
+            } else {
+                Set<Guid> movedVms = new HashSet<>(oldVmHosts.keySet());
+                movedVms.addAll(vmHosts.keySet());
+                movedVms.removeIf(vmId -> Objects.equals(oldVmHosts.get(vmId), vmHosts.get(vmId)));
+                movedVms.stream()
+                        .flatMap(vmId -> groupsByVm.getOrDefault(vmId, Collections.emptyList()).stream())
+                        .distinct()
+                        .forEach(this::check);
+            }
+
+            violations = new ClusterViolations(groups,
+                    groupsByVm,
+                    vmHosts,
+                    new ArrayList<>(vmToVmViolations),
+                    new ArrayList<>(vmToHostViolations));
+        }
+
+        private boolean groupsChanged(List<AffinityGroup> newGroups) {
+            if (newGroups.size() != loadedGroups.size()) {
+                return true;
+            }
+            for (AffinityGroup group : newGroups) {
+                AffinityGroup loaded = group.getId() == null ? null : loadedGroups.get(group.getId());
+                if (loaded == null || !sameRules(group, loaded)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void check(AffinityGroup group) {
+            vmToVmViolations.remove(group);
+            vmToHostViolations.remove(group);
+            if (isVmToVmAffinityViolated(group)) {
+                vmToVmViolations.add(group);
+            }
+            if (isVmToHostAffinityViolated(group)) {
+                vmToHostViolations.add(group);
+            }
+        }
+
+        private boolean isVmToVmAffinityViolated(AffinityGroup group) {
+            if (!group.isVmAffinityEnabled()) {
+                return false;
+            }
+
+            // Count the VMs of the group running on each host
+            Map<Guid, Integer> vmCountOnHosts = new HashMap<>();
+            for (Guid vmId : group.getVmIds()) {
+                Guid host = vmHosts.get(vmId);
+                if (host != null) {
+                    vmCountOnHosts.merge(host, 1, Integer::sum);
+                }
+            }
+
+            return group.isVmPositive() ?
+                    vmCountOnHosts.size() > 1 :
+                    vmCountOnHosts.values().stream().anyMatch(count -> count > 1);
+        }
+
+        private boolean isVmToHostAffinityViolated(AffinityGroup group) {
+            if (!group.isVdsAffinityEnabled() || group.getVdsIds().isEmpty()) {
+                return false;
+            }
+
+            Set<Guid> hosts = new HashSet<>(group.getVdsIds());
+            return group.getVmIds().stream()
+                    .map(vmHosts::get)
+                    .anyMatch(host -> host != null && hosts.contains(host) != group.isVdsPositive());
+        }
+    }
+
+    private static boolean sameRules(AffinityGroup group, AffinityGroup other) {
+        return group.getVmAffinityRule() == other.getVmAffinityRule()
+                && group.isVmEnforcing() == other.isVmEnforcing()
+                && group.getVdsAffinityRule() == other.getVdsAffinityRule()
+                && group.isVdsEnforcing() == other.isVdsEnforcing()
+                && group.getPriority() == other.getPriority()
+                && group.getVmIds().equals(other.getVmIds())
+                && group.getVdsIds().equals(other.getVdsIds());
+    }
+
+    /**
+     * Replaces the VM to VM affinity of the positive enforcing groups by the unified positive enforcing groups.
+     * The loaded groups are copied, so they can be compared with the groups loaded on the next refresh.
+     */
+    private static List<AffinityGroup> unifyPositiveEnforcingGroups(List<AffinityGroup> loadedGroups) {
+        List<AffinityGroup> groups = loadedGroups.stream()
+                .map(AffinityGroup::new)
+                .collect(Collectors.toList());
+
+        List<AffinityGroup> vmPositiveEnforcingGroups = groups.stream()
+                .filter(AffinityGroup::isVmPositive)
+                .filter(AffinityGroup::isVmEnforcing)
+                .filter(ag -> !ag.getVmIds().isEmpty())
+                .collect(Collectors.toList());
+
+        List<AffinityGroup> unifiedPositiveEnforcingGroups = AffinityRulesUtils.setsToAffinityGroups(
+                AffinityRulesUtils.getUnifiedPositiveAffinityGroups(vmPositiveEnforcingGroups));
+
+        unifiedPositiveEnforcingGroups.forEach(ag -> ag.setVmEnforcing(true));
+
+        // Disable vm affinity in all other vm positive enforcing affinity groups.
+        // They are not removed, because the host affinity can still be enabled
+        for (AffinityGroup ag : groups) {
+            if (ag.isVmPositive() && ag.isVmEnforcing()) {
+                ag.setVmAffinityRule(EntityAffinityRule.DISABLED);
+            }
+        }
+
+        groups.addAll(unifiedPositiveEnforcingGroups);
+        return Collections.unmodifiableList(groups);
+    }
+
+    /**
+     * @return the groups of each VM, sorted by priority from the highest
+     */
+    private static Map<Guid, List<AffinityGroup>> indexByVm(List<AffinityGroup> groups) {
+        Map<Guid, List<AffinityGroup>> groupsByVm = new HashMap<>();
+        for (AffinityGroup ag : groups) {
+            for (Guid vmId : ag.getVmIds()) {
+                groupsByVm.computeIfAbsent(vmId, k -> new ArrayList<>()).add(ag);
+            }
+        }
+        groupsByVm.values()
+                .forEach(vmGroups -> vmGroups.sort(Comparator.comparingLong(AffinityGroup::getPriority).reversed()));
+        return groupsByVm;
+    }
+
+    /**
+     * The affinity groups of a cluster and those of them that are violated, as of a refresh of the index. The groups
+     * must not be modified.
+     */
+    public static class ClusterViolations {
+        static final ClusterViolations EMPTY = new ClusterViolations(Collections.emptyList(),
+                Collections.emptyMap(),
+                Collections.emptyMap(),
+                Collections.emptyList(),
+                Collections.emptyList());
+
+        private final List<AffinityGroup> groups;
+        private final Map<Guid, List<AffinityGroup>> groupsByVm;
+        private final Map<Guid, Guid> vmHosts;
+        private final List<AffinityGroup> vmToVmViolations;
+        private final List<AffinityGroup> vmToHostViolations;
+
+        ClusterViolations(List<AffinityGroup> groups,
+                Map<Guid, List<AffinityGroup>> groupsByVm,
+                Map<Guid, Guid> vmHosts,
+                List<AffinityGroup> vmToVmViolations,
+                List<AffinityGroup> vmToHostViolations) {
+            this.groups = groups;
+            this.groupsByVm = groupsByVm;
+            this.vmHosts = vmHosts;
+            this.vmToVmViolations = vmToVmViolations;
+            this.vmToHostViolations = vmToHostViolations;
+        }
+
+        /**
+         * @return all the groups of the cluster, where the positive enforcing VM to VM groups are unified
+         */
+        public List<AffinityGroup> getGroups() {
+            return groups;
+        }
+
+        /**
+         * @return the groups of the given VM, sorted by priority from the highest
+         */
+        public List<AffinityGroup> getGroupsForVm(Guid vmId) {
+            return groupsByVm.getOrDefault(vmId, Collections.emptyList());
+        }
+
+        /**
+         * @return the host each running VM of the cluster runs on
+         */
+        public Map<Guid, Guid> getVmHosts() {
+            return vmHosts;
+        }
+
+        public List<AffinityGroup> getVmToVmViolations() {
+            return vmToVmViolations;
+        }
+
+        public List<AffinityGroup> getVmToHostViolations() {
+            return vmToHostViolations;
+        }
+
+        public boolean isEmpty() {
+            return vmToVmViolations.isEmpty() && vmToHostViolations.isEmpty();
+        }
+    }
+}
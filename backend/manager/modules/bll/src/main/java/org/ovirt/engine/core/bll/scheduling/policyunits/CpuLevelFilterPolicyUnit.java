@@ -11,6 +11,7 @@ import java.util.stream.Collectors;
 import javax.inject.Inject;
 
 import org.apache.commons.lang.StringUtils;
+import org.ovirt.engine.core.bll.CpuFlags;
 import org.ovirt.engine.core.bll.CpuFlagsManagerHandler;
 import org.ovirt.engine.core.bll.scheduling.PolicyUnitImpl;
 import org.ovirt.engine.core.bll.scheduling.SchedulingContext;
@@ -116,13 +117,14 @@ public class CpuLevelFilterPolicyUnit extends PolicyUnitImpl {
         }
 
         /* find compatible hosts */
+        CpuFlags requiredFlags = CpuFlags.valueOf(vmFlags);
         for (VDS host : hosts) {
-            List<String> missingFlags = cpuFlagsManagerHandler.missingClusterCpuFlags(vmFlags, host.getCpuFlags());
+            CpuFlags hostFlags = CpuFlags.valueOf(host.getCpuFlags());
 
-            if (missingFlags.isEmpty()) {
+            if (hostFlags.containsAll(requiredFlags)) {
                 hostsToRunOn.add(host);
             } else {
-                String formattedFlags = formatFlags(missingFlags);
+                String formattedFlags = formatFlags(requiredFlags.missingFrom(hostFlags));
                 if (log.isDebugEnabled()) {
                     log.debug("Host {} can't run the VM because its CPU flags are missing VM's required CPU flags."
                                     + " It is missing flags: {}.",
@@ -71,7 +71,7 @@ public class HostedEngineMemoryReservationFilterPolicyUnit extends PolicyUnitImp
         }
 
         // Get the instance of hosted engine VM so we can get the amount of memory that is needed
-        VM hostedEngine = vmDao.getHostedEngineVm();
+        VM hostedEngine = vmDao.getHostedEngineVmMemory();
 
         // Not a hosted engine deployment, ignore this unit
         if (hostedEngine == null) {
@@ -1,20 +1,18 @@
 package org.ovirt.engine.core.bll.scheduling.policyunits;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
 import org.apache.commons.lang.StringUtils;
+import org.ovirt.engine.core.bll.hostdev.HostDeviceInventory;
+import org.ovirt.engine.core.bll.hostdev.HostDeviceInventory.HostDevices;
 import org.ovirt.engine.core.bll.scheduling.PolicyUnitImpl;
 import org.ovirt.engine.core.bll.scheduling.SchedulingContext;
 import org.ovirt.engine.core.bll.scheduling.SchedulingUnit;
 import org.ovirt.engine.core.bll.scheduling.pending.PendingResourceManager;
-import org.ovirt.engine.core.common.businessentities.HostDevice;
-import org.ovirt.engine.core.common.businessentities.MDevType;
 import org.ovirt.engine.core.common.businessentities.VDS;
 import org.ovirt.engine.core.common.businessentities.VM;
 import org.ovirt.engine.core.common.errors.EngineMessage;
@@ -23,7 +21,6 @@ import org.ovirt.engine.core.common.scheduling.PolicyUnit;
 import org.ovirt.engine.core.common.scheduling.PolicyUnitType;
 import org.ovirt.engine.core.common.utils.MDevTypesUtils;
 import org.ovirt.engine.core.common.utils.VmDeviceType;
-import org.ovirt.engine.core.dao.HostDeviceDao;
 import org.ovirt.engine.core.vdsbroker.builder.vminfo.VmInfoBuildUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,7 +36,7 @@ public class MDevicePolicyUnit extends PolicyUnitImpl {
     private static final Logger log = LoggerFactory.getLogger(MDevicePolicyUnit.class);
 
     @Inject
-    private HostDeviceDao hostDeviceDao;
+    private HostDeviceInventory hostDeviceInventory;
 
     @Inject
     private VmInfoBuildUtils vmInfoBuildUtils;
@@ -60,9 +57,9 @@ public class MDevicePolicyUnit extends PolicyUnitImpl {
 
         List<VDS> list = new ArrayList<>();
         for (VDS host : hosts) {
-            Map<String, List<MDevType>> hostMDevs = getMDevsForHost(host);
+            HostDevices hostDevices = hostDeviceInventory.getHostDevices(host.getId());
 
-            List<String> missingMDevs = getMissingMDevsForHost(hostMDevs, vmMDevs);
+            List<String> missingMDevs = getMissingMDevsForHost(hostDevices, vmMDevs);
             if (!missingMDevs.isEmpty()) {
                 messages.addMessage(host.getId(), String.format("$missingMDevs %1$s", StringUtils.join(missingMDevs, ",")));
                 messages.addMessage(host.getId(), EngineMessage.VAR__DETAIL__HOST_MDEV_DEVICE_MISSING.toString());
@@ -72,7 +69,7 @@ public class MDevicePolicyUnit extends PolicyUnitImpl {
                 continue;
             }
 
-            List<String> unavailableMDevs = getUnavailableMDevsForHost(hostMDevs, vmMDevs);
+            List<String> unavailableMDevs = getUnavailableMDevsForHost(hostDevices, vmMDevs);
             if (!unavailableMDevs.isEmpty()) {
                 messages.addMessage(host.getId(), String.format("$unavailableMDevs %1$s", StringUtils.join(unavailableMDevs, ",")));
                 messages.addMessage(host.getId(), EngineMessage.VAR__DETAIL__HOST_MDEV_DEVICE_UNAVAILABLE.toString());
@@ -86,49 +83,13 @@ public class MDevicePolicyUnit extends PolicyUnitImpl {
         return list;
     }
 
-    private Map<String, List<MDevType>> getMDevsForHost(VDS host) {
-        List<HostDevice> devices = hostDeviceDao.getHostDevicesByHostId(host.getId());
-        Map<String, List<MDevType>> mDevsMap = new HashMap<>();
-        for (HostDevice device : devices) {
-            if (device.getMdevTypes() == null || device.getMdevTypes().isEmpty()) {
-                continue;
-            }
-            List<MDevType> mdevList = device.getMdevTypes();
-            for (MDevType mdev : mdevList) {
-                if (!mDevsMap.containsKey(mdev.getName())) {
-                    mDevsMap.put(mdev.getName(), new ArrayList<MDevType>());
-                }
-                mDevsMap.get(mdev.getName()).add(mdev);
-            }
-        }
-        return mDevsMap;
-    }
-
-    private List<String> getMissingMDevsForHost(Map<String, List<MDevType>> hostMDevs, List<String> vmMDevs) {
-        List<String> missingMDevs = new ArrayList<>();
-        for (String vmMDev : vmMDevs) {
-            if (!hostMDevs.containsKey(vmMDev)) {
-                missingMDevs.add(vmMDev);
-            }
-        }
-        return missingMDevs;
+    private List<String> getMissingMDevsForHost(HostDevices hostDevices, List<String> vmMDevs) {
+        return vmMDevs.stream().filter(vmMDev -> !hostDevices.hasMDevType(vmMDev)).collect(Collectors.toList());
     }
 
-    private List<String> getUnavailableMDevsForHost(Map<String, List<MDevType>> hostMDevs, List<String> vmMDevs) {
-        List<String> unavailableMDevs = new ArrayList<>();
-        for (String vmMDev : vmMDevs) {
-            List<MDevType> mDevs = hostMDevs.get(vmMDev);
-            boolean isAvailable = false;
-            for (MDevType mDev : mDevs) {
-                if (mDev.getAvailableInstances() > 0) {
-                    isAvailable = true;
-                    break;
-                }
-            }
-            if (!isAvailable) {
-                unavailableMDevs.add(vmMDev);
-            }
-        }
-        return unavailableMDevs;
+    private List<String> getUnavailableMDevsForHost(HostDevices hostDevices, List<String> vmMDevs) {
+        return vmMDevs.stream()
+                .filter(vmMDev -> !hostDevices.isMDevTypeAvailable(vmMDev))
+                .collect(Collectors.toList());
     }
 }
@@ -94,7 +94,7 @@ public class VmAffinityWeightPolicyUnit extends PolicyUnitImpl {
         }
 
         // Get all running VMs in cluster
-        Map<Guid, VM> runningVMsMap = vmDao.getAllRunningByCluster(vmGroup.get(0).getClusterId()).stream()
+        Map<Guid, VM> runningVMsMap = vmDao.getAllRunningPlacementByCluster(vmGroup.get(0).getClusterId()).stream()
                 .collect(Collectors.toMap(VM::getId, vm -> vm));
 
         // Update the VM list with pending VMs
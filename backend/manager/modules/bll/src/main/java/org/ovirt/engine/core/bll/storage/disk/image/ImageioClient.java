@@ -1,27 +1,36 @@
 package org.ovirt.engine.core.bll.storage.disk.image;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.Socket;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.ws.rs.HttpMethod;
 
-import org.apache.http.HttpEntity;
+import org.apache.http.ConnectionReuseStrategy;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpException;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.HttpVersion;
+import org.apache.http.StatusLine;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.SocketConfig;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.DefaultBHttpClientConnection;
+import org.apache.http.impl.DefaultConnectionReuseStrategy;
+import org.apache.http.impl.pool.BasicConnFactory;
+import org.apache.http.impl.pool.BasicConnPool;
+import org.apache.http.impl.pool.BasicPoolEntry;
 import org.apache.http.message.BasicHttpEntityEnclosingRequest;
 import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.util.EntityUtils;
 import org.ovirt.engine.core.common.businessentities.storage.ImageTicket;
 import org.ovirt.engine.core.common.businessentities.storage.ImageTicketInformation;
@@ -29,129 +38,211 @@ import org.ovirt.engine.core.compat.Guid;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+/**
+ * A client of the tickets API of an imageio endpoint.
+ * <p>
+ * The requests are sent over a pool of keep-alive connections to the endpoint, so polling and extending the tickets
+ * of many concurrent transfers doesn't open a TCP connection per request. Use {@link #getInstance(String, int)} to
+ * share the pool of an endpoint between all its users.
+ */
 public class ImageioClient {
 
     public static final String TICKETS_URI = "/tickets/";
     public static final int CLIENT_BUFFER_SIZE = 4 * 1024;
 
-    private String hostname;
-    private int port;
+    /**
+     * The maximal number of connections opened to an endpoint, further requests wait for a connection to be released
+     */
+    private static final int MAX_CONNECTIONS = 10;
+    private static final long LEASE_TIMEOUT_IN_SECONDS = 60;
+    private static final long IDLE_CONNECTION_TIMEOUT_IN_SECONDS = 60;
+
+    /**
+     * Connections idle for longer than this are checked for being closed by the endpoint before they are reused
+     */
+    private static final int VALIDATE_AFTER_INACTIVITY_IN_MILLIS = 2000;
+
+    private static final Map<HttpHost, ImageioClient> clients = new ConcurrentHashMap<>();
+    private static final ConnectionReuseStrategy reuseStrategy = DefaultConnectionReuseStrategy.INSTANCE;
+
+    private final HttpHost host;
+    private final BasicConnPool pool;
+
+    /**
+     * @return the client of the given endpoint, shared by all the callers
+     */
+    public static ImageioClient getInstance(String hostname, int port) {
+        return clients.computeIfAbsent(new HttpHost(hostname, port), host -> new ImageioClient(hostname, port));
+    }
 
     public ImageioClient(String hostname, int port) {
-        this.hostname = hostname;
-        this.port = port;
+        host = new HttpHost(hostname, port);
+        pool = new BasicConnPool(new BasicConnFactory(SocketConfig.DEFAULT,
+                ConnectionConfig.custom().setBufferSize(CLIENT_BUFFER_SIZE).build()));
+        pool.setMaxTotal(MAX_CONNECTIONS);
+        pool.setDefaultMaxPerRoute(MAX_CONNECTIONS);
+        pool.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_IN_MILLIS);
     }
 
     public ImageTicketInformation getTicket(Guid ticketUUID) {
-        // Create request
         BasicHttpRequest request = new BasicHttpRequest(
                 HttpMethod.GET, TICKETS_URI + ticketUUID, HttpVersion.HTTP_1_1);
-        String responseContent;
-
-        try (DefaultBHttpClientConnection conn = getConnection()) {
-            HttpEntity response = executeRequest(request, conn);
-            responseContent = readContent(response.getContent());
-            EntityUtils.consume(response);
-        } catch (IOException e) {
-            throw new RuntimeException(e.getMessage(), e);
+        String content = execute(conn -> send(request, conn).checkSucceeded());
+        if (content.isEmpty()) {
+            throw new RuntimeException("Empty response");
         }
-        return ImageTicketInformationHelper.fromJson(responseContent);
+        return ImageTicketInformationHelper.fromJson(content);
     }
 
     public void putTicket(ImageTicket ticket) {
         BasicHttpEntityEnclosingRequest request = new BasicHttpEntityEnclosingRequest(
                 HttpMethod.PUT, TICKETS_URI + ticket.getId(), HttpVersion.HTTP_1_1);
 
-        try (DefaultBHttpClientConnection conn = getConnection()) {
+        try {
             // Populate ticket in the request
-            StringEntity entity = new StringEntity(
-                    new ObjectMapper().writeValueAsString(ticket.toDict()), StandardCharsets.UTF_8);
-            request.setEntity(entity);
-            request.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(entity.getContentLength()));
-            EntityUtils.consume(executeRequest(request, conn));
+            setContent(request, new ObjectMapper().writeValueAsString(ticket.toDict()));
         } catch (IOException e) {
             throw new RuntimeException(e.getMessage(), e);
         }
+        execute(conn -> send(request, conn).checkSucceeded());
     }
 
     public void extendTicket(Guid ticketUUID, long timeout) {
         BasicHttpEntityEnclosingRequest request = new BasicHttpEntityEnclosingRequest(
                 HttpMethod.PATCH, TICKETS_URI + ticketUUID, HttpVersion.HTTP_1_1);
 
-        try (DefaultBHttpClientConnection conn = getConnection()) {
+        try {
             // Populate timeout in the request
             Map<String, Object> timeoutDict = new HashMap<>();
             timeoutDict.put("timeout", timeout);
-            StringEntity entity = new StringEntity(
-                    new ObjectMapper().writeValueAsString(timeoutDict), StandardCharsets.UTF_8);
-            request.setEntity(entity);
-            request.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(entity.getContentLength()));
-            EntityUtils.consume(executeRequest(request, conn));
+            setContent(request, new ObjectMapper().writeValueAsString(timeoutDict));
         } catch (IOException e) {
             throw new RuntimeException(e.getMessage(), e);
         }
+        execute(conn -> send(request, conn).checkSucceeded());
     }
 
     public void deleteTicket(Guid ticketUUID) {
         BasicHttpRequest request = new BasicHttpRequest(
                 HttpMethod.DELETE, TICKETS_URI + ticketUUID, HttpVersion.HTTP_1_1);
+        execute(conn -> send(request, conn).checkSucceeded());
+    }
 
-        try (DefaultBHttpClientConnection conn = getConnection()) {
-            EntityUtils.consume(executeRequest(request, conn));
-        } catch (IOException e) {
-            throw new RuntimeException(e.getMessage(), e);
+    private void setContent(BasicHttpEntityEnclosingRequest request, String content) {
+        StringEntity entity = new StringEntity(content, StandardCharsets.UTF_8);
+        request.setEntity(entity);
+        request.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(entity.getContentLength()));
+    }
+
+    /**
+     * Runs the given requests over a pooled connection. The connection is returned to the pool unless the requests
+     * failed to be sent or the endpoint asked to close it.
+     * <p>
+     * An endpoint may close an idle connection before it is validated, so requests failing on a reused connection are
+     * retried once on another connection. This is safe as all the ticket operations are idempotent.
+     */
+    private <T> T execute(ConnectionCallback<T> callback) {
+        boolean retry = true;
+        while (true) {
+            BasicPoolEntry entry = lease();
+            HttpClientConnection conn = entry.getConnection();
+            boolean reused = conn.getMetrics().getRequestCount() > 0;
+            boolean broken = false;
+            try {
+                return callback.execute(conn);
+            } catch (IOException e) {
+                broken = true;
+                if (!reused || !retry) {
+                    throw new RuntimeException(e.getMessage(), e);
+                }
+                retry = false;
+            } catch (HttpException e) {
+                broken = true;
+                throw new RuntimeException(e.getMessage(), e);
+            } finally {
+                boolean reusable = !broken && conn.isOpen();
+                if (!reusable) {
+                    entry.close();
+                }
+                pool.release(entry, reusable);
+            }
         }
     }
 
-    private DefaultBHttpClientConnection getConnection() {
-        DefaultBHttpClientConnection conn;
+    private BasicPoolEntry lease() {
+        pool.closeIdle(IDLE_CONNECTION_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
         try {
-            Socket socket = new Socket(hostname, port);
-            // Bind socket to HTTP client
-            conn = new DefaultBHttpClientConnection(CLIENT_BUFFER_SIZE);
-            conn.bind(socket);
-        } catch (IOException e) {
+            return pool.lease(host, null).get(LEASE_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new RuntimeException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException(String.format(
+                    "ImageioClient request failed. No connection to %s was available in %s seconds.",
+                    host, LEASE_TIMEOUT_IN_SECONDS), e);
         }
-        return conn;
     }
 
-    protected HttpEntity executeRequest(BasicHttpRequest request, DefaultBHttpClientConnection conn) {
-        try {
-            // Send the request
-            conn.sendRequestHeader(request);
-            if (request instanceof HttpEntityEnclosingRequest) {
-                conn.sendRequestEntity((HttpEntityEnclosingRequest) request);
-            }
-            conn.flush();
+    /**
+     * Sends the given request and reads its response entirely, so the connection can be reused.
+     */
+    private Response send(BasicHttpRequest request, HttpClientConnection conn) throws HttpException, IOException {
+        // Send the request
+        request.setHeader(HttpHeaders.HOST, host.toHostString());
+        conn.sendRequestHeader(request);
+        if (request instanceof HttpEntityEnclosingRequest) {
+            conn.sendRequestEntity((HttpEntityEnclosingRequest) request);
+        }
+        conn.flush();
 
-            // Get the response
-            HttpResponse response = conn.receiveResponseHeader();
+        // Get the response
+        HttpResponse response = conn.receiveResponseHeader();
+        String content = "";
+        if (canHaveContent(response)) {
             conn.receiveResponseEntity(response);
+            content = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+        }
+        if (!reuseStrategy.keepAlive(response, new BasicHttpContext())) {
+            conn.close();
+        }
+        return new Response(response.getStatusLine(), content);
+    }
 
-            // Check status
-            if (response.getStatusLine().getStatusCode() >= 300) {
-                throw new RuntimeException(String.format(
-                        "ImageioClient request failed. Status: %s, Reason: %s, Error: %s.",
-                        response.getStatusLine().getStatusCode(),
-                        response.getStatusLine().getReasonPhrase(),
-                        readContent(response.getEntity().getContent())));
-            }
+    private static boolean canHaveContent(HttpResponse response) {
+        int status = response.getStatusLine().getStatusCode();
+        return status >= HttpStatus.SC_OK
+                && status != HttpStatus.SC_NO_CONTENT
+                && status != HttpStatus.SC_NOT_MODIFIED;
+    }
 
-            HttpEntity entity = response.getEntity();
-            if (entity == null) {
-                throw new RuntimeException("Empty response");
-            }
+    @FunctionalInterface
+    private interface ConnectionCallback<T> {
+        T execute(HttpClientConnection conn) throws HttpException, IOException;
+    }
 
-            // Return the HTTP entity
-            return entity;
-        } catch (HttpException | IOException e) {
-            throw new RuntimeException(e.getMessage(), e);
+    private static class Response {
+        private final StatusLine statusLine;
+        private final String content;
+
+        Response(StatusLine statusLine, String content) {
+            this.statusLine = statusLine;
+            this.content = content;
         }
-    }
 
-    private String readContent(InputStream inputStream) {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-        return reader.lines().collect(Collectors.joining());
+        /**
+         * @return the content of the response, if its status is successful
+         */
+        String checkSucceeded() {
+            if (statusLine.getStatusCode() >= 300) {
+                throw new RuntimeException(String.format(
+                        "ImageioClient request failed. Status: %s, Reason: %s, Error: %s.",
+                        statusLine.getStatusCode(),
+                        statusLine.getReasonPhrase(),
+                        content));
+            }
+            return content;
+        }
     }
 }
@@ -134,7 +134,6 @@ public class TransferDiskImageCommand<T extends TransferDiskImageParameters> ext
     @Inject
     private ResourceManager resourceManager;
 
-    private ImageioClient proxyClient;
     private VmBackup backup;
     private VM backupVm;
     private Guid backupDiskSnapshotId;
@@ -1527,10 +1526,7 @@ public class TransferDiskImageCommand<T extends TransferDiskImageParameters> ext
     }
 
     private ImageioClient getProxyClient() {
-        if (proxyClient == null) {
-            proxyClient = new ImageioClient("localhost", PROXY_CONTROL_PORT);
-        }
-        return proxyClient;
+        return ImageioClient.getInstance("localhost", PROXY_CONTROL_PORT);
     }
 
     private Guid getBackupDiskSnapshotId() {
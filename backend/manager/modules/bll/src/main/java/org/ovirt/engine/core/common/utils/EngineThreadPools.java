@@ -1,5 +1,7 @@
 package org.ovirt.engine.core.common.utils;
 
+import java.util.concurrent.ExecutorService;
+
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import javax.enterprise.concurrent.ManagedExecutorService;
@@ -28,6 +30,10 @@ public class EngineThreadPools implements BackendService {
             "java:jboss/ee/concurrency/scheduler/engineThreadMonitoringThreadPool";
     public static final String ENGINE_THREAD_FACTORY_NAME = "java:jboss/ee/concurrency/factory/engine";
 
+    private static final String BLOCKING_EXECUTOR_POOL = "pool";
+    private static final String BLOCKING_EXECUTOR_ELASTIC = "elastic";
+    private static final String BLOCKING_EXECUTOR_VIRTUAL = "virtual";
+
     @Resource(lookup = EngineThreadPools.COMMAND_COORDINATOR_POOL_NAME)
     private ManagedExecutorService cocoPool;
 
@@ -53,6 +59,46 @@ public class EngineThreadPools implements BackendService {
                         EngineLocalConfig.getInstance().getInteger("ENGINE_THREAD_POOL_MIN_SIZE"),
                         EngineLocalConfig.getInstance().getInteger("ENGINE_THREAD_POOL_MAX_SIZE"),
                         EngineLocalConfig.getInstance().getInteger("ENGINE_THREAD_POOL_QUEUE_SIZE")));
+        ThreadPoolUtil.setBlockingExecutorService(createBlockingExecutor());
+    }
+
+    /**
+     * Creates the executor of blocking tasks according to ENGINE_BLOCKING_TASKS_EXECUTOR:
+     * <ul>
+     * <li>pool - the tasks are executed by the engine thread pool</li>
+     * <li>elastic - the tasks are executed by a dedicated pool, which starts a thread per task up to
+     * ENGINE_BLOCKING_THREAD_POOL_MAX_SIZE threads</li>
+     * <li>virtual - each task is executed by a virtual thread, if supported by the JVM, otherwise as elastic</li>
+     * </ul>
+     *
+     * @return the executor of blocking tasks, or {@code null} if they are executed by the engine thread pool
+     */
+    private ExecutorService createBlockingExecutor() {
+        EngineLocalConfig config = EngineLocalConfig.getInstance();
+        String type = config.getProperty("ENGINE_BLOCKING_TASKS_EXECUTOR", true);
+        if (type == null || BLOCKING_EXECUTOR_POOL.equals(type)) {
+            return null;
+        }
+
+        if (BLOCKING_EXECUTOR_VIRTUAL.equals(type)) {
+            ExecutorService virtualThreadExecutor = ThreadPoolUtil.createVirtualThreadPerTaskExecutor();
+            if (virtualThreadExecutor != null) {
+                log.info("Blocking tasks are executed by virtual threads");
+                return virtualThreadExecutor;
+            }
+            log.warn("Virtual threads are not supported by the JVM, blocking tasks are executed by an elastic pool");
+        } else if (!BLOCKING_EXECUTOR_ELASTIC.equals(type)) {
+            log.warn("Unknown blocking tasks executor '{}', blocking tasks are executed by the engine thread pool",
+                    type);
+            return null;
+        }
+
+        int maxThreads = config.getInteger("ENGINE_BLOCKING_THREAD_POOL_MAX_SIZE");
+        return new InternalThreadExecutor("EngineBlockingThreadPool",
+                threadFactory,
+                maxThreads,
+                maxThreads,
+                config.getInteger("ENGINE_THREAD_POOL_QUEUE_SIZE"));
     }
 
     @Produces
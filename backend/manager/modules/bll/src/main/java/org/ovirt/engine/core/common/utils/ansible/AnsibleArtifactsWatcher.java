@@ -0,0 +1,217 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.engine.core.common.utils.ansible;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Singleton;
+
+import org.ovirt.engine.core.common.utils.EngineThreadPools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the artifacts of the running playbooks for new job events.
+ * <p>
+ * A single thread waits on a {@link WatchService} for the files created in the job events directories of all the
+ * watched playbooks, and wakes up the threads waiting for the events of each playbook, so they don't have to poll
+ * the directories. The job events directory is created by ansible-runner after the playbook starts, so until it
+ * exists, the deepest existing directory on its path is watched for it. If the watching thread stops on an
+ * unexpected error, the next watched playbook starts a new one.
+ */
+@Singleton
+public class AnsibleArtifactsWatcher {
+    private static final Logger log = LoggerFactory.getLogger(AnsibleArtifactsWatcher.class);
+
+    private final Map<WatchKey, PlayArtifacts> watchedDirectories = new ConcurrentHashMap<>();
+    private WatchService watchService;
+
+    @Resource(lookup = EngineThreadPools.ENGINE_THREAD_FACTORY_NAME)
+    private ThreadFactory threadFactory;
+
+    public AnsibleArtifactsWatcher() {
+    }
+
+    AnsibleArtifactsWatcher(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Starts watching the artifacts of a playbook.
+     *
+     * @param playDir
+     *            the private data directory of the playbook
+     * @param jobEventsDir
+     *            the job events directory of the playbook, within its private data directory
+     * @return the watched artifacts, which must be closed when the playbook events are no longer awaited
+     */
+    public PlayArtifacts watch(Path playDir, Path jobEventsDir) throws IOException {
+        PlayArtifacts artifacts = new PlayArtifacts(playDir, jobEventsDir, getWatchService());
+        artifacts.registerDirectories();
+        return artifacts;
+    }
+
+    private synchronized WatchService getWatchService() throws IOException {
+        if (watchService == null) {
+            WatchService newWatchService = FileSystems.getDefault().newWatchService();
+            Thread watcherThread = threadFactory.newThread(() -> processEvents(newWatchService));
+            watcherThread.setName("ansible-artifacts-watcher");
+            watcherThread.start();
+            watchService = newWatchService;
+        }
+        return watchService;
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ex) {
+                log.debug("Exception", ex);
+            }
+            watchService = null;
+        }
+    }
+
+    int getWatchedDirectoriesCount() {
+        return watchedDirectories.size();
+    }
+
+    private void processEvents(WatchService watchService) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                try {
+                    key.pollEvents();
+                    PlayArtifacts artifacts = watchedDirectories.get(key);
+                    if (artifacts != null) {
+                        artifacts.registerDirectories();
+                        artifacts.changed();
+                    }
+                } catch (RuntimeException ex) {
+                    log.error("Failed to process Ansible artifacts events: {}", ex.getMessage());
+                    log.debug("Exception", ex);
+                }
+                if (!key.reset()) {
+                    watchedDirectories.remove(key);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException ex) {
+            log.debug("Stopped watching Ansible artifacts");
+        } finally {
+            discard(watchService);
+        }
+    }
+
+    /**
+     * Closes the given watch service, if its thread stopped while it's still in use, so the next watched playbook
+     * starts a new one.
+     */
+    private synchronized void discard(WatchService stoppedWatchService) {
+        if (watchService == stoppedWatchService) {
+            log.error("Stopped watching Ansible artifacts unexpectedly, a new watcher is started on the next playbook");
+            stop();
+        }
+    }
+
+    /**
+     * The artifacts of a playbook, whose job events are awaited.
+     */
+    public class PlayArtifacts implements AutoCloseable {
+        private final List<Path> directories = new ArrayList<>();
+        private final Set<WatchKey> keys = ConcurrentHashMap.newKeySet();
+        private final WatchService watchService;
+        private boolean changed;
+        private volatile boolean closed;
+
+        private PlayArtifacts(Path playDir, Path jobEventsDir, WatchService watchService) {
+            this.watchService = watchService;
+            Path dir = playDir;
+            directories.add(dir);
+            for (Path name : playDir.relativize(jobEventsDir)) {
+                dir = dir.resolve(name);
+                directories.add(dir);
+            }
+        }
+
+        /**
+         * Watches the existing directories on the path to the job events directory.
+         */
+        private void registerDirectories() {
+            for (Path dir : directories) {
+                if (closed || !Files.isDirectory(dir)) {
+                    return;
+                }
+                try {
+                    WatchKey key = dir.register(watchService, ENTRY_CREATE);
+                    if (keys.add(key)) {
+                        watchedDirectories.put(key, this);
+                        if (closed) {
+                            // closed meanwhile, and the key may have been missed
+                            close();
+                        }
+                    }
+                } catch (IOException | ClosedWatchServiceException ex) {
+                    log.debug("Failed to watch Ansible artifacts directory '{}': {}", dir, ex.getMessage());
+                    return;
+                }
+            }
+        }
+
+        private synchronized void changed() {
+            changed = true;
+            notifyAll();
+        }
+
+        /**
+         * Waits until files are created in the job events directory.
+         *
+         * @param timeout
+         *            the maximum time to wait, in milliseconds
+         * @return {@code true} if files were created since the previous call, {@code false} if the timeout elapsed
+         */
+        public synchronized boolean awaitChange(long timeout) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (!changed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            changed = false;
+            return true;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            for (WatchKey key : keys) {
+                key.cancel();
+                watchedDirectories.remove(key);
+            }
+            keys.clear();
+        }
+    }
+}
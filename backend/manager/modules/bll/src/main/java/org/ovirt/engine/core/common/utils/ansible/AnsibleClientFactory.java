@@ -9,10 +9,14 @@ public class AnsibleClientFactory {
     @Inject
     private AnsibleCommandLogFileFactory ansibleCommandLogFileFactory;
 
+    @Inject
+    private AnsibleArtifactsWatcher artifactsWatcher;
+
     public AnsibleRunnerClient create(AnsibleCommandConfig command) {
         AnsibleRunnerLogger runnerLogger = ansibleCommandLogFileFactory.create(command);
         AnsibleRunnerClient client = new AnsibleRunnerClient();
         client.setLogger(runnerLogger);
+        client.setArtifactsWatcher(artifactsWatcher);
         return client;
     }
 
@@ -17,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -40,11 +41,24 @@ public class AnsibleRunnerClient {
     private static Logger log = LoggerFactory.getLogger(AnsibleRunnerClient.class);
     private ObjectMapper mapper;
     private AnsibleRunnerLogger runnerLogger;
+    private AnsibleArtifactsWatcher artifactsWatcher;
+    private final Path runnerPath;
     private String lastEvent = "";
+    private boolean playEnded;
     private static final int POLL_INTERVAL = 3000;
+    /**
+     * The time to wait for new events of a watched playbook before looking for them anyway, in case the creation of
+     * the job events directory and of the first events was missed by the watcher.
+     */
+    private static final int WATCH_INTERVAL = 30000;
     private AnsibleReturnValue returnValue;
 
     public AnsibleRunnerClient() {
+        this(AnsibleConstants.ANSIBLE_RUNNER_PATH);
+    }
+
+    AnsibleRunnerClient(Path runnerPath) {
+        this.runnerPath = runnerPath;
         this.mapper = JsonMapper
                 .builder()
                 .findAndAddModules()
@@ -53,58 +67,104 @@ public class AnsibleRunnerClient {
         this.returnValue = new AnsibleReturnValue(AnsibleReturnCode.ERROR);
     }
 
-    public Boolean playHasEnded(UUID uuid) {
-        String jobEvents = getJobEventsDir(uuid.toString());
-        File lastEventFile = new File(jobEvents + lastEvent);
-        String res = "";
-        try {
-                res = Files.readString(lastEventFile.toPath());
-            } catch (IOException e) {
-                return false;
-            }
-        return res.contains("playbook_on_stats");
+    /**
+     * @return whether the stats event of the playbook, which is its last event, was processed
+     */
+    private boolean playHasEnded() {
+        return playEnded;
     }
 
     public AnsibleReturnValue artifactHandler(UUID uuid, int lastEventID, int timeout, BiConsumer<String, String> fn)
             throws Exception {
-        int executionTime = 0;
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(timeout);
         setReturnValue(uuid);
-        while (!playHasEnded(uuid)) {
-            lastEventID = processEvents(uuid.toString(), lastEventID, fn, "", Paths.get(""));
-            if (lastEventID == -1) {
-                return returnValue;
-            }
-            executionTime += POLL_INTERVAL / 1000;
-            if (executionTime > timeout * 60) {
-                // Cancel playbook, and raise exception in case timeout occur:
-                cancelPlaybook(uuid, timeout);
-                throw new TimeoutException(
-                        "Play execution has reached timeout");
+        try (AnsibleArtifactsWatcher.PlayArtifacts artifacts = watchArtifacts(uuid.toString())) {
+            while (!playHasEnded()) {
+                lastEventID = processEvents(uuid.toString(), lastEventID, fn, "", Paths.get(""));
+                if (lastEventID == -1) {
+                    return returnValue;
+                }
+                if (playHasEnded()) {
+                    break;
+                }
+                if (System.nanoTime() - deadline > 0) {
+                    // Cancel playbook, and raise exception in case timeout occur:
+                    cancelPlaybook(uuid, timeout);
+                    throw new TimeoutException(
+                            "Play execution has reached timeout");
+                }
+                if (artifacts != null) {
+                    artifacts.awaitChange(WATCH_INTERVAL);
+                } else {
+                    Thread.sleep(POLL_INTERVAL);
+                }
             }
-            Thread.sleep(POLL_INTERVAL);
         }
         returnValue.setAnsibleReturnCode(AnsibleReturnCode.OK);
         return returnValue;
     }
 
+    /**
+     * Starts watching the artifacts of the playbook for new events.
+     *
+     * @return the watched artifacts, or {@code null} if they can't be watched and have to be polled
+     */
+    private AnsibleArtifactsWatcher.PlayArtifacts watchArtifacts(String playUuid) {
+        if (artifactsWatcher == null) {
+            return null;
+        }
+        try {
+            return artifactsWatcher.watch(runnerPath.resolve(playUuid), Paths.get(getJobEventsDir(playUuid)));
+        } catch (IOException ex) {
+            log.warn("Failed to watch the artifacts of playbook '{}', polling them: {}", playUuid, ex.getMessage());
+            log.debug("Exception", ex);
+            return null;
+        }
+    }
+
     public void setReturnValue(UUID uuid) {
         returnValue.setPlayUuid(uuid.toString());
         returnValue.setLogFile(runnerLogger.getLogFile());
     }
 
-    public String getNextEvent(String playUuid, int lastEventId) {
-        String jobEvents = getJobEventsDir(playUuid);
-        if (!Files.exists(Paths.get(jobEvents))) {
-            return null;
+    /**
+     * Lists the events of the playbook which follow the given one, in their order, up to the first one which isn't
+     * complete yet.
+     */
+    private List<String> getNextEvents(String playUuid, int lastEventId) {
+        File[] files = new File(getJobEventsDir(playUuid)).listFiles();
+        if (files == null) {
+            return List.of();
         }
         // ignoring incompleted json files, add to list only events that haven't been handles yet.
-        return Stream.of(new File(jobEvents).listFiles())
-                .map(File::getName)
-                .filter(item -> !item.contains("partial"))
-                .filter(item -> !item.endsWith(".tmp"))
-                .filter(item -> item.startsWith((lastEventId + 1) + "-"))
-                .findFirst()
-                .orElse(null);
+        Map<Integer, String> newEvents = new TreeMap<>();
+        for (File file : files) {
+            String item = file.getName();
+            if (item.contains("partial") || item.endsWith(".tmp")) {
+                continue;
+            }
+            int eventId = getEventId(item);
+            if (eventId > lastEventId) {
+                newEvents.put(eventId, item);
+            }
+        }
+        List<String> events = new ArrayList<>(newEvents.size());
+        int nextEventId = lastEventId + 1;
+        for (Map.Entry<Integer, String> event : newEvents.entrySet()) {
+            if (event.getKey() != nextEventId++) {
+                break;
+            }
+            events.add(event.getValue());
+        }
+        return events;
+    }
+
+    private static int getEventId(String event) {
+        try {
+            return Integer.parseInt(event.substring(0, event.indexOf('-')));
+        } catch (RuntimeException ex) {
+            return -1;
+        }
     }
 
     public int getLastEventId() {
@@ -112,7 +172,7 @@ public class AnsibleRunnerClient {
     }
 
     public String getJobEventsDir(String playUuid) {
-        return String.format("%1$s/%2$s/artifacts/%2$s/job_events/", AnsibleConstants.ANSIBLE_RUNNER_PATH, playUuid);
+        return String.format("%1$s/%2$s/artifacts/%2$s/job_events/", runnerPath, playUuid);
     }
 
     public int processEvents(String playUuid,
@@ -121,12 +181,7 @@ public class AnsibleRunnerClient {
             String msg,
             Path logFile) {
         String jobEvents = getJobEventsDir(playUuid);
-        while(true){
-            String event = getNextEvent(playUuid, lastEventId);
-            if (event == null) {
-                break;
-            }
-
+        for (String event : getNextEvents(playUuid, lastEventId)) {
             JsonNode currentNode = getEvent(jobEvents + event);
             String stdout = RunnerJsonNode.getStdout(currentNode);
 
@@ -186,24 +241,15 @@ public class AnsibleRunnerClient {
                 }
             }
             lastEvent = event;
+            playEnded = RunnerJsonNode.playbookStats(currentNode);
             returnValue.setLastEventId(getLastEventId());
             lastEventId++;
         }
         return lastEvent.isEmpty() ? lastEventId : getLastEventId();
     }
 
-    private Boolean jsonIsValid(String content) {
-        try {
-            final ObjectMapper mapper = new ObjectMapper();
-            mapper.readTree(content);
-            return true;
-        } catch (IOException e) {
-            return false;
-        }
-    }
-
     public void cancelPlaybook(UUID uuid, int timeout) throws Exception {
-        File privateDataDir = new File(String.format("%1$s/%2$s/", AnsibleConstants.ANSIBLE_RUNNER_PATH, uuid));
+        File privateDataDir = new File(String.format("%1$s/%2$s/", runnerPath, uuid));
         File output = new File(String.format("%1$s/output.log", privateDataDir));
         String command = String.format("ansible-runner stop %1$s", privateDataDir);
         Process ansibleProcess;
@@ -229,7 +275,7 @@ public class AnsibleRunnerClient {
     }
 
     public void runPlaybook(List<String> command, int timeout, String uuid) throws Exception {
-        File output = new File(String.format("%1$s/%2$s/output.log", AnsibleConstants.ANSIBLE_RUNNER_PATH, uuid));
+        File output = new File(String.format("%1$s/%2$s/output.log", runnerPath, uuid));
         ProcessBuilder ansibleProcessBuilder =
                 new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(output);
         Process ansibleProcess = ansibleProcessBuilder.start();
@@ -265,8 +311,8 @@ public class AnsibleRunnerClient {
     public PlaybookStatus getPlaybookStatus(String playUuid) {
         String status = "";
         String rc = "";
-        String privateRunDir = String.format("%1$s/%2$s/", AnsibleConstants.ANSIBLE_RUNNER_PATH, playUuid);
-        String playData = String.format("%1$s/%2$s/artifacts/%2$s/", AnsibleConstants.ANSIBLE_RUNNER_PATH, playUuid);
+        String privateRunDir = String.format("%1$s/%2$s/", runnerPath, playUuid);
+        String playData = String.format("%1$s/%2$s/artifacts/%2$s/", runnerPath, playUuid);
         try {
             if (Files.exists(Paths.get(String.format("%1$s/status", playData)))) {
                 status = Files.readString(Paths.get(String.format("%1$s/status", playData)));
@@ -308,15 +354,8 @@ public class AnsibleRunnerClient {
     private JsonNode getEvent(String eventPath) {
         // Fetch the event info:
         JsonNode currentNode = null;
-        ObjectMapper mapper = new ObjectMapper();
         try {
             String jsonOutput = Files.readString(Paths.get(eventPath), StandardCharsets.UTF_8);
-            if (!jsonIsValid(jsonOutput)) {
-                throw new AnsibleRunnerCallException(
-                        "Failed to fetch info about event: %1$s",
-                        eventPath
-                );
-            }
             currentNode = mapper.readTree(jsonOutput);
         } catch(Exception ex) {
             throw new AnsibleRunnerCallException("Failed to read event: %1$s", eventPath);
@@ -358,6 +397,10 @@ public class AnsibleRunnerClient {
         return RunnerJsonNode.getStdout(taskNode);
     }
 
+    public void setArtifactsWatcher(AnsibleArtifactsWatcher artifactsWatcher) {
+        this.artifactsWatcher = artifactsWatcher;
+    }
+
     public void setLogger(AnsibleRunnerLogger runnerLogger) {
         this.runnerLogger = runnerLogger;
     }
@@ -0,0 +1,57 @@
+package org.ovirt.engine.core.bll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class CpuFlagsTest {
+
+    @Test
+    public void sameFlagsStringIsInterned() {
+        String flags = "vmx,sse2,nx";
+        assertSame(CpuFlags.valueOf(flags), CpuFlags.valueOf(new String(flags)));
+        assertSame(CpuFlags.EMPTY, CpuFlags.valueOf(""));
+        assertSame(CpuFlags.EMPTY, CpuFlags.valueOf(null));
+    }
+
+    @Test
+    public void missingFlagsAreListedInOriginalOrder() {
+        CpuFlags cluster = CpuFlags.valueOf("sse4_2,vmx,nx,aes");
+        CpuFlags host = CpuFlags.valueOf("vmx,model_Nehalem,sse4_2");
+
+        assertFalse(host.containsAll(cluster));
+        assertEquals(Arrays.asList("nx", "aes"), cluster.missingFrom(host));
+        assertEquals(Collections.emptyList(), CpuFlags.valueOf("vmx,sse4_2").missingFrom(host));
+        assertEquals(Arrays.asList("vmx", "nx"), CpuFlags.valueOf("vmx,nx").missingFrom(CpuFlags.EMPTY));
+    }
+
+    @Test
+    public void flagsAreComparedAsSets() {
+        CpuFlags flags = CpuFlags.of(Arrays.asList("b", "a"));
+        assertTrue(flags.sameFlags(CpuFlags.valueOf("a,b,a")));
+        assertTrue(flags.contains("a"));
+        assertFalse(flags.contains("c"));
+        assertFalse(flags.contains("unknown-flag"));
+        assertTrue(flags.containsAll(CpuFlags.EMPTY));
+    }
+
+    @Test
+    public void setsOfDifferentSizesAreCompared() {
+        // registers enough flags for the sets to span several words
+        String manyFlags = IntStream.range(0, 200).mapToObj(i -> "flag_" + i).collect(Collectors.joining(","));
+        CpuFlags many = CpuFlags.valueOf(manyFlags);
+        CpuFlags few = CpuFlags.valueOf("flag_0,flag_199");
+
+        assertTrue(many.containsAll(few));
+        assertFalse(few.containsAll(many));
+        assertEquals(198, many.missingFrom(few).size());
+    }
+}
@@ -1,21 +1,42 @@
 package org.ovirt.engine.core.bll;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.bll.job.JobRepositoryImpl;
 import org.ovirt.engine.core.common.action.EndExternalStepParameters;
+import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.job.Job;
 import org.ovirt.engine.core.common.job.Step;
+import org.ovirt.engine.core.common.job.StepEnum;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dao.JobDao;
+import org.ovirt.engine.core.dao.JobSubjectEntityDao;
 import org.ovirt.engine.core.dao.StepDao;
+import org.ovirt.engine.core.dao.StepSubjectEntityDao;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
 
+@ExtendWith(MockConfigExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class EndExternalStepCommandTest extends BaseCommandTest {
 
@@ -30,8 +51,18 @@ public class EndExternalStepCommandTest extends BaseCommandTest {
 
     @Mock
     private JobDao jobDaoMock;
-    @Mock
-    private StepDao stepDaoMock;
+
+    private final StepDao stepDaoMock = mock(StepDao.class);
+
+    /**
+     * Journals the steps created through it, as it does in the engine.
+     */
+    @Spy
+    private JobRepositoryImpl jobRepository = new JobRepositoryImpl(mock(JobDao.class),
+            mock(JobSubjectEntityDao.class),
+            stepDaoMock,
+            mock(StepSubjectEntityDao.class),
+            mock(ManagedScheduledExecutorService.class));
 
     private EndExternalStepParameters parameters = new EndExternalStepParameters(stepId, true);
 
@@ -72,8 +103,13 @@ public class EndExternalStepCommandTest extends BaseCommandTest {
         return step;
     }
 
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(MockConfigDescriptor.of(ConfigValues.JobStepsFlushIntervalInMillis, 500));
+    }
+
     @BeforeEach
     public void setupMock() {
+        jobRepository.init();
         when(jobDaoMock.get(jobId)).thenReturn(makeExternalTestJob(jobId));
         when(jobDaoMock.get(nonExternalJobId)).thenReturn(makeNonExternalTestJob(nonExternalJobId));
         when(stepDaoMock.get(stepId)).thenReturn(makeExternalTestStep(jobId, stepId));
@@ -89,6 +125,26 @@ public class EndExternalStepCommandTest extends BaseCommandTest {
         assertTrue(command.validate());
     }
 
+    @Test
+    public void validateStepAddedWithinFlushIntervalSucceeds() {
+        Map<Guid, Step> persistedSteps = new HashMap<>();
+        doAnswer(invocation -> {
+            invocation.<Collection<Step>> getArgument(0).forEach(s -> persistedSteps.put(s.getId(), s));
+            return null;
+        }).when(stepDaoMock).saveAllInBatch(anyCollection());
+        when(stepDaoMock.get(any())).thenAnswer(invocation -> persistedSteps.get(invocation.getArgument(0)));
+
+        // a step added over the API, which has no external system, is journaled rather than persisted right away
+        Step step = new Step(StepEnum.VALIDATING);
+        step.setJobId(jobId);
+        step.setExternal(true);
+        jobRepository.saveStep(step);
+        parameters.setId(step.getId());
+        parameters.setJobId(jobId);
+
+        assertTrue(command.validate());
+    }
+
     @Test
     public void validateNonExistingJobFails() {
         parameters.setId(nonExistingStepId);
@@ -0,0 +1,277 @@
+package org.ovirt.engine.core.bll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Answers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.bll.interfaces.BackendInternal;
+import org.ovirt.engine.core.bll.scheduling.SchedulingManager;
+import org.ovirt.engine.core.common.AuditLogType;
+import org.ovirt.engine.core.common.action.ActionReturnValue;
+import org.ovirt.engine.core.common.action.ActionType;
+import org.ovirt.engine.core.common.action.RunVmParams;
+import org.ovirt.engine.core.common.businessentities.Cluster;
+import org.ovirt.engine.core.common.businessentities.VDS;
+import org.ovirt.engine.core.common.businessentities.VM;
+import org.ovirt.engine.core.common.businessentities.VMStatus;
+import org.ovirt.engine.core.common.businessentities.VmExitStatus;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
+import org.ovirt.engine.core.dao.ClusterDao;
+import org.ovirt.engine.core.dao.SnapshotDao;
+import org.ovirt.engine.core.dao.VmDao;
+import org.ovirt.engine.core.utils.ExecutorServiceExtension;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.utils.lock.LockManager;
+import org.ovirt.engine.core.utils.lock.LockingResult;
+
+/**
+ * Restarts HA VMs that went down with a failed host on a cluster of simulated hosts, which take some time to start a
+ * VM and can only run VMs up to their memory.
+ */
+@ExtendWith({MockitoExtension.class, MockConfigExtension.class})
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class HaAutoStartVmsRunnerTest {
+
+    private static final int MAX_CONCURRENT_STARTS = 4;
+    private static final int HOST_MEMORY = 4096;
+    private static final int VM_MEMORY = 1024;
+    private static final long START_DURATION_MS = 50;
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(
+                MockConfigDescriptor.of(ConfigValues.RetryToRunAutoStartVmShortIntervalInSeconds, 30),
+                MockConfigDescriptor.of(ConfigValues.RetryToRunAutoStartVmLongIntervalInSeconds, 1800),
+                MockConfigDescriptor.of(ConfigValues.NumOfTriesToRunFailedAutoStartVmInShortIntervals, 10),
+                MockConfigDescriptor.of(ConfigValues.DelayToRunAutoStartVmIntervalInSeconds, 10),
+                MockConfigDescriptor.of(ConfigValues.MaxNumOfSkipsBeforeAutoStartVm, 3),
+                MockConfigDescriptor.of(ConfigValues.MaxTimeAutoStartBlockedOnPriority, 600),
+                MockConfigDescriptor.of(ConfigValues.AutoStartVmsRunnerMaxConcurrentStarts, MAX_CONCURRENT_STARTS)
+        );
+    }
+
+    @Mock
+    private AuditLogDirector auditLogDirector;
+
+    @Mock
+    private LockManager lockManager;
+
+    @Mock
+    private BackendInternal backend;
+
+    @Mock
+    private VmDao vmDao;
+
+    @Mock
+    private SnapshotDao snapshotDao;
+
+    @Mock
+    private ClusterDao clusterDao;
+
+    @Mock
+    private SchedulingManager schedulingManager;
+
+    @Mock(answer = Answers.RETURNS_SELF)
+    private SchedulingManager.CallBuilder callBuilder;
+
+    @InjectMocks
+    private HaAutoStartVmsRunner runner;
+
+    @RegisterExtension
+    final ExecutorServiceExtension executor = new ExecutorServiceExtension(MAX_CONCURRENT_STARTS * 2);
+    private final Guid clusterId = Guid.newGuid();
+    private final Map<Guid, VM> vms = new HashMap<>();
+    private final List<SimulatedHost> hosts = new ArrayList<>();
+    private final List<Guid> runVms = new CopyOnWriteArrayList<>();
+    private final AtomicInteger concurrentRuns = new AtomicInteger();
+    private final AtomicInteger maxConcurrentRuns = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < 3; i++) {
+            hosts.add(new SimulatedHost(HOST_MEMORY));
+        }
+
+        when(vmDao.getVmsByIds(any())).thenAnswer(invocation -> invocation.<Collection<Guid>> getArgument(0)
+                .stream()
+                .map(vms::get)
+                .collect(Collectors.toList()));
+        when(lockManager.acquireLock(any())).thenReturn(LockingResult.success());
+        when(clusterDao.get(clusterId)).thenReturn(new Cluster());
+        when(schedulingManager.prepareCall(any())).thenReturn(callBuilder);
+        when(callBuilder.canSchedule(anyList())).thenAnswer(invocation -> canSchedule(invocation.getArgument(0)));
+        when(backend.runInternalAction(eq(ActionType.RunVm), any(), any()))
+                .thenAnswer(invocation -> runVm(invocation.<RunVmParams> getArgument(1).getVmId()));
+    }
+
+    @Test
+    public void vmsAreRestartedConcurrently() {
+        List<Guid> vmIds = createVms(12, 1, VM_MEMORY);
+
+        runner.addVmsToRun(vmIds);
+        runner.startFailedAutoStartVms();
+
+        assertEquals(vmIds.size(), runVms.size());
+        vmIds.forEach(vmId -> assertEquals(VMStatus.WaitForLaunch, vms.get(vmId).getStatus()));
+        assertTrue(maxConcurrentRuns.get() > 1);
+        assertTrue(maxConcurrentRuns.get() <= MAX_CONCURRENT_STARTS);
+        assertEquals(vmIds.size(), runner.getLastTimesToRestart().size());
+        assertEquals(vmIds.size(), runner.getRestartedVms());
+    }
+
+    @Test
+    public void lowerPriorityVmsWaitForHigherPriorityVms() {
+        List<Guid> lowPriorityVmIds = createVms(3, 1, VM_MEMORY);
+        List<Guid> highPriorityVmIds = createVms(3, 100, VM_MEMORY);
+
+        runner.addVmsToRun(lowPriorityVmIds);
+        runner.addVmsToRun(highPriorityVmIds);
+        runner.startFailedAutoStartVms();
+
+        assertEquals(highPriorityVmIds.size(), runVms.size());
+        assertTrue(runVms.containsAll(highPriorityVmIds));
+
+        // Still powering up, the VMs with lower priority keep waiting
+        runner.startFailedAutoStartVms();
+        assertEquals(highPriorityVmIds.size(), runVms.size());
+
+        highPriorityVmIds.forEach(vmId -> vms.get(vmId).setStatus(VMStatus.Up));
+        runner.startFailedAutoStartVms();
+
+        assertEquals(highPriorityVmIds.size() + lowPriorityVmIds.size(), runVms.size());
+        assertTrue(runVms.subList(highPriorityVmIds.size(), runVms.size()).containsAll(lowPriorityVmIds));
+        assertEquals(lowPriorityVmIds.size(), runner.getVmsToRestart());
+    }
+
+    @Test
+    public void vmThatCannotBeScheduledIsNotRun() {
+        List<Guid> vmIds = createVms(3, 1, VM_MEMORY);
+        Guid hugeVmId = createVms(1, 1, HOST_MEMORY * 2).get(0);
+
+        runner.addVmsToRun(vmIds);
+        runner.addVmsToRun(Collections.singletonList(hugeVmId));
+        runner.startFailedAutoStartVms();
+
+        assertEquals(vmIds.size(), runVms.size());
+        assertTrue(runVms.containsAll(vmIds));
+        verify(lockManager).releaseLock(any());
+        verify(auditLogDirector).log(any(), eq(AuditLogType.HA_VM_RESTART_FAILED));
+        assertEquals(vmIds.size() + 1, runner.getVmsToRestart());
+    }
+
+    @Test
+    public void vmsBeyondHostsCapacityFailToRun() {
+        int capacity = hosts.size() * HOST_MEMORY / VM_MEMORY;
+        List<Guid> vmIds = createVms(capacity + 2, 1, VM_MEMORY);
+
+        runner.addVmsToRun(vmIds);
+        runner.startFailedAutoStartVms();
+
+        assertEquals(vmIds.size(), runVms.size());
+        assertEquals(capacity, vmIds.stream().filter(vmId -> vms.get(vmId).getStatus() == VMStatus.WaitForLaunch).count());
+        verify(auditLogDirector, times(2)).log(any(), eq(AuditLogType.HA_VM_RESTART_FAILED));
+        assertEquals(capacity, runner.getRestartedVms());
+    }
+
+    private List<Guid> createVms(int count, int priority, int memory) {
+        List<Guid> vmIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            VM vm = new VM();
+            vm.setId(Guid.newGuid());
+            vm.setName("vm-" + priority + "-" + vms.size());
+            vm.setClusterId(clusterId);
+            vm.setPriority(priority);
+            vm.setVmMemSizeMb(memory);
+            vm.setAutoStartup(true);
+            vm.setStatus(VMStatus.Down);
+            vm.setExitStatus(VmExitStatus.Error);
+            vms.put(vm.getId(), vm);
+            vmIds.add(vm.getId());
+        }
+        return vmIds;
+    }
+
+    private Map<Guid, List<VDS>> canSchedule(List<VM> vmsToSchedule) {
+        Map<Guid, List<VDS>> result = new HashMap<>();
+        for (VM vm : vmsToSchedule) {
+            result.put(vm.getId(), hosts.stream()
+                    .filter(host -> host.canRun(vm))
+                    .map(host -> host.vds)
+                    .collect(Collectors.toList()));
+        }
+        return result;
+    }
+
+    private ActionReturnValue runVm(Guid vmId) throws InterruptedException {
+        int runs = concurrentRuns.incrementAndGet();
+        maxConcurrentRuns.accumulateAndGet(runs, Math::max);
+        runVms.add(vmId);
+        try {
+            VM vm = vms.get(vmId);
+            ActionReturnValue result = new ActionReturnValue();
+            SimulatedHost host = hosts.stream().filter(h -> h.tryRun(vm)).findFirst().orElse(null);
+            if (host == null) {
+                result.setActionReturnValue(VMStatus.Down);
+                return result;
+            }
+
+            Thread.sleep(START_DURATION_MS);
+            vm.setRunOnVds(host.vds.getId());
+            result.setActionReturnValue(VMStatus.WaitForLaunch);
+            result.setSucceeded(true);
+            return result;
+        } finally {
+            concurrentRuns.decrementAndGet();
+        }
+    }
+
+    private static class SimulatedHost {
+        private final VDS vds = new VDS();
+        private int freeMemory;
+
+        SimulatedHost(int memory) {
+            vds.setId(Guid.newGuid());
+            freeMemory = memory;
+        }
+
+        synchronized boolean canRun(VM vm) {
+            return freeMemory >= vm.getMemSizeMb();
+        }
+
+        synchronized boolean tryRun(VM vm) {
+            if (!canRun(vm)) {
+                return false;
+            }
+            freeMemory -= vm.getMemSizeMb();
+            return true;
+        }
+    }
+}
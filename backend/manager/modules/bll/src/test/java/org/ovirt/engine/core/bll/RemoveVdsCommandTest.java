@@ -64,6 +64,7 @@ import org.ovirt.engine.core.dao.VmStaticDao;
 import org.ovirt.engine.core.dao.gluster.GlusterBrickDao;
 import org.ovirt.engine.core.dao.gluster.GlusterHooksDao;
 import org.ovirt.engine.core.dao.gluster.GlusterVolumeDao;
+import org.ovirt.engine.core.vdsbroker.OutOfSyncInterfacesIndex;
 
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class RemoveVdsCommandTest extends BaseCommandTest {
@@ -127,6 +128,9 @@ public class RemoveVdsCommandTest extends BaseCommandTest {
     @Mock
     private TagDao tagDao;
 
+    @Mock
+    private OutOfSyncInterfacesIndex outOfSyncInterfacesIndex;
+
     /**
      * The command under test.
      */
@@ -0,0 +1,89 @@
+package org.ovirt.engine.core.bll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ServiceStartupGraphTest {
+
+    private ExecutorService executor;
+    private ServiceStartupGraph graph;
+    private List<String> started;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        graph = new ServiceStartupGraph();
+        started = new CopyOnWriteArrayList<>();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void servicesAreStartedAfterTheirDependencies() {
+        graph.add("a", () -> started.add("a"))
+                .add("b", () -> started.add("b"), "a")
+                .add("c", () -> started.add("c"), "a")
+                .add("d", () -> started.add("d"), "b", "c");
+        graph.start(executor);
+
+        assertEquals(4, started.size());
+        assertEquals("a", started.get(0));
+        assertEquals("d", started.get(3));
+        assertEquals(4, graph.getStartupTimes().size());
+    }
+
+    @Test
+    public void independentServicesAreStartedConcurrently() {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Runnable awaitOther = () -> {
+            try {
+                barrier.await(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        };
+        graph.add("a", awaitOther).add("b", awaitOther);
+        graph.start(executor);
+
+        assertFalse(barrier.isBroken());
+    }
+
+    @Test
+    public void dependentsOfFailedServiceAreNotStarted() {
+        RuntimeException failure = new RuntimeException("failed");
+        AtomicBoolean dependentStarted = new AtomicBoolean();
+        AtomicBoolean independentStarted = new AtomicBoolean();
+        graph.add("a", () -> {
+            throw failure;
+        })
+                .add("b", () -> dependentStarted.set(true), "a")
+                .add("c", () -> independentStarted.set(true));
+
+        assertSame(failure, assertThrows(RuntimeException.class, () -> graph.start(executor)));
+        assertFalse(dependentStarted.get());
+        assertTrue(independentStarted.get());
+    }
+
+    @Test
+    public void dependencyMustBeAddedBeforeDependent() {
+        assertThrows(IllegalArgumentException.class, () -> graph.add("b", () -> {}, "a"));
+    }
+}
@@ -0,0 +1,104 @@
+package org.ovirt.engine.core.bll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.compat.Guid;
+
+public class VmPoolPrestartThrottleTest {
+
+    private static final int MAX_STARTS_PER_HOST = 2;
+    private static final int MAX_STARTS_PER_STORAGE_DOMAIN = 3;
+
+    private final VmPoolPrestartThrottle throttle = new VmPoolPrestartThrottle();
+    private final Guid host1 = Guid.newGuid();
+    private final Guid host2 = Guid.newGuid();
+    private final Guid storageDomain = Guid.newGuid();
+
+    @Test
+    public void vmsAreSpreadOverCandidateHosts() {
+        assertTrue(admit(Guid.newGuid(), storageDomain, host1, host2));
+        assertTrue(admit(Guid.newGuid(), storageDomain, host1, host2));
+
+        assertEquals(1, throttle.getStartsOnHost(host1));
+        assertEquals(1, throttle.getStartsOnHost(host2));
+        assertEquals(2, throttle.getStartsFromStorageDomain(storageDomain));
+    }
+
+    @Test
+    public void vmIsNotAdmittedWhenAllCandidateHostsAreBusy() {
+        assertTrue(admit(Guid.newGuid(), null, host1));
+        assertTrue(admit(Guid.newGuid(), null, host1));
+
+        assertFalse(admit(Guid.newGuid(), null, host1));
+        assertTrue(admit(Guid.newGuid(), null, host1, host2));
+    }
+
+    @Test
+    public void vmIsNotAdmittedWhenStorageDomainIsBusy() {
+        for (int i = 0; i < MAX_STARTS_PER_STORAGE_DOMAIN; i++) {
+            assertTrue(admit(Guid.newGuid(), storageDomain, Guid.newGuid()));
+        }
+
+        assertFalse(admit(Guid.newGuid(), storageDomain, host1));
+        assertTrue(admit(Guid.newGuid(), Guid.newGuid(), host1));
+    }
+
+    @Test
+    public void vmIsAdmittedOnlyOnce() {
+        Guid vmId = Guid.newGuid();
+        assertTrue(admit(vmId, storageDomain, host1));
+
+        assertFalse(admit(vmId, storageDomain, host1));
+        assertTrue(throttle.isPrestarting(vmId));
+        assertEquals(1, throttle.getPrestartingVmsCount());
+    }
+
+    @Test
+    public void placedVmIsMovedToItsHost() {
+        Guid vmId = Guid.newGuid();
+        admit(vmId, storageDomain, host1);
+
+        throttle.placed(vmId, host2);
+
+        assertEquals(0, throttle.getStartsOnHost(host1));
+        assertEquals(1, throttle.getStartsOnHost(host2));
+    }
+
+    @Test
+    public void releaseFreesHostAndStorageDomain() {
+        Guid vmId = Guid.newGuid();
+        admit(vmId, storageDomain, host1);
+
+        assertTrue(throttle.release(vmId) >= 0);
+
+        assertFalse(throttle.isPrestarting(vmId));
+        assertEquals(0, throttle.getStartsOnHost(host1));
+        assertEquals(0, throttle.getStartsFromStorageDomain(storageDomain));
+        assertEquals(-1, throttle.release(vmId));
+    }
+
+    @Test
+    public void vmWithoutCandidateHostsIsNotAdmitted() {
+        assertFalse(throttle.tryAdmit(Guid.newGuid(),
+                storageDomain,
+                Collections.emptyList(),
+                MAX_STARTS_PER_HOST,
+                MAX_STARTS_PER_STORAGE_DOMAIN));
+    }
+
+    private boolean admit(Guid vmId, Guid storageDomainId, Guid... hosts) {
+        List<Guid> candidateHosts = Arrays.asList(hosts);
+        return throttle.tryAdmit(vmId,
+                storageDomainId,
+                candidateHosts,
+                MAX_STARTS_PER_HOST,
+                MAX_STARTS_PER_STORAGE_DOMAIN);
+    }
+}
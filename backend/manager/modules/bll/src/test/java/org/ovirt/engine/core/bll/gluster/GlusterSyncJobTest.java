@@ -1,12 +1,16 @@
 package org.ovirt.engine.core.bll.gluster;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -14,12 +18,20 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
+import javax.enterprise.inject.Instance;
 import javax.transaction.TransactionManager;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.mockito.Answers;
 import org.mockito.ArgumentMatcher;
 import org.mockito.InOrder;
@@ -65,6 +77,7 @@ import org.ovirt.engine.core.dao.gluster.GlusterOptionDao;
 import org.ovirt.engine.core.dao.gluster.GlusterServerDao;
 import org.ovirt.engine.core.dao.gluster.GlusterVolumeDao;
 import org.ovirt.engine.core.dao.network.NetworkDao;
+import org.ovirt.engine.core.utils.ExecutorServiceExtension;
 import org.ovirt.engine.core.utils.InjectedMock;
 import org.ovirt.engine.core.utils.InjectorExtension;
 import org.ovirt.engine.core.utils.MockConfigDescriptor;
@@ -82,7 +95,9 @@ public class GlusterSyncJobTest {
     private GlusterUtil glusterUtil;
 
     public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
-        return Stream.of(MockConfigDescriptor.of(ConfigValues.GlusterMetaVolumeName, "gluster_shared_storage"));
+        return Stream.of(MockConfigDescriptor.of(ConfigValues.GlusterMetaVolumeName, "gluster_shared_storage"),
+                MockConfigDescriptor.of(ConfigValues.GlusterRefreshClustersParallelism, 4),
+                MockConfigDescriptor.of(ConfigValues.GlusterClusterRefreshTimeoutInSecs, 1));
     }
 
     @Spy
@@ -142,6 +157,10 @@ public class GlusterSyncJobTest {
     private GlusterServerDao glusterServerDao;
     @Mock
     private NetworkDao networkDao;
+    @Mock
+    private GlusterJobsManager jobsManager;
+    @Mock
+    private Instance<GlusterJobsManager> jobsManagerInstance;
 
     private Cluster existingCluster;
     private VDS existingServer1;
@@ -155,6 +174,14 @@ public class GlusterSyncJobTest {
     private final List<Guid> addedBrickIds = new ArrayList<>();
     private final List<GlusterBrickEntity> bricksWithChangedStatus = new ArrayList<>();
 
+    @RegisterExtension
+    final ExecutorServiceExtension executor = new ExecutorServiceExtension(4);
+
+    @BeforeEach
+    public void setUp() {
+        doReturn(jobsManager).when(jobsManagerInstance).get();
+    }
+
     private void createObjects() {
         existingServer1 = createServer(SERVER_ID_1, SERVER_NAME_1);
         existingServer2 = createServer(SERVER_ID_2, SERVER_NAME_2);
@@ -164,6 +191,8 @@ public class GlusterSyncJobTest {
 
         existingDistVol = createDistVol(DIST_VOL_NAME, EXISTING_VOL_DIST_ID);
         existingReplVol = createReplVol();
+        existingVolumes.add(existingDistVol);
+        existingVolumes.add(existingReplVol);
     }
 
     private void createCluster() {
@@ -189,7 +218,6 @@ public class GlusterSyncJobTest {
         vol.getAdvancedDetails().setCapacityInfo(getCapacityInfo(volId));
         vol.addBrick(createBrick(volId, existingServer1, DIST_BRICK_D1));
         vol.addBrick(createBrick(volId, existingServer1, DIST_BRICK_D2));
-        existingVolumes.add(vol);
         return vol;
     }
 
@@ -210,7 +238,6 @@ public class GlusterSyncJobTest {
         vol.addBrick(createBrick(EXISTING_VOL_REPL_ID, existingServer2, REPL_BRICK_R2D2));
         vol.setOption(OPTION_AUTH_ALLOW, "*");
         vol.setOption(OPTION_NFS_DISABLE, OPTION_VALUE_OFF);
-        existingVolumes.add(vol);
         return vol;
     }
 
@@ -342,7 +369,6 @@ public class GlusterSyncJobTest {
         doReturn(Collections.singletonList(existingCluster)).when(clusterDao).getAll();
         doReturn(existingCluster).when(clusterDao).get(any());
         doReturn(existingServers).when(vdsDao).getAllForCluster(CLUSTER_ID);
-        doReturn(existingReplVol).when(volumeDao).getById(EXISTING_VOL_REPL_ID);
         doReturn(existingVolumes).when(volumeDao).getByClusterId(CLUSTER_ID);
     }
 
@@ -490,15 +516,15 @@ public class GlusterSyncJobTest {
         // get volumes of the cluster
         inOrder.verify(volumeDao, mode).getByClusterId(CLUSTER_ID);
 
-        // acquire lock on the cluster
-        inOrder.verify(glusterManager, mode).acquireLock(CLUSTER_ID);
-
-        // acquire lock on the cluster for repl volume
+        // acquire lock on the cluster for dist volume
         inOrder.verify(glusterManager, mode).acquireLock(CLUSTER_ID);
 
         // release lock on the cluster
         inOrder.verify(glusterManager, mode).releaseLock(CLUSTER_ID);
 
+        // acquire lock on the cluster for repl volume
+        inOrder.verify(glusterManager, mode).acquireLock(CLUSTER_ID);
+
         // release lock on the cluster
         inOrder.verify(glusterManager, mode).releaseLock(CLUSTER_ID);
     }
@@ -528,6 +554,65 @@ public class GlusterSyncJobTest {
         };
     }
 
+    @Test
+    public void testRefreshClustersInParallel() {
+        Cluster cluster1 = createGlusterCluster(Guid.newGuid());
+        Cluster cluster2 = createGlusterCluster(Guid.newGuid());
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Set<Guid> refreshedClusters = ConcurrentHashMap.newKeySet();
+
+        // each refresh waits for the other one, so both clusters are refreshed only if they run concurrently
+        glusterManager.refreshClusters("test", List.of(cluster1, cluster2), cluster -> {
+            try {
+                barrier.await(5, TimeUnit.SECONDS);
+                refreshedClusters.add(cluster.getId());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        assertEquals(Set.of(cluster1.getId(), cluster2.getId()), refreshedClusters);
+        verify(jobsManager).recordClusterRefreshTime(eq("test"), eq(cluster1.getId()), anyLong());
+        verify(jobsManager).recordClusterRefreshTime(eq("test"), eq(cluster2.getId()), anyLong());
+    }
+
+    @Test
+    public void testStuckClusterRefreshSkippedUntilCompleted() throws InterruptedException {
+        Cluster stuckCluster = createGlusterCluster(Guid.newGuid());
+        Cluster cluster = createGlusterCluster(Guid.newGuid());
+        CountDownLatch release = new CountDownLatch(1);
+        Map<Guid, Integer> refreshCounts = new ConcurrentHashMap<>();
+        CountDownLatch stuckRefreshDone = new CountDownLatch(1);
+
+        for (int i = 0; i < 2; i++) {
+            glusterManager.refreshClusters("test", List.of(stuckCluster, cluster), c -> {
+                refreshCounts.merge(c.getId(), 1, Integer::sum);
+                if (c == stuckCluster) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    stuckRefreshDone.countDown();
+                }
+            });
+        }
+
+        assertEquals(1, (int) refreshCounts.get(stuckCluster.getId()));
+        assertEquals(2, (int) refreshCounts.get(cluster.getId()));
+
+        release.countDown();
+        assertTrue(stuckRefreshDone.await(5, TimeUnit.SECONDS));
+    }
+
+    private static Cluster createGlusterCluster(Guid id) {
+        Cluster cluster = new Cluster();
+        cluster.setId(id);
+        cluster.setName(id.toString());
+        cluster.setGlusterService(true);
+        return cluster;
+    }
+
     private GlusterVolumeEntity getNewVolume() {
         GlusterVolumeEntity volume = new GlusterVolumeEntity();
         volume.setName(NEW_VOL_NAME);
@@ -0,0 +1,125 @@
+package org.ovirt.engine.core.bll.hostdev;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.bll.hostdev.HostDeviceInventory.HostDevices;
+import org.ovirt.engine.core.common.businessentities.HostDevice;
+import org.ovirt.engine.core.common.businessentities.MDevType;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.HostDeviceDao;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class HostDeviceInventoryTest {
+
+    private static final String PF_NAME = "pci_0000_05_00_0";
+
+    @Mock
+    private HostDeviceDao hostDeviceDao;
+
+    private HostDeviceInventory inventory;
+
+    private final Guid hostId = Guid.newGuid();
+    private final Guid otherHostId = Guid.newGuid();
+    private final Guid vmId = Guid.newGuid();
+
+    private HostDevice freeVf;
+    private HostDevice usedVf;
+
+    @BeforeEach
+    public void setUp() {
+        HostDevice pf = device(PF_NAME, null, 1);
+        HostDevice pfNetDevice = device("net_enp5s0f0", PF_NAME, null);
+        pfNetDevice.setNetworkInterfaceName("enp5s0f0");
+        freeVf = device("pci_0000_05_10_0", null, 2);
+        freeVf.setParentPhysicalFunction(PF_NAME);
+        usedVf = device("pci_0000_05_10_2", null, 2);
+        usedVf.setParentPhysicalFunction(PF_NAME);
+        usedVf.setVmId(vmId);
+        HostDevice gpu = device("pci_0000_08_00_0", null, 3);
+        gpu.setMdevTypes(Arrays.asList(new MDevType("nvidia-11", null, 0, null),
+                new MDevType("nvidia-12", null, 4, null)));
+
+        when(hostDeviceDao.getHostDevicesByHostId(hostId))
+                .thenReturn(Arrays.asList(pf, pfNetDevice, freeVf, usedVf, gpu));
+        when(hostDeviceDao.getHostDevicesByHostId(otherHostId)).thenReturn(List.of(device("computer", null, null)));
+
+        inventory = new HostDeviceInventory(hostDeviceDao);
+    }
+
+    @Test
+    public void devicesAreIndexed() {
+        HostDevices devices = inventory.getHostDevices(hostId);
+
+        assertEquals(5, devices.getAll().size());
+        assertSame(freeVf, devices.getDevice(freeVf.getDeviceName()));
+        assertEquals("net_enp5s0f0", devices.getNetworkDeviceByInterfaceName("enp5s0f0").getDeviceName());
+        assertEquals("net_enp5s0f0", devices.getChildNetworkDevice(PF_NAME).getDeviceName());
+        assertNull(devices.getChildNetworkDevice(freeVf.getDeviceName()));
+        assertThat(devices.getVirtualFunctions(PF_NAME)).containsExactly(freeVf, usedVf);
+        assertThat(devices.getFreeVirtualFunctions(PF_NAME)).containsExactly(freeVf);
+        assertEquals(2, devices.getIommuGroupSize(2));
+        assertEquals(0, devices.getIommuGroupSize(7));
+        assertTrue(devices.hasMDevType("nvidia-11"));
+        assertFalse(devices.isMDevTypeAvailable("nvidia-11"));
+        assertTrue(devices.isMDevTypeAvailable("nvidia-12"));
+        assertFalse(devices.hasMDevType("nvidia-13"));
+    }
+
+    @Test
+    public void devicesAreLoadedOnce() {
+        inventory.getHostDevices(hostId);
+        inventory.getHostDevices(hostId);
+
+        verify(hostDeviceDao, times(1)).getHostDevicesByHostId(hostId);
+    }
+
+    @Test
+    public void invalidatedDevicesAreReloaded() {
+        inventory.getHostDevices(hostId);
+        inventory.invalidate(hostId);
+        inventory.getHostDevices(hostId);
+
+        verify(hostDeviceDao, times(2)).getHostDevicesByHostId(hostId);
+    }
+
+    @Test
+    public void invalidateVmDropsOnlyHostsUsedByVm() {
+        inventory.getHostDevices(hostId);
+        inventory.getHostDevices(otherHostId);
+
+        inventory.invalidateVm(vmId);
+        inventory.getHostDevices(hostId);
+        inventory.getHostDevices(otherHostId);
+
+        verify(hostDeviceDao, times(2)).getHostDevicesByHostId(hostId);
+        verify(hostDeviceDao, times(1)).getHostDevicesByHostId(otherHostId);
+    }
+
+    private HostDevice device(String name, String parentName, Integer iommuGroup) {
+        HostDevice device = new HostDevice();
+        device.setHostId(hostId);
+        device.setDeviceName(name);
+        device.setParentDeviceName(parentName);
+        device.setIommuGroup(iommuGroup);
+        return device;
+    }
+}
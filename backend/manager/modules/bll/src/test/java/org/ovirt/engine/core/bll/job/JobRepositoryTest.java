@@ -4,32 +4,76 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.transaction.TransactionManager;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.InOrder;
 import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
 import org.ovirt.engine.core.common.VdcObjectType;
 import org.ovirt.engine.core.common.action.ActionType;
+import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.job.Job;
+import org.ovirt.engine.core.common.job.JobExecutionStatus;
 import org.ovirt.engine.core.common.job.Step;
+import org.ovirt.engine.core.common.job.StepEnum;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dao.JobDao;
 import org.ovirt.engine.core.dao.JobSubjectEntityDao;
 import org.ovirt.engine.core.dao.StepDao;
 import org.ovirt.engine.core.dao.StepSubjectEntityDao;
+import org.ovirt.engine.core.utils.InjectedMock;
+import org.ovirt.engine.core.utils.InjectorExtension;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
 
+@ExtendWith({MockitoExtension.class, MockConfigExtension.class, InjectorExtension.class})
+@MockitoSettings(strictness = Strictness.LENIENT)
 public class JobRepositoryTest {
 
     private static final Map<Guid, VdcObjectType> JOB_SUBJECT_ENTITIES_MAP =
             Collections.singletonMap(Guid.newGuid(), VdcObjectType.VM);
 
+    private static final int FLUSH_INTERVAL = 500;
+
+    private static final int NUMBER_OF_VMS = 1000;
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(MockConfigDescriptor.of(ConfigValues.JobStepsFlushIntervalInMillis, FLUSH_INTERVAL));
+    }
+
+    @InjectedMock
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    public TransactionManager transactionManager;
+
+    @Mock
+    private ManagedScheduledExecutorService executor;
+
     @Mock
     private JobDao jobDao;
 
@@ -48,8 +92,7 @@ public class JobRepositoryTest {
 
     @BeforeEach
     public void setUp() {
-        MockitoAnnotations.initMocks(this);
-        jobRepository = new JobRepositoryImpl(jobDao, jobSubjectEntityDao, stepDao, stepSubjectEntityDao);
+        jobRepository = new JobRepositoryImpl(jobDao, jobSubjectEntityDao, stepDao, stepSubjectEntityDao, executor);
         job = createJob();
         mockDaos(job);
     }
@@ -85,6 +128,119 @@ public class JobRepositoryTest {
         assertTrue(searchedJob.contains(job));
     }
 
+    @Test
+    public void stepModificationsArePersistedOnFlush() {
+        JobRepositoryImpl writeBehindRepository = createWriteBehindRepository();
+        verify(executor).scheduleWithFixedDelay(any(),
+                eq((long) FLUSH_INTERVAL),
+                eq((long) FLUSH_INTERVAL),
+                eq(TimeUnit.MILLISECONDS));
+
+        Step step = createStep(job.getId());
+        writeBehindRepository.saveStep(step);
+        step.setStatus(JobExecutionStatus.FINISHED);
+        writeBehindRepository.updateStep(step);
+        verify(stepDao, never()).saveAllInBatch(anyCollection());
+
+        writeBehindRepository.flush();
+        verify(jobDao).updateJobsLastUpdateTime(eq(Collections.singleton(job.getId())), any());
+        verify(stepDao).saveAllInBatch(eq(Collections.singletonList(step)));
+        verify(stepDao).updateAllInBatch(eq(Collections.emptyList()));
+    }
+
+    @Test
+    public void pendingStepsAreFlushedBeforeReadingTheJob() {
+        JobRepositoryImpl writeBehindRepository = createWriteBehindRepository();
+        Step step = createStep(job.getId());
+        writeBehindRepository.saveStep(step);
+        assertTrue(writeBehindRepository.stepExists(step.getId()));
+
+        writeBehindRepository.getJobWithSteps(job.getId());
+
+        InOrder inOrder = inOrder(stepDao);
+        inOrder.verify(stepDao).saveAllInBatch(eq(Collections.singletonList(step)));
+        inOrder.verify(stepDao).getStepsByJobId(job.getId());
+    }
+
+    @Test
+    public void stepsArePersistedOneByOneWhenBatchFails() {
+        JobRepositoryImpl writeBehindRepository = createWriteBehindRepository();
+        doThrow(new RuntimeException()).when(stepDao).saveAllInBatch(anyCollection());
+        Step step = createStep(job.getId());
+        Step otherStep = createStep(job.getId());
+        writeBehindRepository.saveStep(step);
+        writeBehindRepository.saveStep(otherStep);
+
+        writeBehindRepository.flush();
+        verify(stepDao).save(step);
+        verify(stepDao).save(otherStep);
+        verify(jobDao, times(2)).updateJobLastUpdateTime(eq(job.getId()), any());
+    }
+
+    /**
+     * Simulates the steps written by the {@link ExecutionHandler} for a multiple action on {@link #NUMBER_OF_VMS} VMs,
+     * and compares the number of statements sent to the database when each modification is persisted right away
+     * against the number of statements when they are journaled.
+     */
+    @Test
+    public void multipleActionStatementsCount() {
+        runMultipleAction(jobRepository);
+        long writeThroughStatements = countStatements();
+
+        clearInvocations(jobDao, stepDao, stepSubjectEntityDao);
+        JobRepositoryImpl writeBehindRepository = createWriteBehindRepository();
+        runMultipleAction(writeBehindRepository);
+        writeBehindRepository.flush();
+        long writeBehindStatements = countStatements();
+
+        assertEquals(11 * NUMBER_OF_VMS, writeThroughStatements);
+        int steps = 3 * NUMBER_OF_VMS;
+        assertTrue(writeBehindStatements <= 4 * (steps / JobRepositoryImpl.MAX_PENDING_STEPS + 1),
+                "Expected the steps to be persisted in batches, but " + writeBehindStatements + " were sent");
+    }
+
+    private void runMultipleAction(JobRepository repository) {
+        for (int i = 0; i < NUMBER_OF_VMS; i++) {
+            Guid jobId = Guid.newGuid();
+            Step validatingStep = createStep(jobId);
+            repository.saveStep(validatingStep);
+            validatingStep.markStepEnded(true);
+            repository.updateStep(validatingStep);
+
+            Step executingStep = createStep(jobId);
+            repository.saveStep(executingStep);
+            executingStep.markStepEnded(true);
+            Step finalizingStep = createStep(jobId);
+            repository.updateExistingStepAndSaveNewStep(executingStep, finalizingStep);
+            finalizingStep.markStepEnded(true);
+            repository.updateStep(finalizingStep);
+        }
+    }
+
+    /**
+     * @return the number of DAO calls which reached the database, batch calls with no entities are skipped by the DAO
+     */
+    private long countStatements() {
+        return Stream.of(jobDao, stepDao, stepSubjectEntityDao)
+                .flatMap(dao -> mockingDetails(dao).getInvocations().stream())
+                .filter(invocation -> Arrays.stream(invocation.getArguments())
+                        .noneMatch(arg -> arg instanceof Collection && ((Collection<?>) arg).isEmpty()))
+                .count();
+    }
+
+    private JobRepositoryImpl createWriteBehindRepository() {
+        JobRepositoryImpl repository =
+                new JobRepositoryImpl(jobDao, jobSubjectEntityDao, stepDao, stepSubjectEntityDao, executor);
+        repository.init();
+        return repository;
+    }
+
+    private Step createStep(Guid jobId) {
+        Step step = new Step(StepEnum.EXECUTING);
+        step.setJobId(jobId);
+        return step;
+    }
+
     private void mockJobDao(Job job) {
         when(jobDao.get(any())).thenReturn(job);
     }
@@ -0,0 +1,220 @@
+package org.ovirt.engine.core.bll.migration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.common.businessentities.VM;
+import org.ovirt.engine.core.compat.Guid;
+
+public class EvacuationPlanTest {
+
+    private static final long STALL_TIMEOUT = 60_000;
+
+    private final Guid hostId = Guid.newGuid();
+
+    @Test
+    public void vmsAreMigratedInExpectedConvergenceOrder() {
+        VM largeBusyVm = createVm(65536, 90, 0);
+        VM largeIdleVm = createVm(65536, 5, 0);
+        VM smallVm = createVm(4096, 50, 0);
+        VM importantLargeVm = createVm(65536, 90, 100);
+        EvacuationPlan plan = new EvacuationPlan(hostId,
+                List.of(largeBusyVm, largeIdleVm, smallVm, importantLargeVm),
+                4,
+                4,
+                STALL_TIMEOUT,
+                0);
+
+        assertEquals(List.of(importantLargeVm, smallVm, largeIdleVm, largeBusyVm), plan.nextMigrations(0));
+    }
+
+    @Test
+    public void migrationsAreLimitedByConcurrency() {
+        List<VM> vms = createVms(5, 4096, 10);
+        EvacuationPlan plan = new EvacuationPlan(hostId, vms, 2, 8, STALL_TIMEOUT, 0);
+
+        List<VM> migrations = plan.nextMigrations(0);
+        assertEquals(2, migrations.size());
+        assertTrue(plan.nextMigrations(1000).isEmpty());
+
+        plan.migrationFinished(migrations.get(0).getId(), true, 2000);
+        assertEquals(1, plan.nextMigrations(2000).size());
+        assertEquals(2, plan.getPendingVms());
+    }
+
+    @Test
+    public void addedVmsAreMigratedOnce() {
+        List<VM> vms = createVms(3, 4096, 10);
+        EvacuationPlan plan = new EvacuationPlan(hostId, vms, 1, 1, STALL_TIMEOUT, 0);
+        plan.nextMigrations(0);
+
+        plan.addVms(vms);
+
+        assertEquals(2, plan.getPendingVms());
+        assertEquals(1, plan.getRunningVms().size());
+    }
+
+    @Test
+    public void concurrencyIsHalvedWhenMigrationStalls() {
+        List<VM> vms = createVms(8, 4096, 10);
+        EvacuationPlan plan = new EvacuationPlan(hostId, vms, 4, 8, STALL_TIMEOUT, 0);
+        List<VM> migrations = plan.nextMigrations(0);
+        for (long time = 10_000; time <= STALL_TIMEOUT; time += 10_000) {
+            for (int i = 1; i < migrations.size(); i++) {
+                plan.progressReported(migrations.get(i).getId(), (int) (time / 1000), time);
+            }
+            // the first migration doesn't progress
+            plan.progressReported(migrations.get(0).getId(), 0, time);
+        }
+
+        plan.adapt(STALL_TIMEOUT);
+
+        assertEquals(2, plan.getConcurrency());
+    }
+
+    @Test
+    public void concurrencyGrowsWhileBandwidthGrows() {
+        List<VM> vms = createVms(8, 10240, 10);
+        EvacuationPlan plan = new EvacuationPlan(hostId, vms, 1, 8, STALL_TIMEOUT, 0);
+        Map<Guid, Integer> progress = new HashMap<>();
+
+        // each migration progresses by 1% per second, while the network allows up to 3 migrations at this rate
+        long time = 0;
+        while (time < 5 * STALL_TIMEOUT) {
+            plan.nextMigrations(time);
+            time += 10_000;
+            List<Guid> running = plan.getRunningVms();
+            int rate = running.size() <= 3 ? 10 : 30 / running.size();
+            for (Guid vmId : running) {
+                int vmProgress = progress.merge(vmId, rate, Integer::sum);
+                plan.progressReported(vmId, vmProgress, time);
+            }
+            plan.adapt(time);
+        }
+
+        assertEquals(3, plan.getConcurrency());
+    }
+
+    @Test
+    public void evacuationIsFasterThanMigratingAllVmsAtOnce() {
+        List<VM> vms = new ArrayList<>();
+        vms.addAll(createVms(16, 4096, 5));
+        vms.addAll(createVms(4, 65536, 90));
+
+        MigrationNetworkSimulator adaptive =
+                new MigrationNetworkSimulator(new EvacuationPlan(hostId, vms, 2, 8, STALL_TIMEOUT, 0), true);
+        MigrationNetworkSimulator allAtOnce = new MigrationNetworkSimulator(
+                new EvacuationPlan(hostId, vms, vms.size(), vms.size(), STALL_TIMEOUT, 0), false);
+        adaptive.run();
+        allAtOnce.run();
+
+        assertEquals(vms.size(), adaptive.plan.getMigratedVms());
+        assertEquals(0, adaptive.plan.getFailedVms());
+        assertTrue(adaptive.plan.getDuration(adaptive.time) * 2 < allAtOnce.plan.getDuration(allAtOnce.time),
+                "evacuation took " + adaptive.plan.getDuration(adaptive.time) + " ms, migrating all VMs at once took "
+                        + allAtOnce.plan.getDuration(allAtOnce.time) + " ms");
+    }
+
+    private List<VM> createVms(int count, int memoryMb, int cpuUsage) {
+        List<VM> vms = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            vms.add(createVm(memoryMb, cpuUsage, 0));
+        }
+        return vms;
+    }
+
+    private VM createVm(int memoryMb, int cpuUsage, int priority) {
+        VM vm = new VM();
+        vm.setId(Guid.newGuid());
+        vm.setVmMemSizeMb(memoryMb);
+        vm.setUsageCpuPercent(cpuUsage);
+        vm.setPriority(priority);
+        return vm;
+    }
+
+    /**
+     * Simulates the migrations of an evacuation over a 25 GbE migration network, on which a single migration can
+     * transfer up to 10 Gb/s. A VM dirties its memory at a rate proportional to its CPU usage, so a migration
+     * converges only when it transfers memory faster than the VM dirties it. Like VDSM, the progress of each
+     * migration is reported every 10 seconds, and a migration which doesn't progress for 5 minutes is aborted.
+     */
+    private static class MigrationNetworkSimulator {
+        private static final double NETWORK_BANDWIDTH = 2900;
+        private static final double MIGRATION_BANDWIDTH = 1200;
+        private static final double DIRTY_RATE_PER_CPU_PERCENT = 8;
+        private static final double MAX_DOWNTIME = 0.5;
+        private static final long PROGRESS_INTERVAL = 10_000;
+        private static final long ABORT_TIMEOUT = 300_000;
+        private static final long MAX_TIME = 24 * 3600_000L;
+
+        private final EvacuationPlan plan;
+        private final boolean adapt;
+        private final Map<Guid, Migration> migrations = new HashMap<>();
+        private long time;
+
+        MigrationNetworkSimulator(EvacuationPlan plan, boolean adapt) {
+            this.plan = plan;
+            this.adapt = adapt;
+        }
+
+        void run() {
+            while (!plan.isFinished() && time < MAX_TIME) {
+                plan.nextMigrations(time).forEach(vm -> migrations.put(vm.getId(), new Migration(vm, time)));
+                time += 1000;
+                double bandwidth = Math.min(MIGRATION_BANDWIDTH, NETWORK_BANDWIDTH / migrations.size());
+                for (Migration migration : new ArrayList<>(migrations.values())) {
+                    migration.transfer(bandwidth);
+                }
+                if (adapt) {
+                    plan.adapt(time);
+                }
+            }
+        }
+
+        private class Migration {
+            private final VM vm;
+            private final long startTime;
+            private double remainingMb;
+            private int maxProgress;
+            private long lastAdvanceTime;
+
+            Migration(VM vm, long startTime) {
+                this.vm = vm;
+                this.startTime = startTime;
+                this.remainingMb = vm.getMemSizeMb();
+                this.lastAdvanceTime = startTime;
+            }
+
+            void transfer(double bandwidth) {
+                double dirtyRate = vm.getUsageCpuPercent() * DIRTY_RATE_PER_CPU_PERCENT;
+                remainingMb = Math.min(vm.getMemSizeMb(), Math.max(0, remainingMb - bandwidth + dirtyRate));
+                if (remainingMb <= bandwidth * MAX_DOWNTIME) {
+                    finish(true);
+                    return;
+                }
+                if ((time - startTime) % PROGRESS_INTERVAL == 0) {
+                    int progress = (int) (100 * (1 - remainingMb / vm.getMemSizeMb()));
+                    if (progress > maxProgress) {
+                        maxProgress = progress;
+                        lastAdvanceTime = time;
+                    }
+                    plan.progressReported(vm.getId(), progress, time);
+                }
+                if (time - lastAdvanceTime >= ABORT_TIMEOUT) {
+                    finish(false);
+                }
+            }
+
+            private void finish(boolean succeeded) {
+                migrations.remove(vm.getId());
+                plan.migrationFinished(vm.getId(), succeeded, time);
+            }
+        }
+    }
+}
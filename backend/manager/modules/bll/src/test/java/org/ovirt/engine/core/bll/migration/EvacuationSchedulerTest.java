@@ -0,0 +1,156 @@
+package org.ovirt.engine.core.bll.migration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.ovirt.engine.core.common.businessentities.VDSStatus;
+import org.ovirt.engine.core.common.businessentities.VM;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.utils.ExecutorServiceExtension;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.vdsbroker.ResourceManager;
+import org.ovirt.engine.core.vdsbroker.VdsManager;
+
+@ExtendWith({ MockitoExtension.class, MockConfigExtension.class })
+public class EvacuationSchedulerTest {
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(
+                MockConfigDescriptor.of(ConfigValues.EvacuationInitialConcurrentMigrations, 2),
+                MockConfigDescriptor.of(ConfigValues.EvacuationMaxConcurrentMigrations, 4),
+                MockConfigDescriptor.of(ConfigValues.EvacuationMigrationStallTimeoutInSeconds, 60)
+        );
+    }
+
+    @Mock
+    private ResourceManager resourceManager;
+
+    @Mock
+    private VdsManager vdsManager;
+
+    @InjectMocks
+    private EvacuationScheduler scheduler;
+
+    @RegisterExtension
+    final ExecutorServiceExtension executor = new ExecutorServiceExtension();
+    private final Guid hostId = Guid.newGuid();
+    private final Set<Guid> startedMigrations = ConcurrentHashMap.newKeySet();
+    private final Set<Guid> deferredMigrations = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    public void setUp() {
+        lenient().when(resourceManager.getVdsManager(hostId)).thenReturn(vdsManager);
+        lenient().when(vdsManager.getStatus()).thenReturn(VDSStatus.PreparingForMaintenance);
+    }
+
+    @Test
+    public void firstMigrationsAreStartedImmediately() {
+        Set<Guid> startedVms = scheduler.evacuate(hostId, createVms(5), this::migrate, this::migrateDeferred);
+
+        assertEquals(2, startedMigrations.size());
+        assertEquals(startedMigrations, startedVms);
+        assertTrue(deferredMigrations.isEmpty());
+        assertEquals(1, scheduler.getRunningEvacuations());
+    }
+
+    @Test
+    public void nextMigrationIsStartedWhenMigrationEnds() throws Exception {
+        List<VM> vms = createVms(3);
+        scheduler.evacuate(hostId, vms, this::migrate, this::migrateDeferred);
+
+        scheduler.migrationFinished(vms.get(0).getId(), true);
+        awaitBackgroundMigrations();
+
+        assertEquals(2, startedMigrations.size());
+        assertEquals(Collections.singleton(vms.get(2).getId()), deferredMigrations);
+    }
+
+    @Test
+    public void evacuationIsCancelledWhenHostIsNoLongerPreparingForMaintenance() throws Exception {
+        List<VM> vms = createVms(5);
+        scheduler.evacuate(hostId, vms, this::migrate, this::migrateDeferred);
+
+        when(vdsManager.getStatus()).thenReturn(VDSStatus.Up);
+        scheduler.migrationFinished(vms.get(0).getId(), true);
+        awaitBackgroundMigrations();
+
+        assertTrue(deferredMigrations.isEmpty());
+        assertEquals(0, scheduler.getRunningEvacuations());
+    }
+
+    @Test
+    public void cancelledEvacuationDoesNotStartMigrations() throws Exception {
+        List<VM> vms = createVms(5);
+        scheduler.evacuate(hostId, vms, this::migrate, this::migrateDeferred);
+
+        scheduler.cancelEvacuation(hostId);
+        scheduler.migrationFinished(vms.get(0).getId(), true);
+        scheduler.migrationFinished(vms.get(1).getId(), true);
+        awaitBackgroundMigrations();
+
+        assertTrue(deferredMigrations.isEmpty());
+        assertEquals(0, scheduler.getRunningEvacuations());
+        assertEquals(0, scheduler.getFinishedEvacuations());
+    }
+
+    @Test
+    public void evacuationFinishesWhenAllMigrationsEnd() throws Exception {
+        List<VM> vms = createVms(3);
+        // the migration of the first VM fails to start
+        scheduler.evacuate(hostId, vms, vm -> !vm.equals(vms.get(0)) && migrate(vm), this::migrateDeferred);
+
+        for (VM vm : vms.subList(1, vms.size())) {
+            scheduler.migrationFinished(vm.getId(), true);
+            awaitBackgroundMigrations();
+        }
+
+        assertEquals(0, scheduler.getRunningEvacuations());
+        assertEquals(1, scheduler.getFinishedEvacuations());
+        assertTrue(scheduler.getConcurrentMigrationsPerHost().isEmpty());
+    }
+
+    private boolean migrate(VM vm) {
+        return startedMigrations.add(vm.getId());
+    }
+
+    private boolean migrateDeferred(VM vm) {
+        return deferredMigrations.add(vm.getId());
+    }
+
+    /**
+     * Waits for the migrations started in the background, by the single thread of the executor, to start.
+     */
+    private void awaitBackgroundMigrations() throws Exception {
+        executor.getExecutorService().submit(() -> {}).get(10, TimeUnit.SECONDS);
+    }
+
+    private List<VM> createVms(int count) {
+        List<VM> vms = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            VM vm = new VM();
+            vm.setId(Guid.newGuid());
+            vm.setVmMemSizeMb(4096);
+            vms.add(vm);
+        }
+        return vms;
+    }
+}
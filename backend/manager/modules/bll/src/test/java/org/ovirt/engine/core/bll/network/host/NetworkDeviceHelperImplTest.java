@@ -32,6 +32,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.bll.hostdev.HostDeviceInventory;
 import org.ovirt.engine.core.common.businessentities.HostDevice;
 import org.ovirt.engine.core.common.businessentities.HostDeviceId;
 import org.ovirt.engine.core.common.businessentities.network.HostNicVfsConfig;
@@ -85,7 +86,10 @@ public class NetworkDeviceHelperImplTest {
 
     @BeforeEach
     public void setUp() {
-        networkDeviceHelper = new NetworkDeviceHelperImpl(interfaceDao, hostDeviceDao, hostNicVfsConfigDao);
+        networkDeviceHelper = new NetworkDeviceHelperImpl(interfaceDao,
+                hostDeviceDao,
+                hostNicVfsConfigDao,
+                new HostDeviceInventory(hostDeviceDao));
 
         when(netDevice.getHostId()).thenReturn(HOST_ID);
         when(netDevice.getDeviceName()).thenReturn(NET_DEVICE_NAME);
@@ -295,7 +299,10 @@ public class NetworkDeviceHelperImplTest {
             int numOfVfsHasVlanDeviceAttached,
             int numOfVfsArePartOfBond) {
         networkDeviceHelper =
-                spy(new NetworkDeviceHelperImpl(interfaceDao, hostDeviceDao, hostNicVfsConfigDao));
+                spy(new NetworkDeviceHelperImpl(interfaceDao,
+                        hostDeviceDao,
+                        hostNicVfsConfigDao,
+                        new HostDeviceInventory(hostDeviceDao)));
 
         List<HostDevice> devices = new ArrayList<>();
         List<HostDevice> freeVfs = new ArrayList<>();
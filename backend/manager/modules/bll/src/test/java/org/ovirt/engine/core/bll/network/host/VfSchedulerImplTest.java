@@ -26,6 +26,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.bll.hostdev.HostDeviceInventory;
 import org.ovirt.engine.core.common.businessentities.HostDevice;
 import org.ovirt.engine.core.common.businessentities.VDS;
 import org.ovirt.engine.core.common.businessentities.VmDevice;
@@ -80,12 +81,20 @@ public class VfSchedulerImplTest {
 
     private Map<Guid, String> expectedVnicToVfMap;
 
+    private final List<HostDevice> hostDevices = new ArrayList<>();
+
     @BeforeEach
     public void setUp() {
         when(hostDao.get(hostId)).thenReturn(host);
         when(host.getStoragePoolId()).thenReturn(dataCenterId);
-
-        vfScheduler = new VfSchedulerImpl(networkDao, interfaceDao, hostDao, hostDeviceDao, vmDeviceDao, networkDeviceHelper);
+        when(hostDeviceDao.getHostDevicesByHostId(hostId)).thenReturn(hostDevices);
+
+        vfScheduler = new VfSchedulerImpl(networkDao,
+                interfaceDao,
+                hostDao,
+                new HostDeviceInventory(hostDeviceDao),
+                vmDeviceDao,
+                networkDeviceHelper);
         expectedVnicToVfMap = new HashMap<>();
     }
 
@@ -417,7 +426,7 @@ public class VfSchedulerImplTest {
             extraIommuDevice.setIommuGroup(vf.getIommuGroup());
             devices.add(extraIommuDevice);
         }
-        when(hostDeviceDao.getHostDevicesByHostIdAndIommuGroup(vf.getHostId(), vf.getIommuGroup())).thenReturn(devices);
+        hostDevices.addAll(devices);
     }
 
     private void updateVfsConfigLabels(HostNicVfsConfig hostNicVfsConfig,
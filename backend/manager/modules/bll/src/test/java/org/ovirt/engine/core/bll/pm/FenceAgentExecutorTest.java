@@ -8,6 +8,8 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.function.Supplier;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -52,6 +54,9 @@ public class FenceAgentExecutorTest {
     @Mock
     AuditLogDirector auditLogDirector;
 
+    @Mock
+    private FencingCoordinator fencingCoordinator;
+
     @Spy
     @InjectMocks
     private FenceAgentExecutor executor = new FenceAgentExecutor(vds, new FencingPolicy());
@@ -61,6 +66,8 @@ public class FenceAgentExecutorTest {
         setUpVds();
         doReturn(proxyLocator).when(executor).getProxyLocator();
         doReturn(realAgent).when(executor).createRealAgent(any(), any());
+        when(fencingCoordinator.runOnProxy(any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>> getArgument(1).get());
     }
 
 
@@ -77,6 +84,7 @@ public class FenceAgentExecutorTest {
 
         assertEquals(Status.SUCCESS, result.getStatus());
         verifyAuditFenceExecutionStart(1);
+        verify(fencingCoordinator).runOnProxy(eq(PROXY_HOST_ID), any());
     }
 
     /**
@@ -57,6 +57,9 @@ public class FenceProxyLocatorTest extends BaseCommandTest {
     @InjectedMock
     public FenceAgentDao fenceAgentDao;
 
+    @Mock
+    private FencingCoordinator fencingCoordinator;
+
     private VdsFenceOptions vdsFenceOptions;
 
     private VDS fencedHost;
@@ -294,6 +297,37 @@ public class FenceProxyLocatorTest extends BaseCommandTest {
         assertEquals(proxyHost.getStoragePoolId(), OTHER_DATACENTER_ID);
     }
 
+    /**
+     * Checks that the locator selects the proxy running the least fence operations, so fencing of many hosts is
+     * spread across the available proxies
+     */
+    @Test
+    public void findProxyHostPrefersLeastLoadedProxy() {
+        VDS busyHost = createHost();
+        VDS idleHost = createHost();
+        mockExistingHosts(busyHost, idleHost);
+        when(fencingCoordinator.getRunningOperations(busyHost.getId())).thenReturn(2);
+
+        VDS proxyHost = setupLocator().findProxyHost();
+
+        assertEquals(idleHost.getId(), proxyHost.getId());
+    }
+
+    /**
+     * Checks that the locator prefers a host in status Up over a less loaded host in another status
+     */
+    @Test
+    public void findProxyHostPrefersUpHostOverLeastLoadedProxy() {
+        VDS upHost = createHost();
+        VDS nonOperationalHost = createHost(VDSStatus.NonOperational);
+        mockExistingHosts(nonOperationalHost, upHost);
+        when(fencingCoordinator.getRunningOperations(upHost.getId())).thenReturn(2);
+
+        VDS proxyHost = setupLocator().findProxyHost();
+
+        assertEquals(upHost.getId(), proxyHost.getId());
+    }
+
     /**
      * Checks comparison of host supported cluster level with minimal version requirement for fencing policy.
      */
@@ -336,6 +370,7 @@ public class FenceProxyLocatorTest extends BaseCommandTest {
         doReturn(vdsFenceOptions).when(fenceProxyLocator).createVdsFenceOptions(any());
         doReturn(0L).when(fenceProxyLocator).getDelayBetweenRetries();
         doReturn(1).when(fenceProxyLocator).getFindFenceProxyRetries();
+        doReturn(fencingCoordinator).when(fenceProxyLocator).getFencingCoordinator();
         doReturn(Arrays.asList(FenceProxySourceType.CLUSTER, FenceProxySourceType.DC))
                 .when(fenceProxyLocator).getDefaultFenceProxySources();
 
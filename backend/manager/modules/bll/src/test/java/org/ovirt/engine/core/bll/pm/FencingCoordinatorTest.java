@@ -0,0 +1,247 @@
+package org.ovirt.engine.core.bll.pm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.ovirt.engine.core.common.businessentities.VDS;
+import org.ovirt.engine.core.common.businessentities.pm.FenceOperationResult;
+import org.ovirt.engine.core.common.businessentities.pm.FenceOperationResult.Status;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.common.errors.EngineException;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.utils.ExecutorServiceExtension;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+
+/**
+ * Fences a mass of non responding hosts through a few proxies, using a fake fence agent which takes some time to
+ * execute a fence operation.
+ */
+@ExtendWith(MockConfigExtension.class)
+public class FencingCoordinatorTest {
+
+    private static final int MAX_CONCURRENT_HOSTS = 8;
+    private static final int MAX_PROXY_OPERATIONS = 2;
+    private static final long FENCE_DURATION_MS = 30;
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(
+                MockConfigDescriptor.of(ConfigValues.FencingMaxConcurrentHosts, MAX_CONCURRENT_HOSTS),
+                MockConfigDescriptor.of(ConfigValues.FenceProxyMaxConcurrentOperations, MAX_PROXY_OPERATIONS),
+                MockConfigDescriptor.of(ConfigValues.vdsTimeout, 1)
+        );
+    }
+
+    @RegisterExtension
+    final ExecutorServiceExtension executor = new ExecutorServiceExtension(MAX_CONCURRENT_HOSTS * 2);
+    private FencingCoordinator coordinator;
+    private final List<Guid> proxies = new ArrayList<>();
+    private final FakeFenceAgent fenceAgent = new FakeFenceAgent();
+
+    @BeforeEach
+    public void setUp() {
+        coordinator = new FencingCoordinator();
+        for (int i = 0; i < 3; i++) {
+            proxies.add(Guid.newGuid());
+        }
+    }
+
+    @Test
+    public void hostsAreFencedConcurrently() {
+        List<VDS> hosts = createHosts(24);
+
+        long start = System.currentTimeMillis();
+        coordinator.runForHosts(hosts, this::fence);
+        long duration = System.currentTimeMillis() - start;
+
+        assertEquals(hosts.size(), fenceAgent.fencedHosts.size());
+        assertTrue(fenceAgent.maxConcurrentOperations.get() > 1);
+        assertTrue(fenceAgent.maxConcurrentOperations.get() <= MAX_CONCURRENT_HOSTS);
+        assertTrue(duration < hosts.size() * FENCE_DURATION_MS,
+                "fencing " + hosts.size() + " hosts took " + duration + " ms");
+    }
+
+    @Test
+    public void proxyOperationsAreLimited() {
+        coordinator.runForHosts(createHosts(24), this::fence);
+
+        fenceAgent.maxConcurrentOperationsPerProxy.values()
+                .forEach(max -> assertTrue(max.get() <= MAX_PROXY_OPERATIONS,
+                        "a proxy ran " + max.get() + " concurrent operations"));
+        assertTrue(coordinator.getRunningOperationsPerProxy().isEmpty());
+    }
+
+    @Test
+    public void waitForBusyProxyIsBounded() throws InterruptedException {
+        Guid proxyId = proxies.get(0);
+        CountDownLatch complete = new CountDownLatch(1);
+        occupyProxy(proxyId, complete);
+
+        try {
+            long start = System.currentTimeMillis();
+            assertThrows(EngineException.class, () -> coordinator.runOnProxy(proxyId, () -> null));
+            assertTrue(System.currentTimeMillis() - start >= 1000);
+            assertEquals(MAX_PROXY_OPERATIONS, coordinator.getRunningOperations(proxyId));
+        } finally {
+            complete.countDown();
+        }
+    }
+
+    @Test
+    public void waitForBusyProxyIsInterruptible() throws InterruptedException {
+        Guid proxyId = proxies.get(0);
+        CountDownLatch complete = new CountDownLatch(1);
+        occupyProxy(proxyId, complete);
+
+        try {
+            Thread.currentThread().interrupt();
+            assertThrows(EngineException.class, () -> coordinator.runOnProxy(proxyId, () -> null));
+            assertTrue(Thread.interrupted());
+        } finally {
+            complete.countDown();
+        }
+    }
+
+    @Test
+    public void operationsAreSpreadAcrossProxies() {
+        coordinator.runForHosts(createHosts(24), this::fence);
+
+        assertEquals(proxies.size(), fenceAgent.maxConcurrentOperationsPerProxy.size());
+    }
+
+    @Test
+    public void failureOfHostDoesNotAffectOtherHosts() {
+        List<VDS> hosts = createHosts(10);
+        Guid failingHostId = hosts.get(3).getId();
+
+        coordinator.runForHosts(hosts, host -> {
+            if (host.getId().equals(failingHostId)) {
+                throw new IllegalStateException("fence agent is not reachable");
+            }
+            fence(host);
+        });
+
+        assertEquals(hosts.size() - 1, fenceAgent.fencedHosts.size());
+        assertEquals(0, coordinator.getHostsBeingFenced());
+    }
+
+    @Test
+    public void timeToFenceIsMeasured() {
+        List<VDS> hosts = createHosts(10);
+
+        coordinator.runForHosts(hosts, this::fence);
+
+        assertEquals(hosts.size(), coordinator.getFencedHosts());
+        assertEquals(0, coordinator.getHostsBeingFenced());
+        assertTrue(coordinator.getAverageTimeToFence() >= FENCE_DURATION_MS);
+        assertTrue(coordinator.getMaxTimeToFence() >= coordinator.getAverageTimeToFence());
+    }
+
+    @Test
+    public void hostNotFencedIsNotMeasured() {
+        VDS host = createHosts(1).get(0);
+
+        coordinator.fencingStarted(host.getId());
+        assertEquals(1, coordinator.getHostsBeingFenced());
+        coordinator.fencingFinished(host, false);
+
+        assertEquals(0, coordinator.getHostsBeingFenced());
+        assertEquals(0, coordinator.getFencedHosts());
+        assertEquals(0, coordinator.getAverageTimeToFence());
+    }
+
+    /**
+     * Fences the host like the non responding treatment does, using the least loaded proxy like
+     * {@code FenceProxyLocator} does.
+     */
+    private void fence(VDS host) {
+        coordinator.fencingStarted(host.getId());
+        Guid proxyId = proxies.stream()
+                .min(Comparator.comparingInt(coordinator::getRunningOperations))
+                .get();
+        FenceOperationResult result = coordinator.runOnProxy(proxyId, () -> fenceAgent.fence(proxyId, host));
+        coordinator.fencingFinished(host, result.getStatus() == Status.SUCCESS);
+    }
+
+    /**
+     * Runs as many operations as the proxy may run at once, which complete once the given latch is released, and
+     * waits for them to start.
+     */
+    private void occupyProxy(Guid proxyId, CountDownLatch complete) throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(MAX_PROXY_OPERATIONS);
+        for (int i = 0; i < MAX_PROXY_OPERATIONS; i++) {
+            executor.getExecutorService().submit(() -> coordinator.runOnProxy(proxyId, () -> {
+                running.countDown();
+                try {
+                    return complete.await(1, TimeUnit.MINUTES);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }));
+        }
+        running.await();
+    }
+
+    private List<VDS> createHosts(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> {
+                    VDS host = new VDS();
+                    host.setId(Guid.newGuid());
+                    host.setVdsName("host" + i);
+                    return host;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * A fence agent which takes some time to fence a host, and records the operations running at once, in total and
+     * on each proxy.
+     */
+    private static class FakeFenceAgent {
+        private final Set<Guid> fencedHosts = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger concurrentOperations = new AtomicInteger();
+        private final AtomicInteger maxConcurrentOperations = new AtomicInteger();
+        private final Map<Guid, AtomicInteger> concurrentOperationsPerProxy = new ConcurrentHashMap<>();
+        private final Map<Guid, AtomicInteger> maxConcurrentOperationsPerProxy = new ConcurrentHashMap<>();
+
+        public FenceOperationResult fence(Guid proxyId, VDS host) {
+            AtomicInteger proxyOperations =
+                    concurrentOperationsPerProxy.computeIfAbsent(proxyId, id -> new AtomicInteger());
+            int running = concurrentOperations.incrementAndGet();
+            int runningOnProxy = proxyOperations.incrementAndGet();
+            maxConcurrentOperations.accumulateAndGet(running, Math::max);
+            maxConcurrentOperationsPerProxy.computeIfAbsent(proxyId, id -> new AtomicInteger())
+                    .accumulateAndGet(runningOnProxy, Math::max);
+            try {
+                Thread.sleep(FENCE_DURATION_MS);
+                fencedHosts.add(host.getId());
+                return new FenceOperationResult(Status.SUCCESS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new FenceOperationResult(Status.ERROR);
+            } finally {
+                proxyOperations.decrementAndGet();
+                concurrentOperations.decrementAndGet();
+            }
+        }
+    }
+}
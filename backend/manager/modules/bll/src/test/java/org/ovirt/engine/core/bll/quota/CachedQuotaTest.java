@@ -0,0 +1,97 @@
+package org.ovirt.engine.core.bll.quota;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.bll.quota.CachedQuota.ClusterUsageCounter;
+import org.ovirt.engine.core.bll.quota.CachedQuota.StorageUsage;
+import org.ovirt.engine.core.bll.quota.CachedQuota.StorageUsageCounter;
+import org.ovirt.engine.core.common.businessentities.Quota;
+import org.ovirt.engine.core.common.businessentities.QuotaCluster;
+import org.ovirt.engine.core.common.businessentities.QuotaStorage;
+import org.ovirt.engine.core.compat.Guid;
+
+public class CachedQuotaTest {
+
+    private final Guid clusterId = Guid.newGuid();
+    private final Guid storageId = Guid.newGuid();
+
+    @Test
+    public void compareAndAddFailsWhenUsageChanged() {
+        StorageUsageCounter counter = new CachedQuota(globalStorageQuota(10)).getStorageUsage(storageId);
+        StorageUsage expected = counter.get();
+        counter.add(1);
+
+        assertFalse(counter.compareAndAdd(expected, 5));
+        assertTrue(counter.compareAndAdd(counter.get(), 5));
+        assertEquals(16, counter.get().getStorageGB(), 0.001);
+    }
+
+    @Test
+    public void reconciliationKeepsConsumptionsAppliedSinceMark() {
+        CachedQuota cachedQuota = new CachedQuota(globalStorageQuota(10));
+        StorageUsageCounter counter = cachedQuota.getStorageUsage(storageId);
+        counter.add(5);
+
+        cachedQuota.markUsage();
+        // consumed while the usage is read from the database
+        counter.add(2);
+
+        // the database contains the first consumption, and another one made by a removed disk
+        assertTrue(cachedQuota.reconcileUsage(globalStorageQuota(13)));
+        assertEquals(15, counter.get().getStorageGB(), 0.001);
+        assertEquals(15, cachedQuota.getStorageUsage(storageId).get().getStorageGB(), 0.001);
+    }
+
+    @Test
+    public void reconciliationSkipsQuotaLoadedAfterMark() {
+        CachedQuota cachedQuota = new CachedQuota(globalStorageQuota(10));
+        cachedQuota.getStorageUsage(storageId).add(3);
+
+        assertTrue(cachedQuota.reconcileUsage(globalStorageQuota(8)));
+        assertEquals(13, cachedQuota.getStorageUsage(storageId).get().getStorageGB(), 0.001);
+    }
+
+    @Test
+    public void reconciliationUpdatesClusterLimits() {
+        CachedQuota cachedQuota = new CachedQuota(specificClusterQuota(100, 10));
+        ClusterUsageCounter counter = cachedQuota.getClusterUsage(clusterId);
+        cachedQuota.markUsage();
+        counter.add(2, 512);
+
+        assertTrue(cachedQuota.reconcileUsage(specificClusterQuota(200, 4)));
+        assertEquals(200, counter.getLimit().getVirtualCpu().intValue());
+        assertEquals(6, counter.get().getCpu());
+        assertEquals(512, counter.get().getMemMB());
+    }
+
+    @Test
+    public void quotaLimitingOtherClustersIsNotReconciled() {
+        CachedQuota cachedQuota = new CachedQuota(specificClusterQuota(100, 10));
+        cachedQuota.markUsage();
+
+        Quota dbQuota = specificClusterQuota(100, 10);
+        dbQuota.getQuotaClusters().get(0).setClusterId(Guid.newGuid());
+        assertFalse(cachedQuota.reconcileUsage(dbQuota));
+        assertFalse(cachedQuota.reconcileUsage(globalStorageQuota(10)));
+    }
+
+    private Quota globalStorageQuota(double usageGB) {
+        Quota quota = new Quota();
+        quota.setId(Guid.newGuid());
+        quota.setGlobalQuotaStorage(new QuotaStorage(null, null, storageId, 100L, usageGB));
+        return quota;
+    }
+
+    private Quota specificClusterQuota(int cpu, int cpuUsage) {
+        Quota quota = new Quota();
+        quota.setId(Guid.newGuid());
+        QuotaCluster quotaCluster = new QuotaCluster(null, null, clusterId, cpu, cpuUsage, 4096L, 0L);
+        quota.setQuotaClusters(Collections.singletonList(quotaCluster));
+        return quota;
+    }
+}
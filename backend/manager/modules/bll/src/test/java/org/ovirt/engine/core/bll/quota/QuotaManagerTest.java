@@ -1,5 +1,6 @@
 package org.ovirt.engine.core.bll.quota;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -13,10 +14,19 @@ import static org.mockito.Mockito.when;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.transaction.TransactionManager;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -25,6 +35,7 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.ovirt.engine.core.bll.CommandBase;
 import org.ovirt.engine.core.bll.context.CommandContext;
+import org.ovirt.engine.core.bll.context.CompensationContext;
 import org.ovirt.engine.core.bll.utils.PermissionSubject;
 import org.ovirt.engine.core.common.AuditLogType;
 import org.ovirt.engine.core.common.action.ActionParametersBase;
@@ -33,11 +44,16 @@ import org.ovirt.engine.core.common.businessentities.QuotaCluster;
 import org.ovirt.engine.core.common.businessentities.QuotaEnforcementTypeEnum;
 import org.ovirt.engine.core.common.businessentities.QuotaStorage;
 import org.ovirt.engine.core.common.businessentities.StoragePool;
+import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
 import org.ovirt.engine.core.dao.QuotaDao;
+import org.ovirt.engine.core.utils.InjectedMock;
+import org.ovirt.engine.core.utils.InjectorExtension;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
 
-@ExtendWith(MockitoExtension.class)
+@ExtendWith({ MockitoExtension.class, InjectorExtension.class, MockConfigExtension.class })
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class QuotaManagerTest {
 
@@ -58,6 +74,13 @@ public class QuotaManagerTest {
     @Mock
     private AuditLogDirector auditLogDirector;
 
+    @Mock
+    private CompensationContext compensationContext;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    @InjectedMock
+    public TransactionManager transactionManager;
+
     @InjectMocks
     @Spy
     private QuotaManager quotaManager = new QuotaManager();
@@ -70,6 +93,10 @@ public class QuotaManagerTest {
 
     private Quota quota;
 
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(MockConfigDescriptor.of(ConfigValues.QuotaUsageReconciliationIntervalInMinutes, 0L));
+    }
+
     @BeforeEach
     public void setUp() {
         storage_pool.setQuotaEnforcementType(QuotaEnforcementTypeEnum.HARD_ENFORCEMENT);
@@ -80,8 +107,16 @@ public class QuotaManagerTest {
 
         doReturn(quotaDao).when(quotaManager).getQuotaDao();
 
+        command = createCommand();
+        command.getReturnValue().setValidationMessages(validationMessages);
+
+        quota = mockBasicQuota();
+        when(quotaDao.getById(quota.getId())).thenReturn(quota);
+    }
+
+    private CommandBase<?> createCommand() {
         ActionParametersBase param = new ActionParametersBase();
-        command = new CommandBase<ActionParametersBase>(
+        CommandBase<?> command = new CommandBase<ActionParametersBase>(
                 param, CommandContext.createContext(param.getSessionId())) {
             @Override
             protected void executeCommand() {}
@@ -93,10 +128,48 @@ public class QuotaManagerTest {
         };
 
         command.setStoragePool(storage_pool);
-        command.getReturnValue().setValidationMessages(validationMessages);
+        return command;
+    }
 
-        quota = mockBasicQuota();
-        when(quotaDao.getById(quota.getId())).thenReturn(quota);
+    /**
+     * Creates a quota dependent command, which ends with failure.
+     */
+    private CommandBase<?> createFailingCommand(List<QuotaConsumptionParameter> consumptionParameters) {
+        ActionParametersBase param = new ActionParametersBase();
+        param.setTaskGroupSuccess(false);
+        CommandBase<?> command = new CommandBase<ActionParametersBase>(
+                param, CommandContext.createContext(param.getSessionId())) {
+            @Override
+            protected void executeCommand() {}
+
+            @Override
+            public List<PermissionSubject> getPermissionCheckSubjects() {
+                return null;
+            }
+
+            @Override
+            protected boolean isQuotaDependant() {
+                return true;
+            }
+
+            @Override
+            protected List<QuotaConsumptionParameter> getQuotaConsumptionParameters() {
+                return consumptionParameters;
+            }
+
+            @Override
+            public QuotaManager getQuotaManager() {
+                return quotaManager;
+            }
+
+            @Override
+            public CompensationContext getCompensationContext() {
+                return compensationContext;
+            }
+        };
+
+        command.setStoragePool(storage_pool);
+        return command;
     }
 
     private void assertNotEmptyValidateMessage() {
@@ -434,6 +507,121 @@ public class QuotaManagerTest {
         assertAuditLogNotWritten();
     }
 
+    @Test
+    public void testConsumeClusterQuotaAccumulatesUsage() {
+        quota.setGlobalQuotaCluster(getQuotaCluster(100, 50, UNLIMITED_MEM, 0));
+
+        // 50 + 10 + 55 = 115 vCPUs, within the grace
+        assertTrue(consumeForClusterQuota(10, 1));
+        assertTrue(consumeForClusterQuota(55, 1));
+        validationMessages.clear();
+
+        // 115 + 10 = 125 vCPUs, over the grace
+        assertFalse(consumeForClusterQuota(10, 1));
+        assertNotEmptyValidateMessage();
+    }
+
+    @Test
+    public void testRollbackReleasesConsumption() {
+        quota.setGlobalQuotaStorage(getQuotaStorage(100, 100));
+        List<QuotaConsumptionParameter> parameters =
+                Collections.singletonList(createStorageConsumption(quota.getId(), 15d));
+
+        assertTrue(quotaManager.consume(command, parameters));
+        assertFalse(consumeForStorageQuota(10d));
+        assertNotEmptyValidateMessage();
+
+        quotaManager.rollback(command, parameters);
+
+        assertTrue(consumeForStorageQuota(10d));
+        verify(quotaDao, times(1)).getById(quota.getId());
+    }
+
+    @Test
+    public void testEndWithFailureRollsBackConsumptionOnce() {
+        quota.setGlobalQuotaStorage(getQuotaStorage(100, 10));
+        List<QuotaConsumptionParameter> parameters =
+                Collections.singletonList(createStorageConsumption(quota.getId(), 5d));
+        CommandBase<?> failingCommand = createFailingCommand(parameters);
+        assertTrue(quotaManager.consume(failingCommand, parameters));
+        failingCommand.setQuotaChanged(true);
+
+        failingCommand.endActionInTransactionScope();
+
+        Quota quotaExternal = mockBasicQuota();
+        quotaExternal.setId(quota.getId());
+        quotaManager.updateUsage(Collections.singletonList(quotaExternal));
+        assertEquals(10d, quotaExternal.getGlobalQuotaStorage().getStorageSizeGBUsage(), 0.001);
+    }
+
+    @Test
+    public void testRollbackAfterReconciliationReloadsQuota() {
+        quota.setGlobalQuotaStorage(getQuotaStorage(100, 10));
+        List<QuotaConsumptionParameter> parameters =
+                Collections.singletonList(createStorageConsumption(quota.getId(), 5d));
+        assertTrue(quotaManager.consume(command, parameters));
+
+        // the consumption isn't in the DB yet, so the reconciliation replaces it by the usage in the DB
+        Quota dbQuota = mockBasicQuota();
+        dbQuota.setId(quota.getId());
+        dbQuota.setGlobalQuotaStorage(getQuotaStorage(100, 10));
+        when(quotaDao.getAllQuotaIncludingConsumption()).thenReturn(Collections.singletonList(dbQuota));
+        quotaManager.updateQuotaCache();
+
+        quotaManager.rollback(command, parameters);
+
+        Quota quotaExternal = mockBasicQuota();
+        quotaExternal.setId(quota.getId());
+        quotaManager.updateUsage(Collections.singletonList(quotaExternal));
+        assertEquals(10d, quotaExternal.getGlobalQuotaStorage().getStorageSizeGBUsage(), 0.001);
+        verify(quotaDao, times(2)).getById(quota.getId());
+    }
+
+    @Test
+    public void testUpdateUsageReturnsConsumedUsage() {
+        quota.setGlobalQuotaStorage(getQuotaStorage(100, 9));
+        assertTrue(consumeForStorageQuota(1d));
+
+        Quota quotaExternal = mockBasicQuota();
+        quotaExternal.setId(quota.getId());
+        quotaManager.updateUsage(Collections.singletonList(quotaExternal));
+
+        assertEquals(10d, quotaExternal.getGlobalQuotaStorage().getStorageSizeGBUsage(), 0.001);
+        assertEquals(100L, quotaExternal.getGlobalQuotaStorage().getStorageSizeGB().longValue());
+    }
+
+    @Test
+    public void testConcurrentConsumptionDoesNotExceedGrace() throws Exception {
+        quota.setGlobalQuotaStorage(getQuotaStorage(100, 0));
+        int threads = 8;
+        int consumptionsPerThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger succeeded = new AtomicInteger();
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                CommandBase<?> threadCommand = createCommand();
+                tasks.add(() -> {
+                    for (int j = 0; j < consumptionsPerThread; j++) {
+                        if (quotaManager.consume(threadCommand,
+                                Collections.singletonList(createStorageConsumption(quota.getId(), 1d)))) {
+                            succeeded.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 100 GB limit with 20% grace
+        assertEquals(120, succeeded.get());
+    }
+
     /**
      * Mock a basic quota. Only the basic data (Id, name, threshold, grace...) is set.
      *
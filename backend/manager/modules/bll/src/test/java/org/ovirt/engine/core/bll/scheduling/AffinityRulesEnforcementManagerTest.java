@@ -25,25 +25,39 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.ovirt.engine.core.bll.interfaces.BackendInternal;
 import org.ovirt.engine.core.bll.scheduling.arem.AffinityRulesEnforcer;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityViolationIndex;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityViolationIndex.ClusterViolations;
 import org.ovirt.engine.core.common.action.ActionReturnValue;
 import org.ovirt.engine.core.common.businessentities.Cluster;
 import org.ovirt.engine.core.common.businessentities.VM;
 import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.common.scheduling.AffinityGroup;
 import org.ovirt.engine.core.common.scheduling.ClusterPolicy;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
 import org.ovirt.engine.core.dao.ClusterDao;
 import org.ovirt.engine.core.utils.MockConfigDescriptor;
 import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.utils.MockedConfig;
 
 @ExtendWith({MockitoExtension.class, MockConfigExtension.class})
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class AffinityRulesEnforcementManagerTest {
 
     public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return mockConfiguration(1);
+    }
+
+    public static Stream<MockConfigDescriptor<?>> configWithSeveralMigrationsPerCluster() {
+        return mockConfiguration(3);
+    }
+
+    private static Stream<MockConfigDescriptor<?>> mockConfiguration(int maxMigrationsPerCluster) {
         return Stream.of(
                 MockConfigDescriptor.of(ConfigValues.AffinityRulesEnforcementManagerInitialDelay, 1L),
-                MockConfigDescriptor.of(ConfigValues.AffinityRulesEnforcementManagerRegularInterval, 1L)
+                MockConfigDescriptor.of(ConfigValues.AffinityRulesEnforcementManagerRegularInterval, 1L),
+                MockConfigDescriptor.of(ConfigValues.AffinityRulesEnforcementManagerMaxMigrationsPerCluster,
+                        maxMigrationsPerCluster)
         );
     }
 
@@ -57,6 +71,10 @@ public class AffinityRulesEnforcementManagerTest {
     @Mock
     private AffinityRulesEnforcer rulesEnforcer;
     @Mock
+    private AffinityViolationIndex violationIndex;
+    @Mock
+    private ClusterViolations violations;
+    @Mock
     VM vm1;
     @Mock
     VM vm2;
@@ -91,6 +109,7 @@ public class AffinityRulesEnforcementManagerTest {
         returnValue.setSucceeded(true);
 
         when(backend.runInternalAction(any(), any(), any())).thenReturn(returnValue);
+        when(violationIndex.getViolations(any())).thenReturn(violations);
 
         arem.wakeup();
     }
@@ -104,6 +123,14 @@ public class AffinityRulesEnforcementManagerTest {
         return cluster;
     }
 
+    private VM createVm(Cluster cluster) {
+        Guid id = Guid.newGuid();
+        VM vm = mock(VM.class);
+        when(vm.getId()).thenReturn(id);
+        when(vm.getClusterId()).thenReturn(cluster.getId());
+        return vm;
+    }
+
     @Test
     public void shouldMigrateOneVmPerCluster() {
         when(rulesEnforcer.chooseVmsToMigrate(eq(cluster1)))
@@ -115,6 +142,32 @@ public class AffinityRulesEnforcementManagerTest {
         verify(arem, times(2)).migrateVM(any());
     }
 
+    @Test
+    @MockedConfig("configWithSeveralMigrationsPerCluster")
+    public void shouldMigrateNonConflictingVmsPerCluster() {
+        VM vm3 = createVm(cluster1);
+        VM vm4 = createVm(cluster1);
+        VM vm5 = createVm(cluster1);
+        VM vm6 = createVm(cluster1);
+        AffinityGroup group = new AffinityGroup();
+        group.setId(Guid.newGuid());
+        when(violations.getGroupsForVm(vm3.getId())).thenReturn(Collections.singletonList(group));
+        when(violations.getGroupsForVm(vm4.getId())).thenReturn(Collections.singletonList(group));
+        when(rulesEnforcer.chooseVmsToMigrate(eq(cluster1)))
+                .thenReturn(Arrays.asList(vm1, vm3, vm4, vm5, vm6).iterator());
+
+        arem.refresh();
+        verify(arem).migrateVM(vm1);
+        verify(arem).migrateVM(vm3);
+        // vm4 shares an affinity group with vm3, which is already being migrated
+        verify(arem, never()).migrateVM(vm4);
+        verify(arem).migrateVM(vm5);
+        // the limit of migrations in cluster1 was reached
+        verify(arem, never()).migrateVM(vm6);
+        verify(arem).migrateVM(vm2);
+        verify(arem, times(4)).migrateVM(any());
+    }
+
     @Test
     public void shouldNotMigrateVmOnClusterTwoWhileMigrating() {
         final VM migratingVM = new VM();
@@ -42,6 +42,7 @@ import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.compat.Version;
 import org.ovirt.engine.core.dao.LabelDao;
 import org.ovirt.engine.core.dao.VmDao;
+import org.ovirt.engine.core.dao.VmDynamicDao;
 import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
 
 @ExtendWith(MockitoExtension.class)
@@ -56,6 +57,8 @@ public class AffinityRulesEnforcerTest {
     private SchedulingManager schedulingManager;
     @Mock
     private VmDao vmDao;
+    @Mock
+    private VmDynamicDao vmDynamicDao;
 
     private Cluster cluster;
 
@@ -83,6 +86,9 @@ public class AffinityRulesEnforcerTest {
 
     private Map<Guid, List<VDS>> possibleHosts;
 
+    @Mock
+    private AffinityViolationIndex violationIndex;
+
     @InjectMocks
     private AffinityRulesEnforcer enforcer;
 
@@ -115,6 +121,9 @@ public class AffinityRulesEnforcerTest {
 
         when(schedulingManager.canSchedule(eq(cluster), any(), any(), any(), anyBoolean(), anyBoolean(), any())).thenReturn(possibleHosts);
         when(schedulingManager.prepareCall(eq(cluster))).thenCallRealMethod();
+
+        AffinityViolationIndex index = new AffinityViolationIndex(affinityGroupDao, labelDao, vmDynamicDao);
+        when(violationIndex.refresh(any())).thenAnswer(invocation -> index.refresh(invocation.getArgument(0)));
     }
 
     @Test
@@ -644,6 +653,11 @@ public class AffinityRulesEnforcerTest {
             }
             return selectedVms;
         }).when(vmDao).getVmsByIds(any());
+
+        doAnswer(invocation -> Arrays.stream(vmList)
+                .filter(vm -> vm.getRunOnVds() != null)
+                .map(VM::getDynamicData)
+                .collect(Collectors.toList())).when(vmDynamicDao).getAllRunningForCluster(any());
     }
 
     private List<AffinityGroup> copyGroups() {
@@ -0,0 +1,232 @@
+package org.ovirt.engine.core.bll.scheduling.arem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityViolationIndex.ClusterViolations;
+import org.ovirt.engine.core.common.businessentities.Cluster;
+import org.ovirt.engine.core.common.businessentities.VmDynamic;
+import org.ovirt.engine.core.common.scheduling.AffinityGroup;
+import org.ovirt.engine.core.common.scheduling.EntityAffinityRule;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.compat.Version;
+import org.ovirt.engine.core.dao.LabelDao;
+import org.ovirt.engine.core.dao.VmDynamicDao;
+import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class AffinityViolationIndexTest {
+
+    @Mock
+    private AffinityGroupDao affinityGroupDao;
+    @Mock
+    private LabelDao labelDao;
+    @Mock
+    private VmDynamicDao vmDynamicDao;
+
+    private AffinityViolationIndex index;
+
+    private Cluster cluster;
+
+    private final List<AffinityGroup> affinityGroups = new ArrayList<>();
+
+    /** The host each running VM runs on, as persisted. */
+    private final Map<Guid, Guid> vmHosts = new HashMap<>();
+
+    private List<Guid> vms;
+
+    private List<Guid> hosts;
+
+    @BeforeEach
+    public void setUp() {
+        cluster = new Cluster();
+        cluster.setId(Guid.newGuid());
+        cluster.setCompatibilityVersion(Version.getLast());
+
+        hosts = IntStream.range(0, 3).mapToObj(i -> Guid.newGuid()).collect(Collectors.toList());
+        vms = IntStream.range(0, 6).mapToObj(i -> Guid.newGuid()).collect(Collectors.toList());
+        // vm0, vm1 and vm2 run on host0, vm3 on host1, vm4 and vm5 on host2
+        for (int i = 0; i < vms.size(); i++) {
+            vmHosts.put(vms.get(i), hosts.get(i < 3 ? 0 : i == 3 ? 1 : 2));
+        }
+
+        when(affinityGroupDao.getAllAffinityGroupsWithFlatLabelsByClusterId(any()))
+                .thenAnswer(invocation -> affinityGroups.stream().map(AffinityGroup::new).collect(Collectors.toList()));
+        when(labelDao.getAllByClusterId(any())).thenReturn(new ArrayList<>());
+        when(vmDynamicDao.getAllRunningForCluster(any())).thenAnswer(invocation -> runningVms());
+
+        index = new AffinityViolationIndex(affinityGroupDao, labelDao, vmDynamicDao);
+    }
+
+    @Test
+    public void noViolationWhenSatisfied() {
+        affinityGroups.add(createGroup(EntityAffinityRule.POSITIVE, 0, 1, 2));
+        affinityGroups.add(createGroup(EntityAffinityRule.NEGATIVE, 0, 3, 4));
+
+        assertThat(index.refresh(cluster).isEmpty()).isTrue();
+        assertThat(index.getViolations(cluster.getId()).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void migratedVmIsRechecked() {
+        AffinityGroup negativeGroup = createGroup(EntityAffinityRule.NEGATIVE, 0, 3, 4);
+        affinityGroups.add(negativeGroup);
+        assertThat(index.refresh(cluster).isEmpty()).isTrue();
+
+        vmHosts.put(vms.get(3), hosts.get(0));
+        assertThat(index.refresh(cluster).getVmToVmViolations()).containsExactly(negativeGroup);
+
+        vmHosts.put(vms.get(3), hosts.get(1));
+        assertThat(index.refresh(cluster).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void stoppedVmIsRechecked() {
+        AffinityGroup positiveGroup = createGroup(EntityAffinityRule.POSITIVE, 2, 3);
+        affinityGroups.add(positiveGroup);
+        assertThat(index.refresh(cluster).getVmToVmViolations()).hasSize(1);
+
+        vmHosts.remove(vms.get(3));
+        assertThat(index.refresh(cluster).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void editedGroupIsRechecked() {
+        AffinityGroup group = createGroup(EntityAffinityRule.NEGATIVE, 0, 3);
+        affinityGroups.add(group);
+        assertThat(index.refresh(cluster).isEmpty()).isTrue();
+
+        group.setVmIds(Arrays.asList(vms.get(0), vms.get(1)));
+        assertThat(index.refresh(cluster).getVmToVmViolations()).containsExactly(group);
+
+        group.setVmAffinityRule(EntityAffinityRule.POSITIVE);
+        group.setVmEnforcing(false);
+        assertThat(index.refresh(cluster).isEmpty()).isTrue();
+
+        affinityGroups.add(createGroup(EntityAffinityRule.POSITIVE, 0, 5));
+        assertThat(index.refresh(cluster).getVmToVmViolations()).hasSize(1);
+
+        affinityGroups.remove(1);
+        assertThat(index.refresh(cluster).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void hostAffinityViolation() {
+        AffinityGroup group = createGroup(EntityAffinityRule.DISABLED, 0, 3);
+        group.setVdsIds(Arrays.asList(hosts.get(0)));
+        group.setVdsAffinityRule(EntityAffinityRule.POSITIVE);
+        affinityGroups.add(group);
+
+        assertThat(index.refresh(cluster).getVmToHostViolations()).containsExactly(group);
+
+        vmHosts.put(vms.get(3), hosts.get(0));
+        assertThat(index.refresh(cluster).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void positiveEnforcingGroupsAreUnified() {
+        affinityGroups.add(createGroup(EntityAffinityRule.POSITIVE, 0, 1));
+        affinityGroups.add(createGroup(EntityAffinityRule.POSITIVE, 1, 3));
+
+        ClusterViolations violations = index.refresh(cluster);
+
+        assertThat(violations.getVmToVmViolations()).hasSize(1);
+        assertThat(violations.getVmToVmViolations().get(0).getVmIds())
+                .containsExactlyInAnyOrder(vms.get(0), vms.get(1), vms.get(3));
+        // The groups loaded from the database are not modified
+        assertThat(affinityGroups).allMatch(AffinityGroup::isVmPositive);
+    }
+
+    /**
+     * Applies random placement changes and group edits and checks that the index matches an index built from
+     * scratch after each of them.
+     */
+    @Test
+    public void indexIsConsistentWithFullRecalculation() {
+        Random random = new Random(0);
+        for (int i = 0; i < 4; i++) {
+            affinityGroups.add(createRandomGroup(random));
+        }
+
+        for (int i = 0; i < 200; i++) {
+            switch (random.nextInt(4)) {
+            case 0:
+                affinityGroups.set(random.nextInt(affinityGroups.size()), createRandomGroup(random));
+                break;
+            case 1:
+                vmHosts.remove(vms.get(random.nextInt(vms.size())));
+                break;
+            default:
+                vmHosts.put(vms.get(random.nextInt(vms.size())), hosts.get(random.nextInt(hosts.size())));
+            }
+
+            ClusterViolations violations = index.refresh(cluster);
+            ClusterViolations expected =
+                    new AffinityViolationIndex(affinityGroupDao, labelDao, vmDynamicDao).refresh(cluster);
+
+            assertThat(groupVms(violations.getVmToVmViolations()))
+                    .isEqualTo(groupVms(expected.getVmToVmViolations()));
+            assertThat(groupVms(violations.getVmToHostViolations()))
+                    .isEqualTo(groupVms(expected.getVmToHostViolations()));
+        }
+    }
+
+    private Set<Set<Guid>> groupVms(List<AffinityGroup> groups) {
+        return groups.stream()
+                .map(ag -> ag.getVmIds().stream().collect(Collectors.toSet()))
+                .collect(Collectors.toSet());
+    }
+
+    private List<VmDynamic> runningVms() {
+        return vmHosts.entrySet().stream()
+                .map(entry -> {
+                    VmDynamic vmDynamic = new VmDynamic();
+                    vmDynamic.setId(entry.getKey());
+                    vmDynamic.setRunOnVds(entry.getValue());
+                    return vmDynamic;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private AffinityGroup createRandomGroup(Random random) {
+        EntityAffinityRule[] rules = EntityAffinityRule.values();
+        int[] vmIndexes = random.ints(2 + random.nextInt(3), 0, vms.size()).distinct().toArray();
+        AffinityGroup group = createGroup(rules[random.nextInt(rules.length)], vmIndexes);
+        group.setVmEnforcing(random.nextBoolean());
+        if (random.nextBoolean()) {
+            group.setVdsIds(Arrays.asList(hosts.get(random.nextInt(hosts.size()))));
+            group.setVdsAffinityRule(random.nextBoolean() ? EntityAffinityRule.POSITIVE : EntityAffinityRule.NEGATIVE);
+            group.setVdsEnforcing(random.nextBoolean());
+        }
+        return group;
+    }
+
+    private AffinityGroup createGroup(EntityAffinityRule vmAffinityRule, int... vmIndexes) {
+        AffinityGroup group = new AffinityGroup();
+        group.setId(Guid.newGuid());
+        group.setClusterId(cluster.getId());
+        group.setVmAffinityRule(vmAffinityRule);
+        group.setVmEnforcing(true);
+        group.setVmIds(Arrays.stream(vmIndexes).mapToObj(vms::get).collect(Collectors.toList()));
+        return group;
+    }
+}
@@ -77,7 +77,7 @@ public class HostedEngineMemoryReservationFilterPolicyUnitTest extends BaseComma
 
         messages = new PerHostMessages();
 
-        doReturn(hostedEngine).when(vmDao).getHostedEngineVm();
+        doReturn(hostedEngine).when(vmDao).getHostedEngineVmMemory();
     }
 
     @Test
@@ -140,7 +140,7 @@ public class HostedEngineMemoryReservationFilterPolicyUnitTest extends BaseComma
         parameters.put(PolicyUnitParameter.HE_SPARES_COUNT.getDbName(), "5");
         hostedEngine.setVmMemSizeMb(7000);
         hostedEngine.setOrigin(OriginType.OVIRT);
-        doReturn(null).when(vmDao).getHostedEngineVm();
+        doReturn(null).when(vmDao).getHostedEngineVmMemory();
 
         List<VDS> result = filter(vm);
         assertEquals(5, result.size());
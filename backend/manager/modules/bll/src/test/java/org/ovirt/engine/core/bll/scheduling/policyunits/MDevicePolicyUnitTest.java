@@ -25,6 +25,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.plugins.MemberAccessor;
 import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.bll.hostdev.HostDeviceInventory;
 import org.ovirt.engine.core.bll.scheduling.SchedulingContext;
 import org.ovirt.engine.core.common.businessentities.HostDevice;
 import org.ovirt.engine.core.common.businessentities.MDevType;
@@ -78,7 +79,10 @@ public class MDevicePolicyUnitTest {
     private final MemberAccessor accessor = Plugins.getMemberAccessor();
 
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws NoSuchFieldException, IllegalAccessException {
+        Field field = MDevicePolicyUnit.class.getDeclaredField("hostDeviceInventory");
+        accessor.set(field, policyUnit, new HostDeviceInventory(hostDeviceDao));
+
         vm = new VM();
         vm.setCustomCompatibilityVersion(Version.v4_4);
 
@@ -0,0 +1,146 @@
+package org.ovirt.engine.core.bll.storage.disk.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpInetConnection;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.common.businessentities.storage.ImageTicket;
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * Tests the connections {@link ImageioClient} opens, against a local stub of the imageio tickets API.
+ */
+public class ImageioClientConnectionsTest {
+
+    private HttpServer server;
+    private ImageioClient client;
+
+    private final Map<String, String> tickets = new ConcurrentHashMap<>();
+    private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+    private volatile boolean closeConnections;
+    private volatile boolean noContent;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = ServerBootstrap.bootstrap()
+                .setLocalAddress(InetAddress.getLoopbackAddress())
+                .setListenerPort(0)
+                .registerHandler("*", this::handle)
+                .create();
+        server.start();
+        client = new ImageioClient(server.getInetAddress().getHostAddress(), server.getLocalPort());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.shutdown(0, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void requestsReuseConnection() {
+        for (int i = 0; i < 5; i++) {
+            ImageTicket ticket = createTicket();
+            client.putTicket(ticket);
+            client.extendTicket(ticket.getId(), 600);
+            assertEquals(ticket.getId(), client.getTicket(ticket.getId()).getId());
+            client.deleteTicket(ticket.getId());
+        }
+
+        assertEquals(1, connections.size());
+    }
+
+    @Test
+    public void failedRequestReusesConnection() {
+        Guid missingTicketId = Guid.newGuid();
+        Throwable exception = assertThrows(RuntimeException.class, () -> client.getTicket(missingTicketId));
+        assertTrue(exception.getMessage().contains("Not Found"));
+
+        ImageTicket ticket = createTicket();
+        client.putTicket(ticket);
+
+        assertEquals(1, connections.size());
+    }
+
+    @Test
+    public void emptyTicketResponseFails() {
+        noContent = true;
+        Throwable exception = assertThrows(RuntimeException.class, () -> client.getTicket(Guid.newGuid()));
+        assertEquals("Empty response", exception.getMessage());
+    }
+
+    @Test
+    public void connectionClosedByServerIsNotReused() {
+        closeConnections = true;
+        ImageTicket ticket = createTicket();
+        client.putTicket(ticket);
+        client.getTicket(ticket.getId());
+
+        assertEquals(2, connections.size());
+    }
+
+    private void handle(HttpRequest request, HttpResponse response, HttpContext context) throws IOException {
+        HttpInetConnection conn = (HttpInetConnection) context.getAttribute(HttpCoreContext.HTTP_CONNECTION);
+        connections.add(conn.getRemotePort());
+
+        String ticketId = request.getRequestLine().getUri().substring(ImageioClient.TICKETS_URI.length());
+        switch (request.getRequestLine().getMethod()) {
+        case "PUT":
+            tickets.put(ticketId, EntityUtils.toString(((HttpEntityEnclosingRequest) request).getEntity()));
+            break;
+        case "GET":
+            if (noContent) {
+                response.setStatusCode(HttpStatus.SC_NO_CONTENT);
+                return;
+            }
+            if (!tickets.containsKey(ticketId)) {
+                response.setStatusCode(HttpStatus.SC_NOT_FOUND);
+                response.setReasonPhrase("Not Found");
+                response.setEntity(new StringEntity("No such ticket", ContentType.TEXT_PLAIN));
+                return;
+            }
+            response.setEntity(new StringEntity(tickets.get(ticketId), ContentType.APPLICATION_JSON));
+            break;
+        case "DELETE":
+            tickets.remove(ticketId);
+            break;
+        default:
+            break;
+        }
+        response.setStatusCode(HttpStatus.SC_OK);
+        if (closeConnections) {
+            response.setHeader("Connection", "close");
+        }
+    }
+
+    private ImageTicket createTicket() {
+        ImageTicket ticket = new ImageTicket();
+        ticket.setId(Guid.newGuid());
+        ticket.setSize(1073741824L);
+        ticket.setUrl("file:///images/" + ticket.getId());
+        ticket.setTimeout(300);
+        ticket.setOps(new String[] { "read", "write" });
+        return ticket;
+    }
+}
@@ -1,16 +1,31 @@
 package org.ovirt.engine.core.common.utils.ansible;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import org.apache.http.client.HttpClient;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -32,6 +47,99 @@ public class AnsibleRunnerClientTest {
     @InjectMocks
     AnsibleRunnerClient client;
 
+    @TempDir
+    Path runnerPath;
+
+    @Test
+    void testArtifactHandlerIsWokenUpByNewEvents() throws Exception {
+        AnsibleArtifactsWatcher watcher = new AnsibleArtifactsWatcher(Executors.defaultThreadFactory());
+        UUID playUuid = UUID.randomUUID();
+        AnsibleRunnerClient runnerClient = createClient(watcher);
+        List<String> tasks = Collections.synchronizedList(new ArrayList<>());
+        Files.createDirectories(runnerPath.resolve(playUuid.toString()));
+
+        // the fake ansible-runner creates the artifacts after the events started to be awaited
+        CompletableFuture<Void> runner = CompletableFuture.runAsync(() -> {
+            sleep(200);
+            for (int i = 1; i <= 10; i++) {
+                writeEvent(playUuid, i, "runner_on_ok", "task " + i);
+                sleep(20);
+            }
+            writeEvent(playUuid, 11, "playbook_on_stats", null);
+        });
+
+        long start = System.nanoTime();
+        AnsibleReturnValue returnValue = runnerClient.artifactHandler(playUuid, 0, 1, (task, event) -> tasks.add(task));
+        runner.join();
+
+        assertEquals(AnsibleReturnCode.OK, returnValue.getAnsibleReturnCode());
+        assertEquals(11, returnValue.getLastEventId());
+        assertEquals(Arrays.asList("task 1", "task 2", "task 3", "task 4", "task 5",
+                "task 6", "task 7", "task 8", "task 9", "task 10"), tasks);
+        // woken up by the watcher, rather than by the periodic look up for events
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        assertEquals(0, watcher.getWatchedDirectoriesCount());
+        watcher.stop();
+    }
+
+    @Test
+    void testProcessEventsInOrderUpToMissingEvent() throws Exception {
+        UUID playUuid = UUID.randomUUID();
+        AnsibleRunnerClient runnerClient = createClient(null);
+        List<String> tasks = new ArrayList<>();
+        writeEvent(playUuid, 1, "runner_on_ok", "task 1");
+        writeEvent(playUuid, 2, "runner_on_ok", "task 2");
+        writeEvent(playUuid, 4, "runner_on_ok", "task 4");
+        writePartialEvent(playUuid, 3);
+
+        assertEquals(2, runnerClient.processEvents(playUuid.toString(), 0, (task, event) -> tasks.add(task), "", null));
+        assertEquals(Arrays.asList("task 1", "task 2"), tasks);
+
+        writeEvent(playUuid, 3, "runner_on_ok", "task 3");
+        assertEquals(4, runnerClient.processEvents(playUuid.toString(), 2, (task, event) -> tasks.add(task), "", null));
+        assertEquals(Arrays.asList("task 1", "task 2", "task 3", "task 4"), tasks);
+    }
+
+    private AnsibleRunnerClient createClient(AnsibleArtifactsWatcher watcher) {
+        AnsibleRunnerClient runnerClient = new AnsibleRunnerClient(runnerPath);
+        runnerClient.setLogger(new AnsibleRunnerLogger(runnerPath.resolve("ansible-runner.log")));
+        runnerClient.setArtifactsWatcher(watcher);
+        return runnerClient;
+    }
+
+    /**
+     * Writes an event the way ansible-runner does, the complete event file appears at once.
+     */
+    private void writeEvent(UUID playUuid, int eventId, String event, String task) {
+        try {
+            Path jobEvents = Files.createDirectories(Path.of(jobEventsDir(playUuid)));
+            String eventData = task == null ? "{}" : String.format("{\"task\": \"%1$s\"}", task);
+            Path tmp = jobEvents.resolve(String.format("%1$d-%2$s.json.tmp", eventId, UUID.randomUUID()));
+            Files.writeString(tmp, String.format("{\"event\": \"%1$s\", \"event_data\": %2$s}", event, eventData));
+            Files.move(tmp,
+                    jobEvents.resolve(String.format("%1$d-%2$s.json", eventId, UUID.randomUUID())),
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private void writePartialEvent(UUID playUuid, int eventId) throws IOException {
+        Path jobEvents = Files.createDirectories(Path.of(jobEventsDir(playUuid)));
+        Files.writeString(jobEvents.resolve(String.format("%1$d-%2$s-partial.json", eventId, UUID.randomUUID())), "{");
+    }
+
+    private String jobEventsDir(UUID playUuid) {
+        return new AnsibleRunnerClient(runnerPath).getJobEventsDir(playUuid.toString());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
 
     @ParameterizedTest
     @MethodSource("provideParamsForCommandVariablesFormatting")
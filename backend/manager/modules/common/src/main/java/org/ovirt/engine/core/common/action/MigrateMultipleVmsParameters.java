@@ -18,6 +18,12 @@ public class MigrateMultipleVmsParameters extends ActionParametersBase {
 
     private boolean addVmsInPositiveHardAffinity;
 
+    /**
+     * Whether the VMs are migrated away from their hosts gradually, adapting the number of concurrent migrations to
+     * their progress, instead of starting all the migrations at once
+     */
+    private boolean evacuation;
+
     public MigrateMultipleVmsParameters() {
     }
 
@@ -81,4 +87,12 @@ public class MigrateMultipleVmsParameters extends ActionParametersBase {
     public void setAddVmsInPositiveHardAffinity(boolean addVmsInPositiveHardAffinity) {
         this.addVmsInPositiveHardAffinity = addVmsInPositiveHardAffinity;
     }
+
+    public boolean isEvacuation() {
+        return evacuation;
+    }
+
+    public void setEvacuation(boolean evacuation) {
+        this.evacuation = evacuation;
+    }
 }
@@ -57,6 +57,13 @@ public enum ConfigValues {
 
     @TypeConverterAttribute(Long.class)
     VdsRefreshRate,
+
+    /**
+     * The maximal number of VM status events of a host buffered until processed.
+     */
+    @TypeConverterAttribute(Integer.class)
+    VmStatusEventsBufferSize,
+
     @TypeConverterAttribute(Long.class)
     AsyncTaskPollingRate,
 
@@ -125,6 +132,28 @@ public enum ConfigValues {
     @Reloadable
     @TypeConverterAttribute(Boolean.class)
     MaintenanceVdsIgnoreExternalVms,
+
+    /**
+     * The number of migrations started concurrently when a host is evacuated, before it is adapted to the progress of
+     * the migrations.
+     */
+    @Reloadable
+    @TypeConverterAttribute(Integer.class)
+    EvacuationInitialConcurrentMigrations,
+
+    /**
+     * The maximal number of migrations running concurrently when a host is evacuated.
+     */
+    @Reloadable
+    @TypeConverterAttribute(Integer.class)
+    EvacuationMaxConcurrentMigrations,
+
+    /**
+     * The time after which a migration of an evacuated host which doesn't progress is considered stalling.
+     */
+    @Reloadable
+    @TypeConverterAttribute(Integer.class)
+    EvacuationMigrationStallTimeoutInSeconds,
     @Reloadable
     @TypeConverterAttribute(String.class)
     oVirtUploadPath,
@@ -320,6 +349,12 @@ public enum ConfigValues {
     AffinityRulesEnforcementManagerInitialDelay,
     @TypeConverterAttribute(Boolean.class)
     AffinityRulesEnforcementManagerEnabled,
+    /**
+     * Maximal number of VMs migrated from a cluster on each interval of the affinity rules enforcement manager.
+     */
+    @Reloadable
+    @TypeConverterAttribute(Integer.class)
+    AffinityRulesEnforcementManagerMaxMigrationsPerCluster,
 
     @TypeConverterAttribute(Long.class)
     VdsHaReservationIntervalInMinutes,
@@ -546,6 +581,20 @@ public enum ConfigValues {
     @TypeConverterAttribute(Integer.class)
     FindFenceProxyDelayBetweenRetriesInSec,
 
+    /**
+     * The maximal number of fence operations that are executed concurrently using the same proxy host.
+     */
+    @Reloadable
+    @TypeConverterAttribute(Integer.class)
+    FenceProxyMaxConcurrentOperations,
+
+    /**
+     * The maximal number of hosts that are fenced or checked for power management health concurrently.
+     */
+    @Reloadable
+    @TypeConverterAttribute(Integer.class)
+    FencingMaxConcurrentHosts,
+
     @Reloadable
     @TypeConverterAttribute(Integer.class)
     LogPhysicalMemoryThresholdInMB,
@@ -733,6 +782,12 @@ public enum ConfigValues {
     @TypeConverterAttribute(Integer.class)
     FailedJobCleanupTimeInMinutes,
 
+    /**
+     * Interval in which modified job steps are persisted in a batch, 0 persists each modification right away
+     */
+    @TypeConverterAttribute(Integer.class)
+    JobStepsFlushIntervalInMillis,
+
     @Reloadable
     @TypeConverterAttribute(Integer.class)
     JobPageSize,
@@ -750,6 +805,28 @@ public enum ConfigValues {
     @TypeConverterAttribute(Integer.class)
     VmPoolMonitorMaxAttempts,
 
+    /**
+     * Maximal number of VMs the VM pool monitor runs concurrently when prestarting VMs
+     */
+    @Reloadable
+    @TypeConverterAttribute(Integer.class)
+    VmPoolMonitorMaxConcurrentStarts,
+
+    /**
+     * Maximal number of prestarted VMs that may be starting on a single host at the same time
+     */
+    @Reloadable
+    @TypeConverterAttribute(Integer.class)
+    VmPoolMonitorMaxStartsPerHost,
+
+    /**
+     * Maximal number of prestarted VMs whose disks reside on a single storage domain that may be starting at the
+     * same time
+     */
+    @Reloadable
+    @TypeConverterAttribute(Integer.class)
+    VmPoolMonitorMaxStartsPerStorageDomain,
+
     @TypeConverterAttribute(Integer.class)
     WindowsGuestAgentUpdateCheckInternal,
 
@@ -895,6 +972,19 @@ public enum ConfigValues {
     @TypeConverterAttribute(Integer.class)
     GlusterUnSyncedEntriesHistoryLimit,
 
+    /**
+     * Maximal number of clusters whose gluster data is refreshed concurrently by the gluster sync job
+     */
+    @TypeConverterAttribute(Integer.class)
+    GlusterRefreshClustersParallelism,
+
+    /**
+     * Time (in seconds) the gluster sync job waits for the refresh of a single cluster before moving on, leaving the
+     * refresh of the cluster to complete in the background
+     */
+    @TypeConverterAttribute(Integer.class)
+    GlusterClusterRefreshTimeoutInSecs,
+
     @Reloadable
     @TypeConverterAttribute(String.class)
     BootstrapMinimalVdsmVersion,
@@ -911,6 +1001,13 @@ public enum ConfigValues {
     @TypeConverterAttribute(Integer.class)
     MinimumPercentageToUpdateQuotaCache,
 
+    /**
+     * The interval in minutes in which the usage of the cached quotas is reconciled with the usage calculated by the
+     * database, correcting the drift of the usage updated incrementally by the consumptions of the commands.
+     */
+    @TypeConverterAttribute(Long.class)
+    QuotaUsageReconciliationIntervalInMinutes,
+
     @Reloadable
     @TypeConverterAttribute(Integer.class)
     LogMaxPhysicalMemoryUsedThresholdInPercentage,
@@ -1164,6 +1261,13 @@ public enum ConfigValues {
     @TypeConverterAttribute(Integer.class)
     MaxTimeAutoStartBlockedOnPriority,
 
+    /**
+     * The maximal number of auto-start VMs that are run concurrently.
+     */
+    @Reloadable
+    @TypeConverterAttribute(Integer.class)
+    AutoStartVmsRunnerMaxConcurrentStarts,
+
     /**
      * Value representing maximum number of milliseconds a VM can be down during live migration.
      * Default value of 0 means this value will not be sent to VDSM at all and the currently configured value on
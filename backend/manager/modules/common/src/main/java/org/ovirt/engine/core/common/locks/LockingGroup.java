@@ -49,5 +49,7 @@ public enum LockingGroup {
     /** This group is used when examining whether the last VM is detached from the pool */
     VM_POOL_DETACH,
     LIVE_STORAGE_MIGRATION,
-    VM_BACKUP;
+    VM_BACKUP,
+    /** This group is used to lock the custom event id of an external event while the event is added */
+    EXTERNAL_EVENT;
 }
@@ -7,18 +7,27 @@ import java.util.Objects;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+/**
+ * An identifier of an engine entity.
+ * <p>
+ * The 128 bits of the identifier are kept inline in the object, rather than in a wrapped {@link UUID}, as there are
+ * many ids in the engine's live heap, and the string form is computed once, when first needed, as it's used in logs
+ * and in the messages sent to the hosts.
+ */
 public class Guid implements Serializable, Comparable<Guid> {
     /**
      * Needed for the serialization/deserialization mechanism.
      */
-    private static final long serialVersionUID = 27305745737022810L;
+    private static final long serialVersionUID = 3213290457718545426L;
 
     public static final Guid SYSTEM = new Guid("AAA00000-0000-0000-0000-123456789AAA");
     public static final Guid EVERYONE = new Guid("EEE00000-0000-0000-0000-123456789EEE");
     public static final Guid Empty = new Guid("00000000-0000-0000-0000-000000000000");
     private static final String SEPARATOR = ",";
 
-    private UUID uuid;
+    private long mostSigBits;
+    private long leastSigBits;
+    private transient String string;
 
     /**
      * This constructor should never be used directly - use {@link #Empty} instead.
@@ -26,11 +35,15 @@ public class Guid implements Serializable, Comparable<Guid> {
      */
     @Deprecated
     private Guid() {
-        this(Empty.getUuid());
     }
 
     public Guid(UUID uuid) {
-        this.uuid = uuid;
+        this(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public Guid(long mostSigBits, long leastSigBits) {
+        this.mostSigBits = mostSigBits;
+        this.leastSigBits = leastSigBits;
     }
 
     public Guid(byte[] guid) {
@@ -53,7 +66,8 @@ public class Guid implements Serializable, Comparable<Guid> {
         for (int i = 8; i <= 15; i++) {
             lsb = (lsb << 8) | (guid[i % length] & 0xff);
         }
-        uuid = new UUID(msb, lsb);
+        mostSigBits = msb;
+        leastSigBits = lsb;
     }
 
     public Guid(String candidate) {
@@ -61,10 +75,10 @@ public class Guid implements Serializable, Comparable<Guid> {
             throw new NullPointerException(
                     "candidate can not be null please use static method createGuidFromString");
         }
-        if (candidate.isEmpty()) {
-            uuid = Empty.getUuid();
-        } else {
-            uuid = UUID.fromString(candidate);
+        if (!candidate.isEmpty()) {
+            UUID uuid = UUID.fromString(candidate);
+            mostSigBits = uuid.getMostSignificantBits();
+            leastSigBits = uuid.getLeastSignificantBits();
         }
     }
 
@@ -106,8 +120,21 @@ public class Guid implements Serializable, Comparable<Guid> {
         return id == null || id.equals(Empty);
     }
 
+    /**
+     * Creates a new {@link UUID} of this id.
+     */
     public UUID getUuid() {
-        return uuid;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Sets the bits of this id, for the JSON mappers which deserialize the "uuid" property of an id by reflection.
+     */
+    @SuppressWarnings("unused")
+    private void setUuid(UUID uuid) {
+        mostSigBits = uuid.getMostSignificantBits();
+        leastSigBits = uuid.getLeastSignificantBits();
+        string = null;
     }
 
     @Override
@@ -119,32 +146,45 @@ public class Guid implements Serializable, Comparable<Guid> {
             return false;
         }
         Guid other = (Guid) obj;
-        return Objects.equals(uuid, other.uuid);
+        return mostSigBits == other.mostSigBits && leastSigBits == other.leastSigBits;
     }
 
+    /**
+     * Same as the hash code of the {@link UUID} of this id.
+     */
     @Override
     public int hashCode() {
-        return Objects.hashCode(uuid);
+        long hilo = mostSigBits ^ leastSigBits;
+        return ((int) (hilo >> 32)) ^ (int) hilo;
     }
 
+    /**
+     * Same order as of the {@link UUID}s of the ids.
+     */
     @Override
     public int compareTo(Guid other) {
-        return this.getUuid().compareTo(other.getUuid());
+        int result = Long.compare(mostSigBits, other.mostSigBits);
+        return result != 0 ? result : Long.compare(leastSigBits, other.leastSigBits);
     }
 
     @Override
     public String toString() {
-        return uuid.toString();
+        String result = string;
+        if (result == null) {
+            result = new UUID(mostSigBits, leastSigBits).toString();
+            string = result;
+        }
+        return result;
     }
 
     public byte[] toByteArray() {
         byte[] data = new byte[16];
-        long msb = uuid.getMostSignificantBits();
+        long msb = mostSigBits;
         for (int i = 7; i >= 0; i--) {
             data[i] = (byte) (msb & 0xff);
             msb >>= 8;
         }
-        long lsb = uuid.getLeastSignificantBits();
+        long lsb = leastSigBits;
         for (int i = 15; i >= 8; i--) {
             data[i] = (byte) (lsb & 0xff);
             lsb >>= 8;
@@ -3,10 +3,12 @@ package org.ovirt.engine.core.compat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
 
@@ -24,6 +26,30 @@ public class GuidTest {
         assertTrue(guid2.compareTo(guid1) > 0);
     }
 
+    @Test
+    public void testConsistentWithUuid() {
+        UUID uuid1 = UUID.fromString("ab5b11bc-c220-4421-9abd-cfa484aecb6e");
+        UUID uuid2 = UUID.fromString("5b411bc1-c220-4421-9abd-cfa484aecb6f");
+        Guid guid1 = new Guid(uuid1);
+        Guid guid2 = new Guid(uuid2);
+        assertEquals(uuid1, guid1.getUuid());
+        assertEquals(uuid1.hashCode(), guid1.hashCode());
+        assertEquals(Integer.signum(uuid1.compareTo(uuid2)), Integer.signum(guid1.compareTo(guid2)));
+        assertEquals(uuid1.toString(), guid1.toString());
+    }
+
+    @Test
+    public void testStringIsCached() {
+        Guid guid = Guid.newGuid();
+        assertSame(guid.toString(), guid.toString());
+    }
+
+    @Test
+    public void testEmptyString() {
+        assertEquals(Guid.Empty, new Guid(""));
+        assertEquals("00000000-0000-0000-0000-000000000000", new Guid("").toString());
+    }
+
     @Test
     public void testStringCreation() {
         Guid guid = Guid.newGuid();
@@ -131,13 +131,24 @@ public interface AuditLogDao extends Dao, SearchDao<AuditLog> {
     void remove(long id);
 
     /**
-     * Removes all entries before the specified cutoff date
+     * Removes all entries before the specified cutoff date. The entries are stored in daily partitions, which are
+     * removed as a whole, so the entries of the day of the cutoff date are kept until the whole day is before it.
      *
      * @param cutoff
      *            the cutoff date
      */
     void removeAllBeforeDate(Date cutoff);
 
+    /**
+     * Creates the missing daily partitions for the entries logged between the given dates.
+     *
+     * @param from
+     *            the first date to create a partition for
+     * @param until
+     *            the last date to create a partition for
+     */
+    void createPartitions(Date from, Date until);
+
     /**
      * Removes all entries for the given VDS id.
      *
@@ -228,6 +228,15 @@ public class AuditLogDaoImpl extends BaseDao implements AuditLogDao {
         getCallsHandler().executeModification("DeleteAuditLogOlderThenDate", parameterSource);
     }
 
+    @Override
+    public void createPartitions(Date from, Date until) {
+        MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
+                .addValue("from", from)
+                .addValue("until", until);
+
+        getCallsHandler().executeModification("CreateAuditLogPartitions", parameterSource);
+    }
+
     @Override
     public void removeAllForVds(Guid id, boolean removeConfigAlerts) {
         MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
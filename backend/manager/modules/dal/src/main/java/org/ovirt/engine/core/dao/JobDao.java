@@ -1,5 +1,6 @@
 package org.ovirt.engine.core.dao;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -60,6 +61,16 @@ public interface JobDao extends GenericDao<Job, Guid>, SearchDao<Job> {
      */
     void updateJobLastUpdateTime(Guid jobId, Date lastUpdateTime);
 
+    /**
+     * Updates the last update time of the given {@link Job} entities in a single batch
+     *
+     * @param jobIds
+     *            the ids of the job instances which should be updated
+     * @param lastUpdateTime
+     *            the last date when the Jobs were modified
+     */
+    void updateJobsLastUpdateTime(Collection<Guid> jobIds, Date lastUpdateTime);
+
     /**
      * Deletes job entities which their end time is older than a given date and their status
      * appears in the provided list of statuses.
@@ -1,5 +1,6 @@
 package org.ovirt.engine.core.dao;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -113,6 +114,18 @@ public class JobDaoImpl extends DefaultGenericDao<Job, Guid> implements JobDao {
         getCallsHandler().executeModification("UpdateJobLastUpdateTime", parameterSource);
     }
 
+    @Override
+    public void updateJobsLastUpdateTime(Collection<Guid> jobIds, Date lastUpdateTime) {
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        getCallsHandler().executeStoredProcAsBatch("UpdateJobLastUpdateTime",
+                jobIds,
+                jobId -> getCustomMapSqlParameterSource()
+                        .addValue("job_id", jobId)
+                        .addValue("last_update_time", lastUpdateTime));
+    }
+
     @Override
     public void deleteJobOlderThanDateWithStatus(Date sinceDate, List<JobExecutionStatus> statusesList) {
         MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
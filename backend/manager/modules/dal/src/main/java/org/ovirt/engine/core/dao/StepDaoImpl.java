@@ -19,7 +19,7 @@ import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 
 @Named
 @Singleton
-public class StepDaoImpl extends DefaultGenericDao<Step, Guid> implements StepDao {
+public class StepDaoImpl extends MassOperationsGenericDao<Step, Guid> implements StepDao {
 
     private static final RowMapper<Step> stepRowMapper = (rs, rowNum) -> {
         Step step = new Step();
@@ -321,6 +321,44 @@ public interface VmDao extends Dao {
      */
     List<VM> getAllRunningByCluster(Guid clusterId);
 
+    /**
+     * Gets the placement of the running VMs of the specified cluster. Only the ID, name, cluster, origin, migration
+     * support, status and the hosts the VMs run on and migrate to are set.
+     *
+     * @param clusterId
+     *            the cluster id
+     * @return the list of VMs
+     */
+    List<VM> getAllRunningPlacementByCluster(Guid clusterId);
+
+    /**
+     * Gets the runtime status of the VMs running on the specified VDS. Only the ID, name, origin, pool, status, exit
+     * status and the host the VMs run on are set.
+     *
+     * @param vds
+     *            the VDS id
+     * @return the list of VMs
+     */
+    List<VM> getAllRuntimeStatusRunningForVds(Guid vds);
+
+    /**
+     * Gets the runtime status of the VMs of the specified VM pool. Only the ID, name, origin, pool, status, exit
+     * status and the host the VMs run on are set.
+     *
+     * @param vmPoolId
+     *            the pool id
+     * @return the list of VMs
+     */
+    List<VM> getAllRuntimeStatusForVmPool(Guid vmPoolId);
+
+    /**
+     * Gets the memory of the hosted engine VM. Only the ID, name, cluster, origin, status, memory sizes and the host
+     * the VM runs on are set.
+     *
+     * @return the hosted engine VM, or {@code null} if there is none
+     */
+    VM getHostedEngineVmMemory();
+
     /**
      * Retrieves all VM names which contains disks on other Storage Domain other then the storageDomain GUID.
      *
@@ -12,10 +12,13 @@ import javax.inject.Singleton;
 import org.ovirt.engine.core.common.businessentities.ArchitectureType;
 import org.ovirt.engine.core.common.businessentities.BiosType;
 import org.ovirt.engine.core.common.businessentities.CpuPinningPolicy;
+import org.ovirt.engine.core.common.businessentities.MigrationSupport;
 import org.ovirt.engine.core.common.businessentities.OriginType;
 import org.ovirt.engine.core.common.businessentities.QuotaEnforcementTypeEnum;
 import org.ovirt.engine.core.common.businessentities.VM;
+import org.ovirt.engine.core.common.businessentities.VMStatus;
 import org.ovirt.engine.core.common.businessentities.VmDevice;
+import org.ovirt.engine.core.common.businessentities.VmExitStatus;
 import org.ovirt.engine.core.common.di.interceptor.InvocationLogger;
 import org.ovirt.engine.core.common.utils.Pair;
 import org.ovirt.engine.core.compat.Guid;
@@ -301,6 +304,37 @@ public class VmDaoImpl extends BaseDao implements VmDao {
                         .addValue("cluster_id", clusterId));
     }
 
+    @Override
+    public List<VM> getAllRunningPlacementByCluster(Guid clusterId) {
+        return getCallsHandler().executeReadList("GetRunningVmsPlacementByClusterId",
+                vmPlacementRowMapper,
+                getCustomMapSqlParameterSource()
+                        .addValue("cluster_id", clusterId));
+    }
+
+    @Override
+    public List<VM> getAllRuntimeStatusRunningForVds(Guid id) {
+        return getCallsHandler().executeReadList("GetVmsRuntimeStatusRunningOnVds",
+                vmRuntimeStatusRowMapper,
+                getCustomMapSqlParameterSource()
+                        .addValue("vds_id", id));
+    }
+
+    @Override
+    public List<VM> getAllRuntimeStatusForVmPool(Guid vmPoolId) {
+        return getCallsHandler().executeReadList("GetVmsRuntimeStatusByVmPoolId",
+                vmRuntimeStatusRowMapper,
+                getCustomMapSqlParameterSource()
+                        .addValue("vm_pool_id", vmPoolId));
+    }
+
+    @Override
+    public VM getHostedEngineVmMemory() {
+        return getCallsHandler().executeRead("GetHostedEngineVmMemory",
+                vmMemoryRowMapper,
+                getCustomMapSqlParameterSource());
+    }
+
     @Override
     public List<Guid> getVmIdsForVersionUpdate(Guid baseTemplateId) {
         return getCallsHandler().executeReadList("getVmIdsForVersionUpdate",
@@ -388,6 +422,45 @@ public class VmDaoImpl extends BaseDao implements VmDao {
         return entity;
     };
 
+    static final RowMapper<VM> vmPlacementRowMapper = (rs, rowNum) -> {
+        VM entity = new VM();
+        entity.setId(getGuidDefaultEmpty(rs, "vm_guid"));
+        entity.setName(rs.getString("vm_name"));
+        entity.setClusterId(getGuidDefaultEmpty(rs, "cluster_id"));
+        entity.setOrigin(OriginType.forValue(rs.getInt("origin")));
+        entity.setMigrationSupport(MigrationSupport.forValue(rs.getInt("migration_support")));
+        entity.setStatus(VMStatus.forValue(rs.getInt("status")));
+        entity.setRunOnVds(getGuid(rs, "run_on_vds"));
+        entity.setMigratingToVds(getGuid(rs, "migrating_to_vds"));
+        return entity;
+    };
+
+    static final RowMapper<VM> vmRuntimeStatusRowMapper = (rs, rowNum) -> {
+        VM entity = new VM();
+        entity.setId(getGuidDefaultEmpty(rs, "vm_guid"));
+        entity.setName(rs.getString("vm_name"));
+        entity.setOrigin(OriginType.forValue(rs.getInt("origin")));
+        entity.setVmPoolId(getGuid(rs, "vm_pool_id"));
+        entity.setStatus(VMStatus.forValue(rs.getInt("status")));
+        entity.setExitStatus(VmExitStatus.forValue(rs.getInt("exit_status")));
+        entity.setRunOnVds(getGuid(rs, "run_on_vds"));
+        return entity;
+    };
+
+    static final RowMapper<VM> vmMemoryRowMapper = (rs, rowNum) -> {
+        VM entity = new VM();
+        entity.setId(getGuidDefaultEmpty(rs, "vm_guid"));
+        entity.setName(rs.getString("vm_name"));
+        entity.setClusterId(getGuidDefaultEmpty(rs, "cluster_id"));
+        entity.setOrigin(OriginType.forValue(rs.getInt("origin")));
+        entity.setVmMemSizeMb(rs.getInt("mem_size_mb"));
+        entity.setMaxMemorySizeMb(rs.getInt("max_memory_size_mb"));
+        entity.setMinAllocatedMem(rs.getInt("min_allocated_mem"));
+        entity.setStatus(VMStatus.forValue(rs.getInt("status")));
+        entity.setRunOnVds(getGuid(rs, "run_on_vds"));
+        return entity;
+    };
+
     private static final RowMapper<Pair<VM, VmDevice>> vmWithPlugInfoRowMapper = (rs, rowNum) -> {
         Pair<VM, VmDevice> entity = new Pair<>();
         entity.setFirst(vmRowMapper.mapRow(rs, rowNum));
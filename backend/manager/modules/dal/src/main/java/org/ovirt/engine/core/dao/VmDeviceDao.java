@@ -53,10 +53,16 @@ public interface VmDeviceDao extends GenericDao<VmDevice, VmDeviceId>, MassOpera
 
     boolean isMemBalloonEnabled(Guid vmId);
 
+    /**
+     * Remove the devices with the given ids, in a single batch.
+     */
     void removeAll(List<VmDeviceId> removedDeviceIds);
 
     void removeVmDevicesByVmIdAndType(Guid vmId, VmDeviceGeneralType type);
 
+    /**
+     * Save the given devices, in a single batch.
+     */
     void saveAll(List<VmDevice> newVmDevices);
 
     /**
@@ -203,7 +203,12 @@ public class VmDeviceDaoImpl extends
 
     @Override
     public void removeAll(List<VmDeviceId> removedDeviceIds) {
-        removedDeviceIds.forEach(this::remove);
+        if (removedDeviceIds.isEmpty()) {
+            return;
+        }
+        getCallsHandler().executeStoredProcAsBatch(getProcedureNameForRemove(),
+                removedDeviceIds,
+                this::createIdParameterMapper);
     }
 
     @Override
@@ -215,7 +220,7 @@ public class VmDeviceDaoImpl extends
 
     @Override
     public void saveAll(List<VmDevice> newVmDevices) {
-        newVmDevices.forEach(this::save);
+        saveAllInBatch(newVmDevices);
     }
 
     @Override
@@ -21,6 +21,15 @@ public interface VmDynamicDao extends GenericDao<VmDynamic, Guid>, StatusAwareDa
      */
     List<VmDynamic> getAllRunningForVds(Guid vds);
 
+    /**
+     * Retrieves all running dynamic VMs of the given cluster.
+     *
+     * @param clusterId
+     *            the cluster id
+     * @return the list of dynamic vms
+     */
+    List<VmDynamic> getAllRunningForCluster(Guid clusterId);
+
     /**
      * Check whether or not any VM runs on the given VDS instance.
      *
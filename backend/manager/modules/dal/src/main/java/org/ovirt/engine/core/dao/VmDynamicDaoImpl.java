@@ -54,6 +54,14 @@ public class VmDynamicDaoImpl extends MassOperationsGenericDao<VmDynamic, Guid>
         return getCallsHandler().executeReadList("GetVmsDynamicRunningOnVds", mapper, parameterSource);
     }
 
+    @Override
+    public List<VmDynamic> getAllRunningForCluster(Guid clusterId) {
+        return getCallsHandler().executeReadList("GetVmsDynamicRunningOnCluster",
+                createEntityRowMapper(),
+                getCustomMapSqlParameterSource()
+                        .addValue("cluster_id", clusterId));
+    }
+
     @Override
     public boolean isAnyVmRunOnVds(Guid vdsId) {
         MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
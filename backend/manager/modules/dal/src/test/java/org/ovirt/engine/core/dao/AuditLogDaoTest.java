@@ -244,6 +244,23 @@ public class AuditLogDaoTest extends BaseDaoTestCase<AuditLogDao> {
         assertEquals(1, result.size());
     }
 
+    /**
+     * Ensures that the entries of a partition are removed only when the whole partition is before the cutoff date.
+     */
+    @Test
+    public void testRemoveAllBeforeDateWithPartitions()
+            throws Exception {
+        dao.createPartitions(EXPECTED_DATE_FORMAT.parse("2010-12-19 00:00:00"),
+                EXPECTED_DATE_FORMAT.parse("2010-12-21 00:00:00"));
+        assertEquals(TOTAL_COUNT, dao.getAll(null, false).size());
+
+        Date cutoff = EXPECTED_DATE_FORMAT.parse("2010-12-20 13:11:00");
+        dao.removeAllBeforeDate(cutoff);
+        List<AuditLog> result = dao.getAll(null, false);
+        assertEquals(TOTAL_COUNT - 1, result.size());
+        assertNull(dao.get(44290L));
+    }
+
     @Test
     public void testRemoveAllForVds() {
         dao.removeAllForVds(FixturesTool.VDS_RHEL6_NFS_SPM, true);
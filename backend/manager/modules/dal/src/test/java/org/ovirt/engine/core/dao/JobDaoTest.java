@@ -8,6 +8,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -114,6 +115,15 @@ public class JobDaoTest extends BaseGenericDaoTestCase<Guid, Job, JobDao> {
                 "Compare date was persisted by reading it from database");
     }
 
+    @Test
+    public void updateJobsLastUpdateTime() throws ParseException {
+        DateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        Date updateDate = df.parse("2012-10-01 10:00:00");
+        dao.updateJobsLastUpdateTime(Arrays.asList(getExistingEntityId(), NO_VDSM_TASKS_JOB_ID), updateDate);
+        assertEquals(updateDate, dao.get(getExistingEntityId()).getLastUpdateTime());
+        assertEquals(updateDate, dao.get(NO_VDSM_TASKS_JOB_ID).getLastUpdateTime());
+    }
+
     @Test
     public void deleteJobOlderThanDateWithStatus() throws ParseException {
         int sizeBeforeDelete = dao.getAll().size();
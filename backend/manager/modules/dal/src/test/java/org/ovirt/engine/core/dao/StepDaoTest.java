@@ -142,6 +142,21 @@ public class StepDaoTest extends BaseGenericDaoTestCase<Guid, Step, StepDao> {
         assertEquals(newProgress, s.getProgress(), "New progress should be the same as the current");
     }
 
+    @Test
+    public void saveAndUpdateStepsInBatch() {
+        Step executingStep = generateNewEntity();
+        Step childStep = generateNewEntity();
+        childStep.setParentStepId(executingStep.getId());
+        dao.saveAllInBatch(Arrays.asList(executingStep, childStep));
+        assertEquals(childStep.getDescription(), dao.get(childStep.getId()).getDescription());
+
+        executingStep.setStatus(JobExecutionStatus.FINISHED);
+        childStep.setStatus(JobExecutionStatus.FAILED);
+        dao.updateAllInBatch(Arrays.asList(executingStep, childStep));
+        assertEquals(JobExecutionStatus.FINISHED, dao.get(executingStep.getId()).getStatus());
+        assertEquals(JobExecutionStatus.FAILED, dao.get(childStep.getId()).getStatus());
+    }
+
     private void prepareProgressTest(Guid entityId) {
         VdcObjectType type = VdcObjectType.Disk;
 
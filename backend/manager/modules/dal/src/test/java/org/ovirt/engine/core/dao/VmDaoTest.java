@@ -515,6 +515,83 @@ public class VmDaoTest extends BaseDaoTestCase<VmDao> {
         assertFalse(result.isEmpty());
     }
 
+    /**
+     * Ensures that the placement of the running VMs of a cluster matches the full VMs.
+     */
+    @Test
+    public void testAllRunningPlacementByCluster() {
+        Map<Guid, VM> expected = dao.getAllRunningByCluster(FixturesTool.CLUSTER_RHEL6_ISCSI)
+                .stream()
+                .collect(Collectors.toMap(VM::getId, vm -> vm));
+        List<VM> result = dao.getAllRunningPlacementByCluster(FixturesTool.CLUSTER_RHEL6_ISCSI);
+
+        assertEquals(expected.size(), result.size());
+        for (VM vm : result) {
+            VM expectedVm = expected.get(vm.getId());
+            assertEquals(expectedVm.getName(), vm.getName());
+            assertEquals(expectedVm.getClusterId(), vm.getClusterId());
+            assertEquals(expectedVm.getOrigin(), vm.getOrigin());
+            assertEquals(expectedVm.getMigrationSupport(), vm.getMigrationSupport());
+            assertEquals(expectedVm.getStatus(), vm.getStatus());
+            assertEquals(expectedVm.getRunOnVds(), vm.getRunOnVds());
+            assertEquals(expectedVm.getMigratingToVds(), vm.getMigratingToVds());
+        }
+    }
+
+    /**
+     * Ensures that the runtime status of the VMs running on a VDS matches the full VMs.
+     */
+    @Test
+    public void testGetAllRuntimeStatusRunningForVds() {
+        Map<Guid, VM> expected = dao.getAllRunningForVds(FixturesTool.VDS_RHEL6_NFS_SPM)
+                .stream()
+                .collect(Collectors.toMap(VM::getId, vm -> vm));
+        List<VM> result = dao.getAllRuntimeStatusRunningForVds(FixturesTool.VDS_RHEL6_NFS_SPM);
+
+        assertFalse(result.isEmpty());
+        assertEquals(expected.size(), result.size());
+        for (VM vm : result) {
+            VM expectedVm = expected.get(vm.getId());
+            assertEquals(expectedVm.getOrigin(), vm.getOrigin());
+            assertEquals(expectedVm.getVmPoolId(), vm.getVmPoolId());
+            assertEquals(expectedVm.getStatus(), vm.getStatus());
+            assertEquals(expectedVm.getExitStatus(), vm.getExitStatus());
+            assertEquals(FixturesTool.VDS_RHEL6_NFS_SPM, vm.getRunOnVds());
+        }
+    }
+
+    /**
+     * Ensures that the runtime status of the VMs of a pool matches the full VMs.
+     */
+    @Test
+    public void testGetAllRuntimeStatusForVmPool() {
+        Map<Guid, VMStatus> expected = dao.getAllForVmPool(FixturesTool.STORAGE_POOL_FEDORA)
+                .stream()
+                .collect(Collectors.toMap(VM::getId, VM::getStatus));
+        List<VM> result = dao.getAllRuntimeStatusForVmPool(FixturesTool.STORAGE_POOL_FEDORA);
+
+        assertEquals(expected, result.stream().collect(Collectors.toMap(VM::getId, VM::getStatus)));
+        result.forEach(vm -> assertEquals(FixturesTool.STORAGE_POOL_FEDORA, vm.getVmPoolId()));
+    }
+
+    /**
+     * Ensures that the memory of the hosted engine VM matches the full VM.
+     */
+    @Test
+    public void testGetHostedEngineVmMemory() {
+        VM expected = dao.getHostedEngineVm();
+        VM result = dao.getHostedEngineVmMemory();
+
+        if (expected == null) {
+            assertNull(result);
+        } else {
+            assertEquals(expected.getId(), result.getId());
+            assertEquals(expected.getClusterId(), result.getClusterId());
+            assertEquals(expected.getMemSizeMb(), result.getMemSizeMb());
+            assertEquals(expected.getRunOnVds(), result.getRunOnVds());
+        }
+    }
+
     @Test
     public void testGetVmIdsForVersionUpdate() {
         List<Guid> vmIdsToUpdate = dao.getVmIdsForVersionUpdate(FixturesTool.VM_TEMPLATE_RHEL5);
@@ -67,6 +67,14 @@ public class VmDynamicDaoTest extends BaseGenericDaoTestCase<Guid, VmDynamic, Vm
         result.forEach(vm -> assertEquals(FixturesTool.VDS_RHEL6_NFS_SPM, vm.getRunOnVds()));
     }
 
+    @Test
+    public void testGetAllRunningForCluster() {
+        List<VmDynamic> result = dao.getAllRunningForCluster(FixturesTool.CLUSTER_RHEL6_ISCSI);
+        assertEquals(3, result.size());
+        assertTrue(result.stream().anyMatch(vm -> FixturesTool.VM_RHEL5_POOL_50.equals(vm.getId())));
+        result.forEach(vm -> assertNotNull(vm.getRunOnVds()));
+    }
+
     @Test
     public void testIsAnyVmRunOnVds() {
         assertTrue(dao.isAnyVmRunOnVds(FixturesTool.VDS_RHEL6_NFS_SPM));
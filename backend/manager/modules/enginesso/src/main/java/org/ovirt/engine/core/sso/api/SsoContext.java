@@ -16,10 +16,12 @@ import org.ovirt.engine.api.extensions.Base;
 import org.ovirt.engine.api.extensions.aaa.Authn;
 import org.ovirt.engine.core.extensions.mgr.ConfigurationException;
 import org.ovirt.engine.core.extensions.mgr.ExtensionProxy;
+import org.ovirt.engine.core.sso.search.AuthzCache;
 import org.ovirt.engine.core.sso.service.LocalizationService;
 import org.ovirt.engine.core.sso.service.NegotiateAuthService;
 import org.ovirt.engine.core.sso.service.SsoClientsRegistry;
 import org.ovirt.engine.core.sso.service.SsoExtensionsManager;
+import org.ovirt.engine.core.sso.service.TokenCleanupService;
 import org.ovirt.engine.core.sso.utils.SsoLocalConfig;
 import org.ovirt.engine.core.uutils.net.URLBuilder;
 import org.slf4j.Logger;
@@ -45,6 +47,8 @@ public class SsoContext implements Serializable {
     private String engineUrl;
     private String changePasswordUrl;
     private Certificate engineCertificate;
+    private transient TokenCleanupService tokenCleanupService;
+    private transient AuthzCache authzCache;
 
     private static final Logger log = LoggerFactory.getLogger(SsoContext.class);
 
@@ -162,11 +166,18 @@ public class SsoContext implements Serializable {
     }
 
     public void registerSsoSession(SsoSession ssoSession) {
+        ssoSession.touch();
         ssoSessions.put(ssoSession.getAccessToken(), ssoSession);
+        if (tokenCleanupService != null) {
+            tokenCleanupService.tokenRegistered(ssoSession);
+        }
     }
 
     public void removeSsoSession(String token) {
         ssoSessions.remove(token);
+        if (tokenCleanupService != null) {
+            tokenCleanupService.tokenRemoved(token);
+        }
     }
 
     public SsoSession getSsoSessionById(String id) {
@@ -218,6 +229,22 @@ public class SsoContext implements Serializable {
         return token;
     }
 
+    public TokenCleanupService getTokenCleanupService() {
+        return tokenCleanupService;
+    }
+
+    public void setTokenCleanupService(TokenCleanupService tokenCleanupService) {
+        this.tokenCleanupService = tokenCleanupService;
+    }
+
+    public AuthzCache getAuthzCache() {
+        return authzCache;
+    }
+
+    public void setAuthzCache(AuthzCache authzCache) {
+        this.authzCache = authzCache;
+    }
+
     public Map<String, SsoSession> getSsoSessions() {
         return ssoSessions;
     }
@@ -38,7 +38,7 @@ public class SsoSession implements Serializable, Cloneable {
     private String password;
     private String redirectUri;
     private String profile;
-    private long tokenLastAccess;
+    private volatile long tokenLastAccess;
     private HttpSession httpSession;
     private ExtMap authRecord;
     private ExtMap principalRecord;
@@ -14,11 +14,13 @@ import javax.servlet.ServletContextListener;
 import org.ovirt.engine.core.sso.api.SsoConstants;
 import org.ovirt.engine.core.sso.api.SsoContext;
 import org.ovirt.engine.core.sso.db.SsoDao;
+import org.ovirt.engine.core.sso.search.AuthzCache;
 import org.ovirt.engine.core.sso.service.AuthenticationService;
 import org.ovirt.engine.core.sso.service.LocalizationService;
 import org.ovirt.engine.core.sso.service.NegotiateAuthService;
 import org.ovirt.engine.core.sso.service.SsoClientsRegistry;
 import org.ovirt.engine.core.sso.service.SsoExtensionsManager;
+import org.ovirt.engine.core.sso.service.TokenCleanupService;
 import org.ovirt.engine.core.sso.utils.SsoLocalConfig;
 
 public class SsoContextListener implements ServletContextListener {
@@ -56,6 +58,7 @@ public class SsoContextListener implements ServletContextListener {
                 AuthenticationService.getAvailableProfilesSupportingPasswdChange(ssoContext.getSsoExtensionsManager()));
         ssoContext.setNegotiateAuthUtils(new NegotiateAuthService(ssoContext.getProfiles()));
         ssoContext.setLocalizationUtils(new LocalizationService(SsoConstants.APP_MESSAGE_FILENAME));
+        ssoContext.setAuthzCache(new AuthzCache(localConfig));
 
         try (InputStream in = new FileInputStream(localConfig.getPKIEngineCert().getAbsoluteFile())) {
             ssoContext.setEngineCertificate(CertificateFactory.getInstance("X.509").generateCertificate(in));
@@ -63,11 +66,18 @@ public class SsoContextListener implements ServletContextListener {
             throw new RuntimeException("Unable to load engine certificate.");
         }
 
+        TokenCleanupService tokenCleanupService = new TokenCleanupService(ssoContext);
+        ssoContext.setTokenCleanupService(tokenCleanupService);
+        tokenCleanupService.start();
+
         ctx.setAttribute(SsoConstants.OVIRT_SSO_CONTEXT, ssoContext);
     }
 
     @Override
     public void contextDestroyed(ServletContextEvent event) {
-        // empty
+        SsoContext ssoContext = (SsoContext) event.getServletContext().getAttribute(SsoConstants.OVIRT_SSO_CONTEXT);
+        if (ssoContext != null && ssoContext.getTokenCleanupService() != null) {
+            ssoContext.getTokenCleanupService().stop();
+        }
     }
 }
@@ -5,7 +5,6 @@ import javax.servlet.http.HttpSessionListener;
 
 import org.ovirt.engine.core.sso.api.SsoConstants;
 import org.ovirt.engine.core.sso.api.SsoSession;
-import org.ovirt.engine.core.sso.service.TokenCleanupService;
 
 public class SsoSessionListener implements HttpSessionListener {
 
@@ -16,6 +15,6 @@ public class SsoSessionListener implements HttpSessionListener {
 
     @Override
     public void sessionDestroyed(HttpSessionEvent se) {
-        TokenCleanupService.cleanupExpiredTokens(se.getSession().getServletContext());
+        // empty
     }
 }
@@ -0,0 +1,220 @@
+package org.ovirt.engine.core.sso.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.ovirt.engine.api.extensions.ExtMap;
+import org.ovirt.engine.api.extensions.ExtUUID;
+import org.ovirt.engine.api.extensions.aaa.Authz;
+import org.ovirt.engine.core.sso.utils.SsoLocalConfig;
+
+/**
+ * A cache of the principal and group records found by id in the authz extensions.
+ * <p>
+ * The records are kept for <code>SSO_AUTHZ_CACHE_TTL</code> seconds, and the ids which weren't found are remembered
+ * for <code>SSO_AUTHZ_CACHE_NEGATIVE_TTL</code> seconds, so looking up unknown ids doesn't query the directory every
+ * time either. At most <code>SSO_AUTHZ_CACHE_SIZE</code> entries are kept, the least recently used ones are evicted.
+ * <p>
+ * The group records nested in the fetched records, which the extension resolved recursively, are cached as well, so
+ * looking up a group of a known principal, or one of its parent groups, doesn't query the directory again.
+ * <p>
+ * The cached records are shared, they must not be modified.
+ */
+public class AuthzCache {
+
+    /**
+     * Loads the records of the given ids from the directory.
+     */
+    @FunctionalInterface
+    public interface RecordsLoader {
+        Collection<ExtMap> load(Collection<String> ids);
+    }
+
+    private final long ttl;
+    private final long negativeTtl;
+    private final Map<Key, Entry> entries;
+
+    public AuthzCache(SsoLocalConfig config) {
+        this(TimeUnit.SECONDS.toNanos(config.getLong("SSO_AUTHZ_CACHE_TTL", 300L)),
+                TimeUnit.SECONDS.toNanos(config.getLong("SSO_AUTHZ_CACHE_NEGATIVE_TTL", 60L)),
+                config.getInteger("SSO_AUTHZ_CACHE_SIZE", 10000));
+    }
+
+    AuthzCache(long ttl, long negativeTtl, int maxSize) {
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Finds the principal records of the given ids, loading the ones which aren't cached in one batch.
+     *
+     * @return the records found, in the order of the given ids
+     */
+    public List<ExtMap> findPrincipalsByIds(String authz,
+            String namespace,
+            Collection<String> ids,
+            int queryFlags,
+            RecordsLoader loader) {
+        return findByIds(authz, namespace, Authz.QueryEntity.PRINCIPAL, ids, queryFlags, loader);
+    }
+
+    /**
+     * Finds the group records of the given ids, loading the ones which aren't cached in one batch.
+     *
+     * @return the records found, in the order of the given ids
+     */
+    public List<ExtMap> findGroupsByIds(String authz,
+            String namespace,
+            Collection<String> ids,
+            int queryFlags,
+            RecordsLoader loader) {
+        return findByIds(authz, namespace, Authz.QueryEntity.GROUP, ids, queryFlags, loader);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private List<ExtMap> findByIds(String authz,
+            String namespace,
+            ExtUUID entity,
+            Collection<String> ids,
+            int queryFlags,
+            RecordsLoader loader) {
+        if (ttl <= 0) {
+            return new ArrayList<>(loader.load(ids));
+        }
+
+        long now = System.nanoTime();
+        Map<String, ExtMap> found = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        synchronized (this) {
+            for (String id : ids) {
+                Entry entry = entries.get(new Key(authz, namespace, entity, queryFlags, id));
+                if (entry == null || now - entry.expiryTime > 0) {
+                    missing.add(id);
+                } else if (entry.record != null) {
+                    found.put(id, entry.record);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Function<ExtMap, String> idOf = entity.equals(Authz.QueryEntity.GROUP) ?
+                    record -> record.get(Authz.GroupRecord.ID) :
+                    record -> record.get(Authz.PrincipalRecord.ID);
+            Collection<ExtMap> loaded = loader.load(missing);
+            now = System.nanoTime();
+            synchronized (this) {
+                for (ExtMap record : loaded) {
+                    String id = idOf.apply(record);
+                    found.put(id, record);
+                    missing.remove(id);
+                    entries.put(new Key(authz, namespace, entity, queryFlags, id), new Entry(record, now + ttl));
+                    cacheNestedGroups(authz, namespace, record, queryFlags, now);
+                }
+                for (String id : missing) {
+                    entries.put(new Key(authz, namespace, entity, queryFlags, id), new Entry(null, now + negativeTtl));
+                }
+            }
+        }
+
+        List<ExtMap> results = new ArrayList<>(found.size());
+        for (String id : ids) {
+            ExtMap record = found.remove(id);
+            if (record != null) {
+                results.add(record);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Caches the groups the given record is a member of, when they were resolved recursively, and so are complete
+     * records of groups fetched with the same flags.
+     */
+    private void cacheNestedGroups(String authz, String namespace, ExtMap record, int queryFlags, long now) {
+        if ((queryFlags & Authz.QueryFlags.RESOLVE_GROUPS_RECURSIVE) == 0) {
+            return;
+        }
+        Collection<ExtMap> groups = record.get(Authz.PrincipalRecord.GROUPS, Collections.emptyList());
+        if (groups.isEmpty()) {
+            groups = record.get(Authz.GroupRecord.GROUPS, Collections.emptyList());
+        }
+        for (ExtMap group : groups) {
+            Key key = new Key(authz, namespace, Authz.QueryEntity.GROUP, queryFlags, group.get(Authz.GroupRecord.ID));
+            if (!entries.containsKey(key)) {
+                entries.put(key, new Entry(group, now + ttl));
+                cacheNestedGroups(authz, namespace, group, queryFlags, now);
+            }
+        }
+    }
+
+    private static class Key {
+        private final String authz;
+        private final String namespace;
+        private final ExtUUID entity;
+        private final int queryFlags;
+        private final String id;
+
+        Key(String authz, String namespace, ExtUUID entity, int queryFlags, String id) {
+            this.authz = authz;
+            this.namespace = namespace;
+            this.entity = entity;
+            this.queryFlags = queryFlags;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return queryFlags == other.queryFlags
+                    && Objects.equals(id, other.id)
+                    && Objects.equals(namespace, other.namespace)
+                    && Objects.equals(authz, other.authz)
+                    && Objects.equals(entity, other.entity);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(authz, namespace, entity, queryFlags, id);
+        }
+    }
+
+    private static class Entry {
+        /** The record, or null if the id wasn't found. */
+        private final ExtMap record;
+        private final long expiryTime;
+
+        Entry(ExtMap record, long expiryTime) {
+            this.record = record;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
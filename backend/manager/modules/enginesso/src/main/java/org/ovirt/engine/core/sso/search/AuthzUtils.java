@@ -216,6 +216,52 @@ public class AuthzUtils {
         return results;
     }
 
+    /**
+     * Finds the principal records of the given ids, from the cache if they were found recently.
+     */
+    public static List<ExtMap> findPrincipalsByIds(
+            final AuthzCache cache,
+            final ExtensionProxy extension,
+            final String namespace,
+            final Collection<String> ids,
+            final boolean groupsResolving,
+            final boolean groupsResolvingRecursive) {
+        return cache.findPrincipalsByIds(
+                getName(extension),
+                namespace,
+                ids,
+                queryFlagValue(groupsResolving, groupsResolvingRecursive),
+                missingIds -> findPrincipalsByIds(
+                        extension,
+                        namespace,
+                        missingIds,
+                        groupsResolving,
+                        groupsResolvingRecursive));
+    }
+
+    /**
+     * Finds the group records of the given ids, from the cache if they were found recently.
+     */
+    public static List<ExtMap> findGroupRecordsByIds(
+            final AuthzCache cache,
+            final ExtensionProxy extension,
+            final String namespace,
+            final Collection<String> ids,
+            final boolean groupsResolving,
+            final boolean groupsResolvingRecursive) {
+        return cache.findGroupsByIds(
+                getName(extension),
+                namespace,
+                ids,
+                queryFlagValue(groupsResolving, groupsResolvingRecursive),
+                missingIds -> findGroupRecordsByIds(
+                        extension,
+                        namespace,
+                        missingIds,
+                        groupsResolving,
+                        groupsResolvingRecursive));
+    }
+
     private static int queryFlagValue(boolean resolveGroups, boolean resolveGroupsRecursive) {
         int result = 0;
         if (resolveGroups) {
@@ -172,6 +172,7 @@ public enum DirectorySearch {
                 ? getNamespaces(ssoContext, (String) params.get(SsoConstants.HTTP_PARAM_DOMAIN))
                 : Collections.singletonList(searchNamespace)) {
             users.addAll(AuthzUtils.findPrincipalsByIds(
+                    ssoContext.getAuthzCache(),
                     extension,
                     namespace,
                     Collections.singletonList((String) params.get(SsoConstants.HTTP_PARAM_ID)),
@@ -191,6 +192,7 @@ public enum DirectorySearch {
                 ? getNamespaces(ssoContext, (String) params.get(SsoConstants.HTTP_PARAM_DOMAIN))
                 : Collections.singletonList(searchNamespace)) {
             groups.addAll(AuthzUtils.findGroupRecordsByIds(
+                    ssoContext.getAuthzCache(),
                     extension,
                     namespace,
                     Collections.singletonList((String) params.get(SsoConstants.HTTP_PARAM_ID)),
@@ -209,6 +211,7 @@ public enum DirectorySearch {
                 (String) params.get(SsoConstants.HTTP_PARAM_NAMESPACE),
                 (String) params.get(SsoConstants.HTTP_PARAM_DOMAIN))
                         .forEach(namespace -> results.addAll(AuthzUtils.findPrincipalsByIds(
+                                ssoContext.getAuthzCache(),
                                 extension,
                                 namespace,
                                 (Collection<String>) params.get(SsoConstants.HTTP_PARAM_IDS),
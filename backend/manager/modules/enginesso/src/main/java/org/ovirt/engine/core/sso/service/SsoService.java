@@ -307,7 +307,6 @@ public class SsoService {
             String clientId,
             String token,
             boolean mustExist) {
-        TokenCleanupService.cleanupExpiredTokens(request.getServletContext());
         SsoContext ssoContext = getSsoContext(request);
         SsoSession ssoSession = null;
         if (StringUtils.isNotEmpty(token)) {
@@ -1,10 +1,19 @@
 package org.ovirt.engine.core.sso.service;
 
-import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import javax.servlet.ServletContext;
 import javax.servlet.http.HttpSession;
 
 import org.apache.commons.lang.StringUtils;
@@ -17,33 +26,153 @@ import org.ovirt.engine.core.sso.api.SsoSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Cleans up the SSO sessions whose token wasn't accessed for longer than <code>SSO_TOKEN_TIMEOUT</code>.
+ * <p>
+ * The registered tokens are kept in an index ordered by the time they expire, and a background task running every
+ * <code>SSO_HOUSE_KEEPING_INTERVAL</code> takes only the tokens which are due from the head of the index. A token
+ * which was accessed since it was indexed is put back with its new expiry time, so accessing a token costs nothing
+ * but updating its last access time. The token of a session removed on logout or revoke is removed from the index
+ * right away, so the index doesn't hold the session until the token would have expired. The expired sessions are
+ * removed at once, and the logout of their users from the authn extensions and from the clients runs asynchronously,
+ * so a slow extension doesn't delay the cleanup.
+ */
 public class TokenCleanupService {
-    private static long lastCleanup = 0;
     private static Logger log = LoggerFactory.getLogger(TokenCleanupService.class);
 
-    public static synchronized void cleanupExpiredTokens(ServletContext ctx) {
-        SsoContext ssoContext = SsoService.getSsoContext(ctx);
-        long currentTime = System.nanoTime();
-        if (currentTime
-                - lastCleanup < (ssoContext.getSsoLocalConfig().getLong("SSO_HOUSE_KEEPING_INTERVAL") * 1000000000)) {
-            log.debug("Not cleaning up expired tokens");
-            return;
+    static final String SSO_LOGOUT_THREADS = "SSO_LOGOUT_THREADS";
+    static final int DEFAULT_LOGOUT_THREADS = 4;
+
+    private final SsoContext ssoContext;
+    private final long tokenTimeout;
+    private final NavigableSet<TokenExpiry> expiryIndex = new ConcurrentSkipListSet<>();
+    private final ConcurrentMap<String, TokenExpiry> indexedTokens = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService logoutExecutor;
+    private ScheduledExecutorService houseKeepingExecutor;
+
+    public TokenCleanupService(SsoContext ssoContext) {
+        this(ssoContext,
+                TimeUnit.SECONDS.toNanos(ssoContext.getSsoLocalConfig().getLong("SSO_TOKEN_TIMEOUT")),
+                Executors.newFixedThreadPool(
+                        ssoContext.getSsoLocalConfig().getInteger(SSO_LOGOUT_THREADS, DEFAULT_LOGOUT_THREADS),
+                        daemonThreadFactory("sso-logout")));
+    }
+
+    TokenCleanupService(SsoContext ssoContext, long tokenTimeout, ExecutorService logoutExecutor) {
+        this.ssoContext = ssoContext;
+        this.tokenTimeout = tokenTimeout;
+        this.logoutExecutor = logoutExecutor;
+    }
+
+    /**
+     * Starts cleaning up the expired tokens every <code>SSO_HOUSE_KEEPING_INTERVAL</code> seconds.
+     */
+    public void start() {
+        long interval = ssoContext.getSsoLocalConfig().getLong("SSO_HOUSE_KEEPING_INTERVAL");
+        houseKeepingExecutor = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("sso-token-cleanup"));
+        houseKeepingExecutor.scheduleWithFixedDelay(() -> cleanupExpiredTokens(System.nanoTime()),
+                interval,
+                interval,
+                TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        if (houseKeepingExecutor != null) {
+            houseKeepingExecutor.shutdownNow();
         }
-        lastCleanup = currentTime;
-        log.debug("Cleaning up expired tokens");
-        long tokenTimeout = ssoContext.getSsoLocalConfig().getLong("SSO_TOKEN_TIMEOUT") * 1000000000;
+        logoutExecutor.shutdownNow();
+    }
 
-        for (Map.Entry<String, SsoSession> entry : ssoContext.getSsoSessions().entrySet()) {
-            if ((currentTime - entry.getValue().getTokenLastAccess()) > tokenTimeout) {
-                try {
-                    cleanupSsoSession(ssoContext, entry.getValue(), entry.getValue().getAssociatedClientIds());
-                } catch (Exception ex) {
-                    log.error("Unable to cleanup expired session for token {} : {}", entry.getKey(), ex.getMessage());
-                    log.debug("Exception", ex);
+    /**
+     * Adds the token of the given session to the expiry index.
+     */
+    public void tokenRegistered(SsoSession ssoSession) {
+        TokenExpiry expiry = new TokenExpiry(ssoSession.getAccessToken(),
+                ssoSession,
+                ssoSession.getTokenLastAccess() + tokenTimeout);
+        expiryIndex.add(expiry);
+        TokenExpiry previous = indexedTokens.put(expiry.token, expiry);
+        if (previous != null) {
+            expiryIndex.remove(previous);
+        }
+    }
+
+    /**
+     * Removes the given token from the expiry index, after its session was removed.
+     */
+    public void tokenRemoved(String token) {
+        TokenExpiry expiry = indexedTokens.remove(token);
+        if (expiry != null) {
+            expiryIndex.remove(expiry);
+        }
+    }
+
+    /**
+     * Cleans up the sessions whose token expired by the given time.
+     *
+     * @param currentTime
+     *            the current time, in {@link System#nanoTime()} units
+     * @return the number of cleaned up sessions
+     */
+    int cleanupExpiredTokens(long currentTime) {
+        try {
+            log.debug("Cleaning up expired tokens");
+            int expired = 0;
+            TokenExpiry expiry;
+            while ((expiry = expiryIndex.pollFirst()) != null) {
+                if (expiry.expiryTime - currentTime > 0) {
+                    // not due yet, and neither are the tokens after it
+                    expiryIndex.add(expiry);
+                    break;
+                }
+
+                String token = expiry.token;
+                SsoSession ssoSession = expiry.ssoSession;
+                if (ssoContext.getSsoSession(token) != ssoSession) {
+                    // the session was already cleaned up, or the token was revoked
+                    indexedTokens.remove(token, expiry);
+                    continue;
+                }
+
+                long lastAccess = ssoSession.getTokenLastAccess();
+                if (currentTime - lastAccess <= tokenTimeout) {
+                    // the token was accessed since it was indexed
+                    reindex(expiry, lastAccess + tokenTimeout);
+                } else if (ssoContext.getSsoSessions().remove(token, ssoSession)) {
+                    indexedTokens.remove(token, expiry);
+                    expired++;
+                    Set<String> associatedClientIds = ssoSession.getAssociatedClientIds();
+                    logoutExecutor.execute(() -> logout(ssoSession, associatedClientIds));
                 }
             }
+            log.debug("Done cleaning up {} expired tokens", expired);
+            return expired;
+        } catch (Exception ex) {
+            log.error("Unable to cleanup expired tokens: {}", ex.getMessage());
+            log.debug("Exception", ex);
+            return 0;
+        }
+    }
+
+    private void reindex(TokenExpiry expiry, long expiryTime) {
+        TokenExpiry next = new TokenExpiry(expiry.token, expiry.ssoSession, expiryTime);
+        expiryIndex.add(next);
+        if (!indexedTokens.replace(expiry.token, expiry, next)) {
+            // the token was removed meanwhile
+            expiryIndex.remove(next);
         }
-        log.debug("Done cleaning up expired tokens");
+    }
+
+    /**
+     * Logs out the user of an expired session, after its session was removed.
+     */
+    protected void logout(SsoSession ssoSession, Set<String> associatedClientIds) {
+        cleanupSsoSession(ssoContext, ssoSession, associatedClientIds);
+    }
+
+    int getIndexedTokensCount() {
+        return expiryIndex.size();
     }
 
     public static void cleanupSsoSession(
@@ -111,4 +240,35 @@ public class TokenCleanupService {
             }
         }
     }
+
+    private static ThreadFactory daemonThreadFactory(String name) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * The time a token expires at, unless it's accessed before.
+     */
+    private class TokenExpiry implements Comparable<TokenExpiry> {
+        private final String token;
+        private final SsoSession ssoSession;
+        private final long expiryTime;
+        private final long seq = sequence.incrementAndGet();
+
+        TokenExpiry(String token, SsoSession ssoSession, long expiryTime) {
+            this.token = token;
+            this.ssoSession = ssoSession;
+            this.expiryTime = expiryTime;
+        }
+
+        @Override
+        public int compareTo(TokenExpiry other) {
+            int result = Long.compare(expiryTime, other.expiryTime);
+            return result != 0 ? result : Long.compare(seq, other.seq);
+        }
+    }
 }
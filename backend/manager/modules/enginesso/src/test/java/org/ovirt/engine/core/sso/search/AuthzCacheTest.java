@@ -0,0 +1,169 @@
+package org.ovirt.engine.core.sso.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.api.extensions.Base;
+import org.ovirt.engine.api.extensions.ExtKey;
+import org.ovirt.engine.api.extensions.ExtMap;
+import org.ovirt.engine.api.extensions.Extension;
+import org.ovirt.engine.api.extensions.aaa.Authz;
+import org.ovirt.engine.core.extensions.mgr.ExtensionProxy;
+import org.ovirt.engine.core.extensions.mgr.ExtensionsManager;
+import org.slf4j.LoggerFactory;
+
+class AuthzCacheTest {
+
+    private static final String NAMESPACE = "dc=example,dc=com";
+
+    private FakeAuthz authz;
+    private ExtensionProxy extension;
+    private AuthzCache cache;
+
+    @BeforeEach
+    public void setup() {
+        ExtMap admins = group("admins");
+        ExtMap staff = group("staff", admins);
+        authz = new FakeAuthz();
+        authz.principals.put("alice", principal("alice", staff));
+        authz.principals.put("bob", principal("bob"));
+        authz.groups.put("staff", staff);
+        authz.groups.put("admins", admins);
+
+        extension = new ExtensionProxy(getClass().getClassLoader(), authz);
+        extension.getContext()
+                .mput(Base.ContextKeys.INSTANCE_NAME, "example-authz")
+                .mput(ExtensionsManager.TRACE_LOG_CONTEXT_KEY, LoggerFactory.getLogger(AuthzCacheTest.class));
+        cache = new AuthzCache(TimeUnit.MINUTES.toNanos(5), TimeUnit.MINUTES.toNanos(1), 100);
+    }
+
+    @Test
+    public void shouldQueryOnlyMissingIdsInOneBatch() {
+        assertEquals(Collections.singletonList("alice"), ids(findPrincipals("alice")));
+        assertEquals(1, authz.queries);
+
+        assertEquals(Arrays.asList("bob", "alice"), ids(findPrincipals("bob", "alice")));
+        assertEquals(2, authz.queries);
+        assertEquals(Collections.singletonList("bob"), authz.lastQueriedIds);
+
+        assertEquals(Arrays.asList("alice", "bob"), ids(findPrincipals("alice", "bob")));
+        assertEquals(2, authz.queries);
+    }
+
+    @Test
+    public void shouldCacheIdsNotFound() {
+        assertTrue(findPrincipals("nobody").isEmpty());
+        assertTrue(findPrincipals("nobody").isEmpty());
+        assertEquals(1, authz.queries);
+    }
+
+    @Test
+    public void shouldCacheNestedGroupsOfRecursivelyResolvedPrincipals() {
+        findPrincipals("alice");
+
+        List<ExtMap> groups = AuthzUtils.findGroupRecordsByIds(cache,
+                extension,
+                NAMESPACE,
+                Arrays.asList("staff", "admins"),
+                true,
+                true);
+
+        assertEquals(Arrays.asList("staff", "admins"),
+                groups.stream().map(g -> g.<String> get(Authz.GroupRecord.ID)).collect(Collectors.toList()));
+        assertEquals(1, authz.queries);
+    }
+
+    @Test
+    public void shouldNotShareRecordsResolvedWithOtherFlags() {
+        findPrincipals("alice");
+        AuthzUtils.findPrincipalsByIds(cache, extension, NAMESPACE, Collections.singletonList("alice"), false, false);
+        assertEquals(2, authz.queries);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntries() {
+        cache = new AuthzCache(TimeUnit.MINUTES.toNanos(5), TimeUnit.MINUTES.toNanos(1), 1);
+        AuthzUtils.findPrincipalsByIds(cache, extension, NAMESPACE, Collections.singletonList("alice"), false, false);
+        AuthzUtils.findPrincipalsByIds(cache, extension, NAMESPACE, Collections.singletonList("bob"), false, false);
+        assertEquals(1, cache.size());
+
+        AuthzUtils.findPrincipalsByIds(cache, extension, NAMESPACE, Collections.singletonList("alice"), false, false);
+        assertEquals(3, authz.queries);
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() {
+        cache = new AuthzCache(0, 0, 100);
+        findPrincipals("alice");
+        findPrincipals("alice");
+        assertEquals(2, authz.queries);
+        assertEquals(0, cache.size());
+    }
+
+    private List<ExtMap> findPrincipals(String... ids) {
+        return AuthzUtils.findPrincipalsByIds(cache, extension, NAMESPACE, Arrays.asList(ids), true, true);
+    }
+
+    private static List<String> ids(Collection<ExtMap> principals) {
+        return principals.stream().map(p -> p.<String> get(Authz.PrincipalRecord.ID)).collect(Collectors.toList());
+    }
+
+    private static ExtMap principal(String id, ExtMap... groups) {
+        return new ExtMap().mput(Authz.PrincipalRecord.ID, id)
+                .mput(Authz.PrincipalRecord.NAME, id)
+                .mput(Authz.PrincipalRecord.GROUPS, Arrays.asList(groups));
+    }
+
+    private static ExtMap group(String id, ExtMap... groups) {
+        return new ExtMap().mput(Authz.GroupRecord.ID, id)
+                .mput(Authz.GroupRecord.NAME, id)
+                .mput(Authz.GroupRecord.GROUPS, Arrays.asList(groups));
+    }
+
+    /**
+     * An authz extension answering queries by id from its records, counting the queries it executes.
+     */
+    private static class FakeAuthz implements Extension {
+        private final Map<String, ExtMap> principals = new HashMap<>();
+        private final Map<String, ExtMap> groups = new HashMap<>();
+        private int queries;
+        private List<String> lastQueriedIds;
+
+        @Override
+        public void invoke(ExtMap input, ExtMap output) {
+            Object command = input.get(Base.InvokeKeys.COMMAND);
+            if (Authz.InvokeCommands.QUERY_OPEN.equals(command)) {
+                queries++;
+                lastQueriedIds = new ArrayList<>();
+                List<ExtMap> results = new ArrayList<>();
+                Map<String, ExtMap> records =
+                        Authz.QueryEntity.GROUP.equals(input.get(Authz.InvokeKeys.QUERY_ENTITY)) ? groups : principals;
+                ExtMap filter = input.get(Authz.InvokeKeys.QUERY_FILTER);
+                for (ExtMap idFilter : filter.<List<ExtMap>> get(Authz.QueryFilterRecord.FILTER)) {
+                    String id = idFilter.get(idFilter.<ExtKey> get(Authz.QueryFilterRecord.KEY));
+                    lastQueriedIds.add(id);
+                    if (records.containsKey(id)) {
+                        results.add(records.get(id));
+                    }
+                }
+                output.mput(Authz.InvokeKeys.QUERY_OPAQUE, new ArrayList<>(Collections.singletonList(results)));
+            } else if (Authz.InvokeCommands.QUERY_EXECUTE.equals(command)) {
+                List<List<ExtMap>> pages = input.get(Authz.InvokeKeys.QUERY_OPAQUE);
+                output.mput(Authz.InvokeKeys.QUERY_RESULT, pages.isEmpty() ? null : pages.remove(0));
+            }
+            output.mput(Base.InvokeKeys.RESULT, Base.InvokeResult.SUCCESS);
+        }
+    }
+}
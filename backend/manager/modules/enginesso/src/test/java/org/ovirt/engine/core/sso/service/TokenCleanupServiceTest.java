@@ -0,0 +1,132 @@
+package org.ovirt.engine.core.sso.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.sso.api.SsoContext;
+import org.ovirt.engine.core.sso.api.SsoSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class TokenCleanupServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenCleanupServiceTest.class);
+
+    private static final long TOKEN_TIMEOUT = TimeUnit.MINUTES.toNanos(10);
+
+    private SsoContext ssoContext;
+    private ExecutorService logoutExecutor;
+    private AtomicInteger loggedOut;
+    private TokenCleanupService service;
+
+    @BeforeEach
+    public void setup() {
+        ssoContext = new SsoContext();
+        logoutExecutor = Executors.newFixedThreadPool(TokenCleanupService.DEFAULT_LOGOUT_THREADS);
+        loggedOut = new AtomicInteger();
+        service = new TokenCleanupService(ssoContext, TOKEN_TIMEOUT, logoutExecutor) {
+            @Override
+            protected void logout(SsoSession ssoSession, Set<String> associatedClientIds) {
+                loggedOut.incrementAndGet();
+            }
+        };
+        ssoContext.setTokenCleanupService(service);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    public void shouldCleanupManyExpiredTokens() throws InterruptedException {
+        int tokens = 100_000;
+        for (int i = 0; i < tokens; i++) {
+            registerSession("token" + i);
+        }
+        assertEquals(tokens, service.getIndexedTokensCount());
+
+        long start = System.nanoTime();
+        int expired = service.cleanupExpiredTokens(System.nanoTime() + TOKEN_TIMEOUT + 1);
+        log.info("Cleaned up {} expired tokens in {} ms", expired, (System.nanoTime() - start) / 1_000_000);
+
+        assertEquals(tokens, expired);
+        assertTrue(ssoContext.getSsoSessions().isEmpty());
+        assertEquals(0, service.getIndexedTokensCount());
+        awaitLogouts();
+        assertEquals(tokens, loggedOut.get());
+    }
+
+    @Test
+    public void shouldNotCleanupTokensBeforeTheyExpire() throws InterruptedException {
+        registerSession("token");
+
+        assertEquals(0, service.cleanupExpiredTokens(System.nanoTime() + TOKEN_TIMEOUT / 2));
+
+        assertNotNull(ssoContext.getSsoSession("token"));
+        assertEquals(1, service.getIndexedTokensCount());
+        awaitLogouts();
+        assertEquals(0, loggedOut.get());
+    }
+
+    @Test
+    public void shouldRescheduleAccessedTokens() throws InterruptedException {
+        SsoSession accessed = registerSession("accessed");
+        registerSession("idle");
+        long firstExpiry = System.nanoTime() + TOKEN_TIMEOUT + 1;
+        accessed.touch();
+        long accessTime = accessed.getTokenLastAccess();
+
+        // the accessed token is due by its indexed expiry time, but it's put back with its new one
+        assertEquals(1, service.cleanupExpiredTokens(firstExpiry));
+        assertNotNull(ssoContext.getSsoSession("accessed"));
+        assertNull(ssoContext.getSsoSession("idle"));
+        assertEquals(1, service.getIndexedTokensCount());
+
+        assertEquals(1, service.cleanupExpiredTokens(accessTime + TOKEN_TIMEOUT + 1));
+        assertNull(ssoContext.getSsoSession("accessed"));
+        awaitLogouts();
+        assertEquals(2, loggedOut.get());
+    }
+
+    @Test
+    public void shouldDropRevokedTokens() throws InterruptedException {
+        registerSession("token");
+        registerSession("other");
+
+        // the revoked tokens are removed from the index right away, without waiting for them to expire
+        ssoContext.removeSsoSession("token");
+        assertEquals(1, service.getIndexedTokensCount());
+        ssoContext.removeSsoSession("other");
+        assertEquals(0, service.getIndexedTokensCount());
+
+        assertEquals(0, service.cleanupExpiredTokens(System.nanoTime() + TOKEN_TIMEOUT + 1));
+
+        assertEquals(0, service.getIndexedTokensCount());
+        awaitLogouts();
+        assertEquals(0, loggedOut.get());
+    }
+
+    private SsoSession registerSession(String token) {
+        SsoSession ssoSession = new SsoSession();
+        ssoSession.setAccessToken(token);
+        ssoContext.registerSsoSession(ssoSession);
+        return ssoSession;
+    }
+
+    private void awaitLogouts() throws InterruptedException {
+        logoutExecutor.shutdown();
+        assertTrue(logoutExecutor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+}
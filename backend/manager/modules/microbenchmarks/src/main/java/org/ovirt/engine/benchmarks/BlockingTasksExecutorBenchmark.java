@@ -0,0 +1,103 @@
+package org.ovirt.engine.benchmarks;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
+
+/**
+ * <p> Benchmark's the throughput of host refreshes executed via {@link ThreadPoolUtil#executeBlocking(Runnable)},
+ * where each refresh is blocked on a simulated VDSM call, for each of the executors which can be configured by
+ * ENGINE_BLOCKING_TASKS_EXECUTOR:</p>
+ * <ul>
+ * <li>pool - the engine thread pool with its default sizes, which runs the tasks it can't queue on the caller</li>
+ * <li>elastic - a pool which starts a thread per task</li>
+ * <li>virtual - a virtual thread per task, only when the JVM supports it, otherwise elastic</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BlockingTasksExecutorBenchmark {
+
+    @Benchmark
+    public void refreshHosts(BenchmarkState state) throws InterruptedException {
+        CountDownLatch refreshed = new CountDownLatch(state.numberOfHosts);
+        for (int i = 0; i < state.numberOfHosts; i++) {
+            ThreadPoolUtil.executeBlocking(() -> {
+                try {
+                    Thread.sleep(state.vdsmCallMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    refreshed.countDown();
+                }
+            });
+        }
+        refreshed.await();
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({"1000"})
+        private int numberOfHosts;
+
+        @Param({"20"})
+        private int vdsmCallMillis;
+
+        @Param({"pool", "elastic", "virtual"})
+        private String executorType;
+
+        private ExecutorService executor;
+
+        @Setup
+        public void setup() {
+            switch (executorType) {
+            case "pool":
+                executor = new ThreadPoolExecutor(50,
+                        500,
+                        60L,
+                        TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(100),
+                        new ThreadPoolExecutor.CallerRunsPolicy());
+                break;
+            case "virtual":
+                executor = ThreadPoolUtil.createVirtualThreadPerTaskExecutor();
+                if (executor != null) {
+                    break;
+                }
+                // virtual threads are not supported by the JVM, fall through to the elastic pool
+            default:
+                executor = new ThreadPoolExecutor(numberOfHosts,
+                        numberOfHosts,
+                        60L,
+                        TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(100),
+                        new ThreadPoolExecutor.CallerRunsPolicy());
+            }
+            ThreadPoolUtil.setExecutorService(executor);
+        }
+
+        @TearDown
+        public void tearDown() {
+            ThreadPoolUtil.setExecutorService(null);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.ovirt.engine.benchmarks;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.engine.core.common.businessentities.network.InterfaceStatus;
+import org.ovirt.engine.core.common.businessentities.network.VdsNetworkInterface;
+import org.ovirt.engine.core.common.businessentities.network.VdsNetworkStatistics;
+import org.ovirt.engine.core.vdsbroker.NetworkStatisticsBuilder;
+import org.ovirt.engine.core.vdsbroker.monitoring.HostInterfacesStatistics;
+
+/**
+ * <p> Benchmark's a single host interfaces statistics refresh, as done by the host monitoring per stats cycle:
+ * snapshot of the previous state, update of the statistics from the reported values, detection of monitored status
+ * changes and collection of the statistics which should be persisted.</p>
+ * <p> Run it with the GC profiler ({@code -prof gc}) to get the allocations per refresh, reported as
+ * {@code gc.alloc.rate.norm}.</p>
+ *
+ * @see HostInterfacesStatistics
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HostInterfacesStatisticsBenchmark {
+
+    @Benchmark
+    public void refresh(BenchmarkState state, Blackhole blackhole) {
+        List<VdsNetworkInterface> nics = state.nics;
+        state.interfacesStatistics.snapshot(nics);
+
+        state.sampleTime += 15;
+        for (int i = 0; i < nics.size(); i++) {
+            // only a quarter of the interfaces carry traffic between two samples
+            BigInteger bytes = i % 4 == 0 ? state.movingBytes[(int) state.sampleTime % 2] : BigInteger.ZERO;
+            state.statsBuilder.updateExistingInterfaceStatistics(nics.get(i),
+                    10000,
+                    bytes,
+                    bytes,
+                    BigInteger.ZERO,
+                    BigInteger.ZERO,
+                    state.sampleTime);
+        }
+
+        state.interfacesStatistics.updateMonitoredInterfaces(nics);
+        for (int i = 0; i < nics.size(); i++) {
+            blackhole.consume(state.interfacesStatistics.isMonitoredStatusChanged(i,
+                    nics.get(i).getStatistics().getStatus()));
+        }
+        blackhole.consume(state.interfacesStatistics.hasNetworkOnDownInterface(nics));
+
+        state.changedStatistics.clear();
+        state.interfacesStatistics.collectChangedStatistics(nics, state.changedStatistics);
+        blackhole.consume(state.changedStatistics.size());
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({"8", "48", "128"})
+        private int numberOfNics;
+
+        private final HostInterfacesStatistics interfacesStatistics = new HostInterfacesStatistics();
+        private final NetworkStatisticsBuilder statsBuilder = new NetworkStatisticsBuilder();
+        private final List<VdsNetworkStatistics> changedStatistics = new ArrayList<>();
+        private final BigInteger[] movingBytes = { BigInteger.valueOf(1000000), BigInteger.valueOf(2000000) };
+        private List<VdsNetworkInterface> nics;
+        private double sampleTime;
+
+        @Setup
+        public void setup() {
+            nics = new ArrayList<>(numberOfNics);
+            for (int i = 0; i < numberOfNics; i++) {
+                VdsNetworkInterface nic = new VdsNetworkInterface();
+                VdsNetworkStatistics stats = new VdsNetworkStatistics();
+                stats.setStatus(InterfaceStatus.UP);
+                nic.setStatistics(stats);
+                // every third interface is a vlan device on top of the previous one, carrying a network
+                if (i % 3 == 2) {
+                    nic.setName("eth" + (i - 1) + "." + i);
+                    nic.setBaseInterface("eth" + (i - 1));
+                    nic.setVlanId(i);
+                    nic.setNetworkName("net" + i);
+                } else {
+                    nic.setName("eth" + i);
+                }
+                nics.add(nic);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.ovirt.engine.core.bll.quota;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.engine.core.bll.CommandBase;
+import org.ovirt.engine.core.bll.context.CommandContext;
+import org.ovirt.engine.core.bll.utils.PermissionSubject;
+import org.ovirt.engine.core.common.action.ActionParametersBase;
+import org.ovirt.engine.core.common.businessentities.Quota;
+import org.ovirt.engine.core.common.businessentities.QuotaEnforcementTypeEnum;
+import org.ovirt.engine.core.common.businessentities.QuotaStorage;
+import org.ovirt.engine.core.common.businessentities.StoragePool;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.QuotaDao;
+
+/**
+ * <p> Benchmarks the throughput of {@link QuotaManager#consume(CommandBase, List)} under concurrency: every
+ * operation consumes storage quota for a disk of a command and releases it, as adding and removing disks do, from
+ * all the benchmark threads at once.</p>
+ * <p> With a single quota all the threads contend on the usage of the same limit, with more quotas in the storage
+ * pool each operation picks one at random. Vary the number of threads with {@code -t}, a single thread gives the
+ * uncontended cost.</p>
+ * <p> The quotas are served from memory instead of the DB, and their limits are high enough for the usage never to
+ * cross their thresholds, so no audit log is written. The benchmark resides in the package of the
+ * {@link QuotaManager}, since its constructor is not public.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class QuotaConsumeBenchmark {
+
+    @Benchmark
+    public boolean consumeAndRelease(BenchmarkState state, CommandState command) {
+        int quota = state.numberOfQuotas == 1 ? 0 : ThreadLocalRandom.current().nextInt(state.numberOfQuotas);
+        return state.quotaManager.consume(command.command, command.consumptions[quota])
+                && state.quotaManager.consume(command.command, command.releases[quota]);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({"1", "100"})
+        private int numberOfQuotas;
+
+        private final StoragePool storagePool = new StoragePool();
+        private final Guid storageDomainId = Guid.newGuid();
+        private Guid[] quotaIds;
+        private QuotaManager quotaManager;
+
+        @Setup
+        public void setup() {
+            storagePool.setId(Guid.newGuid());
+            storagePool.setQuotaEnforcementType(QuotaEnforcementTypeEnum.HARD_ENFORCEMENT);
+
+            Map<Guid, Quota> quotas = new HashMap<>();
+            quotaIds = new Guid[numberOfQuotas];
+            for (int i = 0; i < numberOfQuotas; i++) {
+                Quota quota = createQuota();
+                quotaIds[i] = quota.getId();
+                quotas.put(quota.getId(), quota);
+            }
+            Quota defaultQuota = createQuota();
+            quotas.put(defaultQuota.getId(), defaultQuota);
+
+            QuotaDao quotaDao = (QuotaDao) Proxy.newProxyInstance(QuotaDao.class.getClassLoader(),
+                    new Class<?>[] { QuotaDao.class },
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                        case "getById":
+                            return quotas.get(args[0]);
+                        case "getDefaultQuotaForStoragePool":
+                            return defaultQuota;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+            quotaManager = new QuotaManager() {
+                @Override
+                protected QuotaDao getQuotaDao() {
+                    return quotaDao;
+                }
+            };
+        }
+
+        private Quota createQuota() {
+            QuotaStorage quotaStorage = new QuotaStorage();
+            quotaStorage.setStorageSizeGB(1_000_000L);
+            quotaStorage.setStorageSizeGBUsage(0d);
+
+            Quota quota = new Quota();
+            quota.setId(Guid.newGuid());
+            quota.setStoragePoolId(storagePool.getId());
+            quota.setQuotaName(quota.getId().toString());
+            quota.setThresholdStoragePercentage(80);
+            quota.setGraceStoragePercentage(20);
+            quota.setGlobalQuotaStorage(quotaStorage);
+            return quota;
+        }
+    }
+
+    /**
+     * The command of each benchmark thread, with its consumption and release of each quota.
+     */
+    @State(Scope.Thread)
+    public static class CommandState {
+
+        private CommandBase<?> command;
+        private List<QuotaConsumptionParameter>[] consumptions;
+        private List<QuotaConsumptionParameter>[] releases;
+
+        @Setup
+        @SuppressWarnings("unchecked")
+        public void setup(BenchmarkState state) {
+            ActionParametersBase parameters = new ActionParametersBase();
+            command = new CommandBase<ActionParametersBase>(parameters,
+                    CommandContext.createContext(parameters.getSessionId())) {
+                @Override
+                protected void executeCommand() {
+                }
+
+                @Override
+                public List<PermissionSubject> getPermissionCheckSubjects() {
+                    return null;
+                }
+            };
+            command.setStoragePool(state.storagePool);
+
+            consumptions = new List[state.numberOfQuotas];
+            releases = new List[state.numberOfQuotas];
+            for (int i = 0; i < state.numberOfQuotas; i++) {
+                consumptions[i] = Collections.singletonList(new QuotaStorageConsumptionParameter(state.quotaIds[i],
+                        QuotaConsumptionParameter.QuotaAction.CONSUME,
+                        state.storageDomainId,
+                        10d));
+                releases[i] = Collections.singletonList(new QuotaStorageConsumptionParameter(state.quotaIds[i],
+                        QuotaConsumptionParameter.QuotaAction.RELEASE,
+                        state.storageDomainId,
+                        10d));
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.ovirt.engine.core.dao;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.engine.core.common.businessentities.MigrationSupport;
+import org.ovirt.engine.core.common.businessentities.OriginType;
+import org.ovirt.engine.core.common.businessentities.VM;
+import org.ovirt.engine.core.common.businessentities.VMStatus;
+
+/**
+ * <p> Benchmarks the mapping of a single row of the {@code vms} view by the full VM row mapper against the narrow
+ * placement, runtime status and memory row mappers, which are used by the monitoring and scheduling reads.</p>
+ * <p> The rows are served by an in-memory {@link ResultSet} that looks the columns up by name, like the JDBC driver
+ * does, so the results reflect the number of columns read and the objects created per row. Run it with the GC
+ * profiler ({@code -prof gc}) to get the allocations per row, reported as {@code gc.alloc.rate.norm}.</p>
+ * <p> The benchmark resides in the package of the DAOs, since the row mappers are not public.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VmRowMapperBenchmark {
+
+    @Benchmark
+    public VM fullRow(BenchmarkState state) throws SQLException {
+        return VmDaoImpl.vmRowMapper.mapRow(state.resultSet, 0);
+    }
+
+    @Benchmark
+    public VM placementRow(BenchmarkState state) throws SQLException {
+        return VmDaoImpl.vmPlacementRowMapper.mapRow(state.resultSet, 0);
+    }
+
+    @Benchmark
+    public VM runtimeStatusRow(BenchmarkState state) throws SQLException {
+        return VmDaoImpl.vmRuntimeStatusRowMapper.mapRow(state.resultSet, 0);
+    }
+
+    @Benchmark
+    public VM memoryRow(BenchmarkState state) throws SQLException {
+        return VmDaoImpl.vmMemoryRowMapper.mapRow(state.resultSet, 0);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        private ResultSet resultSet;
+
+        @Setup
+        public void setup() {
+            Map<String, Object> row = new HashMap<>();
+            row.put("vm_guid", UUID.randomUUID());
+            row.put("vm_name", "vm1");
+            row.put("cluster_id", UUID.randomUUID());
+            row.put("run_on_vds", UUID.randomUUID());
+            row.put("vm_pool_id", UUID.randomUUID());
+            row.put("status", VMStatus.Up.getValue());
+            row.put("origin", OriginType.OVIRT.getValue());
+            row.put("migration_support", MigrationSupport.MIGRATABLE.getValue());
+            row.put("mem_size_mb", 4096);
+            row.put("max_memory_size_mb", 16384);
+            row.put("min_allocated_mem", 4096);
+            row.put("num_of_sockets", 2);
+            row.put("cpu_per_socket", 2);
+            row.put("threads_per_cpu", 1);
+            row.put("cluster_compatibility_version", "4.7");
+            row.put("acpi_enable", true);
+            row.put("host_cpu_flags", false);
+            row.put("downtime", 0L);
+            row.put("guestos_type", "Linux");
+            resultSet = createResultSet(row);
+        }
+
+        /**
+         * Creates a result set positioned on the given row, where the columns missing in the row are {@code null}.
+         */
+        private static ResultSet createResultSet(Map<String, Object> row) {
+            boolean[] lastWasNull = new boolean[1];
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class },
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("wasNull")) {
+                            return lastWasNull[0];
+                        }
+                        Object value = args != null && args[0] instanceof String ? row.get(args[0]) : null;
+                        lastWasNull[0] = value == null;
+                        Class<?> type = method.getReturnType();
+                        if (type == String.class) {
+                            return value == null ? null : value.toString();
+                        }
+                        if (value == null && type.isPrimitive()) {
+                            return type == boolean.class ? Boolean.FALSE : defaultNumber(type);
+                        }
+                        return value;
+                    });
+        }
+
+        private static Object defaultNumber(Class<?> type) {
+            if (type == int.class) {
+                return 0;
+            }
+            if (type == long.class) {
+                return 0L;
+            }
+            if (type == double.class) {
+                return 0D;
+            }
+            if (type == float.class) {
+                return 0F;
+            }
+            if (type == short.class) {
+                return (short) 0;
+            }
+            return type == byte.class ? (byte) 0 : null;
+        }
+    }
+}
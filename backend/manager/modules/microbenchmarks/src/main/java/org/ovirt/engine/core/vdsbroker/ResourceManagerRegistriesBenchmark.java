@@ -0,0 +1,90 @@
+package org.ovirt.engine.core.vdsbroker;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * <p> Benchmarks the heap footprint of the engine-wide VM registries of the {@link ResourceManager}: the VM managers
+ * by VM id, and the ids of the VMs running on each host, filled the way the engine does when it starts.</p>
+ * <p> Run it with the GC profiler ({@code -prof gc}), the allocations per operation, reported as
+ * {@code gc.alloc.rate.norm}, are the size of the registries plus the garbage of the resizing of their tables. The
+ * {@code ids} benchmark allocates only the ids, as read from the database, to tell their share.</p>
+ * <p> The benchmark resides in the package of the {@link VmManager}, since its constructor is not public.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ResourceManagerRegistriesBenchmark {
+
+    private static final int VMS_PER_HOST = 50;
+
+    @Benchmark
+    public Guid[] ids(BenchmarkState state) {
+        UUID[] uuids = state.vmUuids;
+        Guid[] ids = new Guid[uuids.length];
+        for (int i = 0; i < uuids.length; i++) {
+            ids[i] = new Guid(uuids[i]);
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public Registries registries(BenchmarkState state) {
+        Registries registries = new Registries();
+        Guid[] hostIds = state.hostIds;
+        UUID[] uuids = state.vmUuids;
+        for (int i = 0; i < uuids.length; i++) {
+            Guid vmId = new Guid(uuids[i]);
+            registries.vmManagers.put(vmId, new VmManager(vmId));
+            registries.vdsAndVmsList.computeIfAbsent(hostIds[i / VMS_PER_HOST], hostId -> new HashSet<>()).add(vmId);
+        }
+        return registries;
+    }
+
+    /**
+     * The registries of the {@link ResourceManager}, with the same types.
+     */
+    public static class Registries {
+        private final Map<Guid, Set<Guid>> vdsAndVmsList = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Guid, VmManager> vmManagers = new ConcurrentHashMap<>();
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({"12000", "50000"})
+        private int numberOfVms;
+
+        private UUID[] vmUuids;
+        private Guid[] hostIds;
+
+        @Setup
+        public void setup() {
+            vmUuids = new UUID[numberOfVms];
+            for (int i = 0; i < numberOfVms; i++) {
+                vmUuids[i] = UUID.randomUUID();
+            }
+            hostIds = new Guid[(numberOfVms + VMS_PER_HOST - 1) / VMS_PER_HOST];
+            for (int i = 0; i < hostIds.length; i++) {
+                hostIds[i] = Guid.newGuid();
+            }
+        }
+    }
+}
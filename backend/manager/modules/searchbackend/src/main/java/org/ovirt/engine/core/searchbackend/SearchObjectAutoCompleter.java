@@ -389,7 +389,7 @@ public class SearchObjectAutoCompleter extends SearchObjectsBaseAutoCompleter {
                             null,
                             "audit_log",
                             "audit_log_id",
-                            "audit_log_id DESC ",
+                            "log_time DESC, audit_log_id DESC ",
                             false));
                     put(SearchObjects.TEMPLATE_OBJ_NAME, new EntitySearchInfo(new TemplateCrossRefAutoCompleter(),
                             new VmTemplateConditionFieldAutoCompleter(),
@@ -222,24 +222,24 @@ public class SyntaxCheckerTest {
     @Test
     public void testEvent() {
         testValidSql("Event: ",
-                "SELECT * FROM ((SELECT  audit_log.* FROM  audit_log   WHERE not deleted)  ORDER BY audit_log_id DESC ) as T1 OFFSET (1 -1) LIMIT 0");
+                "SELECT * FROM ((SELECT  audit_log.* FROM  audit_log   WHERE not deleted)  ORDER BY log_time DESC, audit_log_id DESC ) as T1 OFFSET (1 -1) LIMIT 0");
         testValidSql("Event: severity=error ",
-                "SELECT * FROM ((SELECT  audit_log.* FROM  audit_log   WHERE  audit_log.severity = '2'  AND not deleted)  ORDER BY audit_log_id DESC ) as T1 OFFSET (1 -1) LIMIT 0");
+                "SELECT * FROM ((SELECT  audit_log.* FROM  audit_log   WHERE  audit_log.severity = '2'  AND not deleted)  ORDER BY log_time DESC, audit_log_id DESC ) as T1 OFFSET (1 -1) LIMIT 0");
         testValidSql("Event: severity=alert ",
-                "SELECT * FROM ((SELECT  audit_log.* FROM  audit_log   WHERE  audit_log.severity = '10'  AND not deleted)  ORDER BY audit_log_id DESC ) as T1 OFFSET (1 -1) LIMIT 0");
+                "SELECT * FROM ((SELECT  audit_log.* FROM  audit_log   WHERE  audit_log.severity = '10'  AND not deleted)  ORDER BY log_time DESC, audit_log_id DESC ) as T1 OFFSET (1 -1) LIMIT 0");
         // Before: 11ms
-        // "SELECT * FROM (SELECT * FROM audit_log WHERE ( audit_log_id > 0 and audit_log_id IN (SELECT audit_log.audit_log_id FROM  audit_log   LEFT OUTER JOIN vds_with_tags ON audit_log.vds_id=vds_with_tags.vds_id    WHERE  vds_with_tags.vds_name LIKE host1 ) and not deleted)  ORDER BY audit_log_id DESC ) as T1 OFFSET (1 -1) LIMIT 0"
+        // "SELECT * FROM (SELECT * FROM audit_log WHERE ( audit_log_id > 0 and audit_log_id IN (SELECT audit_log.audit_log_id FROM  audit_log   LEFT OUTER JOIN vds_with_tags ON audit_log.vds_id=vds_with_tags.vds_id    WHERE  vds_with_tags.vds_name LIKE host1 ) and not deleted)  ORDER BY log_time DESC, audit_log_id DESC ) as T1 OFFSET (1 -1) LIMIT 0"
         // Current: 9ms
         testValidSql("Event: host.name = \"host1\" ",
-                "SELECT * FROM ((SELECT  audit_log.* FROM  audit_log   LEFT OUTER JOIN (SELECT distinct vds_id, vds_name FROM vds_with_tags) vds_with_tags_temp ON audit_log.vds_id=vds_with_tags_temp.vds_id    WHERE  vds_with_tags_temp.vds_name LIKE host1  AND not deleted)  ORDER BY audit_log_id DESC ) as T1 OFFSET (1 -1) LIMIT 0");
+                "SELECT * FROM ((SELECT  audit_log.* FROM  audit_log   LEFT OUTER JOIN (SELECT distinct vds_id, vds_name FROM vds_with_tags) vds_with_tags_temp ON audit_log.vds_id=vds_with_tags_temp.vds_id    WHERE  vds_with_tags_temp.vds_name LIKE host1  AND not deleted)  ORDER BY log_time DESC, audit_log_id DESC ) as T1 OFFSET (1 -1) LIMIT 0");
     }
 
     @Test
     public void testEvents() {
         testValidSql("Events: ",
-                "SELECT * FROM ((SELECT  audit_log.* FROM  audit_log   WHERE not deleted)  ORDER BY audit_log_id DESC ) as T1 OFFSET (1 -1) LIMIT 0");
+                "SELECT * FROM ((SELECT  audit_log.* FROM  audit_log   WHERE not deleted)  ORDER BY log_time DESC, audit_log_id DESC ) as T1 OFFSET (1 -1) LIMIT 0");
         testValidSql("Events: Templates.name=Blank",
-                "SELECT * FROM (SELECT * FROM audit_log WHERE ( audit_log_id IN (SELECT distinct audit_log.audit_log_id FROM  audit_log   LEFT OUTER JOIN vms_with_tags ON audit_log.vm_id=vms_with_tags.vm_guid    LEFT OUTER JOIN vm_templates_storage_domain ON vms_with_tags.vmt_guid=vm_templates_storage_domain.vmt_guid    WHERE  vm_templates_storage_domain.name LIKE Blank  AND not deleted))  ORDER BY audit_log_id DESC ) as T1 OFFSET (1 -1) LIMIT 0");
+                "SELECT * FROM (SELECT * FROM audit_log WHERE ( audit_log_id IN (SELECT distinct audit_log.audit_log_id FROM  audit_log   LEFT OUTER JOIN vms_with_tags ON audit_log.vm_id=vms_with_tags.vm_guid    LEFT OUTER JOIN vm_templates_storage_domain ON vms_with_tags.vmt_guid=vm_templates_storage_domain.vmt_guid    WHERE  vm_templates_storage_domain.name LIKE Blank  AND not deleted))  ORDER BY log_time DESC, audit_log_id DESC ) as T1 OFFSET (1 -1) LIMIT 0");
 
     }
 
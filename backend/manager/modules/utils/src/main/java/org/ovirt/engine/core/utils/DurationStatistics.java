@@ -0,0 +1,36 @@
+package org.ovirt.engine.core.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates the durations of a repeated operation, e.g. the time it takes to fence a host, to expose their count,
+ * average and maximum in JMX. Safe for use by concurrent threads.
+ */
+public class DurationStatistics {
+
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void add(long duration) {
+        count.incrementAndGet();
+        total.addAndGet(duration);
+        max.accumulateAndGet(duration, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return the average of the durations, or 0 if none was added
+     */
+    public long getAverage() {
+        long added = count.get();
+        return added == 0 ? 0 : total.get() / added;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+}
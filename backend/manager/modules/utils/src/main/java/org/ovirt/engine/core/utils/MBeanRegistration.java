@@ -0,0 +1,56 @@
+package org.ovirt.engine.core.utils;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The registration of a bean in the platform MBean server. A failure to register or unregister the bean is logged
+ * and otherwise ignored, so exposing statistics in JMX never affects the service that collects them.
+ */
+public class MBeanRegistration {
+
+    private static final Logger log = LoggerFactory.getLogger(MBeanRegistration.class);
+
+    private final ObjectName objectName;
+
+    private MBeanRegistration(ObjectName objectName) {
+        this.objectName = objectName;
+    }
+
+    /**
+     * Registers the given bean under the name {@code <domain>:type=<class name of the bean>}.
+     *
+     * @return the registration of the bean, to unregister it with
+     */
+    public static MBeanRegistration register(String domain, Object bean) {
+        try {
+            ObjectName objectName = new ObjectName(domain + ":type=" + bean.getClass().getName());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, objectName);
+            return new MBeanRegistration(objectName);
+        } catch (Exception e) {
+            log.warn("Failed to register {} in JMX: {}", domain, e.getMessage());
+            log.debug("Exception", e);
+            return new MBeanRegistration(null);
+        }
+    }
+
+    public boolean isRegistered() {
+        return objectName != null && ManagementFactory.getPlatformMBeanServer().isRegistered(objectName);
+    }
+
+    public void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            log.warn("Failed to unregister {} from JMX: {}", objectName.getDomain(), e.getMessage());
+            log.debug("Exception", e);
+        }
+    }
+}
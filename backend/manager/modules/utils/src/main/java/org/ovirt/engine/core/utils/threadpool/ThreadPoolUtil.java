@@ -6,12 +6,17 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.concurrent.ManagedTask;
@@ -27,6 +32,11 @@ public class ThreadPoolUtil {
 
     private static ExecutorService executor;
 
+    /**
+     * Executes tasks which spend most of their time blocked on I/O, if not set they are executed by {@link #executor}
+     */
+    private static ExecutorService blockingExecutor;
+
     private static class EngineManagedTask implements ManagedTask, ManagedTaskListener {
 
         @Override
@@ -166,6 +176,68 @@ public class ThreadPoolUtil {
         }
     }
 
+    /**
+     * Executes a task which spends most of its time blocked on I/O, such as a VDSM call, an SSH session or a DB query,
+     * so it doesn't hold a thread of the engine thread pool while waiting.
+     */
+    public static void executeBlocking(Runnable command) {
+        try {
+            getBlockingExecutorService().submit(new InternalWrapperRunnable(command,
+                    CorrelationIdTracker.getCorrelationId()));
+        } catch (RejectedExecutionException e) {
+            log.warn("The blocking tasks executor is out of limit. A submitted task was rejected");
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the given action for each of the items by up to the given number of concurrent workers, and waits for the
+     * workers to complete. The current thread is one of the workers and the others are executed as blocking tasks, if
+     * the blocking tasks executor is exhausted the current thread handles their share of the items too. The action is
+     * expected to handle its own failures, a failure in the current thread is thrown without waiting for the other
+     * workers.
+     */
+    public static <T> void runBounded(Collection<T> items, int parallelism, Consumer<T> action) {
+        Queue<T> pendingItems = new ConcurrentLinkedQueue<>(items);
+        int workers = Math.max(1, Math.min(parallelism, pendingItems.size()));
+        CountDownLatch workersDone = new CountDownLatch(workers);
+        Runnable worker = () -> {
+            try {
+                T item;
+                while ((item = pendingItems.poll()) != null) {
+                    action.accept(item);
+                }
+            } finally {
+                workersDone.countDown();
+            }
+        };
+        for (int i = 1; i < workers; i++) {
+            try {
+                executeBlocking(worker);
+            } catch (RejectedExecutionException e) {
+                // the current thread handles the items of the rejected worker
+                workersDone.countDown();
+            }
+        }
+        worker.run();
+        try {
+            workersDone.await();
+        } catch (InterruptedException e) {
+            log.warn("Interrupted while waiting for the handling of {} items to complete", items.size());
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> Future<V> executeBlocking(FutureTask<V> command) {
+        try {
+            return (Future<V>) getBlockingExecutorService().submit(command);
+        } catch (RejectedExecutionException e) {
+            log.warn("The blocking tasks executor is out of limit. The submitted event was rejected");
+            throw e;
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public static <V> Future<V> execute(FutureTask<V> command) {
         try {
@@ -206,4 +278,31 @@ public class ThreadPoolUtil {
     public static ExecutorService getExecutorService() {
         return executor;
     }
+
+    public static void setBlockingExecutorService(ExecutorService blockingExecutorService) {
+        blockingExecutor = blockingExecutorService;
+    }
+
+    public static ExecutorService getBlockingExecutorService() {
+        return blockingExecutor != null ? blockingExecutor : executor;
+    }
+
+    public static boolean hasBlockingExecutorService() {
+        return blockingExecutor != null;
+    }
+
+    /**
+     * Creates an executor which starts a new virtual thread for each task. The engine is built for Java 11, hence the
+     * executor is looked up reflectively.
+     *
+     * @return the executor, or {@code null} if the running JVM doesn't support virtual threads.
+     */
+    public static ExecutorService createVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.debug("Virtual threads are not supported: {}", e.getMessage());
+            return null;
+        }
+    }
 }
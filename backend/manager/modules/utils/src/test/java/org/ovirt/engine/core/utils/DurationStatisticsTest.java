@@ -0,0 +1,28 @@
+package org.ovirt.engine.core.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class DurationStatisticsTest {
+
+    private final DurationStatistics statistics = new DurationStatistics();
+
+    @Test
+    public void noDurations() {
+        assertEquals(0, statistics.getCount());
+        assertEquals(0, statistics.getAverage());
+        assertEquals(0, statistics.getMax());
+    }
+
+    @Test
+    public void durationsAreAccumulated() {
+        statistics.add(10);
+        statistics.add(30);
+        statistics.add(20);
+
+        assertEquals(3, statistics.getCount());
+        assertEquals(20, statistics.getAverage());
+        assertEquals(30, statistics.getMax());
+    }
+}
@@ -12,19 +12,38 @@ import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
  * This extension sets up the {@link ThreadPoolUtil}'s executor service for unit tests of classes that rely on it.
  *
  * To use it, simple add a {@code @ExtendWith(ExecutorServiceExtension.class)} annotation.
+ * Tests of classes that run tasks concurrently can register an instance with more threads instead, e.g.
+ * {@code @RegisterExtension ExecutorServiceExtension executor = new ExecutorServiceExtension(4)}, and use
+ * {@link #getExecutorService()} to access the executor service.
  */
 public class ExecutorServiceExtension implements BeforeEachCallback, AfterEachCallback {
 
+    private final int threads;
     private ExecutorService origExecutorService;
+    private ExecutorService executorService;
+
+    public ExecutorServiceExtension() {
+        this(1);
+    }
+
+    public ExecutorServiceExtension(int threads) {
+        this.threads = threads;
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
 
     @Override
     public void beforeEach(ExtensionContext extensionContext) {
         origExecutorService = ThreadPoolUtil.getExecutorService();
-        ThreadPoolUtil.setExecutorService(Executors.newFixedThreadPool(1));
+        executorService = Executors.newFixedThreadPool(threads);
+        ThreadPoolUtil.setExecutorService(executorService);
     }
 
     @Override
     public void afterEach(ExtensionContext extensionContext) {
         ThreadPoolUtil.setExecutorService(origExecutorService);
+        executorService.shutdownNow();
     }
 }
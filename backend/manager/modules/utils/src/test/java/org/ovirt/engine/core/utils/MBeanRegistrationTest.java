@@ -0,0 +1,37 @@
+package org.ovirt.engine.core.utils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class MBeanRegistrationTest {
+
+    @Test
+    public void beanIsRegisteredAndUnregistered() {
+        MBeanRegistration registration = MBeanRegistration.register("MBeanRegistrationTest", new Counter());
+        assertTrue(registration.isRegistered());
+
+        registration.unregister();
+        assertFalse(registration.isRegistered());
+    }
+
+    @Test
+    public void failureToRegisterIsIgnored() {
+        MBeanRegistration registration = MBeanRegistration.register("MBeanRegistrationTest", new Object());
+        assertFalse(registration.isRegistered());
+
+        registration.unregister();
+    }
+
+    public interface CounterMXBean {
+        int getCount();
+    }
+
+    public static class Counter implements CounterMXBean {
+        @Override
+        public int getCount() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.ovirt.engine.core.utils.threadpool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ThreadPoolUtilTest {
+
+    private ExecutorService executor;
+    private ExecutorService blockingExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "engine"));
+        blockingExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "blocking"));
+        ThreadPoolUtil.setExecutorService(executor);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ThreadPoolUtil.setExecutorService(null);
+        ThreadPoolUtil.setBlockingExecutorService(null);
+        executor.shutdownNow();
+        blockingExecutor.shutdownNow();
+    }
+
+    @Test
+    public void blockingTasksAreExecutedByEngineExecutorByDefault() throws Exception {
+        assertFalse(ThreadPoolUtil.hasBlockingExecutorService());
+        assertSame(executor, ThreadPoolUtil.getBlockingExecutorService());
+        assertEquals("engine", executeBlocking());
+    }
+
+    @Test
+    public void blockingTasksAreExecutedByBlockingExecutor() throws Exception {
+        ThreadPoolUtil.setBlockingExecutorService(blockingExecutor);
+        assertTrue(ThreadPoolUtil.hasBlockingExecutorService());
+        assertEquals("blocking", executeBlocking());
+    }
+
+    private String executeBlocking() throws Exception {
+        CompletableFuture<String> threadName = new CompletableFuture<>();
+        ThreadPoolUtil.executeBlocking(() -> threadName.complete(Thread.currentThread().getName()));
+        return threadName.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void runBoundedHandlesAllItemsByCurrentThreadAndBlockingExecutor() {
+        ThreadPoolUtil.setBlockingExecutorService(Executors.newFixedThreadPool(2, r -> new Thread(r, "blocking")));
+        List<Integer> items = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8);
+        Set<Integer> handledItems = ConcurrentHashMap.newKeySet();
+        AtomicInteger concurrentItems = new AtomicInteger();
+        AtomicInteger maxConcurrentItems = new AtomicInteger();
+
+        try {
+            ThreadPoolUtil.runBounded(items, 2, item -> {
+                maxConcurrentItems.accumulateAndGet(concurrentItems.incrementAndGet(), Math::max);
+                handledItems.add(item);
+                concurrentItems.decrementAndGet();
+            });
+        } finally {
+            ThreadPoolUtil.getBlockingExecutorService().shutdownNow();
+        }
+
+        assertEquals(items.size(), handledItems.size());
+        assertTrue(maxConcurrentItems.get() <= 2);
+    }
+
+    @Test
+    public void runBoundedHandlesAllItemsInCurrentThreadWhenExecutorIsExhausted() {
+        ThreadPoolUtil.setBlockingExecutorService(blockingExecutor);
+        blockingExecutor.shutdown();
+        List<Integer> items = Arrays.asList(1, 2, 3);
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        AtomicInteger handledItems = new AtomicInteger();
+
+        ThreadPoolUtil.runBounded(items, 3, item -> {
+            threadNames.add(Thread.currentThread().getName());
+            handledItems.incrementAndGet();
+        });
+
+        assertEquals(items.size(), handledItems.get());
+        assertEquals(Set.of(Thread.currentThread().getName()), threadNames);
+    }
+}
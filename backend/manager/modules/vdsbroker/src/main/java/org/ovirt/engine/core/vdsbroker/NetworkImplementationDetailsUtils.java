@@ -1,6 +1,7 @@
 package org.ovirt.engine.core.vdsbroker;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -64,10 +65,26 @@ public class NetworkImplementationDetailsUtils {
     }
 
     public Set<VdsNetworkInterface> getAllInterfacesOutOfSync(Guid clusterId) {
+        return getInterfacesOutOfSync(clusterId, interfaceDao.getAllInterfacesByClusterId(clusterId));
+    }
+
+    /**
+     * Returns the interfaces of the given host which are out of sync with the networks of the given cluster, or an
+     * empty set if the host doesn't belong to the cluster (anymore).
+     */
+    public Set<VdsNetworkInterface> getInterfacesOutOfSync(Guid clusterId, Guid vdsId) {
+        VdsStatic vdsStatic = vdsStaticDao.get(vdsId);
+        if (vdsStatic == null || !clusterId.equals(vdsStatic.getClusterId())) {
+            return Collections.emptySet();
+        }
+        return getInterfacesOutOfSync(clusterId, interfaceDao.getAllInterfacesForVds(vdsId));
+    }
+
+    private Set<VdsNetworkInterface> getInterfacesOutOfSync(Guid clusterId, List<VdsNetworkInterface> interfaces) {
         Map<String, Network> clusterNetworksByName = networkDao.getNetworksForCluster(clusterId);
         Map<Guid, HostNetworkQos> qosByNetworkId = calcQosByNetworkIdMap(clusterNetworksByName.values());
         Cluster cluster = clusterDao.get(clusterId);
-        return interfaceDao.getAllInterfacesByClusterId(clusterId)
+        return interfaces
                 .stream()
                 .filter(iface -> clusterNetworksByName.get(iface.getNetworkName()) != null)
                 .filter(iface -> {
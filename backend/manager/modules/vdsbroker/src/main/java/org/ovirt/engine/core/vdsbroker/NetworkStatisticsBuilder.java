@@ -26,23 +26,46 @@ public class NetworkStatisticsBuilder {
      *            the NetworkInterface entity storing recently-reported values, which will not be modified.
      */
     public void updateExistingInterfaceStatistics(NetworkInterface<?> existingIface, NetworkInterface<?> reportedIface) {
-        NetworkStatistics existingStats = existingIface.getStatistics();
         NetworkStatistics reportedStats = reportedIface.getStatistics();
+        updateExistingInterfaceStatistics(existingIface,
+                reportedIface.getSpeed(),
+                reportedStats.getReceivedBytes(),
+                reportedStats.getTransmittedBytes(),
+                reportedStats.getReceiveDrops(),
+                reportedStats.getTransmitDrops(),
+                reportedStats.getSampleTime());
+    }
+
+    /**
+     * Updates an existing NetworkInterface entity with recently-reported statistics values, without requiring them to
+     * be wrapped in an intermediate NetworkInterface entity.
+     *
+     * @param existingIface
+     *            the existing NetworkInterface entity, whose Statistics and Speed members are to be modified.
+     */
+    public void updateExistingInterfaceStatistics(NetworkInterface<?> existingIface,
+            Integer reportedSpeed,
+            BigInteger reportedReceivedBytes,
+            BigInteger reportedTransmittedBytes,
+            BigInteger reportedReceiveDrops,
+            BigInteger reportedTransmitDrops,
+            Double reportedSampleTime) {
+        NetworkStatistics existingStats = existingIface.getStatistics();
 
-        speed = reportedIface.getSpeed();
-        currentTime = reportedStats.getSampleTime();
+        speed = reportedSpeed;
+        currentTime = reportedSampleTime;
         previousTime = existingStats.getSampleTime();
 
         existingIface.setSpeed(speed);
-        existingStats.setReceiveDrops(reportedStats.getReceiveDrops());
-        existingStats.setTransmitDrops(reportedStats.getTransmitDrops());
+        existingStats.setReceiveDrops(reportedReceiveDrops);
+        existingStats.setTransmitDrops(reportedTransmitDrops);
 
         EffectiveStats rxResult =
-                computeEffectiveStats(reportedStats.getReceivedBytes(),
+                computeEffectiveStats(reportedReceivedBytes,
                         existingStats.getReceivedBytes(),
                         existingStats.getReceivedBytesOffset());
         EffectiveStats txResult =
-                computeEffectiveStats(reportedStats.getTransmittedBytes(),
+                computeEffectiveStats(reportedTransmittedBytes,
                         existingStats.getTransmittedBytes(),
                         existingStats.getTransmittedBytesOffset());
 
@@ -0,0 +1,116 @@
+package org.ovirt.engine.core.vdsbroker;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.ovirt.engine.core.common.businessentities.network.VdsNetworkInterface;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.utils.transaction.TransactionSuccessListener;
+import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+
+/**
+ * Keeps the host interfaces which are out of sync with the networks of their cluster, per cluster, so they don't have
+ * to be recalculated for all the hosts of the cluster on every query.
+ * <p>
+ * A cluster is indexed when it is first queried. Afterwards, only the hosts whose network configuration changed are
+ * recalculated, and the whole cluster is recalculated only when its networks, or the QoS of its networks, change.
+ * Changes are reported by calling one of the {@code invalidate} methods; when they are called within a transaction,
+ * the invalidation is repeated once the transaction is committed, so a recalculation which read the data before the
+ * commit is not kept.
+ */
+@Singleton
+public class OutOfSyncInterfacesIndex {
+
+    private final NetworkImplementationDetailsUtils networkImplementationDetailsUtils;
+
+    private final Map<Guid, ClusterEntry> clusters = new ConcurrentHashMap<>();
+
+    @Inject
+    public OutOfSyncInterfacesIndex(NetworkImplementationDetailsUtils networkImplementationDetailsUtils) {
+        this.networkImplementationDetailsUtils = networkImplementationDetailsUtils;
+    }
+
+    /**
+     * @return the interfaces of the hosts in the given cluster which are out of sync with the cluster networks
+     */
+    public Set<VdsNetworkInterface> getOutOfSyncInterfaces(Guid clusterId) {
+        ClusterEntry entry = clusters.computeIfAbsent(clusterId, ClusterEntry::new);
+        synchronized (entry) {
+            entry.refresh();
+            return entry.outOfSyncByHost.values()
+                    .stream()
+                    .flatMap(Set::stream)
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * Marks the network configuration of the given host as changed, e.g. when its interfaces or network attachments
+     * were persisted, or when it was moved to another cluster or removed.
+     */
+    public void invalidateHost(Guid vdsId) {
+        invalidate(() -> clusters.values().forEach(entry -> entry.staleHosts.add(vdsId)));
+    }
+
+    /**
+     * Marks the networks of the given cluster as changed, e.g. when a network was attached to or detached from the
+     * cluster, or when its role in the cluster changed.
+     */
+    public void invalidateCluster(Guid clusterId) {
+        invalidate(() -> clusters.remove(clusterId));
+    }
+
+    /**
+     * Marks the networks of all the clusters as changed, e.g. when a network or a host network QoS was updated.
+     */
+    public void invalidateAll() {
+        invalidate(clusters::clear);
+    }
+
+    private void invalidate(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSupport.current() != null) {
+            TransactionSupport.registerRollbackHandler((TransactionSuccessListener) invalidation::run);
+        }
+    }
+
+    private class ClusterEntry {
+        private final Guid clusterId;
+        private final Set<Guid> staleHosts = ConcurrentHashMap.newKeySet();
+        private Map<Guid, Set<VdsNetworkInterface>> outOfSyncByHost;
+
+        ClusterEntry(Guid clusterId) {
+            this.clusterId = clusterId;
+        }
+
+        void refresh() {
+            if (outOfSyncByHost == null) {
+                staleHosts.clear();
+                outOfSyncByHost = new HashMap<>(networkImplementationDetailsUtils.getAllInterfacesOutOfSync(clusterId)
+                        .stream()
+                        .collect(Collectors.groupingBy(VdsNetworkInterface::getVdsId, Collectors.toSet())));
+                return;
+            }
+
+            for (Iterator<Guid> iterator = staleHosts.iterator(); iterator.hasNext();) {
+                Guid vdsId = iterator.next();
+                // removed before recalculating, so a host invalidated meanwhile is recalculated again next time
+                iterator.remove();
+                Set<VdsNetworkInterface> outOfSync =
+                        networkImplementationDetailsUtils.getInterfacesOutOfSync(clusterId, vdsId);
+                if (outOfSync.isEmpty()) {
+                    outOfSyncByHost.remove(vdsId);
+                } else {
+                    outOfSyncByHost.put(vdsId, outOfSync);
+                }
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.Collectors;
@@ -52,6 +53,7 @@ import org.ovirt.engine.core.dao.VmDynamicDao;
 import org.ovirt.engine.core.dao.network.VmNetworkStatisticsDao;
 import org.ovirt.engine.core.di.Injector;
 import org.ovirt.engine.core.utils.ReflectionUtils;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 import org.ovirt.engine.core.utils.threadpool.ThreadPools;
 import org.ovirt.engine.core.vdsbroker.monitoring.HostMonitoringWatchdog;
 import org.ovirt.engine.core.vdsbroker.vdsbroker.FutureVDSCommand;
@@ -105,11 +107,15 @@ public class ResourceManager implements BackendService {
         log.info("Start initializing {}", getClass().getSimpleName());
         populateVdsAndVmsList();
 
-        // Populate the VDS dictionary
+        // Populate the VDS dictionary, the host managers are created concurrently since each of them persists the
+        // reset state of its host
         final List<VDS> allVdsList = hostDao.getAll();
-        for (VDS curVds : allVdsList) {
-            addVds(curVds, true, false);
-        }
+        ThreadPoolUtil.invokeAll(allVdsList.stream()
+                .map(curVds -> (Callable<Void>) () -> {
+                    addVds(curVds, true, false);
+                    return null;
+                })
+                .collect(Collectors.toList()));
         hostMonitoringWatchdog = new HostMonitoringWatchdog(monitoringExecutor, hostDao, () -> vdsManagersDict);
         hostMonitoringWatchdog.start();
         log.info("Finished initializing {}", getClass().getSimpleName());
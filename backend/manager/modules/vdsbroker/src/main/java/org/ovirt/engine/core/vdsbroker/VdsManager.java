@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -68,6 +69,7 @@ import org.ovirt.engine.core.dao.provider.ProviderDao;
 import org.ovirt.engine.core.utils.crypt.EngineEncryptionUtils;
 import org.ovirt.engine.core.utils.lock.EngineLock;
 import org.ovirt.engine.core.utils.lock.LockManager;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 import org.ovirt.engine.core.utils.threadpool.ThreadPools;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.ovirt.engine.core.vdsbroker.irsbroker.IRSErrorException;
@@ -75,6 +77,7 @@ import org.ovirt.engine.core.vdsbroker.irsbroker.IrsProxy;
 import org.ovirt.engine.core.vdsbroker.irsbroker.IrsProxyManager;
 import org.ovirt.engine.core.vdsbroker.kubevirt.PrometheusUrlResolver;
 import org.ovirt.engine.core.vdsbroker.monitoring.HostConnectionRefresherInterface;
+import org.ovirt.engine.core.vdsbroker.monitoring.HostInterfacesStatistics;
 import org.ovirt.engine.core.vdsbroker.monitoring.HostMonitoring;
 import org.ovirt.engine.core.vdsbroker.monitoring.HostMonitoringInterface;
 import org.ovirt.engine.core.vdsbroker.monitoring.MonitoringStrategy;
@@ -157,6 +160,7 @@ public class VdsManager {
     private final AtomicInteger unrespondedAttempts;
     private final Guid vdsId;
     private final VdsMonitor vdsMonitor = new VdsMonitor();
+    private final HostInterfacesStatistics interfacesStatistics = new HostInterfacesStatistics();
     private VDS cachedVds;
     private long lastUpdate;
     private long updateStartTime;
@@ -170,6 +174,7 @@ public class VdsManager {
     private volatile boolean beforeFirstRefresh = true;
     private volatile HostMonitoringInterface hostMonitoring;
     private volatile boolean monitoringNeeded;
+    private final AtomicBoolean refreshInProgress = new AtomicBoolean();
     private Map<Guid, VMStatus> lastVmsList = Collections.emptyMap();
     private final Map<Guid, V2VJobInfo> vmIdToV2VJob = new ConcurrentHashMap<>();
     private VmStatsRefresher vmsRefresher;
@@ -236,7 +241,7 @@ public class VdsManager {
         long refreshRate = Config.<Long> getValue(ConfigValues.VdsRefreshRate) * 1000;
 
         registeredJobs.add(executor.scheduleWithFixedDelay(
-                this::refresh,
+                this::scheduleRefresh,
                 refreshRate,
                 refreshRate,
                 TimeUnit.MILLISECONDS));
@@ -277,6 +282,35 @@ public class VdsManager {
                 resourceManager.getExecutor());
     }
 
+    /**
+     * Runs the refresh on the executor of blocking tasks if there is one, so the scheduled thread pool isn't held while
+     * waiting for the host. A refresh is not started while the previous one is still running.
+     */
+    private void scheduleRefresh() {
+        if (!ThreadPoolUtil.hasBlockingExecutorService()) {
+            refresh();
+            return;
+        }
+
+        if (!refreshInProgress.compareAndSet(false, true)) {
+            log.debug("Previous refresh of host '{}' is still running", getVdsName());
+            return;
+        }
+
+        try {
+            ThreadPoolUtil.executeBlocking(() -> {
+                try {
+                    refresh();
+                } finally {
+                    refreshInProgress.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshInProgress.set(false);
+            refresh();
+        }
+    }
+
     public void refresh() {
         try {
             refreshImpl();
@@ -1096,6 +1130,10 @@ public class VdsManager {
         return lastUpdate - updateStartTime;
     }
 
+    public HostInterfacesStatistics getInterfacesStatistics() {
+        return interfacesStatistics;
+    }
+
     /**
      * @return VdsMonitor a class with means for lock and conditions for signaling
      */
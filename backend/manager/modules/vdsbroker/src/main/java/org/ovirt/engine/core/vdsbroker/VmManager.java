@@ -1,8 +1,11 @@
 package org.ovirt.engine.core.vdsbroker;
 
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
@@ -23,6 +26,7 @@ import org.ovirt.engine.core.common.businessentities.VmDevice;
 import org.ovirt.engine.core.common.businessentities.VmDynamic;
 import org.ovirt.engine.core.common.businessentities.VmStatic;
 import org.ovirt.engine.core.common.businessentities.VmStatistics;
+import org.ovirt.engine.core.common.businessentities.network.VmNetworkInterface;
 import org.ovirt.engine.core.common.businessentities.network.VmNetworkStatistics;
 import org.ovirt.engine.core.common.scheduling.VmOverheadCalculator;
 import org.ovirt.engine.core.compat.Guid;
@@ -32,6 +36,7 @@ import org.ovirt.engine.core.dao.VmDeviceDao;
 import org.ovirt.engine.core.dao.VmDynamicDao;
 import org.ovirt.engine.core.dao.VmStaticDao;
 import org.ovirt.engine.core.dao.VmStatisticsDao;
+import org.ovirt.engine.core.dao.network.VmNetworkInterfaceDao;
 import org.ovirt.engine.core.dao.network.VmNetworkStatisticsDao;
 import org.ovirt.engine.core.vdsbroker.monitoring.VdsmVm;
 import org.slf4j.Logger;
@@ -39,6 +44,12 @@ import org.slf4j.LoggerFactory;
 
 public class VmManager {
 
+    /**
+     * The time the network interfaces of the VM are kept for the monitoring before they're reloaded from the database,
+     * so interfaces changed without invalidating them are eventually refreshed.
+     */
+    private static final long MONITORED_INTERFACES_TTL = TimeUnit.MINUTES.toNanos(5);
+
     private final Guid vmId;
 
     ///// Static fields ///////
@@ -86,6 +97,18 @@ public class VmManager {
 
     private Set<Guid> devicesBeingHotUnplugged;
 
+    /**
+     * The network interfaces of the VM with their last monitored statistics, or null if they should be (re)loaded
+     * from the database.
+     */
+    private volatile List<VmNetworkInterface> monitoredInterfaces;
+    private volatile long monitoredInterfacesLoadTime;
+    /**
+     * The MAC addresses reported by the VM which were not found among its network interfaces when they were loaded, or
+     * null if the interfaces weren't compared with the reported ones since they were loaded.
+     */
+    private volatile Set<String> unknownInterfaceMacs;
+
     @Inject
     private VmDeviceDao vmDeviceDao;
     @Inject
@@ -95,6 +118,8 @@ public class VmManager {
     @Inject
     private VmNetworkStatisticsDao vmNetworkStatisticsDao;
     @Inject
+    private VmNetworkInterfaceDao vmNetworkInterfaceDao;
+    @Inject
     private VmStaticDao vmStaticDao;
     @Inject
     private ClusterDao clusterDao;
@@ -200,6 +225,63 @@ public class VmManager {
         updateStaticFields(vmStatic);
     }
 
+    /**
+     * Returns the network interfaces of the VM, with their statistics as last saved by the monitoring. The interfaces
+     * are loaded from the database once, and kept in memory until the interfaces of the VM are changed or for
+     * {@link #MONITORED_INTERFACES_TTL} at most, so the monitoring doesn't read them on every cycle. The statistics
+     * are updated in place by the monitoring, so this should be called while holding the VM lock.
+     */
+    public List<VmNetworkInterface> getMonitoredInterfaces() {
+        List<VmNetworkInterface> interfaces = monitoredInterfaces;
+        if (interfaces == null || System.nanoTime() - monitoredInterfacesLoadTime > MONITORED_INTERFACES_TTL) {
+            interfaces = loadMonitoredInterfaces();
+        }
+        return interfaces;
+    }
+
+    /**
+     * Same as {@link #getMonitoredInterfaces()}, but the interfaces are reloaded if the VM reports a MAC address which
+     * isn't among them, in case they were changed without invalidating them. They are reloaded once per change of the
+     * unknown MAC addresses, so an interface which isn't in the database doesn't cause a reload on every cycle.
+     *
+     * @param reportedMacs the MAC addresses of the interfaces reported by the VM
+     */
+    public List<VmNetworkInterface> getMonitoredInterfaces(Collection<String> reportedMacs) {
+        List<VmNetworkInterface> interfaces = getMonitoredInterfaces();
+        Set<String> unknownMacs = getUnknownMacs(interfaces, reportedMacs);
+        Set<String> previousUnknownMacs = unknownInterfaceMacs;
+        if (previousUnknownMacs == null) {
+            // the interfaces were just loaded
+            unknownInterfaceMacs = unknownMacs;
+        } else if (!previousUnknownMacs.containsAll(unknownMacs)) {
+            interfaces = loadMonitoredInterfaces();
+            unknownInterfaceMacs = getUnknownMacs(interfaces, reportedMacs);
+        }
+        return interfaces;
+    }
+
+    private List<VmNetworkInterface> loadMonitoredInterfaces() {
+        List<VmNetworkInterface> interfaces = vmNetworkInterfaceDao.getAllForMonitoredVm(vmId);
+        monitoredInterfacesLoadTime = System.nanoTime();
+        monitoredInterfaces = interfaces;
+        unknownInterfaceMacs = null;
+        return interfaces;
+    }
+
+    private static Set<String> getUnknownMacs(List<VmNetworkInterface> interfaces, Collection<String> macs) {
+        Set<String> unknownMacs = new HashSet<>(macs);
+        interfaces.stream().map(VmNetworkInterface::getMacAddress).forEach(unknownMacs::remove);
+        return unknownMacs;
+    }
+
+    /**
+     * Drops the network interfaces kept for the monitoring, they are reloaded from the database by the next cycle.
+     * Should be called whenever the network interfaces of the VM are added, removed or updated.
+     */
+    public void invalidateMonitoredInterfaces() {
+        monitoredInterfaces = null;
+    }
+
     /**
      * getVmOverheadInMB returns the currently cached value of predicted QEMU overhead for this VM
      *
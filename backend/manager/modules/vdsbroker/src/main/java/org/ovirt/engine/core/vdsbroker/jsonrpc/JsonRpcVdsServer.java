@@ -570,7 +570,7 @@ public class JsonRpcVdsServer implements IVdsServer {
                         return !callable.isCallableInvoked() && super.isDone();
                     }
                 };
-        ThreadPoolUtil.execute(future);
+        ThreadPoolUtil.executeBlocking(future);
         return future;
     }
 
@@ -1063,7 +1063,7 @@ public class JsonRpcVdsServer implements IVdsServer {
                     }
                 };
 
-        ThreadPoolUtil.execute(future);
+        ThreadPoolUtil.executeBlocking(future);
         return future;
     }
 
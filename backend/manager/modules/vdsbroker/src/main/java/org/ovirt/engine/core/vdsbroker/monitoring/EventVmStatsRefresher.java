@@ -1,9 +1,14 @@
 package org.ovirt.engine.core.vdsbroker.monitoring;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -11,18 +16,30 @@ import javax.inject.Inject;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.ovirt.engine.core.common.businessentities.VMStatus;
 import org.ovirt.engine.core.common.businessentities.VmDynamic;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.utils.Pair;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dao.VmDynamicDao;
 import org.ovirt.engine.core.di.Injector;
 import org.ovirt.engine.core.utils.ObjectDescriptor;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 import org.ovirt.engine.core.vdsbroker.VdsManager;
 import org.ovirt.engine.core.vdsbroker.vdsbroker.VdsBrokerObjectsBuilder;
+import org.ovirt.engine.core.vdsbroker.vdsbroker.VdsProperties;
 import org.ovirt.vdsm.jsonrpc.client.events.EventSubscriber;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Monitors the VMs of a host by the <code>VM_status</code> events it sends.
+ * <p>
+ * Received events are buffered and processed in batches in the background, so a burst of events, e.g. on a boot
+ * storm or a mass migration, doesn't go through a monitoring cycle and a DB flush per event. The reports of each VM
+ * in a batch are coalesced to the latest one, by the notify time of the events. The buffer is bounded by requesting
+ * up to VmStatusEventsBufferSize events at a time, and requesting more only as buffered events are processed.
+ */
 public class EventVmStatsRefresher extends VmStatsRefresher {
 
     private static final Logger log = LoggerFactory.getLogger(EventVmStatsRefresher.class);
@@ -31,9 +48,14 @@ public class EventVmStatsRefresher extends VmStatsRefresher {
     private VmDynamicDao vmDynamicDao;
     @Inject
     private VdsBrokerObjectsBuilder vdsBrokerObjectsBuilder;
+    @Inject
+    private VmStatusEventsStatistics statistics;
     private final ResourceManager resourceManager;
     private final PollVmStatsRefresher allVmStatsOnlyRefresher;
 
+    private final Queue<StatusEvent> events = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean processing = new AtomicBoolean();
+
     public EventVmStatsRefresher(VdsManager manager, ResourceManager resourceManager) {
         super(manager);
         // we still want to fetch GetAllVmStats as we did before
@@ -50,24 +72,20 @@ public class EventVmStatsRefresher extends VmStatsRefresher {
             @Override
             public void onSubscribe(Flow.Subscription sub) {
                 subscription = sub;
-                subscription.request(1);
+                subscription.request(Config.<Integer> getValue(ConfigValues.VmStatusEventsBufferSize));
             }
 
             @Override
             public void onNext(Map<String, Object> map) {
                 try {
-                    long fetchTime = System.nanoTime();
                     printEventInDebug(map);
-                    List<Pair<VmDynamic, VdsmVm>> vms = convertEvent(map);
-                    if (!vms.isEmpty()) {
-                        addVmsToVdsManager(vms); // Prevent missing VMs on VdsManager::lastVmsList
-                        getVmsMonitoring().perform(vms, fetchTime, vdsManager, false);
-                        processDevices(vms.stream().map(Pair::getSecond), fetchTime);
-                    }
+                    Double notifyTime = vdsBrokerObjectsBuilder.removeNotifyTimeFromVmStatusEvent(map);
+                    events.add(new StatusEvent(map, notifyTime, System.nanoTime()));
+                    statistics.eventReceived();
+                    scheduleProcessing();
                 } catch (Throwable t) {
-                    log.error("Error processing VM stats monitoring event: {}", ExceptionUtils.getRootCauseMessage(t));
+                    log.error("Error receiving VM stats monitoring event: {}", ExceptionUtils.getRootCauseMessage(t));
                     log.debug("Exception", t);
-                } finally {
                     subscription.request(1);
                 }
             }
@@ -82,52 +100,6 @@ public class EventVmStatsRefresher extends VmStatsRefresher {
                 log.debug("processing event for host {} data:\n{}", vdsManager.getVdsName(), sb);
             }
 
-            @SuppressWarnings("unchecked")
-            private List<Pair<VmDynamic, VdsmVm>> convertEvent(Map<String, Object> map) {
-                Double notifyTime = vdsBrokerObjectsBuilder.removeNotifyTimeFromVmStatusEvent(map);
-                return map.entrySet().stream()
-                        .map(idToMap -> toMonitoredVm(
-                                new Guid(idToMap.getKey()),
-                                (Map<String, Object>) idToMap.getValue(),
-                                notifyTime))
-                        .collect(Collectors.toList());
-            }
-
-            private Pair<VmDynamic, VdsmVm> toMonitoredVm(Guid vmId, Map<String, Object> vmMap, Double notifyTime) {
-                VmDynamic dbVm = vmDynamicDao.get(vmId);
-                VdsmVm vdsmVm = dbVm == null ?
-                        createVdsmVm(vmId, vmMap, notifyTime)
-                        : createVdsmVm(dbVm, vmMap, notifyTime);
-                return new Pair<>(dbVm, vdsmVm);
-            }
-
-            private VdsmVm createVdsmVm(Guid vmId, Map<String, Object> struct, Double notifyTime) {
-                VmDynamic fakeVm = new VmDynamic();
-                fakeVm.setId(vmId);
-                return createVdsmVm(fakeVm, struct, notifyTime);
-            }
-
-            private VdsmVm createVdsmVm(VmDynamic dbVmDynamic, Map<String, Object> struct, Double notifyTime) {
-                // send a clone of vm dynamic to be overridden with new data
-                VmDynamic clonedVmDynamic = new VmDynamic(dbVmDynamic);
-                vdsBrokerObjectsBuilder.updateVMDynamicData(clonedVmDynamic, struct, vdsManager.getCopyVds());
-                return new VdsmVm(notifyTime)
-                        .setVmDynamic(clonedVmDynamic)
-                        .setDevicesHash(vdsBrokerObjectsBuilder.getVmDevicesHash(struct));
-            }
-
-            private void addVmsToVdsManager(List<Pair<VmDynamic, VdsmVm>> vms) {
-                // We can assume that it's the first time the VMs will be on list in PoweringUp status.
-                Map<Guid, VMStatus> poweringUpVms = vms
-                        .stream()
-                        .map(Pair::getSecond)
-                        .filter(Objects::nonNull)
-                        .map(VdsmVm::getVmDynamic)
-                        .filter(v -> v.getStatus() == VMStatus.PoweringUp)
-                        .collect(Collectors.toMap(VmDynamic::getId, VmDynamic::getStatus));
-                vdsManager.addVmsToLastVmsList(poweringUpVms);
-            }
-
             @Override
             public void onError(Throwable t) {
                 // communication issue is delivered as a message so we need to request for more
@@ -144,6 +116,160 @@ public class EventVmStatsRefresher extends VmStatsRefresher {
     public void stopMonitoring() {
         allVmStatsOnlyRefresher.stopMonitoring();
         subscription.cancel();
+        events.clear();
+    }
+
+    /**
+     * Processes the buffered events in the background, unless they are already being processed.
+     */
+    private void scheduleProcessing() {
+        if (!processing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            ThreadPoolUtil.executeBlocking(this::processEvents);
+        } catch (RejectedExecutionException e) {
+            // the thread pool is exhausted, process the events in the current thread
+            processEvents();
+        }
+    }
+
+    private void processEvents() {
+        try {
+            List<StatusEvent> batch = new ArrayList<>();
+            StatusEvent event;
+            while ((event = events.poll()) != null) {
+                batch.add(event);
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    processBatch(batch);
+                } catch (Throwable t) {
+                    log.error("Error processing VM stats monitoring events: {}",
+                            ExceptionUtils.getRootCauseMessage(t));
+                    log.debug("Exception", t);
+                } finally {
+                    subscription.request(batch.size());
+                }
+            }
+        } finally {
+            processing.set(false);
+        }
+        // events received while the processing was finishing are processed by another run
+        if (!events.isEmpty()) {
+            scheduleProcessing();
+        }
+    }
+
+    void processBatch(List<StatusEvent> batch) {
+        Map<Guid, VmReport> reports = coalesce(batch);
+        if (!reports.isEmpty()) {
+            addVmsToVdsManager(batch); // Prevent missing VMs on VdsManager::lastVmsList
+            // the VMs are skipped by the monitoring if they were changed since their reports were received, so each
+            // report is monitored with the time it was received, in a single monitoring cycle for the whole batch
+            List<Pair<VmDynamic, VdsmVm>> vms = reports.entrySet().stream()
+                    .map(report -> toMonitoredVm(report.getKey(), report.getValue()))
+                    .collect(Collectors.toList());
+            long fetchTime = batch.get(0).receiveTime;
+            getVmsMonitoring().perform(vms, fetchTime, vdsManager, false);
+            processDevices(vms.stream().map(Pair::getSecond), fetchTime);
+        }
+
+        long processedTime = System.nanoTime();
+        statistics.batchProcessed(batch.size(),
+                batch.stream().mapToInt(event -> event.vms.size()).sum(),
+                reports.size(),
+                batch.stream().mapToLong(event -> processedTime - event.receiveTime).sum(),
+                processedTime - batch.get(0).receiveTime);
+    }
+
+    /**
+     * @return the latest report of each VM in the given events, by the notify time of the events, or by the order in
+     *         which the events were received when their notify times are equal or unknown
+     */
+    @SuppressWarnings("unchecked")
+    static Map<Guid, VmReport> coalesce(List<StatusEvent> events) {
+        Map<Guid, VmReport> reports = new LinkedHashMap<>();
+        for (StatusEvent event : events) {
+            event.vms.forEach((vmId, vm) -> reports.merge(new Guid(vmId),
+                    new VmReport((Map<String, Object>) vm, event.notifyTime, event.receiveTime),
+                    (current, received) -> current.isNewerThan(received) ? current : received));
+        }
+        return reports;
+    }
+
+    private Pair<VmDynamic, VdsmVm> toMonitoredVm(Guid vmId, VmReport report) {
+        // TODO read the dynamic data of the VM from its VmManager, see PollVmStatsRefresher#matchVms
+        VmDynamic dbVm = vmDynamicDao.get(vmId);
+        VdsmVm vdsmVm = dbVm == null ?
+                createVdsmVm(vmId, report.vm, report.notifyTime)
+                : createVdsmVm(dbVm, report.vm, report.notifyTime);
+        return new Pair<>(dbVm, vdsmVm.setFetchTime(report.receiveTime));
     }
 
+    private VdsmVm createVdsmVm(Guid vmId, Map<String, Object> struct, Double notifyTime) {
+        VmDynamic fakeVm = new VmDynamic();
+        fakeVm.setId(vmId);
+        return createVdsmVm(fakeVm, struct, notifyTime);
+    }
+
+    private VdsmVm createVdsmVm(VmDynamic dbVmDynamic, Map<String, Object> struct, Double notifyTime) {
+        // send a clone of vm dynamic to be overridden with new data
+        VmDynamic clonedVmDynamic = new VmDynamic(dbVmDynamic);
+        vdsBrokerObjectsBuilder.updateVMDynamicData(clonedVmDynamic, struct, vdsManager.getCopyVds());
+        return new VdsmVm(notifyTime)
+                .setVmDynamic(clonedVmDynamic)
+                .setDevicesHash(vdsBrokerObjectsBuilder.getVmDevicesHash(struct));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addVmsToVdsManager(List<StatusEvent> batch) {
+        // We can assume that it's the first time the VMs will be on list in PoweringUp status.
+        // All the reports are checked, as a VM may have been reported in another status after PoweringUp in the batch
+        Map<Guid, VMStatus> poweringUpVms = new LinkedHashMap<>();
+        for (StatusEvent event : batch) {
+            event.vms.forEach((vmId, vm) -> {
+                Object status = ((Map<String, Object>) vm).get(VdsProperties.status);
+                if (status != null && vdsBrokerObjectsBuilder.convertToVmStatus((String) status) == VMStatus.PoweringUp) {
+                    poweringUpVms.put(new Guid(vmId), VMStatus.PoweringUp);
+                }
+            });
+        }
+        vdsManager.addVmsToLastVmsList(poweringUpVms);
+    }
+
+    /**
+     * A <code>VM_status</code> event, mapping the IDs of VMs to their reports.
+     */
+    static class StatusEvent {
+        private final Map<String, Object> vms;
+        private final Double notifyTime;
+        private final long receiveTime;
+
+        StatusEvent(Map<String, Object> vms, Double notifyTime, long receiveTime) {
+            this.vms = vms;
+            this.notifyTime = notifyTime;
+            this.receiveTime = receiveTime;
+        }
+    }
+
+    static class VmReport {
+        private final Map<String, Object> vm;
+        private final Double notifyTime;
+        private final long receiveTime;
+
+        VmReport(Map<String, Object> vm, Double notifyTime, long receiveTime) {
+            this.vm = vm;
+            this.notifyTime = notifyTime;
+            this.receiveTime = receiveTime;
+        }
+
+        Map<String, Object> getVm() {
+            return vm;
+        }
+
+        boolean isNewerThan(VmReport other) {
+            return notifyTime != null && other.notifyTime != null && notifyTime > other.notifyTime;
+        }
+    }
 }
@@ -0,0 +1,232 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.commons.lang.StringUtils;
+import org.ovirt.engine.core.common.businessentities.network.InterfaceStatus;
+import org.ovirt.engine.core.common.businessentities.network.VdsNetworkInterface;
+import org.ovirt.engine.core.common.businessentities.network.VdsNetworkStatistics;
+import org.ovirt.engine.core.common.utils.NetworkCommonUtils;
+import org.ovirt.engine.core.utils.NetworkUtils;
+
+/**
+ * Index based snapshot of the network interfaces of a single host, as they were known before the current statistics
+ * refresh. The instance is owned by the host's {@code VdsManager} and is reused by every monitoring cycle, so status
+ * change detection and statistics delta computation are done in place on arrays indexed by the position of the
+ * interface in {@code VDS.getInterfaces()}, rather than on maps rebuilt per cycle.
+ * <p>
+ * The class is not thread safe, it is expected to be accessed only while holding the host monitoring lock.
+ */
+public class HostInterfacesStatistics {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<String, Integer> indexByName = new HashMap<>();
+    private String[] names = new String[INITIAL_CAPACITY];
+    private InterfaceStatus[] statuses = new InterfaceStatus[INITIAL_CAPACITY];
+    private BigInteger[] receivedBytes = new BigInteger[INITIAL_CAPACITY];
+    private BigInteger[] receivedBytesOffsets = new BigInteger[INITIAL_CAPACITY];
+    private BigInteger[] transmittedBytes = new BigInteger[INITIAL_CAPACITY];
+    private BigInteger[] transmittedBytesOffsets = new BigInteger[INITIAL_CAPACITY];
+    private BigInteger[] receiveDrops = new BigInteger[INITIAL_CAPACITY];
+    private BigInteger[] transmitDrops = new BigInteger[INITIAL_CAPACITY];
+    private Double[] receiveRates = new Double[INITIAL_CAPACITY];
+    private Double[] transmitRates = new Double[INITIAL_CAPACITY];
+    private boolean[] monitored = new boolean[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Records the current state of the given interfaces, to be compared against the values reported by the host. Only
+     * references to the existing values are kept, hence taking the snapshot doesn't allocate once the arrays have
+     * grown to the number of interfaces of the host.
+     *
+     * @param nics
+     *            the interfaces of the host, prior to updating them with the reported statistics.
+     */
+    public void snapshot(List<VdsNetworkInterface> nics) {
+        int count = nics.size();
+        ensureCapacity(count);
+        boolean topologyChanged = count != size;
+        for (int i = 0; i < count; i++) {
+            VdsNetworkInterface nic = nics.get(i);
+            if (!nic.getName().equals(names[i])) {
+                names[i] = nic.getName();
+                topologyChanged = true;
+            }
+
+            VdsNetworkStatistics stats = nic.getStatistics();
+            statuses[i] = stats.getStatus();
+            receivedBytes[i] = stats.getReceivedBytes();
+            receivedBytesOffsets[i] = stats.getReceivedBytesOffset();
+            transmittedBytes[i] = stats.getTransmittedBytes();
+            transmittedBytesOffsets[i] = stats.getTransmittedBytesOffset();
+            receiveDrops[i] = stats.getReceiveDrops();
+            transmitDrops[i] = stats.getTransmitDrops();
+            receiveRates[i] = stats.getReceiveRate();
+            transmitRates[i] = stats.getTransmitRate();
+        }
+
+        for (int i = count; i < size; i++) {
+            names[i] = null;
+        }
+        size = count;
+
+        if (topologyChanged) {
+            indexByName.clear();
+            for (int i = 0; i < size; i++) {
+                indexByName.put(names[i], i);
+            }
+        }
+    }
+
+    /**
+     * Marks the interfaces whose status should be monitored: base interfaces which have networks or labels attached to
+     * them (either directly or via a vlan device on top of them), and the slaves of such bonds.
+     *
+     * @param nics
+     *            the interfaces of the host, in the same order as passed to {@link #snapshot(List)}.
+     * @return <code>false</code> if the given interfaces are not the ones of the snapshot, in which case no interface
+     *         is monitored.
+     */
+    public boolean updateMonitoredInterfaces(List<VdsNetworkInterface> nics) {
+        Arrays.fill(monitored, 0, size, false);
+        if (!isAligned(nics)) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            VdsNetworkInterface nic = nics.get(i);
+            if (StringUtils.isNotEmpty(nic.getNetworkName()) || NetworkUtils.isLabeled(nic)) {
+                int baseIndex = NetworkCommonUtils.isVlan(nic) ? indexOf(nic.getBaseInterface()) : i;
+                if (baseIndex >= 0) {
+                    monitored[baseIndex] = true;
+                }
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            String bondName = nics.get(i).getBondName();
+            if (bondName != null) {
+                int bondIndex = indexOf(bondName);
+                if (bondIndex >= 0 && monitored[bondIndex]) {
+                    monitored[i] = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return <code>true</code> iff the status of the monitored interface at the given index differs from its status
+     *         prior to the refresh, and the previous status was known.
+     */
+    public boolean isMonitoredStatusChanged(int index, InterfaceStatus status) {
+        return index < size
+                && monitored[index]
+                && statuses[index] != InterfaceStatus.NONE
+                && statuses[index] != status;
+    }
+
+    /**
+     * @return <code>true</code> iff there is an interface with a network attached to it whose underlying interface is
+     *         not up. Only when this is the case it is required to determine which NICs are problematic.
+     */
+    public boolean hasNetworkOnDownInterface(List<VdsNetworkInterface> nics) {
+        if (!isAligned(nics)) {
+            return true;
+        }
+
+        for (int i = 0; i < size; i++) {
+            VdsNetworkInterface nic = nics.get(i);
+            if (nic.getNetworkName() != null) {
+                int baseIndex = NetworkCommonUtils.isVlan(nic) ? indexOf(nic.getBaseInterface()) : i;
+                if (baseIndex >= 0 && nics.get(baseIndex).getStatistics().getStatus() != InterfaceStatus.UP) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds to the given collection the statistics of the interfaces whose persisted values differ from the ones
+     * recorded by {@link #snapshot(List)}. The sample time is ignored on purpose: an interface whose counters didn't
+     * move keeps its previous sample in the DB, and the rate computed on the next change spans the entire interval.
+     *
+     * @param nics
+     *            the interfaces of the host, updated with the reported statistics.
+     * @param changedStatistics
+     *            the collection to add the statistics of the changed interfaces to.
+     */
+    public void collectChangedStatistics(List<VdsNetworkInterface> nics,
+            Collection<VdsNetworkStatistics> changedStatistics) {
+        boolean aligned = isAligned(nics);
+        for (int i = 0; i < nics.size(); i++) {
+            VdsNetworkStatistics stats = nics.get(i).getStatistics();
+            if (!aligned || isChanged(i, stats)) {
+                changedStatistics.add(stats);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private boolean isChanged(int i, VdsNetworkStatistics stats) {
+        return statuses[i] != stats.getStatus()
+                || !Objects.equals(receivedBytes[i], stats.getReceivedBytes())
+                || !Objects.equals(transmittedBytes[i], stats.getTransmittedBytes())
+                || !Objects.equals(receivedBytesOffsets[i], stats.getReceivedBytesOffset())
+                || !Objects.equals(transmittedBytesOffsets[i], stats.getTransmittedBytesOffset())
+                || !Objects.equals(receiveDrops[i], stats.getReceiveDrops())
+                || !Objects.equals(transmitDrops[i], stats.getTransmitDrops())
+                || !Objects.equals(receiveRates[i], stats.getReceiveRate())
+                || !Objects.equals(transmitRates[i], stats.getTransmitRate());
+    }
+
+    private boolean isAligned(List<VdsNetworkInterface> nics) {
+        if (nics.size() != size) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (!names[i].equals(nics.get(i).getName())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int indexOf(String name) {
+        Integer index = name == null ? null : indexByName.get(name);
+        return index == null ? -1 : index;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= names.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, names.length * 2);
+        names = Arrays.copyOf(names, newCapacity);
+        statuses = Arrays.copyOf(statuses, newCapacity);
+        receivedBytes = Arrays.copyOf(receivedBytes, newCapacity);
+        receivedBytesOffsets = Arrays.copyOf(receivedBytesOffsets, newCapacity);
+        transmittedBytes = Arrays.copyOf(transmittedBytes, newCapacity);
+        transmittedBytesOffsets = Arrays.copyOf(transmittedBytesOffsets, newCapacity);
+        receiveDrops = Arrays.copyOf(receiveDrops, newCapacity);
+        transmitDrops = Arrays.copyOf(transmitDrops, newCapacity);
+        receiveRates = Arrays.copyOf(receiveRates, newCapacity);
+        transmitRates = Arrays.copyOf(transmitRates, newCapacity);
+        monitored = Arrays.copyOf(monitored, newCapacity);
+    }
+}
@@ -1,9 +1,8 @@
 package org.ovirt.engine.core.vdsbroker.monitoring;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -14,7 +13,6 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.ovirt.engine.core.common.AuditLogType;
 import org.ovirt.engine.core.common.businessentities.Cluster;
-import org.ovirt.engine.core.common.businessentities.Entities;
 import org.ovirt.engine.core.common.businessentities.IVdsEventListener;
 import org.ovirt.engine.core.common.businessentities.LogMaxMemoryUsedThresholdType;
 import org.ovirt.engine.core.common.businessentities.NonOperationalReason;
@@ -31,7 +29,6 @@ import org.ovirt.engine.core.common.businessentities.network.VdsNetworkStatistic
 import org.ovirt.engine.core.common.config.Config;
 import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.utils.HugePageUtils;
-import org.ovirt.engine.core.common.utils.NetworkCommonUtils;
 import org.ovirt.engine.core.common.vdscommands.BrokerCommandCallback;
 import org.ovirt.engine.core.common.vdscommands.SetVdsStatusVDSCommandParameters;
 import org.ovirt.engine.core.common.vdscommands.VDSCommandType;
@@ -47,7 +44,6 @@ import org.ovirt.engine.core.dao.VdsDynamicDao;
 import org.ovirt.engine.core.dao.VdsNumaNodeDao;
 import org.ovirt.engine.core.dao.network.InterfaceDao;
 import org.ovirt.engine.core.dao.network.NetworkDao;
-import org.ovirt.engine.core.utils.NetworkUtils;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 import org.ovirt.engine.core.vdsbroker.VdsManager;
@@ -67,7 +63,6 @@ public class HostMonitoring implements HostMonitoringInterface {
     private volatile boolean refreshedCapabilities = false;
     private static final Map<Guid, Long> hostDownTimes = new HashMap<>();
     private volatile boolean vdsMaintenanceTimeoutOccurred;
-    private final Map<String, InterfaceStatus> oldInterfaceStatus = new HashMap<>();
     private final ResourceManager resourceManager;
     private final AuditLogDirector auditLogDirector;
     private final ClusterDao clusterDao;
@@ -272,10 +267,9 @@ public class HostMonitoring implements HostMonitoringInterface {
             checkVdsNetworkThreshold();
             checkVdsSwapThreshold(stat);
 
-            final List<VdsNetworkStatistics> statistics = new LinkedList<>();
-            for (VdsNetworkInterface iface : vds.getInterfaces()) {
-                statistics.add(iface.getStatistics());
-            }
+            // only the interfaces whose statistics differ from the ones persisted are updated
+            final List<VdsNetworkStatistics> statistics = new ArrayList<>();
+            vdsManager.getInterfacesStatistics().collectChangedStatistics(vds.getInterfaces(), statistics);
             if (!statistics.isEmpty()) {
                 TransactionSupport.executeInScope(TransactionScopeOption.Required,
                         () -> {
@@ -584,10 +578,7 @@ public class HostMonitoring implements HostMonitoringInterface {
         }
 
         // cache previous state of interfaces for comparison with those reported by host
-        oldInterfaceStatus.clear();
-        for (VdsNetworkInterface nic : nics) {
-            oldInterfaceStatus.put(nic.getName(), nic.getStatistics().getStatus());
-        }
+        vdsManager.getInterfacesStatistics().snapshot(nics);
     }
 
     /**
@@ -650,12 +641,14 @@ public class HostMonitoring implements HostMonitoringInterface {
             return;
         }
 
-        Map<String, Set<String>> problematicNicsWithNetworks = new HashMap<>();
+        Map<String, Set<String>> problematicNicsWithNetworks = Collections.emptyMap();
         try {
             NetworkMonitoringHelper networkMonitoringHelper = new NetworkMonitoringHelper();
             reportNicStatusChanges();
-            problematicNicsWithNetworks = networkMonitoringHelper.determineProblematicNics(vds.getInterfaces(),
-                    networkDao.getAllForCluster(vds.getClusterId()));
+            if (vdsManager.getInterfacesStatistics().hasNetworkOnDownInterface(vds.getInterfaces())) {
+                problematicNicsWithNetworks = networkMonitoringHelper.determineProblematicNics(vds.getInterfaces(),
+                        networkDao.getAllForCluster(vds.getClusterId()));
+            }
         } catch (Exception e) {
             log.error("Failure on checkInterfaces on update runtime info for host '{}': {}",
                     vds.getName(), e.getMessage());
@@ -717,61 +710,27 @@ public class HostMonitoring implements HostMonitoringInterface {
 
     private void reportNicStatusChanges() {
         List<VdsNetworkInterface> interfaces = vds.getInterfaces();
-        Set<VdsNetworkInterface> slaves = new HashSet<>();
-        Map<String, VdsNetworkInterface> monitoredInterfaces = new HashMap<>();
-        Map<String, VdsNetworkInterface> interfaceByName = Entities.entitiesByName(interfaces);
-
-        for (VdsNetworkInterface iface : interfaces) {
-            if (iface.getBondName() != null) {
-                slaves.add(iface);
-            }
-
-            String baseIfaceName = NetworkCommonUtils.stripVlan(iface);
-
-            // If the parent interface already marked as monitored- no need to check it again
-            if (monitoredInterfaces.containsKey(baseIfaceName)) {
-                continue;
-            }
-
-            // The status of the interface should be monitored only if it has networks attached to it or has labels
-            if (StringUtils.isNotEmpty(iface.getNetworkName()) || NetworkUtils.isLabeled(iface)) {
-                VdsNetworkInterface baseIface = iface;
-                // If vlan find the parent interface
-                if (iface.getVlanId() != null) {
-                    baseIface = interfaceByName.get(baseIfaceName);
-                }
-
-                monitoredInterfaces.put(baseIfaceName, baseIface);
-            }
-        }
-
-        // Slaves should be monitored if the bond is monitored
-        for (VdsNetworkInterface slave : slaves) {
-            if (monitoredInterfaces.containsKey(slave.getBondName())) {
-                monitoredInterfaces.put(slave.getName(), slave);
-            }
+        HostInterfacesStatistics interfacesStatistics = vdsManager.getInterfacesStatistics();
+        if (!interfacesStatistics.updateMonitoredInterfaces(interfaces)) {
+            // the host reported other interfaces than the ones of the snapshot, their previous statuses are unknown
+            return;
         }
 
-        for (Map.Entry<String, InterfaceStatus> entry : oldInterfaceStatus.entrySet()) {
-            VdsNetworkInterface iface = monitoredInterfaces.get(entry.getKey());
-            InterfaceStatus oldStatus = entry.getValue();
-            InterfaceStatus status;
-            if (iface != null) {
-                status = iface.getStatistics().getStatus();
-                if (oldStatus != InterfaceStatus.NONE
-                        && oldStatus != status) {
-                    AuditLogable logable = createAuditLogableForHost();
-                    logable.setCustomId(iface.getName());
-                    if (iface.getBondName() != null) {
-                        logable.addCustomValue("SlaveName", iface.getName());
-                        logable.addCustomValue("BondName", iface.getBondName());
-                        auditLog(logable, status == InterfaceStatus.UP ? AuditLogType.HOST_BOND_SLAVE_STATE_UP
-                                : AuditLogType.HOST_BOND_SLAVE_STATE_DOWN);
-                    } else {
-                        logable.addCustomValue("InterfaceName", iface.getName());
-                        auditLog(logable, status == InterfaceStatus.UP ? AuditLogType.HOST_INTERFACE_STATE_UP
-                                : AuditLogType.HOST_INTERFACE_STATE_DOWN);
-                    }
+        for (int i = 0; i < interfacesStatistics.size(); i++) {
+            VdsNetworkInterface iface = interfaces.get(i);
+            InterfaceStatus status = iface.getStatistics().getStatus();
+            if (interfacesStatistics.isMonitoredStatusChanged(i, status)) {
+                AuditLogable logable = createAuditLogableForHost();
+                logable.setCustomId(iface.getName());
+                if (iface.getBondName() != null) {
+                    logable.addCustomValue("SlaveName", iface.getName());
+                    logable.addCustomValue("BondName", iface.getBondName());
+                    auditLog(logable, status == InterfaceStatus.UP ? AuditLogType.HOST_BOND_SLAVE_STATE_UP
+                            : AuditLogType.HOST_BOND_SLAVE_STATE_DOWN);
+                } else {
+                    logable.addCustomValue("InterfaceName", iface.getName());
+                    auditLog(logable, status == InterfaceStatus.UP ? AuditLogType.HOST_INTERFACE_STATE_UP
+                            : AuditLogType.HOST_INTERFACE_STATE_DOWN);
                 }
             }
         }
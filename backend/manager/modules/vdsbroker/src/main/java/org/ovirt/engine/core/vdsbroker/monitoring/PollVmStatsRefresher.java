@@ -150,6 +150,8 @@ public class PollVmStatsRefresher extends VmStatsRefresher {
     }
 
     protected List<Pair<VmDynamic, VdsmVm>> matchVms(List<VdsmVm> vdsmVms) {
+        // TODO keep the dynamic data of the VMs in their VmManager, written through it, so it isn't read on every cycle.
+        // Commands still update vm_dynamic directly through VmDynamicDao, so a copy in memory can't replace it yet.
         Map<Guid, VmDynamic> dbVms = vmDynamicDao.getAllRunningForVds(vdsManager.getVdsId()).stream()
                 .collect(Collectors.toMap(VmDynamic::getId, vm -> vm));
         StringBuilder logBuilder = log.isDebugEnabled() ? new StringBuilder() : null;
@@ -26,6 +26,8 @@ public class VdsmVm {
     private List<VmGuestAgentInterface> vmGuestAgentInterfaces;
     /** Timestamp on the dynamic data we get from VDSM */
     private Double timestamp;
+    /** When the data was fetched, if it was fetched apart from the other VMs monitored with it */
+    private Long fetchTime;
     private String devicesHash;
     private String tpmDataHash;
     private String nvramDataHash;
@@ -156,6 +158,23 @@ public class VdsmVm {
         this.timestamp = timestamp;
     }
 
+    public Long getFetchTime() {
+        return fetchTime;
+    }
+
+    public VdsmVm setFetchTime(Long fetchTime) {
+        this.fetchTime = fetchTime;
+        return this;
+    }
+
+    /**
+     * @return when the data was fetched, or the given time the monitored VMs were fetched at if it wasn't fetched
+     *         apart from them
+     */
+    public long getFetchTime(long defaultFetchTime) {
+        return fetchTime != null ? fetchTime : defaultFetchTime;
+    }
+
     public String getDevicesHash() {
         return devicesHash;
     }
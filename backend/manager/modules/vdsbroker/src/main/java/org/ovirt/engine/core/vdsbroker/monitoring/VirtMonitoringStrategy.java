@@ -68,7 +68,7 @@ public class VirtMonitoringStrategy implements MonitoringStrategy {
     }
 
     protected boolean isAnyNonExternalVmRunningOnVds(VDS vds) {
-        Optional<VM> runningVm = vmDao.getAllRunningForVds(vds.getId())
+        Optional<VM> runningVm = vmDao.getAllRuntimeStatusRunningForVds(vds.getId())
                 .stream()
                 .filter(vm -> !vm.isExternalVm())
                 .findFirst();
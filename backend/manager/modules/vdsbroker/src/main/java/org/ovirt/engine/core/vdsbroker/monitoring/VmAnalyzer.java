@@ -50,8 +50,6 @@ import org.ovirt.engine.core.common.vdscommands.VDSReturnValue;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogableBase;
-import org.ovirt.engine.core.dao.VdsDynamicDao;
-import org.ovirt.engine.core.dao.network.VmNetworkInterfaceDao;
 import org.ovirt.engine.core.di.Injector;
 import org.ovirt.engine.core.utils.NetworkUtils;
 import org.ovirt.engine.core.vdsbroker.NetworkStatisticsBuilder;
@@ -108,26 +106,19 @@ public class VmAnalyzer {
 
     private final boolean updateStatistics;
 
-    private VdsDynamicDao vdsDynamicDao;
-    private VmNetworkInterfaceDao vmNetworkInterfaceDao;
-
     public VmAnalyzer(
             VmDynamic dbVm,
             VdsmVm vdsmVm,
             boolean updateStatistics,
             VdsManager vdsManager,
             AuditLogDirector auditLogDirector,
-            ResourceManager resourceManager,
-            VdsDynamicDao vdsDynamicDao,
-            VmNetworkInterfaceDao vmNetworkInterfaceDao) {
+            ResourceManager resourceManager) {
         this.dbVm = dbVm;
         this.vdsmVm = vdsmVm;
         this.updateStatistics = updateStatistics;
         this.vdsManager = vdsManager;
         this.auditLogDirector = auditLogDirector;
         this.resourceManager = resourceManager;
-        this.vdsDynamicDao = vdsDynamicDao;
-        this.vmNetworkInterfaceDao = vmNetworkInterfaceDao;
     }
 
     /**
@@ -446,6 +437,8 @@ public class VmAnalyzer {
     protected void resetVmInterfaceStatistics() {
         loadVmNetworkInterfaces();
         ifaces.stream().map(VmNetworkInterface::getStatistics).forEach(VmNetworkStatistics::resetVmStatistics);
+        // the interfaces may be changed while the VM is down, so they are reloaded when it runs again
+        getVmManager().invalidateMonitoredInterfaces();
     }
 
     public VmStatistics getVmStatisticsToSave() {
@@ -915,7 +908,11 @@ public class VmAnalyzer {
     }
 
     private boolean isVdsNonResponsive(Guid vdsId) {
-        return vdsId != null && vdsDynamicDao.get(vdsId).getStatus() == VDSStatus.NonResponsive;
+        if (vdsId == null) {
+            return false;
+        }
+        VdsManager vdsManager = resourceManager.getVdsManager(vdsId);
+        return vdsManager != null && vdsManager.getStatus() == VDSStatus.NonResponsive;
     }
 
     private void auditVmRestoredFromUnknown() {
@@ -966,6 +963,7 @@ public class VmAnalyzer {
         }
 
         loadVmNetworkInterfaces();
+        reloadVmNetworkInterfacesIfUnknown(ifsStats);
         List<String> macs = new ArrayList<>();
 
         statistics.setUsageNetworkPercent(0);
@@ -1135,10 +1133,19 @@ public class VmAnalyzer {
 
     protected void loadVmNetworkInterfaces() {
         if (ifaces == null) {
-            ifaces = vmNetworkInterfaceDao.getAllForMonitoredVm(getVmId());
+            ifaces = getVmManager().getMonitoredInterfaces();
         }
     }
 
+    /**
+     * Reloads the network interfaces of the VM if it reports an interface which isn't known to the monitoring, in case
+     * the interfaces of the VM were changed without invalidating the ones kept by its manager.
+     */
+    private void reloadVmNetworkInterfacesIfUnknown(List<VmNetworkInterface> ifsStats) {
+        ifaces = getVmManager().getMonitoredInterfaces(
+                ifsStats.stream().map(VmNic::getMacAddress).collect(Collectors.toSet()));
+    }
+
     public boolean isColdRebootVmToRun() {
         return coldRebootVmToRun;
     }
@@ -3,9 +3,7 @@ package org.ovirt.engine.core.vdsbroker.monitoring;
 import org.ovirt.engine.core.common.businessentities.VmDynamic;
 import org.ovirt.engine.core.common.utils.Pair;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
-import org.ovirt.engine.core.dao.VdsDynamicDao;
 import org.ovirt.engine.core.dao.VmDynamicDao;
-import org.ovirt.engine.core.dao.network.VmNetworkInterfaceDao;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 import org.ovirt.engine.core.vdsbroker.VdsManager;
 
@@ -18,24 +16,18 @@ public class VmAnalyzerFactory {
     private ResourceManager resourceManager;
 
     private VmDynamicDao vmDynamicDao;
-    private VmNetworkInterfaceDao vmNetworkInterfaceDao;
-    private VdsDynamicDao vdsDynamicDao;
 
     public VmAnalyzerFactory(
             VdsManager vdsManager,
             boolean updateStatistics,
             AuditLogDirector auditLogDirector,
             ResourceManager resourceManager,
-            VmDynamicDao vmDynamicDao,
-            VmNetworkInterfaceDao vmNetworkInterfaceDao,
-            VdsDynamicDao vdsDynamicDao) {
+            VmDynamicDao vmDynamicDao) {
         this.vdsManager = vdsManager;
         this.updateStatistics = updateStatistics;
         this.auditLogDirector = auditLogDirector;
         this.resourceManager = resourceManager;
         this.vmDynamicDao = vmDynamicDao;
-        this.vmNetworkInterfaceDao = vmNetworkInterfaceDao;
-        this.vdsDynamicDao = vdsDynamicDao;
     }
 
     protected VmAnalyzer getVmAnalyzer(Pair<VmDynamic, VdsmVm> monitoredVm) {
@@ -52,9 +44,7 @@ public class VmAnalyzerFactory {
                 updateStatistics,
                 vdsManager,
                 auditLogDirector,
-                resourceManager,
-                vdsDynamicDao,
-                vmNetworkInterfaceDao);
+                resourceManager);
     }
 
 }
@@ -12,12 +12,14 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -37,6 +39,7 @@ import org.ovirt.engine.core.compat.TransactionScopeOption;
 import org.ovirt.engine.core.dao.VmDeviceDao;
 import org.ovirt.engine.core.dao.VmDynamicDao;
 import org.ovirt.engine.core.dao.VmStaticDao;
+import org.ovirt.engine.core.utils.MBeanRegistration;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 import org.ovirt.engine.core.vdsbroker.vdsbroker.VdsProperties;
@@ -44,7 +47,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Singleton
-public class VmDevicesMonitoring {
+public class VmDevicesMonitoring implements VmDevicesMonitoringMXBean {
 
     private enum DevicesChange {
         NOT_CHANGED,
@@ -82,6 +85,7 @@ public class VmDevicesMonitoring {
         private List<VmDevice> devicesToUpdate;
         private List<VmDeviceId> deviceIdsToRemove;
         private List<Guid> vmsToSaveHash;
+        private Map<Guid, Map<Guid, Integer>> reportedDeviceHashes;
 
         private Deque<Guid> touchedVms = new LinkedList<>();
 
@@ -158,13 +162,40 @@ public class VmDevicesMonitoring {
             vmsToSaveHash = addToOptionalList(vmsToSaveHash, vmId);
         }
 
+        private Map<Guid, Map<Guid, Integer>> getReportedDeviceHashes() {
+            return reportedDeviceHashes != null ? reportedDeviceHashes : Collections.emptyMap();
+        }
+
+        /**
+         * Remember the content hashes of the devices reported for the VM, to be published once the change is stored.
+         * A <code>null</code> value means the reported devices can't be tracked and the VM is always reconciled.
+         */
+        private void setReportedDeviceHashes(Guid vmId, Map<Guid, Integer> deviceHashes) {
+            if (reportedDeviceHashes == null) {
+                reportedDeviceHashes = new HashMap<>();
+            }
+            reportedDeviceHashes.put(vmId, deviceHashes);
+        }
+
         /**
          * Add the VM to the list of VMs to be checked for device updates, if device information hash passed in
          * <code>vdsmHash</code> parameter is more recent (in terms of <code>fetchTime</code>) and differs from
          * the hash remembered by {@link VmDevicesMonitoring}. The new hash is remembered after that.
          */
         public void updateVm(Guid vmId, String vdsmHash) {
-            DevicesChange devicesChange = isVmDevicesChanged(vmId, vdsmHash, fetchTime);
+            updateVm(vmId, vdsmHash, fetchTime);
+        }
+
+        /**
+         * Same as {@link #updateVm(Guid, String)}, for a device information hash fetched at the given time rather
+         * than at the time of this change.
+         */
+        public void updateVm(Guid vmId, String vdsmHash, long vmFetchTime) {
+            if (EMPTY_HASH.equals(vdsmHash)) {
+                // the devices are reset, so the VM is reconciled even if it reports the same devices again
+                vmReportedDeviceHashes.remove(vmId);
+            }
+            DevicesChange devicesChange = isVmDevicesChanged(vmId, vdsmHash, vmFetchTime);
             switch(devicesChange) {
             case CHANGED:
                 if (!tryLockVmDevices(vmId)) {
@@ -235,6 +266,7 @@ public class VmDevicesMonitoring {
                 }
                 getDevicesToProcess().forEach(device -> processDevice(this, device));
                 saveDevicesToDb(this);
+                publishReportedDeviceHashes(this);
             } catch (RuntimeException ex) {
                 log.error("Failed during vm devices monitoring on host {} error is: {}", vdsId, ex);
                 log.error("Exception:", ex);
@@ -309,9 +341,33 @@ public class VmDevicesMonitoring {
     private ConcurrentMap<Guid, ReentrantLock> vmDevicesLocks = new ConcurrentHashMap<>();
     private final Object devicesStatusesLock = new Object();
 
+    /**
+     * Content hashes of the devices reported by VDSM for each VM, as of the last reconciliation with the DB. When
+     * a FullList reports exactly the same devices, the reconciliation against the DB is skipped.
+     */
+    private final ConcurrentMap<Guid, Map<Guid, Integer>> vmReportedDeviceHashes = new ConcurrentHashMap<>();
+
+    private final AtomicLong fullListFetches = new AtomicLong();
+    private final AtomicLong fullListFetchedVms = new AtomicLong();
+    private final AtomicLong reconciledVms = new AtomicLong();
+    private final AtomicLong unchangedVms = new AtomicLong();
+    private final AtomicLong updatedDevices = new AtomicLong();
+    private final AtomicLong unchangedDevices = new AtomicLong();
+    private final AtomicLong addedDevices = new AtomicLong();
+    private final AtomicLong removedDevices = new AtomicLong();
+    private final AtomicLong incrementalDeviceUpdates = new AtomicLong();
+
+    private MBeanRegistration mBeanRegistration;
+
     @PostConstruct
     private void init() {
         initDevicesStatuses(System.nanoTime());
+        mBeanRegistration = MBeanRegistration.register("VmDevicesMonitoring", this);
+    }
+
+    @PreDestroy
+    private void unregisterFromJMX() {
+        mBeanRegistration.unregister();
     }
 
     void initDevicesStatuses(long fetchTime) {
@@ -321,6 +377,52 @@ public class VmDevicesMonitoring {
 
     public void refreshVmDevices(Guid vmId) {
         vmDevicesStatuses.remove(vmId);
+        vmReportedDeviceHashes.remove(vmId);
+    }
+
+    @Override
+    public long getFullListFetches() {
+        return fullListFetches.get();
+    }
+
+    @Override
+    public long getFullListFetchedVms() {
+        return fullListFetchedVms.get();
+    }
+
+    @Override
+    public long getReconciledVms() {
+        return reconciledVms.get();
+    }
+
+    @Override
+    public long getUnchangedVms() {
+        return unchangedVms.get();
+    }
+
+    @Override
+    public long getUpdatedDevices() {
+        return updatedDevices.get();
+    }
+
+    @Override
+    public long getUnchangedDevices() {
+        return unchangedDevices.get();
+    }
+
+    @Override
+    public long getAddedDevices() {
+        return addedDevices.get();
+    }
+
+    @Override
+    public long getRemovedDevices() {
+        return removedDevices.get();
+    }
+
+    @Override
+    public long getIncrementalDeviceUpdates() {
+        return incrementalDeviceUpdates.get();
     }
 
     VmDeviceDao getVmDeviceDao() {
@@ -448,6 +550,7 @@ public class VmDevicesMonitoring {
 
     private void onVmDelete(@Observes @VmDeleted Guid vmId) {
         vmDevicesStatuses.remove(vmId);
+        vmReportedDeviceHashes.remove(vmId);
         removeLock(vmId);
     }
 
@@ -456,6 +559,8 @@ public class VmDevicesMonitoring {
             return null;
         }
 
+        fullListFetches.incrementAndGet();
+        fullListFetchedVms.addAndGet(vmIds.size());
         VDSReturnValue vdsReturnValue = fullListAdapter.getVmFullList(vdsId, vmIds, true);
         return vdsReturnValue.getSucceeded() ?
             (Map<String, Object>[]) vdsReturnValue.getReturnValue()
@@ -468,9 +573,8 @@ public class VmDevicesMonitoring {
      */
     private void processVmDevices(Change change, Map<String, Object> vmInfo) {
         Guid vmId = getVmId(vmInfo);
-        Set<Guid> processedDeviceIds = new HashSet<>();
-        List<VmDevice> dbDevices = getVmDeviceDao().getVmDeviceByVmId(vmId);
-        Map<VmDeviceId, VmDevice> dbDeviceMap = Entities.businessEntitiesById(dbDevices);
+        List<Pair<Map<String, Object>, String>> reportedDevices = new ArrayList<>();
+        Map<Guid, Integer> reportedDeviceHashes = new HashMap<>();
 
         for (Object o: (Object[]) vmInfo.get(VdsProperties.Devices)) {
             Map<String, Object> vdsmDevice = (Map<String, Object>) o;
@@ -479,13 +583,39 @@ public class VmDevicesMonitoring {
                 continue;
             }
 
+            String logicalName = getDeviceLogicalName(vmInfo, vdsmDevice);
+            reportedDevices.add(new Pair<>(vdsmDevice, logicalName));
+
+            Guid deviceId = getDeviceId(vdsmDevice);
+            if (deviceId == null) {
+                // devices reported without an id can't be tracked, the VM is always reconciled
+                reportedDeviceHashes = null;
+            } else if (reportedDeviceHashes != null) {
+                reportedDeviceHashes.put(deviceId, computeReportedDeviceHash(vdsmDevice, logicalName));
+            }
+        }
+
+        if (reportedDeviceHashes != null && reportedDeviceHashes.equals(vmReportedDeviceHashes.get(vmId))) {
+            unchangedVms.incrementAndGet();
+            log.debug("VM '{}' reported the same devices as in the last reconciliation, skipping it", vmId);
+            return;
+        }
+        reconciledVms.incrementAndGet();
+
+        Set<Guid> processedDeviceIds = new HashSet<>();
+        List<VmDevice> dbDevices = getVmDeviceDao().getVmDeviceByVmId(vmId);
+        Map<VmDeviceId, VmDevice> dbDeviceMap = Entities.businessEntitiesById(dbDevices);
+
+        for (Pair<Map<String, Object>, String> reportedDevice : reportedDevices) {
+            Map<String, Object> vdsmDevice = reportedDevice.getFirst();
+            String logicalName = reportedDevice.getSecond();
+
             Guid deviceId = getDeviceId(vdsmDevice);
             VmDevice dbDevice = dbDeviceMap.get(new VmDeviceId(deviceId, vmId));
             if (dbDevice == null) {
                 dbDevice = getByDeviceType((String) vdsmDevice.get(VdsProperties.Device), dbDeviceMap);
                 deviceId = dbDevice != null ? dbDevice.getDeviceId() : deviceId;
             }
-            String logicalName = getDeviceLogicalName(vmInfo, vdsmDevice);
 
             if (deviceId == null || dbDevice == null) {
                 VmDevice newDevice = buildNewVmDevice(vmId, vdsmDevice, logicalName);
@@ -494,17 +624,49 @@ public class VmDevicesMonitoring {
                     processedDeviceIds.add(newDevice.getDeviceId());
                 }
             } else {
-                dbDevice.setPlugged(Boolean.TRUE);
-                dbDevice.setAddress(vdsmDevice.get(VdsProperties.Address).toString());
-                dbDevice.setAlias(StringUtils.defaultString((String) vdsmDevice.get(VdsProperties.Alias)));
-                dbDevice.setLogicalName(logicalName);
-                dbDevice.setHostDevice(StringUtils.defaultString((String) vdsmDevice.get(VdsProperties.HostDev)));
-                change.addDeviceToUpdate(dbDevice);
+                String address = vdsmDevice.get(VdsProperties.Address).toString();
+                String alias = StringUtils.defaultString((String) vdsmDevice.get(VdsProperties.Alias));
+                String hostDevice = StringUtils.defaultString((String) vdsmDevice.get(VdsProperties.HostDev));
+                if (isReportedDeviceStored(dbDevice, address, alias, logicalName, hostDevice)) {
+                    unchangedDevices.incrementAndGet();
+                } else {
+                    dbDevice.setPlugged(Boolean.TRUE);
+                    dbDevice.setAddress(address);
+                    dbDevice.setAlias(alias);
+                    dbDevice.setLogicalName(logicalName);
+                    dbDevice.setHostDevice(hostDevice);
+                    change.addDeviceToUpdate(dbDevice);
+                }
                 processedDeviceIds.add(deviceId);
             }
         }
 
         handleRemovedDevices(change, vmId, processedDeviceIds, dbDevices);
+        change.setReportedDeviceHashes(vmId, reportedDeviceHashes);
+    }
+
+    private static int computeReportedDeviceHash(Map<String, Object> vdsmDevice, String logicalName) {
+        return Objects.hash(
+                vdsmDevice.get(VdsProperties.Device),
+                vdsmDevice.get(VdsProperties.Address).toString(),
+                vdsmDevice.get(VdsProperties.Alias),
+                vdsmDevice.get(VdsProperties.HostDev),
+                logicalName);
+    }
+
+    /**
+     * @return true, if the DB device already holds the state reported by VDSM, so there is no need to update it
+     */
+    private static boolean isReportedDeviceStored(VmDevice dbDevice,
+            String address,
+            String alias,
+            String logicalName,
+            String hostDevice) {
+        return dbDevice.isPlugged()
+                && Objects.equals(dbDevice.getAddress(), address)
+                && StringUtils.defaultString(dbDevice.getAlias()).equals(alias)
+                && Objects.equals(dbDevice.getLogicalName(), logicalName)
+                && StringUtils.defaultString(dbDevice.getHostDevice()).equals(hostDevice);
     }
 
     /**
@@ -525,6 +687,7 @@ public class VmDevicesMonitoring {
     }
 
     private void processDevice(Change change, VmDevice device) {
+        incrementalDeviceUpdates.incrementAndGet();
         List<VmDevice> dbDevices = getVmDeviceDao().getVmDevicesByDeviceId(device.getDeviceId(), device.getVmId());
         if (dbDevices.isEmpty()) {
             change.addDeviceToAdd(device);
@@ -690,22 +853,26 @@ public class VmDevicesMonitoring {
     }
 
     private void saveDevicesToDb(Change change) {
-        if (!change.getDevicesToUpdate().isEmpty()) {
-            getVmDeviceDao().updateAllInBatch(change.getDevicesToUpdate());
-        }
-
-        if (!change.getDeviceIdsToRemove().isEmpty()) {
-            TransactionSupport.executeInScope(TransactionScopeOption.Required, () -> {
-                getVmDeviceDao().removeAll(change.getDeviceIdsToRemove());
-                return null;
-            });
-        }
-
-        if (!change.getDevicesToAdd().isEmpty()) {
+        List<VmDevice> devicesToUpdate = change.getDevicesToUpdate();
+        List<VmDeviceId> deviceIdsToRemove = change.getDeviceIdsToRemove();
+        List<VmDevice> devicesToAdd = change.getDevicesToAdd();
+        if (!devicesToUpdate.isEmpty() || !deviceIdsToRemove.isEmpty() || !devicesToAdd.isEmpty()) {
+            // all the device changes are sent as batches within a single transaction
             TransactionSupport.executeInScope(TransactionScopeOption.Required, () -> {
-                getVmDeviceDao().saveAll(change.getDevicesToAdd());
+                if (!devicesToUpdate.isEmpty()) {
+                    getVmDeviceDao().updateAllInBatch(devicesToUpdate);
+                }
+                if (!deviceIdsToRemove.isEmpty()) {
+                    getVmDeviceDao().removeAll(deviceIdsToRemove);
+                }
+                if (!devicesToAdd.isEmpty()) {
+                    getVmDeviceDao().saveAll(devicesToAdd);
+                }
                 return null;
             });
+            updatedDevices.addAndGet(devicesToUpdate.size());
+            removedDevices.addAndGet(deviceIdsToRemove.size());
+            addedDevices.addAndGet(devicesToAdd.size());
         }
 
         if (!change.getVmsToSaveHash().isEmpty()) {
@@ -720,6 +887,19 @@ public class VmDevicesMonitoring {
 
     }
 
+    /**
+     * Publish the hashes of the devices reported for the reconciled VMs, once their devices are stored in the DB.
+     */
+    private void publishReportedDeviceHashes(Change change) {
+        change.getReportedDeviceHashes().forEach((vmId, deviceHashes) -> {
+            if (deviceHashes != null) {
+                vmReportedDeviceHashes.put(vmId, deviceHashes);
+            } else {
+                vmReportedDeviceHashes.remove(vmId);
+            }
+        });
+    }
+
     private boolean shouldLogDeviceDetails(String deviceType) {
         return !StringUtils.equalsIgnoreCase(deviceType, VmDeviceType.FLOPPY.getName());
     }
@@ -0,0 +1,52 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+/**
+ * The following interface is used as interface for JMX bean exposing the statistics of {@link VmDevicesMonitoring}
+ */
+public interface VmDevicesMonitoringMXBean {
+
+    /**
+     * The number of <code>FullList</code> calls sent to hosts in order to fetch the devices of VMs
+     */
+    long getFullListFetches();
+
+    /**
+     * The number of VMs whose devices were fetched by <code>FullList</code> calls
+     */
+    long getFullListFetchedVms();
+
+    /**
+     * The number of VMs whose reported devices were reconciled against the DB
+     */
+    long getReconciledVms();
+
+    /**
+     * The number of VMs whose reported devices were identical to the ones of the last reconciliation
+     */
+    long getUnchangedVms();
+
+    /**
+     * The number of devices updated in the DB
+     */
+    long getUpdatedDevices();
+
+    /**
+     * The number of reported devices which were already up to date in the DB
+     */
+    long getUnchangedDevices();
+
+    /**
+     * The number of devices added to the DB
+     */
+    long getAddedDevices();
+
+    /**
+     * The number of devices removed from the DB
+     */
+    long getRemovedDevices();
+
+    /**
+     * The number of individual device updates, processed without fetching the full list of the VM devices
+     */
+    long getIncrementalDeviceUpdates();
+}
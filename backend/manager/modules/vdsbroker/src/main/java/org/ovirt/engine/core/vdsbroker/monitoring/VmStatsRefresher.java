@@ -45,7 +45,7 @@ public abstract class VmStatsRefresher {
         VmDevicesMonitoring.Change deviceChange = getVmDevicesMonitoring().createChange(vdsManager.getVdsId(), fetchTime);
         vms.filter(vm -> vm.getVmDynamic() != null && vm.getVmDynamic().getStatus() != VMStatus.MigratingTo)
                 .sorted(Comparator.comparing(VdsmVm::getId)) // Important to avoid deadlock
-                .forEach(vm -> deviceChange.updateVm(vm.getId(), vm.getDevicesHash()));
+                .forEach(vm -> deviceChange.updateVm(vm.getId(), vm.getDevicesHash(), vm.getFetchTime(fetchTime)));
         deviceChange.flush();
     }
 
@@ -0,0 +1,100 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+
+import org.ovirt.engine.core.utils.MBeanRegistration;
+
+/**
+ * Collects the statistics of the processing of <code>VM_status</code> events by the {@link EventVmStatsRefresher} of
+ * all the hosts, and exposes them in JMX.
+ */
+@Singleton
+public class VmStatusEventsStatistics implements VmStatusEventsStatisticsMXBean {
+
+    private final AtomicLong receivedEvents = new AtomicLong();
+    private final AtomicLong processedEvents = new AtomicLong();
+    private final AtomicLong processedBatches = new AtomicLong();
+    private final AtomicLong reportedVms = new AtomicLong();
+    private final AtomicLong analyzedVms = new AtomicLong();
+    private final AtomicLong totalEventLag = new AtomicLong();
+    private final AtomicLong maxEventLag = new AtomicLong();
+
+    private MBeanRegistration mBeanRegistration;
+
+    @PostConstruct
+    private void init() {
+        mBeanRegistration = MBeanRegistration.register("VmStatusEventsStatistics", this);
+    }
+
+    @PreDestroy
+    private void unregisterFromJMX() {
+        mBeanRegistration.unregister();
+    }
+
+    void eventReceived() {
+        receivedEvents.incrementAndGet();
+    }
+
+    /**
+     * @param events the number of events in the batch
+     * @param vmReports the number of VM reports in the events of the batch
+     * @param vms the number of VMs analyzed after coalescing the reports
+     * @param eventLagNanos the sum of the times in nanoseconds the events of the batch waited until processed
+     * @param maxEventLagNanos the time in nanoseconds the oldest event of the batch waited until processed
+     */
+    void batchProcessed(int events, int vmReports, int vms, long eventLagNanos, long maxEventLagNanos) {
+        processedEvents.addAndGet(events);
+        processedBatches.incrementAndGet();
+        reportedVms.addAndGet(vmReports);
+        analyzedVms.addAndGet(vms);
+        totalEventLag.addAndGet(TimeUnit.NANOSECONDS.toMillis(eventLagNanos));
+        maxEventLag.accumulateAndGet(TimeUnit.NANOSECONDS.toMillis(maxEventLagNanos), Math::max);
+    }
+
+    @Override
+    public long getReceivedEvents() {
+        return receivedEvents.get();
+    }
+
+    @Override
+    public long getPendingEvents() {
+        return receivedEvents.get() - processedEvents.get();
+    }
+
+    @Override
+    public long getProcessedBatches() {
+        return processedBatches.get();
+    }
+
+    @Override
+    public long getReportedVms() {
+        return reportedVms.get();
+    }
+
+    @Override
+    public long getAnalyzedVms() {
+        return analyzedVms.get();
+    }
+
+    @Override
+    public double getCoalescingRatio() {
+        long analyzed = analyzedVms.get();
+        return analyzed == 0 ? 1 : (double) reportedVms.get() / analyzed;
+    }
+
+    @Override
+    public long getAverageEventLag() {
+        long processed = processedEvents.get();
+        return processed == 0 ? 0 : totalEventLag.get() / processed;
+    }
+
+    @Override
+    public long getMaxEventLag() {
+        return maxEventLag.get();
+    }
+}
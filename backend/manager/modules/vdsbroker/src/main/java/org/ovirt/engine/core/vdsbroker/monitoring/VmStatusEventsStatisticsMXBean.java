@@ -0,0 +1,48 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+/**
+ * The following interface is used as interface for JMX bean exposing the statistics of the processing of
+ * <code>VM_status</code> events by {@link EventVmStatsRefresher}
+ */
+public interface VmStatusEventsStatisticsMXBean {
+
+    /**
+     * The number of <code>VM_status</code> events received from all the hosts
+     */
+    long getReceivedEvents();
+
+    /**
+     * The number of received events which were not processed yet
+     */
+    long getPendingEvents();
+
+    /**
+     * The number of batches of events processed, each by a single monitoring cycle
+     */
+    long getProcessedBatches();
+
+    /**
+     * The number of VM reports contained in the processed events
+     */
+    long getReportedVms();
+
+    /**
+     * The number of VMs analyzed after coalescing the reports of each VM in a batch to the latest one
+     */
+    long getAnalyzedVms();
+
+    /**
+     * The ratio between the number of VM reports and the number of VMs analyzed, 1 when no reports were coalesced
+     */
+    double getCoalescingRatio();
+
+    /**
+     * The average time in milliseconds from receiving an event until it was processed
+     */
+    long getAverageEventLag();
+
+    /**
+     * The maximal time in milliseconds from receiving an event until it was processed
+     */
+    long getMaxEventLag();
+}
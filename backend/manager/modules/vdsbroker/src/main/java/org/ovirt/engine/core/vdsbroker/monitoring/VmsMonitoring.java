@@ -19,11 +19,9 @@ import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.compat.TransactionScopeOption;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
 import org.ovirt.engine.core.dao.DiskImageDynamicDao;
-import org.ovirt.engine.core.dao.VdsDynamicDao;
 import org.ovirt.engine.core.dao.VmDynamicDao;
 import org.ovirt.engine.core.dao.VmGuestAgentInterfaceDao;
 import org.ovirt.engine.core.dao.VmStatisticsDao;
-import org.ovirt.engine.core.dao.network.VmNetworkInterfaceDao;
 import org.ovirt.engine.core.dao.network.VmNetworkStatisticsDao;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
@@ -61,10 +59,6 @@ public class VmsMonitoring {
     private VmStatisticsDao vmStatisticsDao;
     @Inject
     private VmGuestAgentInterfaceDao vmGuestAgentInterfaceDao;
-    @Inject
-    private VmNetworkInterfaceDao vmNetworkInterfaceDao;
-    @Inject
-    private VdsDynamicDao vdsDynamicDao;
 
     private static final Logger log = LoggerFactory.getLogger(VmsMonitoring.class);
 
@@ -76,7 +70,7 @@ public class VmsMonitoring {
      * @param monitoredVms The Vms we want to monitor and analyze for changes.
 -    * VM object represent the persisted object(namely the one in db) and the VmInternalData
 -    * is the running one as reported from VDSM
-     * @param fetchTime When the VMs were fetched
+     * @param fetchTime When the VMs were fetched, unless the data of a VM was fetched apart from them
      * @param vdsManager The manager of the monitored host
      * @param updateStatistics Whether or not this monitoring should include VM statistics
      */
@@ -157,9 +151,7 @@ public class VmsMonitoring {
                 statistics,
                 auditLogDirector,
                 resourceManager,
-                vmDynamicDao,
-                vmNetworkInterfaceDao,
-                vdsDynamicDao);
+                vmDynamicDao);
     }
 
     private boolean shouldAnalyzeVm(Pair<VmDynamic, VdsmVm> pair, long fetchTime, Guid vdsId) {
@@ -179,7 +171,8 @@ public class VmsMonitoring {
             return false;
         }
 
-        if (vmManager.getVmDataChangedTime() != null && fetchTime - vmManager.getVmDataChangedTime() <= 0) {
+        if (vmManager.getVmDataChangedTime() != null
+                && pair.getSecond().getFetchTime(fetchTime) - vmManager.getVmDataChangedTime() <= 0) {
             log.warn("skipping VM '{}' from this monitoring cycle" +
                     " - the VM data has changed since fetching the data", vmId);
             vmManager.unlockVm();
@@ -36,6 +36,7 @@ import org.ovirt.engine.core.dao.network.NetworkDao;
 import org.ovirt.engine.core.dao.provider.HostProviderBindingDao;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.ovirt.engine.core.vdsbroker.NetworkImplementationDetailsUtils;
+import org.ovirt.engine.core.vdsbroker.OutOfSyncInterfacesIndex;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 import org.ovirt.engine.core.vdsbroker.monitoring.NetworkMonitoringHelper;
 import org.ovirt.engine.core.vdsbroker.vdsbroker.predicates.DisplayInterfaceEqualityPredicate;
@@ -54,6 +55,7 @@ final class HostNetworkTopologyPersisterImpl implements HostNetworkTopologyPersi
     private final NetworkImplementationDetailsUtils networkImplementationDetailsUtils;
     private final VdsDynamicDao vdsDynamicDao;
     private final HostProviderBindingDao hostProviderBindingDao;
+    private final OutOfSyncInterfacesIndex outOfSyncInterfacesIndex;
 
     @Inject
     HostNetworkTopologyPersisterImpl(VmDynamicDao vmDynamicDao,
@@ -65,7 +67,8 @@ final class HostNetworkTopologyPersisterImpl implements HostNetworkTopologyPersi
                                      ManagementNetworkUtil managementNetworkUtil,
                                      AuditLogDirector auditLogDirector,
                                      VdsDynamicDao vdsDynamicDao,
-                                     HostProviderBindingDao hostProviderBindingDao) {
+                                     HostProviderBindingDao hostProviderBindingDao,
+                                     OutOfSyncInterfacesIndex outOfSyncInterfacesIndex) {
         Validate.notNull(networkDao, "networkAttachmentDao can not be null");
         Validate.notNull(networkDao, "networkDao can not be null");
         Validate.notNull(interfaceDao, "interfaceDao can not be null");
@@ -76,6 +79,7 @@ final class HostNetworkTopologyPersisterImpl implements HostNetworkTopologyPersi
         Validate.notNull(auditLogDirector, "auditLogDirector can not be null");
         Validate.notNull(vdsDynamicDao, "vdsDynamicDao can not be null");
         Validate.notNull(hostProviderBindingDao, "hostProviderBindingDaoImpl can not be null");
+        Validate.notNull(outOfSyncInterfacesIndex, "outOfSyncInterfacesIndex can not be null");
 
         this.vmDynamicDao = vmDynamicDao;
         this.interfaceDao = interfaceDao;
@@ -87,6 +91,7 @@ final class HostNetworkTopologyPersisterImpl implements HostNetworkTopologyPersi
         this.auditLogDirector = auditLogDirector;
         this.vdsDynamicDao = vdsDynamicDao;
         this.hostProviderBindingDao = hostProviderBindingDao;
+        this.outOfSyncInterfacesIndex = outOfSyncInterfacesIndex;
     }
 
     @Override
@@ -98,6 +103,7 @@ final class HostNetworkTopologyPersisterImpl implements HostNetworkTopologyPersi
             List<Network> clusterNetworks = networkDao.getAllForCluster(host.getClusterId());
 
             persistTopology(host, dbIfaces, clusterNetworks, userConfiguredData);
+            outOfSyncInterfacesIndex.invalidateHost(host.getId());
             NonOperationalReason nonOperationalReason =
                     enforceNetworkCompliance(host, skipManagementNetwork, clusterNetworks);
             auditNetworkCompliance(host, dbIfaces, clusterNetworks);
@@ -1273,18 +1273,14 @@ public class VdsBrokerObjectsBuilder {
         Map<String, Object> interfaces = (Map<String, Object>) struct.get(VdsProperties.NETWORK);
         if (interfaces != null) {
             int networkUsage = 0;
-            Map<String, VdsNetworkInterface> nicsByName = Entities.entitiesByName(vds.getInterfaces());
             NetworkStatisticsBuilder statsBuilder = new NetworkStatisticsBuilder();
-            for (Entry<String, Object> entry : interfaces.entrySet()) {
-                if (nicsByName.containsKey(entry.getKey())) {
-                    VdsNetworkInterface existingIface = nicsByName.get(entry.getKey());
+            List<VdsNetworkInterface> existingIfaces = vds.getInterfaces();
+            for (int i = 0; i < existingIfaces.size(); i++) {
+                VdsNetworkInterface existingIface = existingIfaces.get(i);
+                Map<String, Object> dict = (Map<String, Object>) interfaces.get(existingIface.getName());
+                if (dict != null) {
                     existingIface.setVdsId(vds.getId());
-
-                    Map<String, Object> dict = (Map<String, Object>) entry.getValue();
-                    VdsNetworkInterface reportedIface = new VdsNetworkInterface();
-                    extractInterfaceStatistics(dict, reportedIface);
-
-                    statsBuilder.updateExistingInterfaceStatistics(existingIface, reportedIface);
+                    updateInterfaceStatistics(statsBuilder, dict, existingIface);
                     existingIface.getStatistics()
                             .setStatus(assignInterfaceStatusValue(dict, VdsProperties.iface_status));
 
@@ -1435,6 +1431,22 @@ public class VdsBrokerObjectsBuilder {
         iface.setSpeed(assignIntValue(dict, VdsProperties.INTERFACE_SPEED));
     }
 
+    /**
+     * Updates the statistics of an existing interface directly from the reported values, avoiding the allocation of an
+     * intermediate interface entity per reported interface on every statistics cycle.
+     */
+    private static void updateInterfaceStatistics(NetworkStatisticsBuilder statsBuilder,
+            Map<String, Object> dict,
+            VdsNetworkInterface existingIface) {
+        statsBuilder.updateExistingInterfaceStatistics(existingIface,
+                assignIntValue(dict, VdsProperties.INTERFACE_SPEED),
+                assignBigIntegerValue(dict, VdsProperties.rx_total),
+                assignBigIntegerValue(dict, VdsProperties.tx_total),
+                assignBigIntegerValueWithNullProtection(dict, VdsProperties.rx_dropped),
+                assignBigIntegerValueWithNullProtection(dict, VdsProperties.tx_dropped),
+                assignDoubleValue(dict, VdsProperties.sample_time));
+    }
+
     private static Double computeInterfaceUsage(VdsNetworkInterface iface) {
         Double receiveRate = iface.getStatistics().getReceiveRate();
         Double transmitRate = iface.getStatistics().getTransmitRate();
@@ -0,0 +1,204 @@
+package org.ovirt.engine.core.vdsbroker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.common.businessentities.network.VdsNetworkInterface;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.utils.InjectedMock;
+import org.ovirt.engine.core.utils.InjectorExtension;
+
+@ExtendWith({MockitoExtension.class, InjectorExtension.class})
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class OutOfSyncInterfacesIndexTest {
+
+    private static final Guid CLUSTER_ID = Guid.newGuid();
+    private static final Guid OTHER_CLUSTER_ID = Guid.newGuid();
+
+    @InjectedMock
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    public TransactionManager transactionManager;
+
+    @Mock
+    private NetworkImplementationDetailsUtils networkImplementationDetailsUtils;
+
+    private OutOfSyncInterfacesIndex index;
+
+    /** The cluster of each host, as persisted. */
+    private Map<Guid, Guid> hostClusters;
+
+    /** The out of sync interfaces of each host, as they would be calculated from the persisted data. */
+    private Map<Guid, Set<VdsNetworkInterface>> hostOutOfSyncInterfaces;
+
+    private List<Guid> hosts;
+
+    @BeforeEach
+    public void setUp() {
+        hostClusters = new HashMap<>();
+        hostOutOfSyncInterfaces = new HashMap<>();
+        hosts = IntStream.range(0, 10).mapToObj(i -> Guid.newGuid()).collect(Collectors.toList());
+        for (int i = 0; i < hosts.size(); i++) {
+            Guid vdsId = hosts.get(i);
+            hostClusters.put(vdsId, i % 2 == 0 ? CLUSTER_ID : OTHER_CLUSTER_ID);
+            hostOutOfSyncInterfaces.put(vdsId, i % 3 == 0 ? createInterfaces(vdsId, 2) : Collections.emptySet());
+        }
+
+        when(networkImplementationDetailsUtils.getAllInterfacesOutOfSync(any()))
+                .thenAnswer(invocation -> calculateCluster(invocation.getArgument(0)));
+        when(networkImplementationDetailsUtils.getInterfacesOutOfSync(any(), any()))
+                .thenAnswer(invocation -> calculateHost(invocation.getArgument(0), invocation.getArgument(1)));
+
+        index = new OutOfSyncInterfacesIndex(networkImplementationDetailsUtils);
+    }
+
+    @Test
+    public void clusterIsCalculatedOnlyOnce() {
+        assertConsistent(CLUSTER_ID);
+        assertConsistent(CLUSTER_ID);
+
+        verify(networkImplementationDetailsUtils, times(1)).getAllInterfacesOutOfSync(CLUSTER_ID);
+        verify(networkImplementationDetailsUtils, never()).getInterfacesOutOfSync(any(), any());
+    }
+
+    @Test
+    public void onlyInvalidatedHostIsRecalculated() {
+        assertConsistent(CLUSTER_ID);
+        Guid vdsId = hosts.get(2);
+        hostOutOfSyncInterfaces.put(vdsId, createInterfaces(vdsId, 1));
+        index.invalidateHost(vdsId);
+
+        assertConsistent(CLUSTER_ID);
+        verify(networkImplementationDetailsUtils, times(1)).getAllInterfacesOutOfSync(CLUSTER_ID);
+        verify(networkImplementationDetailsUtils, times(1)).getInterfacesOutOfSync(any(), any());
+        verify(networkImplementationDetailsUtils).getInterfacesOutOfSync(CLUSTER_ID, vdsId);
+    }
+
+    @Test
+    public void hostMovedToAnotherCluster() {
+        assertConsistent(CLUSTER_ID);
+        assertConsistent(OTHER_CLUSTER_ID);
+        hostClusters.put(hosts.get(0), OTHER_CLUSTER_ID);
+        index.invalidateHost(hosts.get(0));
+
+        assertConsistent(CLUSTER_ID);
+        assertConsistent(OTHER_CLUSTER_ID);
+    }
+
+    @Test
+    public void invalidatedClusterIsRecalculated() {
+        assertConsistent(CLUSTER_ID);
+        hostOutOfSyncInterfaces.replaceAll((vdsId, interfaces) -> createInterfaces(vdsId, 1));
+        index.invalidateCluster(CLUSTER_ID);
+
+        assertConsistent(CLUSTER_ID);
+        verify(networkImplementationDetailsUtils, times(2)).getAllInterfacesOutOfSync(CLUSTER_ID);
+    }
+
+    @Test
+    public void invalidationIsRepeatedOnCommit() throws Exception {
+        assertConsistent(CLUSTER_ID);
+        Guid vdsId = hosts.get(4);
+        index.invalidateHost(vdsId);
+        // recalculated by a concurrent query before the change was committed
+        index.getOutOfSyncInterfaces(CLUSTER_ID);
+        hostOutOfSyncInterfaces.put(vdsId, createInterfaces(vdsId, 3));
+
+        ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transactionManager.getTransaction()).registerSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(Status.STATUS_COMMITTED);
+
+        assertConsistent(CLUSTER_ID);
+    }
+
+    /**
+     * Applies random changes, each followed by its invalidation, and checks that the index matches a full
+     * recalculation after each of them.
+     */
+    @Test
+    public void indexIsConsistentWithFullRecalculation() {
+        Random random = new Random(0);
+        for (int i = 0; i < 200; i++) {
+            Guid vdsId = hosts.get(random.nextInt(hosts.size()));
+            switch (random.nextInt(4)) {
+            case 0:
+                hostOutOfSyncInterfaces.put(vdsId, createInterfaces(vdsId, random.nextInt(3)));
+                index.invalidateHost(vdsId);
+                break;
+            case 1:
+                hostClusters.put(vdsId, random.nextBoolean() ? CLUSTER_ID : OTHER_CLUSTER_ID);
+                index.invalidateHost(vdsId);
+                break;
+            case 2:
+                Guid clusterId = hostClusters.get(vdsId);
+                hostClusters.forEach((id, hostClusterId) -> {
+                    if (hostClusterId.equals(clusterId)) {
+                        hostOutOfSyncInterfaces.put(id, createInterfaces(id, random.nextInt(2)));
+                    }
+                });
+                index.invalidateCluster(clusterId);
+                break;
+            default:
+                hostOutOfSyncInterfaces.replaceAll((id, interfaces) -> createInterfaces(id, random.nextInt(2)));
+                index.invalidateAll();
+            }
+
+            assertConsistent(CLUSTER_ID);
+            assertConsistent(OTHER_CLUSTER_ID);
+        }
+    }
+
+    private void assertConsistent(Guid clusterId) {
+        assertEquals(calculateCluster(clusterId), index.getOutOfSyncInterfaces(clusterId));
+    }
+
+    private Set<VdsNetworkInterface> calculateCluster(Guid clusterId) {
+        return hosts.stream()
+                .flatMap(vdsId -> calculateHost(clusterId, vdsId).stream())
+                .collect(Collectors.toSet());
+    }
+
+    private Set<VdsNetworkInterface> calculateHost(Guid clusterId, Guid vdsId) {
+        return clusterId.equals(hostClusters.get(vdsId))
+                ? new HashSet<>(hostOutOfSyncInterfaces.get(vdsId))
+                : Collections.emptySet();
+    }
+
+    private static Set<VdsNetworkInterface> createInterfaces(Guid vdsId, int count) {
+        Set<VdsNetworkInterface> interfaces = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            VdsNetworkInterface iface = new VdsNetworkInterface();
+            iface.setId(Guid.newGuid());
+            iface.setVdsId(vdsId);
+            iface.setName("eth" + i);
+            interfaces.add(iface);
+        }
+        return interfaces;
+    }
+}
@@ -0,0 +1,129 @@
+package org.ovirt.engine.core.vdsbroker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.ovirt.engine.core.common.businessentities.network.VmNetworkInterface;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dal.dbbroker.DbEngineDialect;
+import org.ovirt.engine.core.dal.dbbroker.PostgresDbEngineDialect;
+import org.ovirt.engine.core.dal.dbbroker.SimpleJdbcCallsHandler;
+import org.ovirt.engine.core.dao.network.VmNetworkInterfaceDao;
+import org.ovirt.engine.core.dao.network.VmNetworkInterfaceDaoImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+public class VmManagerTest {
+
+    private static final Guid VM_ID = Guid.newGuid();
+    private static final String MAC_1 = "00:1a:4a:16:01:01";
+    private static final String MAC_2 = "00:1a:4a:16:01:02";
+
+    private final AtomicInteger statements = new AtomicInteger();
+
+    @Mock
+    private VmNetworkInterfaceDao vmNetworkInterfaceDao;
+
+    @InjectMocks
+    private VmManager vmManager = new VmManager(VM_ID);
+
+    @Test
+    public void monitoredInterfacesAreLoadedOnce() {
+        List<VmNetworkInterface> interfaces = Collections.singletonList(new VmNetworkInterface());
+        when(vmNetworkInterfaceDao.getAllForMonitoredVm(VM_ID)).thenReturn(interfaces);
+
+        for (int i = 0; i < 10; i++) {
+            assertSame(interfaces, vmManager.getMonitoredInterfaces());
+        }
+
+        verify(vmNetworkInterfaceDao, times(1)).getAllForMonitoredVm(VM_ID);
+    }
+
+    @Test
+    public void monitoredInterfacesAreReloadedAfterInvalidation() {
+        when(vmNetworkInterfaceDao.getAllForMonitoredVm(VM_ID)).thenReturn(Collections.emptyList());
+
+        vmManager.getMonitoredInterfaces();
+        vmManager.invalidateMonitoredInterfaces();
+        vmManager.getMonitoredInterfaces();
+        vmManager.getMonitoredInterfaces();
+
+        verify(vmNetworkInterfaceDao, times(2)).getAllForMonitoredVm(VM_ID);
+    }
+
+    @Test
+    public void unknownInterfacesAreReloadedOncePerChange() throws Exception {
+        VmManager monitoredVmManager = new VmManager(VM_ID);
+        FieldUtils.writeField(monitoredVmManager, "vmNetworkInterfaceDao", createCountingInterfaceDao(), true);
+
+        // the VM reports an interface which isn't in the database, e.g. one that was hot plugged by the guest
+        for (int i = 0; i < 10; i++) {
+            monitoredVmManager.getMonitoredInterfaces(Collections.singleton(MAC_1));
+        }
+        assertEquals(1, statements.get());
+
+        // and then another one
+        for (int i = 0; i < 10; i++) {
+            monitoredVmManager.getMonitoredInterfaces(Arrays.asList(MAC_1, MAC_2));
+        }
+        assertEquals(2, statements.get());
+
+        monitoredVmManager.invalidateMonitoredInterfaces();
+        for (int i = 0; i < 10; i++) {
+            monitoredVmManager.getMonitoredInterfaces(Arrays.asList(MAC_1, MAC_2));
+        }
+        assertEquals(3, statements.get());
+    }
+
+    /**
+     * @return a DAO reading from a data source which counts the statements executed on it, and returns no rows
+     */
+    private VmNetworkInterfaceDao createCountingInterfaceDao() throws Exception {
+        ResultSet emptyResultSet = mock(ResultSet.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.executeQuery()).thenReturn(emptyResultSet);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class,
+                invocation -> invocation.getMethod().getReturnType() == ResultSet.class ?
+                        emptyResultSet
+                        : RETURNS_DEFAULTS.answer(invocation));
+        Connection connection = mock(Connection.class);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            statements.incrementAndGet();
+            return statement;
+        });
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        DbEngineDialect dialect = new PostgresDbEngineDialect();
+        JdbcTemplate jdbcTemplate = dialect.createJdbcTemplate(dataSource);
+        VmNetworkInterfaceDao dao = new VmNetworkInterfaceDaoImpl();
+        FieldUtils.writeField(dao, "jdbcTemplate", jdbcTemplate, true);
+        FieldUtils.writeField(dao, "dbEngineDialect", dialect, true);
+        FieldUtils.writeField(dao, "callsHandler", new SimpleJdbcCallsHandler(dialect, jdbcTemplate), true);
+        return dao;
+    }
+}
@@ -0,0 +1,162 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.enterprise.inject.Instance;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.ovirt.engine.core.common.businessentities.VmDynamic;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.common.utils.Pair;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.VmDynamicDao;
+import org.ovirt.engine.core.utils.InjectorExtension;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.vdsbroker.ResourceManager;
+import org.ovirt.engine.core.vdsbroker.VdsManager;
+import org.ovirt.engine.core.vdsbroker.monitoring.EventVmStatsRefresher.StatusEvent;
+import org.ovirt.engine.core.vdsbroker.monitoring.EventVmStatsRefresher.VmReport;
+import org.ovirt.engine.core.vdsbroker.vdsbroker.VdsBrokerObjectsBuilder;
+
+@ExtendWith({MockConfigExtension.class, InjectorExtension.class})
+public class EventVmStatsRefresherTest {
+
+    private final Guid vm1 = Guid.newGuid();
+    private final Guid vm2 = Guid.newGuid();
+
+    private final VdsManager vdsManager = mock(VdsManager.class);
+    @Mock
+    private VmDynamicDao vmDynamicDao;
+    @Mock
+    private VdsBrokerObjectsBuilder vdsBrokerObjectsBuilder;
+    @Mock
+    private VmStatusEventsStatistics statistics;
+    @Mock
+    private Instance<VmsMonitoring> vmsMonitoring;
+    @Mock
+    private Instance<VmDevicesMonitoring> vmDevicesMonitoring;
+    @Mock
+    private VmsMonitoring monitoring;
+    @Mock
+    private VmDevicesMonitoring devicesMonitoring;
+    @Captor
+    private ArgumentCaptor<List<Pair<VmDynamic, VdsmVm>>> vmsCaptor;
+    @InjectMocks
+    private EventVmStatsRefresher refresher;
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(
+                MockConfigDescriptor.of(ConfigValues.VdsRefreshRate, 2L),
+                MockConfigDescriptor.of(ConfigValues.NumberVmRefreshesBeforeSave, 1)
+        );
+    }
+
+    @BeforeEach
+    public void setup() {
+        refresher = new EventVmStatsRefresher(vdsManager, mock(ResourceManager.class));
+        initMocks(this);
+    }
+
+    @Test
+    public void reportsOfVmAreCoalescedToTheLatestNotified() {
+        Map<String, Object> latest = vmReport();
+        Map<String, Object> older = vmReport();
+        // the event notified later by the host was received first
+        Map<Guid, VmReport> reports = EventVmStatsRefresher.coalesce(Arrays.asList(
+                event(20.0, 1, vm1, latest),
+                event(10.0, 2, vm1, older)));
+
+        assertEquals(1, reports.size());
+        assertSame(latest, reports.get(vm1).getVm());
+    }
+
+    @Test
+    public void laterReceivedReportWinsWhenNotifyTimeIsEqual() {
+        Map<String, Object> first = vmReport();
+        Map<String, Object> second = vmReport();
+        Map<Guid, VmReport> reports = EventVmStatsRefresher.coalesce(Arrays.asList(
+                event(10.0, 1, vm1, first),
+                event(10.0, 2, vm1, second)));
+
+        assertSame(second, reports.get(vm1).getVm());
+    }
+
+    @Test
+    public void laterReceivedReportWinsWhenNotifyTimeIsUnknown() {
+        Map<String, Object> first = vmReport();
+        Map<String, Object> second = vmReport();
+        Map<Guid, VmReport> reports = EventVmStatsRefresher.coalesce(Arrays.asList(
+                event(20.0, 1, vm1, first),
+                event(null, 2, vm1, second)));
+
+        assertSame(second, reports.get(vm1).getVm());
+    }
+
+    @Test
+    public void reportsOfDifferentVmsAreKeptInOrder() {
+        Map<String, Object> report1 = vmReport();
+        Map<String, Object> report2 = vmReport();
+        Map<Guid, VmReport> reports = EventVmStatsRefresher.coalesce(Arrays.asList(
+                event(10.0, 1, vm1, report1),
+                event(11.0, 2, vm2, report2),
+                event(12.0, 3, vm1, report1)));
+
+        assertEquals(Arrays.asList(vm1, vm2), new ArrayList<>(reports.keySet()));
+        assertSame(report1, reports.get(vm1).getVm());
+        assertSame(report2, reports.get(vm2).getVm());
+    }
+
+    @Test
+    public void batchIsMonitoredInSingleCycle() {
+        Guid vm3 = Guid.newGuid();
+        when(vmsMonitoring.get()).thenReturn(monitoring);
+        when(vmDevicesMonitoring.get()).thenReturn(devicesMonitoring);
+        when(devicesMonitoring.createChange(any(), anyLong())).thenReturn(mock(VmDevicesMonitoring.Change.class));
+
+        refresher.processBatch(Arrays.asList(
+                event(10.0, 2, vm1, vmReport()),
+                event(11.0, 3, vm2, vmReport()),
+                event(12.0, 4, vm3, vmReport())));
+
+        verify(monitoring).perform(vmsCaptor.capture(), eq(2L), eq(vdsManager), eq(false));
+        Map<Guid, Long> fetchTimes = vmsCaptor.getValue().stream()
+                .map(Pair::getSecond)
+                .collect(Collectors.toMap(VdsmVm::getId, VdsmVm::getFetchTime));
+        assertEquals(Map.of(vm1, 2L, vm2, 3L, vm3, 4L), fetchTimes);
+        verify(devicesMonitoring).createChange(any(), eq(2L));
+    }
+
+    private static StatusEvent event(Double notifyTime, long receiveTime, Guid vmId, Map<String, Object> vm) {
+        Map<String, Object> vms = new LinkedHashMap<>();
+        vms.put(vmId.toString(), vm);
+        return new StatusEvent(vms, notifyTime, receiveTime);
+    }
+
+    private static Map<String, Object> vmReport() {
+        return new HashMap<>();
+    }
+}
@@ -0,0 +1,129 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.common.businessentities.network.InterfaceStatus;
+import org.ovirt.engine.core.common.businessentities.network.VdsNetworkInterface;
+import org.ovirt.engine.core.common.businessentities.network.VdsNetworkStatistics;
+
+public class HostInterfacesStatisticsTest {
+
+    private HostInterfacesStatistics interfacesStatistics;
+    private VdsNetworkInterface bond;
+    private VdsNetworkInterface slave;
+    private VdsNetworkInterface vlan;
+    private VdsNetworkInterface unused;
+    private List<VdsNetworkInterface> nics;
+
+    @BeforeEach
+    public void setUp() {
+        interfacesStatistics = new HostInterfacesStatistics();
+        bond = createNic("bond0", InterfaceStatus.UP);
+        slave = createNic("eth0", InterfaceStatus.UP);
+        slave.setBondName("bond0");
+        vlan = createNic("bond0.10", InterfaceStatus.UP);
+        vlan.setBaseInterface("bond0");
+        vlan.setVlanId(10);
+        vlan.setNetworkName("net");
+        unused = createNic("eth1", InterfaceStatus.UP);
+        nics = Arrays.asList(bond, slave, vlan, unused);
+    }
+
+    @Test
+    public void statusChangeOfMonitoredInterfaces() {
+        interfacesStatistics.snapshot(nics);
+        bond.getStatistics().setStatus(InterfaceStatus.DOWN);
+        slave.getStatistics().setStatus(InterfaceStatus.DOWN);
+        unused.getStatistics().setStatus(InterfaceStatus.DOWN);
+        interfacesStatistics.updateMonitoredInterfaces(nics);
+
+        assertTrue(interfacesStatistics.isMonitoredStatusChanged(0, InterfaceStatus.DOWN));
+        assertTrue(interfacesStatistics.isMonitoredStatusChanged(1, InterfaceStatus.DOWN));
+        assertFalse(interfacesStatistics.isMonitoredStatusChanged(2, InterfaceStatus.UP));
+        assertFalse(interfacesStatistics.isMonitoredStatusChanged(3, InterfaceStatus.DOWN));
+    }
+
+    @Test
+    public void statusChangeFromUnknownStatusIsNotReported() {
+        bond.getStatistics().setStatus(InterfaceStatus.NONE);
+        interfacesStatistics.snapshot(nics);
+        interfacesStatistics.updateMonitoredInterfaces(nics);
+
+        assertFalse(interfacesStatistics.isMonitoredStatusChanged(0, InterfaceStatus.UP));
+    }
+
+    @Test
+    public void networkOnDownBaseInterface() {
+        interfacesStatistics.snapshot(nics);
+        assertFalse(interfacesStatistics.hasNetworkOnDownInterface(nics));
+
+        unused.getStatistics().setStatus(InterfaceStatus.DOWN);
+        assertFalse(interfacesStatistics.hasNetworkOnDownInterface(nics));
+
+        bond.getStatistics().setStatus(InterfaceStatus.DOWN);
+        assertTrue(interfacesStatistics.hasNetworkOnDownInterface(nics));
+    }
+
+    @Test
+    public void onlyChangedStatisticsAreCollected() {
+        interfacesStatistics.snapshot(nics);
+        slave.getStatistics().setReceivedBytes(BigInteger.TEN);
+        unused.getStatistics().setSampleTime(15.0);
+
+        List<VdsNetworkStatistics> changed = new ArrayList<>();
+        interfacesStatistics.collectChangedStatistics(nics, changed);
+
+        assertEquals(1, changed.size());
+        assertSame(slave.getStatistics(), changed.get(0));
+    }
+
+    @Test
+    public void allStatisticsAreCollectedWhenInterfacesChanged() {
+        interfacesStatistics.snapshot(nics);
+        List<VdsNetworkInterface> newNics = Arrays.asList(bond, slave, vlan, unused, createNic("eth2", null));
+
+        List<VdsNetworkStatistics> changed = new ArrayList<>();
+        interfacesStatistics.collectChangedStatistics(newNics, changed);
+
+        assertEquals(newNics.size(), changed.size());
+    }
+
+    @Test
+    public void noInterfaceIsMonitoredWhenInterfacesAreRemoved() {
+        interfacesStatistics.snapshot(nics);
+        bond.getStatistics().setStatus(InterfaceStatus.DOWN);
+
+        assertFalse(interfacesStatistics.updateMonitoredInterfaces(Arrays.asList(bond, slave)));
+        assertFalse(interfacesStatistics.isMonitoredStatusChanged(0, InterfaceStatus.DOWN));
+    }
+
+    @Test
+    public void snapshotIsReusedWhenInterfacesAreRemoved() {
+        interfacesStatistics.snapshot(nics);
+        List<VdsNetworkInterface> newNics = Arrays.asList(bond, vlan);
+        interfacesStatistics.snapshot(newNics);
+        bond.getStatistics().setStatus(InterfaceStatus.DOWN);
+        assertTrue(interfacesStatistics.updateMonitoredInterfaces(newNics));
+
+        assertEquals(2, interfacesStatistics.size());
+        assertTrue(interfacesStatistics.isMonitoredStatusChanged(0, InterfaceStatus.DOWN));
+        assertTrue(interfacesStatistics.hasNetworkOnDownInterface(newNics));
+    }
+
+    private static VdsNetworkInterface createNic(String name, InterfaceStatus status) {
+        VdsNetworkInterface nic = new VdsNetworkInterface();
+        nic.setName(name);
+        nic.getStatistics().setStatus(status);
+        return nic;
+    }
+}
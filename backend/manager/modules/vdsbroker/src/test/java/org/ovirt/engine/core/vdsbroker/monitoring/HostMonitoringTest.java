@@ -77,6 +77,7 @@ public class HostMonitoringTest {
         value.setSucceeded(false);
         value.setExceptionObject(new VDSNetworkException("unknown host"));
         when(resourceManager.runVdsCommand(any(), any())).thenReturn(value);
+        when(vdsManager.getInterfacesStatistics()).thenReturn(new HostInterfacesStatistics());
 
         updater.refreshVdsStats(true);
     }
@@ -193,11 +193,11 @@ public class VirtMonitoringStrategyTest {
         VmDao mock = mock(VmDao.class);
         VM vm = mock(VM.class);
         when(vm.isExternalVm()).thenReturn(Boolean.FALSE);
-        when(mock.getAllRunningForVds(vdsId)).thenReturn(Collections.singletonList(vm));
+        when(mock.getAllRuntimeStatusRunningForVds(vdsId)).thenReturn(Collections.singletonList(vm));
 
         VM externalVm = mock(VM.class);
         when(externalVm.isExternalVm()).thenReturn(Boolean.TRUE);
-        when(mock.getAllRunningForVds(vdsId2)).thenReturn(Collections.singletonList(externalVm));
+        when(mock.getAllRuntimeStatusRunningForVds(vdsId2)).thenReturn(Collections.singletonList(externalVm));
         return mock;
     }
 
@@ -36,7 +36,6 @@ import org.ovirt.engine.core.common.businessentities.OriginType;
 import org.ovirt.engine.core.common.businessentities.VDS;
 import org.ovirt.engine.core.common.businessentities.VDSStatus;
 import org.ovirt.engine.core.common.businessentities.VMStatus;
-import org.ovirt.engine.core.common.businessentities.VdsDynamic;
 import org.ovirt.engine.core.common.businessentities.VmExitReason;
 import org.ovirt.engine.core.common.businessentities.VmExitStatus;
 import org.ovirt.engine.core.common.businessentities.VmPauseStatus;
@@ -47,7 +46,6 @@ import org.ovirt.engine.core.common.vdscommands.VDSParametersBase;
 import org.ovirt.engine.core.common.vdscommands.VDSReturnValue;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogableBase;
-import org.ovirt.engine.core.dao.VdsDynamicDao;
 import org.ovirt.engine.core.dao.VmDeviceDao;
 import org.ovirt.engine.core.utils.InjectorExtension;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
@@ -70,16 +68,12 @@ public class VmAnalyzerTest {
     @Captor
     private ArgumentCaptor<VDSParametersBase> vdsParamsCaptor;
     @Mock
-    private VdsDynamicDao vdsDynamicDao;
-    @Mock
     private VmDeviceDao vmDeviceDao;
     @Mock
-    private VdsDynamic srcHost;
-    @Mock
-    private VdsDynamic dstHost;
-    @Mock
     private VdsManager vdsManager;
     @Mock
+    private VdsManager dstVdsManager;
+    @Mock
     private VmManager vmManager;
     @Mock
     private VDS vdsManagerVds;
@@ -241,6 +235,25 @@ public class VmAnalyzerTest {
         assertEquals(VmTestPairs.DST_HOST_ID, data.dbVm().getRunOnVds());
     }
 
+    @ParameterizedTest
+    @EnumSource(VmTestPairs.class)
+    public void updateRepository_MIGRATION_FROM_TO_DOWN_NON_RESPONSIVE_DST(VmTestPairs data) {
+        //given
+        initMocks(data, false);
+        mockDstHostStatus(VDSStatus.NonResponsive);
+        //when
+        assumeTrue(data.dbVm() != null);
+        assumeTrue(data.vdsmVm() != null);
+        // when vm ended migration to a host which is not responding
+        assumeTrue(data.dbVm().getStatus() == VMStatus.MigratingFrom);
+        assumeTrue(data.vdsmVm().getVmDynamic().getExitReason() == VmExitReason.MigrationSucceeded);
+        assumeTrue(data.vdsmVm().getVmDynamic().getStatus() == VMStatus.Down);
+        //then
+        vmAnalyzer.analyze();
+        verify(resourceManager, times(1)).internalSetVmStatus(data.dbVm().getDynamicData(), VMStatus.Unknown);
+        assertEquals(VmTestPairs.DST_HOST_ID, data.dbVm().getRunOnVds());
+    }
+
     @ParameterizedTest
     @EnumSource(VmTestPairs.class)
     public void updateRepository_MIGRATION_FROM_TO_UP(VmTestPairs data) {
@@ -325,7 +338,6 @@ public class VmAnalyzerTest {
     }
 
     public void initMocks(VmTestPairs vmData, boolean run) {
-        stubDaos();
         when(vdsManager.getVdsId()).thenReturn(VmTestPairs.SRC_HOST_ID);
         when(vdsManager.getClusterId()).thenReturn(VmTestPairs.CLUSTER_ID);
         when(vdsManager.getCopyVds()).thenReturn(vdsManagerVds);
@@ -334,6 +346,7 @@ public class VmAnalyzerTest {
         when(vmManager.getStatistics()).thenReturn(new VmStatistics());
         when(vmManager.getOrigin()).thenReturn(OriginType.OVIRT);
         when(resourceManager.getVdsManager(any())).thenReturn(vdsManager);
+        when(resourceManager.getVdsManager(VmTestPairs.DST_HOST_ID)).thenReturn(dstVdsManager);
         // -- default behaviors --
         // dst host is up
         mockDstHostStatus(VDSStatus.Up);
@@ -344,9 +357,7 @@ public class VmAnalyzerTest {
                 false,
                 vdsManager,
                 auditLogDirector,
-                resourceManager,
-                vdsDynamicDao,
-                null));
+                resourceManager));
         doNothing().when(vmAnalyzer).resetVmInterfaceStatistics();
         doReturn(vmManager).when(vmAnalyzer).getVmManager();
         VDSReturnValue vdsReturnValue = new VDSReturnValue();
@@ -359,17 +370,8 @@ public class VmAnalyzerTest {
         }
     }
 
-    private void stubDaos() {
-        mockVdsDao();
-    }
-
-    private void mockVdsDao() {
-        when(vdsDynamicDao.get(VmTestPairs.SRC_HOST_ID)).thenReturn(srcHost);
-        when(vdsDynamicDao.get(VmTestPairs.DST_HOST_ID)).thenReturn(dstHost);
-    }
-
     private void mockDstHostStatus(VDSStatus status) {
-        when(dstHost.getStatus()).thenReturn(status);
+        when(dstVdsManager.getStatus()).thenReturn(status);
     }
 
 }
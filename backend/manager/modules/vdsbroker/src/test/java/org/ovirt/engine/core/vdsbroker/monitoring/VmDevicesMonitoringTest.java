@@ -40,6 +40,7 @@ import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.compat.Version;
 import org.ovirt.engine.core.dao.VmDeviceDao;
 import org.ovirt.engine.core.dao.VmDynamicDao;
+import org.ovirt.engine.core.dao.VmStaticDao;
 import org.ovirt.engine.core.utils.InjectedMock;
 import org.ovirt.engine.core.utils.InjectorExtension;
 import org.ovirt.engine.core.utils.MockConfigExtension;
@@ -58,6 +59,8 @@ public class VmDevicesMonitoringTest {
     @Mock
     private VmDeviceDao vmDeviceDao;
     @Mock
+    private VmStaticDao vmStaticDao;
+    @Mock
     private VdsManager vdsManager;
     @Mock
     private FullListAdapter fullListAdapter;
@@ -231,6 +234,117 @@ public class VmDevicesMonitoringTest {
         assertEquals(NEW_HASH, hashInfo.getSecond());
     }
 
+    @Test
+    public void testUnchangedDeviceNotUpdated() {
+        VmDevice video = getVmDevice(VIDEO_DEVICE_ID, VM_ID, VmDeviceGeneralType.VIDEO, "vga", true);
+        video.setAddress(VIDEO_DEVICE_ADDRESS);
+        video.setAlias("vga0");
+        initDevices(
+                video,
+                getVmDevice(CDROM_DEVICE_ID, VM_ID, VmDeviceGeneralType.DISK, "cdrom", true)
+        );
+        initDumpXmls(
+                getDeviceInfo(VIDEO_DEVICE_ID, "video", "vga", VIDEO_DEVICE_ADDRESS),
+                getDeviceInfo(CDROM_DEVICE_ID, "disk", "cdrom", CDROM_DEVICE_ADDRESS)
+        );
+
+        vmDevicesMonitoring.initDevicesStatuses(1L);
+
+        VmDevicesMonitoring.Change change = vmDevicesMonitoring.createChange(VDS_ID, 2L);
+        change.updateVm(VM_ID, NEW_HASH);
+        change.flush();
+
+        ArgumentCaptor<Collection> updateCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(vmDeviceDao, times(1)).updateAllInBatch(updateCaptor.capture());
+        assertEquals(1, updateCaptor.getValue().size());
+        assertEquals(CDROM_DEVICE_ID, ((VmDevice) updateCaptor.getValue().iterator().next()).getDeviceId());
+        assertEquals(1, vmDevicesMonitoring.getUpdatedDevices());
+        assertEquals(1, vmDevicesMonitoring.getUnchangedDevices());
+    }
+
+    @Test
+    public void testReconciliationSkippedWhenReportedDevicesNotChanged() {
+        initDevices(
+                getVmDevice(VIDEO_DEVICE_ID, VM_ID, VmDeviceGeneralType.VIDEO, "vga", true),
+                getVmDevice(CDROM_DEVICE_ID, VM_ID, VmDeviceGeneralType.DISK, "cdrom", true)
+        );
+        initDumpXmls(
+                getDeviceInfo(VIDEO_DEVICE_ID, "video", "vga", VIDEO_DEVICE_ADDRESS),
+                getDeviceInfo(CDROM_DEVICE_ID, "disk", "cdrom", CDROM_DEVICE_ADDRESS)
+        );
+
+        vmDevicesMonitoring.initDevicesStatuses(1L);
+
+        VmDevicesMonitoring.Change change = vmDevicesMonitoring.createChange(VDS_ID, 2L);
+        change.updateVm(VM_ID, NEW_HASH);
+        change.flush();
+
+        change = vmDevicesMonitoring.createChange(VDS_ID, 3L);
+        change.updateVm(VM_ID, INITIAL_HASH);
+        change.flush();
+
+        verify(fullListAdapter, times(2)).getVmFullList(any(), any(), anyBoolean());
+        verify(vmDeviceDao, times(1)).getVmDeviceByVmId(VM_ID);
+        verify(vmDeviceDao, times(1)).updateAllInBatch(any());
+        verify(vmDynamicDao, times(2)).updateDevicesHashes(any());
+        assertEquals(2, vmDevicesMonitoring.getFullListFetches());
+        assertEquals(1, vmDevicesMonitoring.getReconciledVms());
+        assertEquals(1, vmDevicesMonitoring.getUnchangedVms());
+    }
+
+    @Test
+    public void testReconciliationAfterRefreshVmDevices() {
+        initDevices(
+                getVmDevice(VIDEO_DEVICE_ID, VM_ID, VmDeviceGeneralType.VIDEO, "vga", true)
+        );
+        initDumpXmls(
+                getDeviceInfo(VIDEO_DEVICE_ID, "video", "vga", VIDEO_DEVICE_ADDRESS)
+        );
+
+        vmDevicesMonitoring.initDevicesStatuses(1L);
+
+        VmDevicesMonitoring.Change change = vmDevicesMonitoring.createChange(VDS_ID, 2L);
+        change.updateVm(VM_ID, NEW_HASH);
+        change.flush();
+
+        vmDevicesMonitoring.refreshVmDevices(VM_ID);
+
+        change = vmDevicesMonitoring.createChange(VDS_ID, 3L);
+        change.updateVm(VM_ID, INITIAL_HASH);
+        change.flush();
+
+        verify(vmDeviceDao, times(2)).getVmDeviceByVmId(VM_ID);
+        assertEquals(2, vmDevicesMonitoring.getReconciledVms());
+    }
+
+    @Test
+    public void testReconciliationAfterResetVmDevicesHash() {
+        initDevices(
+                getVmDevice(VIDEO_DEVICE_ID, VM_ID, VmDeviceGeneralType.VIDEO, "vga", true)
+        );
+        initDumpXmls(
+                getDeviceInfo(VIDEO_DEVICE_ID, "video", "vga", VIDEO_DEVICE_ADDRESS)
+        );
+
+        vmDevicesMonitoring.initDevicesStatuses(1L);
+
+        VmDevicesMonitoring.Change change = vmDevicesMonitoring.createChange(VDS_ID, 2L);
+        change.updateVm(VM_ID, NEW_HASH);
+        change.flush();
+
+        change = vmDevicesMonitoring.createChange(3L);
+        change.updateVm(VM_ID, VmDevicesMonitoring.EMPTY_HASH);
+        change.flush();
+
+        change = vmDevicesMonitoring.createChange(VDS_ID, 4L);
+        change.updateVm(VM_ID, NEW_HASH);
+        change.flush();
+
+        verify(vmDeviceDao, times(2)).getVmDeviceByVmId(VM_ID);
+        assertEquals(2, vmDevicesMonitoring.getReconciledVms());
+        assertEquals(0, vmDevicesMonitoring.getUnchangedVms());
+    }
+
     @Test
     public void testUpdateVmFromFullList() {
         initDevices();
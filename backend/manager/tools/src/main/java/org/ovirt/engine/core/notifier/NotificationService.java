@@ -1,15 +1,19 @@
 package org.ovirt.engine.core.notifier;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.lang.StringUtils;
 import org.ovirt.engine.core.common.EventNotificationMethod;
+import org.ovirt.engine.core.notifier.dao.EventsListener;
 import org.ovirt.engine.core.notifier.dao.EventsManager;
 import org.ovirt.engine.core.notifier.filter.AuditLogEvent;
 import org.ovirt.engine.core.notifier.filter.FirstMatchSimpleFilter;
@@ -22,6 +26,11 @@ import org.slf4j.LoggerFactory;
 /**
  * Responsible for an execution of the service for the current events in the system which should be notified to the
  * subscribers.
+ * <p>
+ * New events are dispatched as soon as the database notifies they were logged, the events are also polled every
+ * <code>INTERVAL_IN_SECONDS</code> in case a notification was missed. The subscribers are reloaded and the obsolete
+ * history is deleted by the polling iterations only, the iterations triggered by notifications reuse the subscribers
+ * loaded by the last polling iteration.
  */
 public class NotificationService implements Runnable {
 
@@ -29,10 +38,33 @@ public class NotificationService implements Runnable {
 
     private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
 
+    /**
+     * The maximal number of dispatched events marked as processed by a single update
+     */
+    private static final int PROCESSED_EVENTS_BATCH_SIZE = 500;
+
+    /**
+     * The maximal time to wait for a notification of new events at once
+     */
+    private static final int LISTEN_TIMEOUT_IN_MILLIS = 10000;
+
+    /**
+     * The delay between waits for notifications of new events, events logged meanwhile are dispatched together
+     */
+    private static final long LISTEN_DELAY_IN_MILLIS = 500;
+
+    private static final long LISTEN_RETRY_INTERVAL_IN_MILLIS = 10000;
+
     private final NotificationProperties prop;
 
     private final EventsManager eventsManager;
 
+    private final EventsListener eventsListener;
+
+    private final AtomicBoolean iterationRequested = new AtomicBoolean();
+
+    private ScheduledExecutorService exec;
+
     private final FirstMatchSimpleFilter firstMatchSimpleFilter;
 
     private List<FirstMatchSimpleFilter.FilterEntry> configurationFilters;
@@ -41,9 +73,15 @@ public class NotificationService implements Runnable {
 
     private int failedQueries = 0;
 
+    /**
+     * Whether the filter chain holds the subscribers loaded from the database, accessed by the iterations only
+     */
+    private boolean subscribersLoaded;
+
     public NotificationService(NotificationProperties prop) throws NotificationServiceException {
         this.prop = prop;
         this.eventsManager = new EventsManager();
+        this.eventsListener = new EventsListener();
         firstMatchSimpleFilter = new FirstMatchSimpleFilter();
         configurationFilters = FirstMatchSimpleFilter.parse(prop.getProperty(FILTER));
     }
@@ -68,11 +106,11 @@ public class NotificationService implements Runnable {
     public void run() {
         markOldEventsAsProcessed();
         ShutdownHook shutdownHook = ShutdownHook.getInstance();
-        ScheduledExecutorService exec = Executors.newSingleThreadScheduledExecutor();
+        exec = Executors.newSingleThreadScheduledExecutor();
         shutdownHook.addScheduledExecutorService(exec);
         shutdownHook.addServiceHandler(
                 exec.scheduleWithFixedDelay(
-                        () -> mainLogic(),
+                        () -> mainLogic(true),
                         1,
                         prop.getLong(NotificationProperties.INTERVAL_IN_SECONDS),
                         TimeUnit.SECONDS
@@ -86,6 +124,16 @@ public class NotificationService implements Runnable {
                         TimeUnit.SECONDS
                 )
         );
+        ScheduledExecutorService listenerExec = Executors.newSingleThreadScheduledExecutor();
+        shutdownHook.addScheduledExecutorService(listenerExec);
+        shutdownHook.addServiceHandler(
+                listenerExec.scheduleWithFixedDelay(
+                        () -> listen(),
+                        1000,
+                        LISTEN_DELAY_IN_MILLIS,
+                        TimeUnit.MILLISECONDS
+                )
+        );
         try {
             int boots = eventsManager.getNotificationServiceBoots();
             eventsManager.setNotificationServiceBoots(++boots);
@@ -94,46 +142,60 @@ public class NotificationService implements Runnable {
         }
     }
 
+    /**
+     * Waits for new events to be logged, and requests to dispatch them.
+     */
+    private void listen() {
+        try {
+            if (eventsListener.awaitEvents(LISTEN_TIMEOUT_IN_MILLIS)) {
+                requestIteration();
+            }
+        } catch (SQLException e) {
+            // The unreachable database is reported by the polling iterations
+            log.debug("Failed to listen to new events, retrying in {} ms", LISTEN_RETRY_INTERVAL_IN_MILLIS, e);
+            try {
+                Thread.sleep(LISTEN_RETRY_INTERVAL_IN_MILLIS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        } catch (Throwable t) {
+            log.error("Failed to listen to new events.", t);
+        }
+    }
+
+    /**
+     * Requests an iteration of dispatching the events, unless one is already pending.
+     */
+    private void requestIteration() {
+        if (iterationRequested.compareAndSet(false, true)) {
+            try {
+                exec.execute(() -> mainLogic(false));
+            } catch (RejectedExecutionException e) {
+                // The service is shutting down
+                iterationRequested.set(false);
+            }
+        }
+    }
+
     /**
      * Executes event notification to subscribers
+     *
+     * @param periodic
+     *            whether this is a polling iteration, which reloads the subscribers and deletes the obsolete history,
+     *            rather than an iteration triggered by a notification of new events
      */
-    private void mainLogic() {
+    private void mainLogic(boolean periodic) {
+        iterationRequested.set(false);
         try {
             try {
                 log.debug("Start event notification service iteration");
-
-                // Clear filter chain
-                firstMatchSimpleFilter.clearFilterEntries();
-
-                // Read Database subscriptions first
-                firstMatchSimpleFilter.addFilterEntries(eventsManager.getAuditLogEventSubscribers());
-
-                // Backward compatibility, aim to remove (can be replaced by "FILTER")
-                String dbDownSubscribers =
-                        prop.getProperty(NotificationProperties.FAILED_QUERIES_NOTIFICATION_RECIPIENTS, true);
-                if (!StringUtils.isEmpty(dbDownSubscribers)) {
-                    for (String subscriber : dbDownSubscribers.split(",")) {
-                        FirstMatchSimpleFilter.FilterEntry subscriberEntry = new FirstMatchSimpleFilter.FilterEntry(
-                                EventsManager.DATABASE_UNREACHABLE,
-                                null,
-                                false,
-                                EventNotificationMethod.SMTP.getAsString(),
-                                subscriber);
-                        List<FirstMatchSimpleFilter.FilterEntry> subscriberEntries = Collections.singletonList(subscriberEntry);
-                        firstMatchSimpleFilter.addFilterEntries(subscriberEntries);
-                    }
+                if (periodic || !subscribersLoaded) {
+                    loadSubscribers();
                 }
-
-                // Add configurations subscription
-                firstMatchSimpleFilter.addFilterEntries(
-                        configurationFilters
-                        );
-
-                for (AuditLogEvent event : eventsManager.getAuditLogEvents()) {
-                    firstMatchSimpleFilter.processEvent(event);
-                    eventsManager.updateAuditLogEventProcessed(event.getId());
+                dispatchEvents(eventsManager.getAuditLogEvents());
+                if (periodic) {
+                    deleteObsoleteHistoryData();
                 }
-                deleteObsoleteHistoryData();
                 log.debug("Finished event notification service iteration");
             } catch (SQLException se) {
                 distributeDbDownEvent();
@@ -144,6 +206,65 @@ public class NotificationService implements Runnable {
         }
     }
 
+    /**
+     * Rebuilds the filter chain from the subscriptions in the database and in the configuration.
+     */
+    private void loadSubscribers() throws SQLException {
+        // Clear filter chain
+        firstMatchSimpleFilter.clearFilterEntries();
+        subscribersLoaded = false;
+
+        // Read Database subscriptions first
+        firstMatchSimpleFilter.addFilterEntries(eventsManager.getAuditLogEventSubscribers());
+
+        // Backward compatibility, aim to remove (can be replaced by "FILTER")
+        String dbDownSubscribers =
+                prop.getProperty(NotificationProperties.FAILED_QUERIES_NOTIFICATION_RECIPIENTS, true);
+        if (!StringUtils.isEmpty(dbDownSubscribers)) {
+            for (String subscriber : dbDownSubscribers.split(",")) {
+                FirstMatchSimpleFilter.FilterEntry subscriberEntry = new FirstMatchSimpleFilter.FilterEntry(
+                        EventsManager.DATABASE_UNREACHABLE,
+                        null,
+                        false,
+                        EventNotificationMethod.SMTP.getAsString(),
+                        subscriber);
+                List<FirstMatchSimpleFilter.FilterEntry> subscriberEntries = Collections.singletonList(subscriberEntry);
+                firstMatchSimpleFilter.addFilterEntries(subscriberEntries);
+            }
+        }
+
+        // Add configurations subscription
+        firstMatchSimpleFilter.addFilterEntries(
+                configurationFilters
+                );
+        subscribersLoaded = true;
+    }
+
+    private void dispatchEvents(List<AuditLogEvent> events) throws SQLException {
+        if (events.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<Long> processedEvents = new ArrayList<>();
+        try {
+            for (AuditLogEvent event : events) {
+                firstMatchSimpleFilter.processEvent(event);
+                processedEvents.add(event.getId());
+                if (processedEvents.size() == PROCESSED_EVENTS_BATCH_SIZE) {
+                    eventsManager.updateAuditLogEventsProcessed(processedEvents);
+                    processedEvents.clear();
+                }
+            }
+        } finally {
+            // The events dispatched before a failure are not dispatched again
+            eventsManager.updateAuditLogEventsProcessed(processedEvents);
+        }
+        for (Transport transport : transports) {
+            transport.flush();
+        }
+        log.debug("Dispatched {} events in {} ms", events.size(), System.currentTimeMillis() - start);
+    }
+
     private void idle() {
         log.debug("Begin idle iteration");
         for (Transport transport : transports) {
@@ -158,6 +279,7 @@ public class NotificationService implements Runnable {
 
     private void distributeDbDownEvent() {
         firstMatchSimpleFilter.clearFilterEntries();
+        subscribersLoaded = false;
         firstMatchSimpleFilter.addFilterEntries(
                 configurationFilters
                 );
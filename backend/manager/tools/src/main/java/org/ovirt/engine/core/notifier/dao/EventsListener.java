@@ -0,0 +1,63 @@
+package org.ovirt.engine.core.notifier.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.ovirt.engine.core.notifier.NotificationServiceException;
+import org.ovirt.engine.core.utils.db.StandaloneDataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Listens to the notifications PostgreSQL sends on the <code>audit_log</code> channel when new events are added to
+ * the <code>audit_log</code> table, over a connection of its own, so new events can be dispatched as soon as they are
+ * logged instead of on the next polling iteration.
+ */
+public class EventsListener {
+
+    public static final String AUDIT_LOG_CHANNEL = "audit_log";
+
+    private static final Logger log = LoggerFactory.getLogger(EventsListener.class);
+
+    private final DataSource ds;
+
+    private Connection listeningConnection;
+
+    public EventsListener() throws NotificationServiceException {
+        try {
+            ds = new StandaloneDataSource();
+        } catch (SQLException e) {
+            throw new NotificationServiceException("Failed to obtain database connectivity", e);
+        }
+    }
+
+    /**
+     * Waits for new events to be added to the <code>audit_log</code> table.
+     *
+     * @param timeoutInMillis
+     *            the maximal time to wait
+     * @return whether new events were added since the previous call, or since the connection was established
+     * @throws SQLException
+     *             if the database couldn't be reached, the listening connection is re-established by the next call
+     */
+    public boolean awaitEvents(int timeoutInMillis) throws SQLException {
+        Connection connection = ds.getConnection();
+        if (connection != listeningConnection) {
+            // A new connection was opened by the data source, events added until it started listening were missed
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + AUDIT_LOG_CHANNEL);
+            }
+            listeningConnection = connection;
+            log.debug("Listening to notifications on channel '{}'", AUDIT_LOG_CHANNEL);
+            return true;
+        }
+        PGNotification[] notifications =
+                connection.unwrap(PGConnection.class).getNotifications(timeoutInMillis);
+        return notifications != null && notifications.length > 0;
+    }
+}
@@ -202,18 +202,25 @@ public class EventsManager implements Observer {
 
     }
 
-    public void updateAuditLogEventProcessed(long auditLogId)
+    /**
+     * Marks the given events as processed by a single update.
+     */
+    public void updateAuditLogEventsProcessed(List<Long> auditLogIds)
             throws SQLException {
+        if (auditLogIds.isEmpty()) {
+            return;
+        }
         try (Connection connection = ds.getConnection();
              PreparedStatement ps = connection.prepareStatement(
                     "UPDATE audit_log " +
                     "SET processed = 'true' " +
-                    "WHERE audit_log_id = ? ;")) {
-            ps.setLong(1, auditLogId);
+                    "WHERE audit_log_id = ANY(?) ;")) {
+            ps.setArray(1, connection.createArrayOf("bigint", auditLogIds.toArray()));
             int updated = ps.executeUpdate();
-            if (updated != 1) {
-                log.error("Failed to mark audit_log entry as processed for audit_log_id: {}",
-                        auditLogId);
+            if (updated != auditLogIds.size()) {
+                log.error("Failed to mark audit_log entries as processed, {} of {} entries were marked",
+                        updated,
+                        auditLogIds.size());
             }
         }
     }
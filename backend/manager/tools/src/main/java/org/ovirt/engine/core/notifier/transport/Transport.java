@@ -39,6 +39,14 @@ public abstract class Transport implements Observable {
     public void idle() {
     }
 
+    /**
+     * Called after a batch of events was dispatched, so a transport which queues the dispatched events can deliver
+     * them right away instead of on the next idle call.
+     * A default empty implementation is provided.
+     */
+    public void flush() {
+    }
+
     @Override
     public void notifyObservers(DispatchResult data) {
         for (Observer observer : observers) {
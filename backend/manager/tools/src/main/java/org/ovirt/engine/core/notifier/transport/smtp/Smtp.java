@@ -3,11 +3,19 @@ package org.ovirt.engine.core.notifier.transport.smtp;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
 
 import javax.mail.Address;
 import javax.mail.Authenticator;
@@ -43,7 +51,12 @@ import org.slf4j.LoggerFactory;
  * <li><code>MAIL_FROM</code> specifies "from" address in sent message, or uses value of property <code>MAIL_USER</code> if not provided</li>
  * <li>"from" address should include a domain, same as <code>MAIL_USER</code> property</li>
  * <li><code>MAIL_REPLY_TO</code> specifies "replyTo" address in outgoing message</li>
+ * <li><code>MAIL_CONNECTIONS</code> the maximal number of connections to the mail server</li>
  * </ul>
+ *
+ * The queued messages are sent over persistent connections to the mail server, the messages of each recipient are
+ * sent in order, and messages of different recipients are sent in parallel over up to <code>MAIL_CONNECTIONS</code>
+ * connections.
  */
 public class Smtp extends Transport {
 
@@ -60,6 +73,7 @@ public class Smtp extends Transport {
     private static final String MAIL_SMTP_ENCRYPTION_TLS = "tls";
     private static final String MAIL_SEND_INTERVAL = "MAIL_SEND_INTERVAL";
     private static final String MAIL_RETRIES = "MAIL_RETRIES";
+    private static final String MAIL_CONNECTIONS = "MAIL_CONNECTIONS";
 
     private static final Logger log = LoggerFactory.getLogger(Smtp.class);
     private int retries;
@@ -72,6 +86,8 @@ public class Smtp extends Transport {
     private InternetAddress from = null;
     private InternetAddress replyTo = null;
     private boolean active = false;
+    private ExecutorService sendExecutor;
+    private final BlockingQueue<javax.mail.Transport> idleConnections = new LinkedBlockingQueue<>();
 
     public Smtp(NotificationProperties props) {
         if (!StringUtils.isEmpty(props.getProperty(MAIL_SERVER, true))) {
@@ -95,6 +111,18 @@ public class Smtp extends Transport {
         isBodyHtml = props.getBoolean(HTML_MESSAGE_FORMAT, false);
         from = props.validateEmail(MAIL_FROM);
         replyTo = props.validateEmail(MAIL_REPLY_TO);
+        int connections = props.validateNonNegetive(MAIL_CONNECTIONS);
+        if (connections == 0) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "'%s' must be a positive integer.",
+                            MAIL_CONNECTIONS));
+        }
+        sendExecutor = Executors.newFixedThreadPool(connections, runnable -> {
+            Thread thread = new Thread(runnable, "smtp-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
 
         if (log.isTraceEnabled()) {
             mailSessionProps.put("mail.debug", "true");
@@ -161,43 +189,116 @@ public class Smtp extends Transport {
     public void idle() {
         if (lastSendInterval++ >= sendIntervals) {
             lastSendInterval = 0;
+            send(new ArrayList<>(sendQueue));
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Failed messages are retried on idle only, so their retries aren't exhausted by consecutive batches of events
+        send(sendQueue.stream().filter(attempt -> attempt.retries == 0).collect(Collectors.toList()));
+    }
+
+    /**
+     * Sends the messages of the given attempts, the messages of different recipients in parallel, and waits for all
+     * of them to be sent or to fail.
+     */
+    private void send(List<DispatchAttempt> attempts) {
+        if (attempts.isEmpty()) {
+            return;
+        }
+        Map<String, List<DispatchAttempt>> attemptsByRecipient = attempts.stream()
+                .collect(Collectors.groupingBy(attempt -> attempt.address, LinkedHashMap::new, Collectors.toList()));
+        List<Callable<Void>> tasks = new ArrayList<>();
+        attemptsByRecipient.values().forEach(recipientAttempts -> tasks.add(() -> {
+            send(recipientAttempts.get(0).address, recipientAttempts);
+            return null;
+        }));
+        try {
+            sendExecutor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Observers are notified in the calling thread
+        for (DispatchAttempt attempt : attempts) {
+            if (attempt.sent) {
+                notifyObservers(DispatchResult.success(attempt.event, attempt.address, EventNotificationMethod.SMTP));
+                sendQueue.remove(attempt);
+            } else if (attempt.retries >= retries) {
+                notifyObservers(DispatchResult.failure(attempt.event,
+                        attempt.address,
+                        EventNotificationMethod.SMTP,
+                        attempt.errorMessage));
+                sendQueue.remove(attempt);
+            }
+        }
+    }
 
-            Iterator<DispatchAttempt> iterator = sendQueue.iterator();
-            while (iterator.hasNext()) {
-                DispatchAttempt attempt = iterator.next();
+    /**
+     * Sends the messages of the given attempts to a recipient in order, over an idle connection to the mail server.
+     * The connection is reconnected if the mail server closed it, and kept open for the next messages.
+     */
+    private void send(String recipient, List<DispatchAttempt> attempts) {
+        javax.mail.Transport connection = idleConnections.poll();
+        try {
+            if (connection == null) {
+                connection = session.getTransport("smtp");
+            }
+            boolean connected = false;
+            for (DispatchAttempt attempt : attempts) {
                 try {
                     EventMessageContent message = new EventMessageContent();
                     message.prepareMessage(hostName, attempt.event, isBodyHtml);
 
                     log.info("Sending e-mail subject='{}' to='{}'",
                             message.getMessageSubject(),
-                            attempt.address);
+                            recipient);
                     log.debug("Send e-mail body='{}'", message.getMessageBody());
-                    sendMail(attempt.address, message.getMessageSubject(), message.getMessageBody());
+                    if (!connected) {
+                        // Checking the connection costs a round trip, so it is checked once per batch
+                        if (!connection.isConnected()) {
+                            connection.connect();
+                        }
+                        connected = true;
+                    }
+                    sendMail(connection, recipient, message.getMessageSubject(), message.getMessageBody());
                     log.info(
                         "E-mail subject='{}' to='{}' sent successfully",
                         message.getMessageSubject(),
-                        attempt.address
+                        recipient
                     );
-                    notifyObservers(DispatchResult.success(attempt.event, attempt.address, EventNotificationMethod.SMTP));
-                    iterator.remove();
+                    attempt.sent = true;
                 } catch (Exception ex) {
-                    attempt.retries++;
-                    if (attempt.retries >= retries) {
-                        notifyObservers(DispatchResult.failure(attempt.event,
-                                attempt.address,
-                                EventNotificationMethod.SMTP,
-                                ex.getMessage()));
-                        iterator.remove();
-                    }
+                    // The connection may be left in the middle of a transaction, the next message reconnects
+                    close(connection);
+                    connected = false;
+                    attempt.failed(ex);
                 }
             }
+        } catch (MessagingException ex) {
+            log.error("Failed to obtain a connection to the mail server: {}", ex.getMessage());
+            attempts.forEach(attempt -> attempt.failed(ex));
+        } finally {
+            if (connection != null) {
+                idleConnections.add(connection);
+            }
+        }
+    }
+
+    private void close(javax.mail.Transport connection) {
+        try {
+            connection.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close connection to the mail server", e);
         }
     }
 
     /**
      * Sends a message to a recipient using pre-configured mail session, either as a plan text message or as a html
      * message body
+     * @param connection
+     *            a connection to the mail server
      * @param recipient
      *            a recipient mail address
      * @param messageSubject
@@ -205,7 +306,10 @@ public class Smtp extends Transport {
      * @param messageBody
      *            the body of the message
      */
-    private void sendMail(String recipient, String messageSubject, String messageBody) throws MessagingException {
+    private void sendMail(javax.mail.Transport connection,
+            String recipient,
+            String messageSubject,
+            String messageBody) throws MessagingException {
         try {
             Message msg = new MimeMessage(session);
             msg.setFrom(from);
@@ -223,7 +327,8 @@ public class Smtp extends Transport {
                 msg.setText(messageBody);
             }
             msg.setSentDate(new Date());
-            javax.mail.Transport.send(msg);
+            msg.saveChanges();
+            connection.sendMessage(msg, msg.getAllRecipients());
         } catch (MessagingException mex) {
             StringBuilder errorMsg = new StringBuilder("Failed to send message ");
             if (from != null) {
@@ -262,10 +367,17 @@ public class Smtp extends Transport {
          public final AuditLogEvent event;
          public final String address;
          public int retries = 0;
+         public boolean sent = false;
+         public String errorMessage;
          private DispatchAttempt(AuditLogEvent event, String address) {
              this.event = event;
              this.address = address;
          }
+
+         private void failed(Exception ex) {
+             retries++;
+             errorMessage = ex.getMessage();
+         }
      }
 }
 
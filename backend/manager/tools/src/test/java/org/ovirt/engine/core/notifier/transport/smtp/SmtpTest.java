@@ -0,0 +1,212 @@
+package org.ovirt.engine.core.notifier.transport.smtp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ovirt.engine.core.common.AuditLogSeverity;
+import org.ovirt.engine.core.notifier.dao.DispatchResult;
+import org.ovirt.engine.core.notifier.filter.AuditLogEvent;
+import org.ovirt.engine.core.notifier.filter.AuditLogEventType;
+import org.ovirt.engine.core.notifier.utils.NotificationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tests sending e-mails by {@link Smtp} to a local stub of an SMTP server.
+ */
+public class SmtpTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SmtpTest.class);
+
+    private static final int MAIL_CONNECTIONS = 4;
+    private static final int MAIL_RETRIES = 2;
+    private static final String REJECTED_RECIPIENT = "rejected@example.com";
+
+    @TempDir
+    public Path tempDir;
+
+    private SmtpStub server;
+    private Smtp smtp;
+    private final List<DispatchResult> results = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new SmtpStub();
+        Path conf = tempDir.resolve("notifier.conf");
+        Files.write(conf, Arrays.asList(
+                "MAIL_SERVER=" + InetAddress.getLoopbackAddress().getHostAddress(),
+                "MAIL_PORT=" + server.getPort(),
+                "MAIL_SMTP_ENCRYPTION=none",
+                "MAIL_FROM=notifier@example.com",
+                "MAIL_REPLY_TO=replies@example.com",
+                "MAIL_SEND_INTERVAL=0",
+                "MAIL_RETRIES=" + MAIL_RETRIES,
+                "MAIL_CONNECTIONS=" + MAIL_CONNECTIONS));
+        NotificationProperties.release();
+        NotificationProperties.setDefaults(conf.toString(), "");
+        smtp = new Smtp(NotificationProperties.getInstance());
+        smtp.registerObserver((observable, result) -> results.add(result));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        NotificationProperties.release();
+        server.close();
+    }
+
+    @Test
+    public void messagesAreSentOverPersistentConnections() {
+        int recipients = 10;
+        int events = 500;
+        long start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            smtp.dispatchEvent(createEvent(i), "user" + i % recipients + "@example.com");
+        }
+        smtp.flush();
+        long elapsedNanos = System.nanoTime() - start;
+        log.info("Sent {} e-mails to {} recipients in {} ms, {} events per second",
+                events,
+                recipients,
+                elapsedNanos / 1_000_000,
+                events * 1_000_000_000L / elapsedNanos);
+
+        assertEquals(events, server.messages.get());
+        assertEquals(events, results.stream().filter(DispatchResult::isSuccess).count());
+        assertTrue(server.connections.get() <= MAIL_CONNECTIONS);
+
+        // the connections are kept open for the next batch
+        int connections = server.connections.get();
+        smtp.dispatchEvent(createEvent(events), "user0@example.com");
+        smtp.flush();
+        assertEquals(events + 1, server.messages.get());
+        assertEquals(connections, server.connections.get());
+    }
+
+    @Test
+    public void failedMessagesAreRetriedOnIdle() {
+        smtp.dispatchEvent(createEvent(0), REJECTED_RECIPIENT);
+        smtp.dispatchEvent(createEvent(1), "user@example.com");
+
+        smtp.flush();
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).isSuccess());
+
+        // a failed message isn't retried by the next flush
+        smtp.flush();
+        assertEquals(1, results.size());
+
+        for (int i = 1; i < MAIL_RETRIES; i++) {
+            smtp.idle();
+        }
+        assertEquals(2, results.size());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals(REJECTED_RECIPIENT, results.get(1).getAddress());
+    }
+
+    private static AuditLogEvent createEvent(int id) {
+        AuditLogEvent event = new AuditLogEvent();
+        event.setId(id);
+        event.setLogTime(new Date());
+        event.setType(AuditLogEventType.alertMessage);
+        event.setLogTypeName("VDC_STOP");
+        event.setMessage("Event " + id);
+        event.setSeverity(AuditLogSeverity.NORMAL);
+        return event;
+    }
+
+    /**
+     * A minimal SMTP server, accepting all the messages except for those sent to {@link #REJECTED_RECIPIENT}.
+     */
+    private static class SmtpStub implements Closeable {
+        private final ServerSocket serverSocket;
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger messages = new AtomicInteger();
+
+        SmtpStub() throws IOException {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            Thread acceptor = new Thread(this::accept, "smtp-stub");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void accept() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    Thread session = new Thread(() -> serve(socket), "smtp-stub-session");
+                    session.setDaemon(true);
+                    session.start();
+                } catch (IOException e) {
+                    // the server was closed
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (Socket s = socket;
+                 BufferedReader in = new BufferedReader(
+                         new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+                 PrintWriter out = new PrintWriter(s.getOutputStream(), true)) {
+                reply(out, "220 stub ESMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("RCPT") && command.contains(REJECTED_RECIPIENT.toUpperCase())) {
+                        reply(out, "550 Mailbox unavailable");
+                    } else if (command.startsWith("DATA")) {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // skip the message content
+                        }
+                        messages.incrementAndGet();
+                        reply(out, "250 OK");
+                    } else if (command.startsWith("QUIT")) {
+                        reply(out, "221 Bye");
+                        return;
+                    } else {
+                        reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException e) {
+                // the connection was closed
+            }
+        }
+
+        private void reply(PrintWriter out, String reply) {
+            out.print(reply + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+----------------------------------------------------------------
+-- [audit_log] Table partitions
+--
+-- audit_log is partitioned by log_time into one partition per day (UTC), named audit_log_pYYYYMMDD.
+-- Entries that don't fall into any of these partitions are kept in audit_log_default.
+----------------------------------------------------------------
+-- Creates the missing daily partitions from v_from until v_until, moving the entries of the default partition
+-- that belong to a created partition into it.
+CREATE OR REPLACE FUNCTION CreateAuditLogPartitions (
+    v_from TIMESTAMP WITH TIME ZONE,
+    v_until TIMESTAMP WITH TIME ZONE
+    )
+RETURNS VOID AS $PROCEDURE$
+DECLARE v_day DATE;
+
+v_partition_name TEXT;
+
+v_start TIMESTAMP WITH TIME ZONE;
+
+v_end TIMESTAMP WITH TIME ZONE;
+
+BEGIN
+    v_day := (v_from AT TIME ZONE 'UTC')::DATE;
+
+    WHILE v_day <= (v_until AT TIME ZONE 'UTC')::DATE LOOP
+        v_partition_name := 'audit_log_p' || to_char(v_day, 'YYYYMMDD');
+        v_start := v_day::TIMESTAMP AT TIME ZONE 'UTC';
+        v_end := (v_day + 1)::TIMESTAMP AT TIME ZONE 'UTC';
+
+        IF to_regclass(v_partition_name) IS NULL THEN
+            IF EXISTS (
+                    SELECT 1
+                    FROM audit_log_default
+                    WHERE log_time >= v_start
+                        AND log_time < v_end
+                    ) THEN
+                -- The new partition must not overlap entries left in the default partition
+                EXECUTE format('CREATE TABLE %I (LIKE audit_log INCLUDING DEFAULTS)', v_partition_name);
+                EXECUTE format('WITH moved AS (DELETE FROM audit_log_default WHERE log_time >= %L AND log_time < %L RETURNING *) '
+                        || 'INSERT INTO %I SELECT * FROM moved', v_start, v_end, v_partition_name);
+                EXECUTE format('ALTER TABLE audit_log ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                        v_partition_name, v_start, v_end);
+            ELSE
+                EXECUTE format('CREATE TABLE %I PARTITION OF audit_log FOR VALUES FROM (%L) TO (%L)',
+                        v_partition_name, v_start, v_end);
+            END IF;
+        END IF;
+
+        v_day := v_day + 1;
+    END LOOP;
+END;$PROCEDURE$
+LANGUAGE plpgsql;
+
+-- Removes the entries older than the given date by dropping the daily partitions that end until the date.
+-- Entries of the partition that contains the date are kept until the whole partition is older than the date.
+CREATE OR REPLACE FUNCTION DeleteAuditLogOlderThenDate (v_date TIMESTAMP WITH TIME ZONE)
+RETURNS VOID AS $PROCEDURE$
+DECLARE v_partition_name TEXT;
+
+BEGIN
+    FOR v_partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        INNER JOIN pg_class c
+            ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'audit_log'::regclass
+            AND c.relname ~ '^audit_log_p[0-9]{8}$'
+            AND (to_date(substr(c.relname, 12), 'YYYYMMDD') + 1)::TIMESTAMP AT TIME ZONE 'UTC' <= v_date
+        ORDER BY c.relname
+    LOOP
+        -- event_notification_hist can't reference the partitioned table, so its entries are removed here
+        EXECUTE format('DELETE FROM event_notification_hist WHERE audit_log_id IN (SELECT audit_log_id FROM %I)',
+                v_partition_name);
+        EXECUTE format('DROP TABLE %I', v_partition_name);
+    END LOOP;
+
+    DELETE
+    FROM event_notification_hist
+    WHERE audit_log_id IN (
+            SELECT audit_log_id
+            FROM audit_log_default
+            WHERE log_time < v_date
+            );
+
+    DELETE
+    FROM audit_log_default
+    WHERE log_time < v_date;
+END;$PROCEDURE$
+LANGUAGE plpgsql;
@@ -334,7 +334,7 @@ BEGIN
                     AND pv.entity_id = dpv.entity_id
                 )
             )
-    ORDER BY audit_log_id DESC;
+    ORDER BY log_time DESC, audit_log_id DESC;
 END;$PROCEDURE$
 LANGUAGE plpgsql;
 
@@ -424,31 +424,6 @@ BEGIN
 END;$PROCEDURE$
 LANGUAGE plpgsql;
 
-CREATE OR REPLACE FUNCTION DeleteAuditLogOlderThenDate (v_date TIMESTAMP WITH TIME ZONE)
-RETURNS VOID AS $PROCEDURE$
-DECLARE v_id BIGINT;
-
-SWV_RowCount INT;
-
-BEGIN
-    -- get first the id from which to remove in order to use index
-    SELECT audit_log_id
-    INTO v_id
-    FROM audit_log
-    WHERE LOG_TIME < v_date
-    ORDER BY audit_log_id DESC LIMIT 1;
-
-    -- check if there are candidates to remove
-    GET DIAGNOSTICS SWV_RowCount = ROW_COUNT;
-
-    IF (SWV_RowCount > 0) THEN
-        DELETE
-        FROM audit_log
-        WHERE audit_log_id <= v_id;
-    END IF;
-END;$PROCEDURE$
-LANGUAGE plpgsql;
-
 CREATE OR REPLACE FUNCTION DeleteAuditAlertLogByVdsIDAndType (
     v_vds_id UUID,
     v_log_type INT
@@ -545,20 +520,23 @@ DECLARE v_now_dt TIMESTAMP
 WITH TIME zone;
 
 BEGIN
+    v_now_dt := CURRENT_TIMESTAMP;
+
+    -- Only the partitions of the last v_wait_for_sec seconds are scanned, older events don't require waiting
     IF EXISTS (
             SELECT 1
             FROM audit_log
             WHERE vds_name = v_vds_name
                 AND log_type_name = v_event
+                AND log_time > v_now_dt - v_wait_for_sec * INTERVAL '1 second'
             ) THEN
     BEGIN
         v_last_event_dt := log_time
         FROM audit_log
         WHERE vds_name = v_vds_name
             AND log_type_name = v_event
-        ORDER BY audit_log_id DESC limit 1;
-
-        v_now_dt := CURRENT_TIMESTAMP;
+            AND log_time > v_now_dt - v_wait_for_sec * INTERVAL '1 second'
+        ORDER BY log_time DESC, audit_log_id DESC limit 1;
 
         RETURN cast((extract(epoch FROM v_last_event_dt) + v_wait_for_sec) - extract(epoch FROM v_now_dt) AS INT);
     END;
@@ -599,4 +577,43 @@ BEGIN
 END;$PROCEDURE$
 LANGUAGE plpgsql;
 
+-- Notifies the listeners of the audit_log channel, i.e. ovirt-engine-notifier, that new entries were added.
+-- PostgreSQL serializes the commits of all the transactions which sent notifications, so the notification is sent
+-- only if an entry was added for an event someone is subscribed to, either directly or as the event it was mapped
+-- to in event_map. The other events are left to the periodic iteration of the notifier. The notification is sent
+-- once per statement and delivered on commit, notifications of a transaction are coalesced by PostgreSQL.
+DROP TRIGGER
+
+IF EXISTS notify_audit_log_inserted
+    ON audit_log;
+
+CREATE OR REPLACE FUNCTION fn_audit_log_inserted ()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF EXISTS (
+            SELECT 1
+            FROM inserted_audit_log al
+            INNER JOIN event_subscriber es
+                ON al.log_type_name = es.event_up_name
+            )
+        OR EXISTS (
+            SELECT 1
+            FROM inserted_audit_log al
+            INNER JOIN event_map em
+                ON al.log_type_name = em.event_down_name
+            INNER JOIN event_subscriber es
+                ON em.event_up_name = es.event_up_name
+            ) THEN
+        PERFORM pg_notify('audit_log', '');
+    END IF;
+
+    RETURN NULL;
+END;$$
+LANGUAGE plpgsql;
 
+CREATE TRIGGER notify_audit_log_inserted AFTER
+INSERT
+    ON audit_log
+REFERENCING NEW TABLE AS inserted_audit_log
+FOR EACH STATEMENT
+EXECUTE FUNCTION fn_audit_log_inserted();
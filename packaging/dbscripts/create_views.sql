@@ -1544,6 +1544,51 @@ FROM vm_dynamic
 INNER JOIN vm_static
     ON vm_static.vm_guid = vm_dynamic.vm_guid;
 
+-- Narrow views of the VMs for the monitoring and scheduling reads that need only a few of the columns of vms
+CREATE OR REPLACE VIEW vms_placement_view AS
+
+SELECT vm_dynamic.vm_guid,
+    vm_dynamic.status,
+    vm_dynamic.run_on_vds,
+    vm_dynamic.migrating_to_vds,
+    vm_static.vm_name,
+    vm_static.cluster_id,
+    vm_static.origin,
+    vm_static.migration_support
+FROM vm_dynamic
+INNER JOIN vm_static
+    ON vm_static.vm_guid = vm_dynamic.vm_guid;
+
+CREATE OR REPLACE VIEW vms_runtime_status_view AS
+
+SELECT vm_dynamic.vm_guid,
+    vm_dynamic.status,
+    vm_dynamic.run_on_vds,
+    vm_dynamic.exit_status,
+    vm_static.vm_name,
+    vm_static.origin,
+    vm_pool_map.vm_pool_id
+FROM vm_dynamic
+INNER JOIN vm_static
+    ON vm_static.vm_guid = vm_dynamic.vm_guid
+LEFT JOIN vm_pool_map
+    ON vm_pool_map.vm_guid = vm_dynamic.vm_guid;
+
+CREATE OR REPLACE VIEW vms_memory_view AS
+
+SELECT vm_dynamic.vm_guid,
+    vm_dynamic.status,
+    vm_dynamic.run_on_vds,
+    vm_static.vm_name,
+    vm_static.cluster_id,
+    vm_static.origin,
+    vm_static.mem_size_mb,
+    vm_static.max_memory_size_mb,
+    vm_static.min_allocated_mem
+FROM vm_dynamic
+INNER JOIN vm_static
+    ON vm_static.vm_guid = vm_dynamic.vm_guid;
+
 CREATE OR REPLACE VIEW vms_with_tags AS
 
 SELECT DISTINCT vms.vm_name,
@@ -0,0 +1,53 @@
+--#source audit_log_partitions_sp.sql
+-- Converts audit_log into a table partitioned by log_time, so old entries are removed by dropping whole partitions
+-- instead of deleting them row by row.
+ALTER TABLE audit_log RENAME TO audit_log_unpartitioned;
+ALTER SEQUENCE audit_log_seq OWNED BY NONE;
+
+-- A foreign key can't reference the partitioned table by audit_log_id alone,
+-- the entries of event_notification_hist are removed together with their partitions instead
+ALTER TABLE event_notification_hist DROP CONSTRAINT IF EXISTS fk_event_notification_hist_audit_log;
+
+CREATE TABLE audit_log (LIKE audit_log_unpartitioned INCLUDING DEFAULTS)
+PARTITION BY RANGE (log_time);
+
+CREATE TABLE audit_log_default PARTITION OF audit_log DEFAULT;
+
+-- Daily partitions are created only for the entries that are kept by AuditLogAgingThreshold, older entries are
+-- left in the default partition until the next cleanup removes them
+SELECT CreateAuditLogPartitions(
+    GREATEST(
+        COALESCE((SELECT MIN(log_time) FROM audit_log_unpartitioned), CURRENT_TIMESTAMP),
+        CURRENT_TIMESTAMP - COALESCE((
+                SELECT option_value::INTEGER
+                FROM vdc_options
+                WHERE option_name = 'AuditLogAgingThreshold'
+                    AND version = 'general'
+                ), 30) * INTERVAL '1 day'),
+    CURRENT_TIMESTAMP + INTERVAL '7 days');
+
+INSERT INTO audit_log
+SELECT *
+FROM audit_log_unpartitioned;
+
+DROP TABLE audit_log_unpartitioned;
+
+-- The partition key has to be a part of the primary key and of any unique index
+ALTER TABLE audit_log ADD CONSTRAINT pk_audit_log PRIMARY KEY (audit_log_id, log_time);
+
+-- Uniqueness of the custom event id of external events is validated by AddExternalEventCommand,
+-- under an engine lock of the id
+CREATE INDEX audit_log_origin_custom_event_id_idx ON audit_log (origin, custom_event_id) WHERE origin !~~* 'ovirt';
+CREATE INDEX idx_audit_correlation_id ON audit_log (correlation_id);
+CREATE INDEX idx_audit_log_deleted ON audit_log (deleted);
+CREATE INDEX idx_audit_log_gluster_volume_id ON audit_log (gluster_volume_id) WHERE gluster_volume_id IS NOT NULL;
+CREATE INDEX idx_audit_log_job_id ON audit_log (job_id);
+CREATE INDEX idx_audit_log_log_time ON audit_log (log_time, audit_log_id);
+CREATE INDEX idx_audit_log_severity ON audit_log (severity);
+CREATE INDEX idx_audit_log_storage_domain_name ON audit_log (storage_domain_name);
+CREATE INDEX idx_audit_log_storage_pool_name ON audit_log (storage_pool_name);
+CREATE INDEX idx_audit_log_type_name ON audit_log (log_type, log_type_name);
+CREATE INDEX idx_audit_log_user_name ON audit_log (user_name);
+CREATE INDEX idx_audit_log_vds_name ON audit_log (vds_name);
+CREATE INDEX idx_audit_log_vm_name ON audit_log (vm_name);
+CREATE INDEX idx_audit_log_vm_template_name ON audit_log (vm_template_name);
@@ -52,6 +52,7 @@ select fn_db_rename_config_key('MaxNumOfTriesToRunFailedAutoStartVm','NumOfTries
 select fn_db_add_config_value('BootstrapMinimalVdsmVersion','4.9','general');
 select fn_db_add_config_value('AffinityRulesEnforcementManagerEnabled', 'true', 'general');
 select fn_db_add_config_value('AffinityRulesEnforcementManagerRegularInterval', '1', 'general');
+select fn_db_add_config_value('AffinityRulesEnforcementManagerMaxMigrationsPerCluster', '3', 'general');
 
 select fn_db_add_config_value('AgentAppName','ovirt-guest-agent-common,ovirt-guest-agent','general');
 select fn_db_add_config_value('AllowClusterWithVirtGlusterEnabled','true','general');
@@ -69,6 +70,9 @@ select fn_db_add_config_value('CoCoWaitForEventInMinutes','300','general');
 select fn_db_add_config_value('CommandEntityAgingThreshold','30','general');
 select fn_db_add_config_value('CommandEntityCleanupTime','03:35:35','general');
 select fn_db_add_config_value('MaintenanceVdsIgnoreExternalVms','false','general');
+select fn_db_add_config_value('EvacuationInitialConcurrentMigrations','2','general');
+select fn_db_add_config_value('EvacuationMaxConcurrentMigrations','8','general');
+select fn_db_add_config_value('EvacuationMigrationStallTimeoutInSeconds','60','general');
 select fn_db_add_config_value('OnlyRequiredNetworksMandatoryForVdsSelection','false','general');
 select fn_db_add_config_value('RepeatEndMethodsOnFailMaxRetries','5','general');
 select fn_db_add_config_value('ForemanResponsePageSize','9999','general');
@@ -134,6 +138,8 @@ select fn_db_add_config_value('FenceStopStatusRetries','3','general');
 select fn_db_add_config_value('FencePowerWaitParam','apc=power_wait,apc_snmp=power_wait,bladecenter=power_wait,cisco_ucs=power_wait,drac5=power_wait,drac7=power_wait,eps=delay,hpblade=power_wait,ilo=power_wait,ilo2=power_wait,ilo3=power_wait,ilo4=power_wait,ipmilan=power_wait,redfish=power_wait,rsa=power_wait,rsb=power_wait,wti=power_wait','general');
 select fn_db_add_config_value('FindFenceProxyDelayBetweenRetriesInSec','30','general');
 select fn_db_add_config_value('FindFenceProxyRetries','3','general');
+select fn_db_add_config_value('FenceProxyMaxConcurrentOperations','5','general');
+select fn_db_add_config_value('FencingMaxConcurrentHosts','20','general');
 select fn_db_add_config_value('CriticalSpaceActionBlocker','5','general');
 select fn_db_add_config_value('WarningLowSpaceIndicator','10','general');
 --Handling how io disk errors propagated
@@ -152,6 +158,8 @@ select fn_db_add_config_value('GlusterPeerStatusRetries', '2', 'general');
 select fn_db_add_config_value('GlusterTaskMinWaitForCleanupInMins', '10', 'general');
 select fn_db_add_config_value('GlusterRefreshRateHealInfo', '600', 'general');
 select fn_db_add_config_value('GlusterUnSyncedEntriesHistoryLimit', '40', 'general');
+select fn_db_add_config_value('GlusterRefreshClustersParallelism', '4', 'general');
+select fn_db_add_config_value('GlusterClusterRefreshTimeoutInSecs', '60', 'general');
 select fn_db_add_config_value_for_versions_up_to('LibgfApiSupported', 'false', '4.7');
 select fn_db_add_config_value_for_versions_up_to('UseNativeIOForGluster', 'false', '4.7');
 select fn_db_add_config_value('GlusterVolumeFreeSpaceThresholdInPercent', '20', 'general');
@@ -317,6 +325,7 @@ select fn_db_add_config_value('IPTablesConfigSiteCustom','','general');
 select fn_db_add_config_value('IsMultilevelAdministrationOn','true','general');
 select fn_db_add_config_value('JobCleanupRateInMinutes','10','general');
 select fn_db_add_config_value('JobPageSize','100','general');
+select fn_db_add_config_value('JobStepsFlushIntervalInMillis','500','general');
 select fn_db_add_config_value('LeaseRetries','3','general');
 select fn_db_add_config_value('LeaseTimeSec','60','general');
 --Handling Enable lock policy for Storage Pool Manager on activation
@@ -649,6 +658,7 @@ select fn_db_add_config_value('VdsLocalDisksCriticallyLowFreeSpace','100','gener
 select fn_db_add_config_value('VdsLocalDisksLowFreeSpace','100','general');
 select fn_db_add_config_value('VdsRecoveryTimeoutInMinutes','3','general');
 select fn_db_add_config_value('VdsRefreshRate','2','general');
+select fn_db_add_config_value('VmStatusEventsBufferSize','100','general');
 select fn_db_add_config_value('vdsRetries','0','general');
 select fn_db_add_config_value('vdsTimeout','180','general');
 select fn_db_add_config_value('WindowsGuestAgentUpdateCheckInternal', '180', 'general');
@@ -666,6 +676,9 @@ select fn_db_add_config_value('VmPoolMaxSubsequentFailures','3','general');
 select fn_db_add_config_value('VmPoolMonitorBatchSize','5','general');
 select fn_db_add_config_value('VmPoolMonitorIntervalInMinutes','5','general');
 select fn_db_add_config_value('VmPoolMonitorMaxAttempts','3','general');
+select fn_db_add_config_value('VmPoolMonitorMaxConcurrentStarts','10','general');
+select fn_db_add_config_value('VmPoolMonitorMaxStartsPerHost','5','general');
+select fn_db_add_config_value('VmPoolMonitorMaxStartsPerStorageDomain','20','general');
 select fn_db_add_config_value('VmPriorityMaxValue','100','general');
 --How often we'll go over the HA VMs that went down and try to restart them
 select fn_db_add_config_value('AutoStartVmsRunnerIntervalInSeconds','1','general');
@@ -680,6 +693,8 @@ select fn_db_add_config_value('DelayToRunAutoStartVmIntervalInSeconds','10','gen
 --How many times we try to wait for the HA VM NextRun configuration to be applied
 select fn_db_add_config_value('MaxNumOfSkipsBeforeAutoStartVm','3','general');
 select fn_db_add_config_value('MaxTimeAutoStartBlockedOnPriority','600','general');
+--How many HA VMs we run concurrently
+select fn_db_add_config_value('AutoStartVmsRunnerMaxConcurrentStarts','10','general');
 --Handling Keyboard Layout configuration for VNC
 select fn_db_add_config_value('VncKeyboardLayout','en-us','general');
 select fn_db_add_config_value('VncKeyboardLayoutValidValues','ar,da,de,de-ch,en-gb,en-us,es,et,fi,fo,fr,fr-be,fr-ca,fr-ch,hr,hu,is,it,ja,lt,lv,mk,nl,no,pl,pt,pt-br,ru,sl,sv,th,tr','general');
@@ -895,6 +910,7 @@ select fn_db_add_config_value('MigrationThresholdForEvenGuestDistribute', '5', '
 select fn_db_add_config_value('MinimumPercentageToUpdateQuotaCache', '60', 'general');
 select fn_db_add_config_value('MultiFirewallSupportSince', '4.0', 'general');
 select fn_db_add_config_value('QuotaCacheIntervalInMinutes', '10', 'general');
+select fn_db_add_config_value('QuotaUsageReconciliationIntervalInMinutes', '60', 'general');
 select fn_db_add_config_value('RepoDomainInvalidateCacheTimeInMinutes', '1', 'general');
 select fn_db_add_config_value('SSHDefaultKeyDigest', 'SHA-256', 'general');
 select fn_db_add_config_value('SSHKeyAlias', 'ovirt-engine', 'general');
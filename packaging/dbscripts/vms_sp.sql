@@ -1727,6 +1727,19 @@ END; $procedure$
 LANGUAGE plpgsql;
 
 
+Create or replace FUNCTION GetVmsDynamicRunningOnCluster(v_cluster_id UUID) RETURNS SETOF vm_dynamic STABLE
+   AS $procedure$
+BEGIN
+      RETURN QUERY SELECT vm_dynamic.*
+      FROM vm_dynamic
+      INNER JOIN vm_static
+          ON vm_static.vm_guid = vm_dynamic.vm_guid
+      WHERE vm_static.cluster_id = v_cluster_id
+          AND vm_dynamic.run_on_vds IS NOT NULL;
+END; $procedure$
+LANGUAGE plpgsql;
+
+
 
 CREATE OR REPLACE FUNCTION IsAnyVmRunOnVds(v_vds_id UUID)
 RETURNS SETOF booleanResultType STABLE
@@ -1974,6 +1987,52 @@ BEGIN
 END; $procedure$
 LANGUAGE plpgsql;
 
+CREATE OR REPLACE FUNCTION GetRunningVmsPlacementByClusterId(v_cluster_id UUID)
+RETURNS SETOF vms_placement_view STABLE AS $PROCEDURE$
+BEGIN
+    RETURN QUERY
+
+    SELECT vms_placement_view.*
+    FROM vms_placement_view
+    WHERE run_on_vds IS NOT NULL
+        AND cluster_id = v_cluster_id;
+END;$PROCEDURE$
+LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION GetVmsRuntimeStatusRunningOnVds(v_vds_id UUID)
+RETURNS SETOF vms_runtime_status_view STABLE AS $PROCEDURE$
+BEGIN
+    RETURN QUERY
+
+    SELECT vms_runtime_status_view.*
+    FROM vms_runtime_status_view
+    WHERE run_on_vds = v_vds_id;
+END;$PROCEDURE$
+LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION GetVmsRuntimeStatusByVmPoolId(v_vm_pool_id UUID)
+RETURNS SETOF vms_runtime_status_view STABLE AS $PROCEDURE$
+BEGIN
+    RETURN QUERY
+
+    SELECT vms_runtime_status_view.*
+    FROM vms_runtime_status_view
+    WHERE vm_pool_id = v_vm_pool_id;
+END;$PROCEDURE$
+LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION GetHostedEngineVmMemory()
+RETURNS SETOF vms_memory_view STABLE AS $PROCEDURE$
+BEGIN
+    RETURN QUERY
+
+    SELECT vms_memory_view.*
+    FROM vms_memory_view
+    WHERE origin = 5
+        OR origin = 6;
+END;$PROCEDURE$
+LANGUAGE plpgsql;
+
 ---------------------
 -- vm_init functions
 ---------------------